@@ -0,0 +1,26 @@
+package common.types;
+
+/**
+ * Enum que define los campos por los que se pueden ordenar los resultados de una consulta
+ */
+public enum CampoOrden {
+    /**
+     * Ordena por el ID del artículo
+     */
+    ID,
+    
+    /**
+     * Ordena por el nombre del artículo
+     */
+    NOMBRE,
+    
+    /**
+     * Ordena por el autor del artículo
+     */
+    AUTOR,
+    
+    /**
+     * Ordena por el año de publicación
+     */
+    ANIO
+}
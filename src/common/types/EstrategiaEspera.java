@@ -0,0 +1,27 @@
+package common.types;
+
+/**
+ * Enum que define cómo espera un suscriptor del bus de eventos a que se publiquen eventos nuevos
+ */
+public enum EstrategiaEspera {
+    /**
+     * Espera activa: la menor latencia, a costa de ocupar un núcleo
+     */
+    OCUPADA,
+
+    /**
+     * Cede el procesador entre comprobaciones: baja latencia con menos consumo que la espera activa
+     */
+    CEDER,
+
+    /**
+     * Duerme brevemente entre comprobaciones: poco consumo, latencia de hasta un intervalo
+     */
+    DORMIR,
+
+    /**
+     * Se bloquea hasta que un escritor le avisa: sin consumo en reposo; los escritores solo
+     * pagan el aviso cuando hay algún suscriptor bloqueado
+     */
+    BLOQUEANTE
+}
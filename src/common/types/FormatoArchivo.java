@@ -0,0 +1,21 @@
+package common.types;
+
+/**
+ * Enum que define los formatos de archivo para importar y exportar artículos
+ */
+public enum FormatoArchivo {
+    /**
+     * Valores separados por comas (RFC 4180), con una fila de cabecera con los nombres de las columnas
+     */
+    CSV,
+
+    /**
+     * Un objeto JSON por línea, con las claves de CodecJson
+     */
+    JSONL,
+
+    /**
+     * Entradas BibTeX (@article{...}); solo se admite en la importación
+     */
+    BIBTEX
+}
@@ -0,0 +1,17 @@
+package common.types;
+
+/**
+ * Enum que define cómo guarda el historial en memoria los artículos de sus eventos
+ */
+public enum ModoHistorial {
+    /**
+     * Cada evento guarda el artículo completo
+     */
+    COMPLETO,
+
+    /**
+     * Cada evento guarda solo los campos que cambian respecto al evento anterior del mismo
+     * artículo, con un evento completo periódico como punto de control
+     */
+    DELTA
+}
@@ -0,0 +1,27 @@
+package common.types;
+
+/**
+ * Enum que define las implementaciones de repositorio disponibles
+ * a través de ArtCientificoRepositoryFactory
+ */
+public enum TipoRepositorio {
+    /**
+     * Repositorio en memoria pensado para un único hilo
+     */
+    MEMORIA,
+
+    /**
+     * Repositorio en memoria seguro para varios hilos escritores
+     */
+    CONCURRENTE,
+
+    /**
+     * Repositorio concurrente respaldado por un log de escritura anticipada en disco
+     */
+    PERSISTENTE,
+
+    /**
+     * Repositorio con los artículos en segmentos mapeados en memoria, para colecciones mayores que el heap
+     */
+    MAPEADO
+}
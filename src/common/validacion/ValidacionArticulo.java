@@ -0,0 +1,45 @@
+package common.validacion;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Reglas de validación de los campos de un artículo, compartidas por la entrada interactiva
+ * de la vista, la importación desde archivos y los builders del DTO y del modelo
+ */
+public final class ValidacionArticulo {
+
+    private ValidacionArticulo() {
+    }
+
+    /**
+     * Interpreta el año de publicación, que es opcional: un texto en blanco equivale a no
+     * indicarlo y cualquier otro valor debe ser un número entero
+     * @param texto el texto introducido o leído
+     * @return Optional con el año, o vacío si el texto es nulo o está en blanco
+     * @throws NumberFormatException si el texto no es un número entero válido
+     */
+    public static Optional<Integer> anioOpcional(String texto) {
+        return Optional.ofNullable(texto)
+            .map(String::trim)
+            .filter(anio -> !anio.isEmpty())
+            .map(Integer::parseInt);
+    }
+
+    /**
+     * Prepara la lista de palabras clave que guarda un artículo: una copia inmutable sin los
+     * elementos null, que se descartan. Si la lista no tiene null se usa List.copyOf, que
+     * reutiliza sin copiarla una lista que ya es inmutable.
+     * @param palabrasClaves la lista recibida
+     * @return la lista inmutable sin null
+     */
+    public static List<String> palabrasClavesSinNulos(List<String> palabrasClaves) {
+        for (String palabra : palabrasClaves) {
+            if (palabra == null) {
+                return palabrasClaves.stream().filter(Objects::nonNull).toList();
+            }
+        }
+        return List.copyOf(palabrasClaves);
+    }
+}
@@ -1,6 +1,11 @@
 package controller;
 
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -8,8 +13,13 @@ import java.util.stream.Collectors;
 import dto.ArtCientificoDTO;
 import view.ArtCientificoView;
 import service.ArtCientificoService;
+import service.exportacion.InformeExportacion;
+import service.importacion.InformeImportacion;
+import common.types.CampoOrden;
+import common.types.FormatoArchivo;
 import common.types.TipoEvento;
 import repository.EventoHistorial;
+import repository.consulta.PaginaArticulos;
 
 /**
  * Controlador para la gestión de artículos científicos
@@ -18,6 +28,9 @@ import repository.EventoHistorial;
  */
 public class ArtCientificoController {
     
+    // Artículos por página al listar todos los artículos
+    private static final int TAMANIO_PAGINA_LISTADO = 20;
+    
     private final ArtCientificoView vista;
     private final ArtCientificoService servicio;
     
@@ -30,6 +43,8 @@ public class ArtCientificoController {
     public final Runnable eliminarArticulo;
     public final Runnable restaurarArticulo;
     public final Runnable mostrarHistorialEventos;
+    public final Runnable importarArticulos;
+    public final Runnable exportarArticulos;
     public final Supplier<Boolean> procesarOpcionMenu;
     public final Runnable iniciarAplicacion;
     
@@ -51,6 +66,8 @@ public class ArtCientificoController {
         this.eliminarArticulo = this::ejecutarEliminarArticulo;
         this.restaurarArticulo = this::ejecutarRestaurarArticulo;
         this.mostrarHistorialEventos = this::ejecutarMostrarMenuHistorial;
+        this.importarArticulos = this::ejecutarImportarArticulos;
+        this.exportarArticulos = this::ejecutarExportarArticulos;
         this.procesarOpcionMenu = this::ejecutarProcesarOpcionMenu;
         this.iniciarAplicacion = this::ejecutarIniciarAplicacion;
     }
@@ -118,8 +135,16 @@ public class ArtCientificoController {
      */
     private void ejecutarListarArticulos() {
         vista.mostrarMensaje.accept("\n=== LISTAR TODOS LOS ARTÍCULOS ===");
-        Optional<List<ArtCientificoDTO>> articulos = servicio.obtenerTodos();
-        vista.mostrarListaArticulos.accept(articulos);
+        // Se muestra página a página, pidiendo cada una solo si el usuario quiere continuar
+        Optional<Long> cursor = Optional.empty();
+        int numeroPagina = 1;
+        boolean continuar = true;
+        while (continuar) {
+            PaginaArticulos pagina = servicio.obtenerPagina(cursor, TAMANIO_PAGINA_LISTADO);
+            vista.mostrarPaginaArticulos.accept(pagina, numeroPagina++);
+            cursor = pagina.getSiguienteCursor();
+            continuar = !pagina.esUltima() && vista.confirmar.apply("¿Mostrar la siguiente página?");
+        }
     }
     
     /**
@@ -259,6 +284,84 @@ public class ArtCientificoController {
         );
     }
     
+    /**
+     * Lógica para importar artículos desde un archivo CSV, JSONL o BibTeX
+     */
+    private void ejecutarImportarArticulos() {
+        vista.mostrarMensaje.accept("\n=== IMPORTAR ARTÍCULOS ===");
+        Optional<Path> archivo = vista.solicitarValor.apply("Ingrese la ruta del archivo: ")
+            .map(String::trim)
+            .filter(ruta -> !ruta.isEmpty())
+            .map(Path::of)
+            .filter(Files::isRegularFile);
+        if (archivo.isEmpty()) {
+            vista.mostrarError.accept("No se encontró el archivo indicado");
+            return;
+        }
+        Optional<FormatoArchivo> formato = vista.solicitarValor.apply("Ingrese el formato (csv, jsonl, bibtex): ")
+            .map(texto -> texto.trim().toUpperCase(Locale.ROOT))
+            .flatMap(texto -> Arrays.stream(FormatoArchivo.values())
+                .filter(valor -> valor.name().equals(texto))
+                .findFirst());
+        if (formato.isEmpty()) {
+            vista.mostrarError.accept("Formato no válido");
+            return;
+        }
+        try {
+            InformeImportacion informe = servicio.importar(archivo.get(), formato.get(), vista.mostrarInformeImportacion);
+            if (informe.getImportados() > 0) {
+                vista.mostrarExito.accept("Importación terminada");
+            }
+        } catch (UncheckedIOException | IllegalArgumentException | IllegalStateException e) {
+            vista.mostrarError.accept("No se pudo importar el archivo: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Lógica para exportar todo el catálogo a un archivo CSV o JSONL, ordenado por un campo
+     */
+    private void ejecutarExportarArticulos() {
+        vista.mostrarMensaje.accept("\n=== EXPORTAR ARTÍCULOS ===");
+        Optional<Path> archivo = vista.solicitarValor.apply("Ingrese la ruta del archivo de destino: ")
+            .map(String::trim)
+            .filter(ruta -> !ruta.isEmpty())
+            .map(Path::of)
+            .filter(ruta -> !Files.isDirectory(ruta));
+        if (archivo.isEmpty()) {
+            vista.mostrarError.accept("Ruta de destino no válida");
+            return;
+        }
+        Optional<FormatoArchivo> formato = vista.solicitarValor.apply("Ingrese el formato (csv, jsonl): ")
+            .map(texto -> texto.trim().toUpperCase(Locale.ROOT))
+            .flatMap(texto -> Arrays.stream(FormatoArchivo.values())
+                .filter(valor -> valor != FormatoArchivo.BIBTEX)
+                .filter(valor -> valor.name().equals(texto))
+                .findFirst());
+        if (formato.isEmpty()) {
+            vista.mostrarError.accept("Formato no válido");
+            return;
+        }
+        // Un campo en blanco deja el orden de ID
+        Optional<String> campo = vista.solicitarValor.apply("Ordenar por (id, nombre, autor, anio) [id]: ")
+            .map(texto -> texto.trim().toUpperCase(Locale.ROOT))
+            .filter(texto -> !texto.isEmpty());
+        Optional<CampoOrden> orden = campo.flatMap(texto -> Arrays.stream(CampoOrden.values())
+            .filter(valor -> valor.name().equals(texto))
+            .findFirst());
+        if (campo.isPresent() && orden.isEmpty()) {
+            vista.mostrarError.accept("Campo de orden no válido");
+            return;
+        }
+        boolean ascendente = !vista.confirmar.apply("¿Orden descendente?");
+        try {
+            InformeExportacion informe = servicio.exportar(Optional.empty(), archivo.get(), formato.get(),
+                orden, ascendente);
+            vista.mostrarExito.accept("Exportación terminada: " + informe);
+        } catch (UncheckedIOException | IllegalArgumentException e) {
+            vista.mostrarError.accept("No se pudo exportar: " + e.getMessage());
+        }
+    }
+    
     /**
      * Lógica para mostrar el menú de historial de eventos y procesar la opción
      */
@@ -307,6 +410,8 @@ public class ArtCientificoController {
                     case 5 -> { eliminarArticulo.run(); yield true; }
                     case 6 -> { restaurarArticulo.run(); yield true; }
                     case 7 -> { mostrarHistorialEventos.run(); yield true; }
+                    case 8 -> { importarArticulos.run(); yield true; }
+                    case 9 -> { exportarArticulos.run(); yield true; }
                     case 0 -> false; // Devuelve false directamente
                     default -> {
                         vista.mostrarError.accept("Opción no válida");
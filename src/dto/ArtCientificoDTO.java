@@ -2,10 +2,15 @@ package dto;
 
 import java.util.Optional;
 import java.util.List;
-import java.util.ArrayList;
+
+import common.validacion.ValidacionArticulo;
 
 /**
  * Clase DTO (Data Transfer Object) para artículos científicos
+ * <p>
+ * Es inmutable: cada Optional se crea una sola vez al construir el DTO y los getters devuelven
+ * siempre la misma instancia, y la lista de palabras clave es inmutable, así que se comparte sin
+ * copiarla. Leer un artículo no reserva memoria, lo que importa en los recorridos con filtros.
  */
 public class ArtCientificoDTO {
     
@@ -53,11 +58,11 @@ public class ArtCientificoDTO {
     }
     
     /**
-     * Obtiene las palabras clave del artículo científico
-     * @return Optional que contiene la lista de palabras clave o vacío si no existe
+     * Obtiene las palabras clave del artículo científico, sin copiarlas
+     * @return Optional que contiene la lista inmutable de palabras clave o vacío si no existe
      */
     public Optional<List<String>> getPalabrasClaves() {
-        return palabrasClaves.map(lista -> new ArrayList<>(lista));
+        return palabrasClaves;
     }
     
     /**
@@ -102,6 +107,20 @@ public class ArtCientificoDTO {
         public BuilderDTO() {
         }
         
+        /**
+         * Crea un builder con los valores de un artículo existente, para cambiar solo algunos campos.
+         * Los campos que no se cambien se comparten con el artículo de partida, sin copiarlos.
+         * @param base el artículo de partida
+         */
+        public BuilderDTO(ArtCientificoDTO base) {
+            this.id = base.id;
+            this.nombre = base.nombre;
+            this.autor = base.autor;
+            this.palabrasClaves = base.palabrasClaves;
+            this.anio = base.anio;
+            this.resumen = base.resumen;
+        }
+        
         /**
          * Establece el ID del artículo científico
          * @param id el ID del artículo
@@ -133,13 +152,15 @@ public class ArtCientificoDTO {
         }
         
         /**
-         * Establece la lista de palabras clave del artículo científico
+         * Establece la lista de palabras clave del artículo científico.
+         * Se guarda una copia inmutable sin los elementos null; si la lista ya es inmutable
+         * (List.of, List.copyOf) se reutiliza sin copiarla.
          * @param palabrasClaves lista de palabras clave
          * @return el builder para encadenamiento
          */
         public BuilderDTO conPalabrasClaves(List<String> palabrasClaves) {
             this.palabrasClaves = Optional.ofNullable(palabrasClaves)
-                                         .map(lista -> new ArrayList<>(lista));
+                .map(ValidacionArticulo::palabrasClavesSinNulos);
             return this;
         }
         
@@ -0,0 +1,131 @@
+package herramientas;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import dto.ArtCientificoDTO;
+import mapper.ArtCientificoMapper;
+import model.ArtCientificoModel;
+import repository.consulta.Criterio;
+import repository.impl.ArtCientificoRepositoryConcurrenteImpl;
+
+/**
+ * Herramienta de línea de comandos que mide los bytes reservados en el heap por operación
+ * en los caminos más frecuentes: lectura de campos de un DTO, recorridos con filtros,
+ * conversión a modelo, alta y actualización.
+ * <p>
+ * Usa el contador de bytes reservados por hilo de la JVM (com.sun.management.ThreadMXBean),
+ * que incluye todo lo que reserva el hilo actual. Cada escenario se repite varias veces antes de
+ * medir, para que el resultado corresponda al código ya compilado por el JIT.
+ * <p>
+ * Uso: java herramientas.MedicionAsignaciones [articulos]
+ */
+public class MedicionAsignaciones {
+
+    private static final int RONDAS_CALENTAMIENTO = 5;
+
+    // Acumula resultados para que el JIT no elimine el trabajo medido
+    private static volatile long sumidero;
+
+    /**
+     * Escenario medido: devuelve un valor derivado de su trabajo
+     */
+    @FunctionalInterface
+    private interface Escenario {
+        long ejecutar();
+    }
+
+    /**
+     * Método principal de la herramienta
+     * @param args número de artículos
+     */
+    public static void main(String[] args) {
+        int numeroArticulos = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!hilos.isThreadAllocatedMemorySupported()) {
+            System.err.println("Esta JVM no permite medir la memoria reservada por hilo");
+            return;
+        }
+        hilos.setThreadAllocatedMemoryEnabled(true);
+
+        ArtCientificoRepositoryConcurrenteImpl repositorio = new ArtCientificoRepositoryConcurrenteImpl();
+        IntStream.range(0, numeroArticulos).forEach(i -> repositorio.crearNuevo(articulo(i)));
+        List<ArtCientificoDTO> articulos = repositorio.obtenerTodos().orElse(List.of());
+        Criterio porPalabra = Criterio.contienePalabraClave("clave7");
+        Criterio porAnio = Criterio.anioEntre(1990, 1999);
+
+        System.out.printf("%-28s %14s%n", "Escenario", "bytes/op");
+        medir(hilos, "leer campos del DTO", articulos.size(), () -> {
+            long total = 0;
+            for (ArtCientificoDTO articulo : articulos) {
+                // Sin map(...) para no medir el boxing de las longitudes, solo los getters
+                total += articulo.getId().orElse(0L) + articulo.getAnio().orElse(0)
+                    + articulo.getNombre().orElse("").length()
+                    + articulo.getAutor().orElse("").length()
+                    + articulo.getPalabrasClaves().orElse(List.of()).size()
+                    + articulo.getResumen().orElse("").length();
+            }
+            return total;
+        });
+        medir(hilos, "filtrar por palabra clave", articulos.size(),
+            () -> articulos.stream().filter(porPalabra).count());
+        medir(hilos, "filtrar por rango de años", articulos.size(),
+            () -> articulos.stream().filter(porAnio).count());
+        medir(hilos, "convertir a modelo y volver", articulos.size(), () -> {
+            long total = 0;
+            for (ArtCientificoDTO articulo : articulos) {
+                Optional<ArtCientificoModel> modelo = ArtCientificoMapper.toModel.apply(Optional.of(articulo));
+                total += ArtCientificoMapper.toDTO.apply(modelo).flatMap(ArtCientificoDTO::getPalabrasClaves)
+                    .orElse(List.of()).size();
+            }
+            return total;
+        });
+
+        int operaciones = Math.min(numeroArticulos, 10_000);
+        ArtCientificoRepositoryConcurrenteImpl altas = new ArtCientificoRepositoryConcurrenteImpl();
+        medir(hilos, "crearNuevo", operaciones, () -> {
+            long total = 0;
+            for (int i = 0; i < operaciones; i++) {
+                total += altas.crearNuevo(articulo(i)).flatMap(ArtCientificoDTO::getId).orElse(0L);
+            }
+            return total;
+        });
+        medir(hilos, "actualizar", operaciones, () -> {
+            long total = 0;
+            for (int i = 0; i < operaciones; i++) {
+                total += repositorio.actualizar(new ArtCientificoDTO.BuilderDTO()
+                        .conId((long) i + 1)
+                        .conResumen("Resumen revisado " + (i % 10))
+                        .build())
+                    .flatMap(ArtCientificoDTO::getAnio).orElse(0);
+            }
+            return total;
+        });
+    }
+
+    private static ArtCientificoDTO articulo(int i) {
+        return new ArtCientificoDTO.BuilderDTO()
+            .conNombre("Artículo " + i)
+            .conAutor("Autor " + (i % 1000))
+            .conAnio(1950 + i % 75)
+            .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7)))
+            .conResumen("Resumen del artículo " + i)
+            .build();
+    }
+
+    /**
+     * Ejecuta el escenario varias veces para calentar el JIT y mide la última ejecución
+     */
+    private static void medir(com.sun.management.ThreadMXBean hilos, String nombre, int operaciones, Escenario escenario) {
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++) {
+            sumidero += escenario.ejecutar();
+        }
+        long hilo = Thread.currentThread().getId();
+        long antes = hilos.getThreadAllocatedBytes(hilo);
+        sumidero += escenario.ejecutar();
+        long reservados = hilos.getThreadAllocatedBytes(hilo) - antes;
+        System.out.printf("%-28s %14.1f%n", nombre, (double) reservados / operaciones);
+    }
+}
@@ -0,0 +1,186 @@
+package herramientas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+import repository.codec.CodecJson;
+
+/**
+ * Herramienta de línea de comandos que compara el tamaño y el tiempo de codificación y
+ * decodificación de artículos con CodecArticulo, con la serialización estándar de Java y con JSON.
+ * <p>
+ * ArtCientificoDTO no es Serializable (tampoco lo es Optional), así que para la serialización de
+ * Java se escribe un array con los valores de sus campos, que es lo mínimo que haría falta.
+ * <p>
+ * Uso: java herramientas.MedicionCodec [articulos] [rondas]
+ */
+public class MedicionCodec {
+
+    // Acumula los resultados decodificados para que el JIT no elimine el trabajo medido
+    private static volatile long sumidero;
+
+    /**
+     * Método principal de la herramienta
+     * @param args número de artículos y número de rondas medidas
+     */
+    public static void main(String[] args) {
+        int numeroArticulos = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rondas = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<ArtCientificoDTO> articulos = IntStream.range(0, numeroArticulos)
+            .mapToObj(i -> new ArtCientificoDTO.BuilderDTO()
+                .conId((long) i + 1)
+                .conNombre("Artículo " + i + " sobre análisis numérico")
+                .conAutor("Autor " + (i % 1000))
+                .conAnio(1950 + i % 75)
+                .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7), "métodos"))
+                .conResumen("Resumen del artículo " + i + " sobre el tema " + (i % 7) + ", con acentos: ñ, á, ü")
+                .build())
+            .collect(Collectors.toList());
+
+        System.out.printf("%-10s %12s %14s %14s%n", "Formato", "bytes/art", "codificar ns", "decodificar ns");
+        medir("binario", articulos, rondas, MedicionCodec::codificarBinario, MedicionCodec::decodificarBinario);
+        medir("java", articulos, rondas, MedicionCodec::codificarJava, MedicionCodec::decodificarJava);
+        medir("json", articulos, rondas,
+            articulo -> CodecJson.codificar(articulo).getBytes(StandardCharsets.UTF_8),
+            bytes -> CodecJson.decodificar(new String(bytes, StandardCharsets.UTF_8)));
+        medirBinarioSinCopias(articulos, rondas);
+    }
+
+    /**
+     * Mide un formato: una ronda de calentamiento y después la media por artículo de las rondas pedidas
+     */
+    private static void medir(String nombre, List<ArtCientificoDTO> articulos, int rondas,
+                              Function<ArtCientificoDTO, byte[]> codificar, Function<byte[], ArtCientificoDTO> decodificar) {
+        comprobarIdaYVuelta(nombre, articulos.get(articulos.size() - 1), codificar, decodificar);
+        byte[][] codificados = new byte[articulos.size()][];
+        long nanosCodificar = 0;
+        long nanosDecodificar = 0;
+        long bytes = 0;
+        long control = 0;
+        for (int ronda = 0; ronda <= rondas; ronda++) {
+            long inicio = System.nanoTime();
+            for (int i = 0; i < codificados.length; i++) {
+                codificados[i] = codificar.apply(articulos.get(i));
+            }
+            long medio = System.nanoTime();
+            for (byte[] codificado : codificados) {
+                control += decodificar.apply(codificado).getAnio().orElse(0);
+            }
+            long fin = System.nanoTime();
+            // La primera ronda solo calienta el JIT
+            if (ronda > 0) {
+                nanosCodificar += medio - inicio;
+                nanosDecodificar += fin - medio;
+            }
+        }
+        for (byte[] codificado : codificados) {
+            bytes += codificado.length;
+        }
+        long operaciones = (long) articulos.size() * rondas;
+        System.out.printf("%-10s %12.1f %14d %14d%n", nombre, (double) bytes / articulos.size(),
+            nanosCodificar / operaciones, nanosDecodificar / operaciones);
+        sumidero += control;
+    }
+
+    /**
+     * Mide el códec binario escribiendo y leyendo todos los artículos seguidos sobre un único buffer,
+     * como hacen el log y las instantáneas, sin un array por artículo
+     */
+    private static void medirBinarioSinCopias(List<ArtCientificoDTO> articulos, int rondas) {
+        ToIntFunction<ArtCientificoDTO> tamanio = CodecArticulo::tamanio;
+        ByteBuffer buffer = ByteBuffer.allocate(articulos.stream().mapToInt(tamanio).sum());
+        long nanosCodificar = 0;
+        long nanosDecodificar = 0;
+        long control = 0;
+        for (int ronda = 0; ronda <= rondas; ronda++) {
+            buffer.clear();
+            long inicio = System.nanoTime();
+            for (ArtCientificoDTO articulo : articulos) {
+                CodecArticulo.codificar(articulo, buffer);
+            }
+            long medio = System.nanoTime();
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                control += CodecArticulo.decodificar(buffer).getAnio().orElse(0);
+            }
+            long fin = System.nanoTime();
+            if (ronda > 0) {
+                nanosCodificar += medio - inicio;
+                nanosDecodificar += fin - medio;
+            }
+        }
+        long operaciones = (long) articulos.size() * rondas;
+        System.out.printf("%-10s %12.1f %14d %14d%n", "binario*", (double) buffer.limit() / articulos.size(),
+            nanosCodificar / operaciones, nanosDecodificar / operaciones);
+        System.out.println("* sobre un único buffer, sin array por artículo");
+        sumidero += control;
+    }
+
+    private static void comprobarIdaYVuelta(String nombre, ArtCientificoDTO articulo,
+                                            Function<ArtCientificoDTO, byte[]> codificar,
+                                            Function<byte[], ArtCientificoDTO> decodificar) {
+        ArtCientificoDTO leido = decodificar.apply(codificar.apply(articulo));
+        if (!leido.toString().equals(articulo.toString())) {
+            throw new IllegalStateException("El formato " + nombre + " no conserva el artículo: " + leido);
+        }
+    }
+
+    private static byte[] codificarBinario(ArtCientificoDTO articulo) {
+        byte[] bytes = new byte[CodecArticulo.tamanio(articulo)];
+        CodecArticulo.codificar(articulo, ByteBuffer.wrap(bytes));
+        return bytes;
+    }
+
+    private static ArtCientificoDTO decodificarBinario(byte[] bytes) {
+        return CodecArticulo.decodificar(ByteBuffer.wrap(bytes), 0);
+    }
+
+    private static byte[] codificarJava(ArtCientificoDTO articulo) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(new Object[] {
+                articulo.getId().orElse(null),
+                articulo.getNombre().orElse(null),
+                articulo.getAutor().orElse(null),
+                articulo.getPalabrasClaves().map(palabras -> palabras.toArray(new String[0])).orElse(null),
+                articulo.getAnio().orElse(null),
+                articulo.getResumen().orElse(null)
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static ArtCientificoDTO decodificarJava(byte[] bytes) {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            Object[] campos = (Object[]) entrada.readObject();
+            return new ArtCientificoDTO.BuilderDTO()
+                .conId((Long) campos[0])
+                .conNombre((String) campos[1])
+                .conAutor((String) campos[2])
+                .conPalabrasClaves(campos[3] == null ? null : List.of((String[]) campos[3]))
+                .conAnio((Integer) campos[4])
+                .conResumen((String) campos[5])
+                .build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
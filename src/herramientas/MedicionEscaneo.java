@@ -0,0 +1,88 @@
+package herramientas;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import dto.ArtCientificoDTO;
+import repository.consulta.Consulta;
+import repository.consulta.Criterio;
+import repository.impl.ArtCientificoRepositoryConcurrenteImpl;
+
+/**
+ * Herramienta de línea de comandos que compara una consulta analítica (artículos por año cuyas
+ * palabras clave están en un conjunto, fuera de un rango de años) resuelta sobre el índice
+ * columnar con la misma consulta evaluada artículo a artículo sobre los DTO, y comprueba que
+ * ambas dan el mismo resultado.
+ * <p>
+ * Cada variante se repite varias veces antes de medir, para que el resultado corresponda al
+ * código ya compilado por el JIT.
+ * <p>
+ * Uso: java herramientas.MedicionEscaneo [articulos]
+ */
+public class MedicionEscaneo {
+
+    private static final int RONDAS_CALENTAMIENTO = 5;
+    private static final int RONDAS_MEDIDAS = 5;
+
+    /**
+     * Método principal de la herramienta
+     * @param args número de artículos
+     */
+    public static void main(String[] args) {
+        int numeroArticulos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ArtCientificoRepositoryConcurrenteImpl repositorio = new ArtCientificoRepositoryConcurrenteImpl();
+        IntStream.range(0, numeroArticulos).forEach(i -> repositorio.crearNuevo(articulo(i)));
+
+        Criterio criterio = Criterio.y(
+            Criterio.o(IntStream.range(0, 50)
+                .mapToObj(i -> Criterio.contienePalabraClave("clave" + i * 7))
+                .toArray(Criterio[]::new)),
+            Criterio.no(Criterio.anioEntre(1980, 1989)));
+        Consulta consulta = new Consulta.BuilderConsulta().donde(criterio).build();
+        System.out.println(repositorio.planificar(consulta).explicar());
+
+        SortedMap<Integer, Long> columnar = medir("índice columnar", numeroArticulos,
+            () -> repositorio.planificar(consulta).contarPorAnio());
+        SortedMap<Integer, Long> porFilas = medir("artículo a artículo", numeroArticulos,
+            () -> repositorio.recorrerTodos()
+                .filter(criterio)
+                .map(ArtCientificoDTO::getAnio)
+                .flatMap(Optional::stream)
+                .collect(Collectors.groupingBy(anio -> anio, TreeMap::new, Collectors.counting())));
+        System.out.println("Mismo resultado: " + columnar.equals(porFilas) + " ("
+            + columnar.values().stream().mapToLong(Long::longValue).sum() + " artículos)");
+    }
+
+    private static ArtCientificoDTO articulo(int i) {
+        return new ArtCientificoDTO.BuilderDTO()
+            .conNombre("Artículo " + i)
+            .conAutor("Autor " + (i % 1000))
+            .conAnio(1950 + i % 75)
+            .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7)))
+            .build();
+    }
+
+    /**
+     * Ejecuta la variante varias veces para calentar el JIT y mide el mejor tiempo de las siguientes
+     */
+    private static <T> T medir(String nombre, int numeroArticulos, Supplier<T> variante) {
+        T resultado = null;
+        for (int i = 0; i < RONDAS_CALENTAMIENTO; i++) {
+            resultado = variante.get();
+        }
+        long mejor = Long.MAX_VALUE;
+        for (int i = 0; i < RONDAS_MEDIDAS; i++) {
+            long inicio = System.nanoTime();
+            resultado = variante.get();
+            mejor = Math.min(mejor, System.nanoTime() - inicio);
+        }
+        System.out.printf("%-22s %10.2f ms %12.1f M artículos/s%n",
+            nombre, mejor / 1e6, numeroArticulos / (mejor / 1e3));
+        return resultado;
+    }
+}
@@ -0,0 +1,129 @@
+package herramientas;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.List;
+import java.util.Random;
+
+import common.types.ModoHistorial;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.impl.ArtCientificoRepositoryConcurrenteImpl;
+
+/**
+ * Herramienta de línea de comandos que compara el historial con artículos completos y el
+ * historial con deltas sobre una carga dominada por ediciones.
+ * <p>
+ * Cada edición cambia un solo campo, pero, como hace un formulario, envía el artículo entero con
+ * textos nuevos (mismo contenido, distinto objeto). Para cada modo mide la memoria retenida por
+ * evento de edición (heap ocupado tras forzar la recolección), el tiempo por edición y el tiempo
+ * de reconstruir el artículo de cada evento del historial.
+ * <p>
+ * Uso: java herramientas.MedicionHistorial [articulos] [ediciones] [longitudResumen]
+ */
+public class MedicionHistorial {
+
+    // Acumula resultados para que el JIT no elimine el trabajo medido
+    private static volatile long sumidero;
+
+    /**
+     * Método principal de la herramienta
+     * @param args número de artículos, número de ediciones y longitud del resumen
+     */
+    public static void main(String[] args) {
+        int numeroArticulos = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int ediciones = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int longitudResumen = args.length > 2 ? Integer.parseInt(args[2]) : 1_500;
+
+        System.out.printf("%-10s %14s %14s %16s %10s%n",
+            "Modo", "bytes/evento", "µs/edición", "ns/reconstruir", "eventos");
+        for (ModoHistorial modo : ModoHistorial.values()) {
+            medir(modo, numeroArticulos, ediciones, longitudResumen);
+        }
+    }
+
+    private static void medir(ModoHistorial modo, int numeroArticulos, int ediciones, int longitudResumen) {
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        ArtCientificoRepositoryConcurrenteImpl repositorio = new ArtCientificoRepositoryConcurrenteImpl(
+            Runtime.getRuntime().availableProcessors() * 4, modo);
+        for (int i = 0; i < numeroArticulos; i++) {
+            repositorio.crearNuevo(articulo(i, longitudResumen));
+        }
+
+        long antes = heapOcupado(memoria);
+        Random aleatorio = new Random(42);
+        long inicio = System.nanoTime();
+        for (int i = 0; i < ediciones; i++) {
+            long id = 1 + aleatorio.nextInt(numeroArticulos);
+            repositorio.buscarPorId(id)
+                .map(actual -> editar(actual, aleatorio.nextInt(10)))
+                .ifPresent(repositorio::actualizar);
+        }
+        long nanosEdicion = System.nanoTime() - inicio;
+        long despues = heapOcupado(memoria);
+
+        List<EventoHistorial> eventos = repositorio.obtenerHistorialEventos().orElse(List.of());
+        long inicioLectura = System.nanoTime();
+        long total = 0;
+        for (EventoHistorial evento : eventos) {
+            total += evento.getArticulo().getResumen().orElse("").length();
+        }
+        long nanosLectura = System.nanoTime() - inicioLectura;
+        sumidero += total;
+
+        System.out.printf("%-10s %14.1f %14.2f %16.1f %10d%n", modo,
+            (double) (despues - antes) / ediciones,
+            nanosEdicion / 1_000.0 / ediciones,
+            (double) nanosLectura / eventos.size(),
+            eventos.size());
+    }
+
+    /**
+     * Edición de un solo campo, enviada con el artículo completo y textos recién construidos
+     */
+    private static ArtCientificoDTO editar(ArtCientificoDTO actual, int campo) {
+        ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO()
+            .conId(actual.getId().orElse(null))
+            .conNombre(copia(actual.getNombre().orElse("")))
+            .conAutor(copia(actual.getAutor().orElse("")))
+            .conAnio(actual.getAnio().orElse(2000))
+            .conPalabrasClaves(actual.getPalabrasClaves().orElse(List.of()))
+            .conResumen(copia(actual.getResumen().orElse("")));
+        if (campo < 6) {
+            builder.conAnio(1950 + (actual.getAnio().orElse(2000) + 1) % 75);
+        } else if (campo < 9) {
+            builder.conNombre(actual.getNombre().orElse("") + "'");
+        } else {
+            builder.conResumen("Revisado. " + actual.getResumen().orElse(""));
+        }
+        return builder.build();
+    }
+
+    private static String copia(String texto) {
+        return new String(texto.toCharArray());
+    }
+
+    private static ArtCientificoDTO articulo(int i, int longitudResumen) {
+        StringBuilder resumen = new StringBuilder(longitudResumen);
+        while (resumen.length() < longitudResumen) {
+            resumen.append("Resumen del artículo ").append(i).append(". ");
+        }
+        return new ArtCientificoDTO.BuilderDTO()
+            .conNombre("Artículo " + i)
+            .conAutor("Autor " + (i % 1000))
+            .conAnio(1950 + i % 75)
+            .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7)))
+            .conResumen(resumen.substring(0, longitudResumen))
+            .build();
+    }
+
+    /**
+     * Heap ocupado tras forzar varias recolecciones
+     */
+    private static long heapOcupado(MemoryMXBean memoria) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+}
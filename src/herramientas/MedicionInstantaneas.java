@@ -0,0 +1,58 @@
+package herramientas;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import dto.ArtCientificoDTO;
+import repository.persistencia.Instantanea;
+import repository.impl.ArtCientificoRepositoryPersistenteImpl;
+
+/**
+ * Herramienta de línea de comandos que mide el tamaño y el tiempo de escritura de una
+ * instantánea del repositorio persistente, su tiempo de carga y el arranque completo.
+ * <p>
+ * Si el directorio tiene menos artículos de los indicados, se completan antes de medir.
+ * <p>
+ * Uso: java herramientas.MedicionInstantaneas &lt;directorio&gt; [articulos]
+ */
+public class MedicionInstantaneas {
+
+    /**
+     * Método principal de la herramienta
+     * @param args directorio de datos y número de artículos
+     */
+    public static void main(String[] args) {
+        Path directorio = Path.of(args.length > 0 ? args[0] : "datos-instantaneas");
+        int articulos = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        Instantanea.Resumen escrita;
+        try (ArtCientificoRepositoryPersistenteImpl repositorio =
+                 new ArtCientificoRepositoryPersistenteImpl(directorio, false, 0)) {
+            int existentes = repositorio.obtenerTodos().map(List::size).orElse(0);
+            IntStream.range(existentes, articulos).forEach(i ->
+                repositorio.crearNuevo(new ArtCientificoDTO.BuilderDTO()
+                    .conNombre("Artículo " + i)
+                    .conAutor("Autor " + (i % 1000))
+                    .conAnio(1950 + i % 75)
+                    .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7)))
+                    .conResumen("Resumen del artículo " + i + " sobre el tema " + (i % 7))
+                    .build()));
+            escrita = repositorio.crearInstantanea();
+        }
+        System.out.printf("Instantánea escrita: %d artículos, %d eventos, %.1f MB en %d ms%n",
+            escrita.getArticulos(), escrita.getEventos(), escrita.getBytes() / 1e6, escrita.getMilis());
+
+        long inicio = System.nanoTime();
+        long[] contados = new long[2];
+        Path ruta = directorio.resolve(String.format("instantanea-%016d.snap", escrita.getSegmento()));
+        Instantanea.cargar(ruta, articulo -> contados[0]++, evento -> contados[1]++);
+        System.out.printf("Lectura de la instantánea (sin índices): %d artículos, %d eventos en %d ms%n",
+            contados[0], contados[1], (System.nanoTime() - inicio) / 1_000_000);
+
+        try (ArtCientificoRepositoryPersistenteImpl reabierto =
+                 new ArtCientificoRepositoryPersistenteImpl(directorio, false, 0)) {
+            System.out.println("Arranque completo: " + reabierto.getEstadisticas());
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package herramientas;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import dto.ArtCientificoDTO;
+import repository.ArtCientificoRepository;
+import repository.impl.ArtCientificoRepositoryConcurrenteImpl;
+import repository.impl.ArtCientificoRepositoryImpl;
+
+/**
+ * Herramienta de línea de comandos que mide la memoria retenida en el heap por los repositorios
+ * en memoria, por artículo y por millón de artículos. Como referencia mide también los mismos
+ * artículos guardados solo en una lista, de modo que la diferencia es lo que ocupan el almacén
+ * por ID, los índices y el historial de cada repositorio.
+ * <p>
+ * La memoria se lee con MemoryMXBean después de varias recolecciones completas, antes y después
+ * de cargar los artículos; conviene ejecutarla con un heap fijo (-Xms igual a -Xmx) y sin otras
+ * cargas en la JVM.
+ * <p>
+ * Uso: java herramientas.MedicionMemoria [articulos]
+ */
+public class MedicionMemoria {
+
+    private static final int RECOLECCIONES = 5;
+
+    /**
+     * Método principal de la herramienta
+     * @param args número de artículos
+     */
+    public static void main(String[] args) {
+        int numeroArticulos = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+
+        System.out.printf("%-40s %14s %14s%n", "Estructura", "bytes/artículo", "MB/millón");
+        medir(memoria, "solo los DTO (ArrayList)", numeroArticulos, () -> {
+            List<ArtCientificoDTO> lista = new ArrayList<>(numeroArticulos);
+            for (int i = 0; i < numeroArticulos; i++) {
+                lista.add(articulo(i).conId((long) i + 1).build());
+            }
+            return lista;
+        });
+        medir(memoria, "ArtCientificoRepositoryImpl", numeroArticulos,
+            () -> cargar(new ArtCientificoRepositoryImpl(), numeroArticulos));
+        medir(memoria, "ArtCientificoRepositoryConcurrenteImpl", numeroArticulos,
+            () -> cargar(new ArtCientificoRepositoryConcurrenteImpl(), numeroArticulos));
+    }
+
+    private static ArtCientificoRepository cargar(ArtCientificoRepository repositorio, int numeroArticulos) {
+        for (int i = 0; i < numeroArticulos; i++) {
+            repositorio.crearNuevo(articulo(i).build());
+        }
+        return repositorio;
+    }
+
+    private static ArtCientificoDTO.BuilderDTO articulo(int i) {
+        return new ArtCientificoDTO.BuilderDTO()
+            .conNombre("Artículo " + i)
+            .conAutor("Autor " + (i % 1000))
+            .conAnio(1950 + i % 75)
+            .conPalabrasClaves(List.of("clave" + (i % 500), "tema" + (i % 7)));
+    }
+
+    /**
+     * Mide la memoria retenida por la estructura que construye el proveedor
+     */
+    private static void medir(MemoryMXBean memoria, String nombre, int numeroArticulos, Supplier<Object> construir) {
+        long antes = usada(memoria);
+        Object estructura = construir.get();
+        long despues = usada(memoria);
+        Reference.reachabilityFence(estructura);
+        double porArticulo = (double) (despues - antes) / numeroArticulos;
+        System.out.printf("%-40s %14.1f %14.1f%n", nombre, porArticulo, porArticulo * 1_000_000 / (1 << 20));
+    }
+
+    private static long usada(MemoryMXBean memoria) {
+        for (int i = 0; i < RECOLECCIONES; i++) {
+            System.gc();
+        }
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,61 @@
+package herramientas;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import dto.ArtCientificoDTO;
+import repository.impl.ArtCientificoRepositoryPersistenteImpl;
+
+/**
+ * Herramienta de línea de comandos que mide el rendimiento de escritura del repositorio
+ * persistente con varios hilos y el tiempo de recuperación al reabrirlo.
+ * <p>
+ * Uso: java herramientas.MedicionPersistencia &lt;directorio&gt; [hilos] [articulosPorHilo]
+ */
+public class MedicionPersistencia {
+
+    /**
+     * Método principal de la herramienta
+     * @param args directorio de datos, número de hilos y artículos por hilo
+     * @throws Exception si falla la escritura o la espera de los hilos
+     */
+    public static void main(String[] args) throws Exception {
+        Path directorio = Path.of(args.length > 0 ? args[0] : "datos-medicion");
+        int hilos = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int articulosPorHilo = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        try (ArtCientificoRepositoryPersistenteImpl repositorio = new ArtCientificoRepositoryPersistenteImpl(directorio)) {
+            ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+            long inicio = System.nanoTime();
+            List<Future<?>> tareas = IntStream.range(0, hilos)
+                .mapToObj(hilo -> ejecutor.submit(() -> IntStream.range(0, articulosPorHilo).forEach(i ->
+                    repositorio.crearNuevo(new ArtCientificoDTO.BuilderDTO()
+                        .conNombre("Artículo " + hilo + "-" + i)
+                        .conAutor("Autor " + (i % 100))
+                        .conAnio(1950 + i % 75)
+                        .conPalabrasClaves(List.of("clave" + (i % 50), "tema" + (i % 7)))
+                        .conResumen("Resumen del artículo " + i)
+                        .build()))))
+                .collect(Collectors.toList());
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            ejecutor.shutdown();
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            long total = (long) hilos * articulosPorHilo;
+
+            System.out.printf("Escritos %d artículos con %d hilos en %.2f s (%.0f escrituras/s)%n",
+                total, hilos, segundos, total / segundos);
+            System.out.println(repositorio.getEstadisticas());
+        }
+
+        try (ArtCientificoRepositoryPersistenteImpl reabierto = new ArtCientificoRepositoryPersistenteImpl(directorio)) {
+            System.out.println("Recuperación: " + reabierto.getEstadisticas());
+        }
+    }
+}
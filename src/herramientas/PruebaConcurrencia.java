@@ -0,0 +1,249 @@
+package herramientas;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import common.types.TipoEvento;
+import common.types.TipoRepositorio;
+import dto.ArtCientificoDTO;
+import repository.ArtCientificoRepository;
+import repository.ArtCientificoRepositoryFactory;
+import repository.EventoHistorial;
+
+/**
+ * Herramienta de línea de comandos que somete un repositorio a varios hilos escritores y
+ * comprueba después que no se ha perdido nada. Cada hilo crea, actualiza y elimina sus propios
+ * artículos (con su nombre de hilo como autor) y actualiza además unos pocos artículos
+ * compartidos por todos, para forzar escrituras simultáneas sobre el mismo artículo y la misma
+ * franja.
+ * <p>
+ * Al terminar se comprueba que:
+ * <ul>
+ *   <li>cada artículo vivo de cada hilo existe y lo encuentra el índice por autor, y ninguno
+ *       eliminado sigue ahí;</li>
+ *   <li>los artículos compartidos recibieron todas las actualizaciones y el índice por año
+ *       solo los tiene bajo su año final, sin restos de actualizaciones simultáneas;</li>
+ *   <li>el historial tiene exactamente un evento por escritura aplicada, con secuencias
+ *       distintas, y el último evento de cada artículo corresponde a su estado final;</li>
+ *   <li>eliminar un ID nulo no falla.</li>
+ * </ul>
+ * Termina con código 1 si alguna comprobación falla.
+ * <p>
+ * Uso: java herramientas.PruebaConcurrencia [tipo] [hilos] [operaciones por hilo]
+ */
+public class PruebaConcurrencia {
+
+    private static final int ARTICULOS_COMPARTIDOS = 4;
+
+    /**
+     * Escrituras aplicadas por un hilo y artículos que deja vivos
+     */
+    private static final class Hilo {
+        private final String autor;
+        private final List<Long> vivos = new ArrayList<>();
+        private final Set<Long> eliminados = new HashSet<>();
+        private long escrituras;
+
+        private Hilo(int numero) {
+            this.autor = "Hilo " + numero;
+        }
+    }
+
+    /**
+     * Método principal de la herramienta
+     * @param args tipo de repositorio, número de hilos y operaciones por hilo
+     */
+    public static void main(String[] args) throws InterruptedException {
+        TipoRepositorio tipo = args.length > 0 ? TipoRepositorio.valueOf(args[0]) : TipoRepositorio.CONCURRENTE;
+        int numeroHilos = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int operaciones = args.length > 2 ? Integer.parseInt(args[2]) : 20_000;
+        ArtCientificoRepository repositorio = ArtCientificoRepositoryFactory.crearRepositorio(tipo);
+
+        List<Long> compartidos = IntStream.range(0, ARTICULOS_COMPARTIDOS)
+            .mapToObj(i -> repositorio.crearNuevo(articulo("Compartido", 0)).orElseThrow())
+            .map(articulo -> articulo.getId().orElseThrow())
+            .collect(Collectors.toList());
+        AtomicLong actualizacionesCompartidas = new AtomicLong();
+
+        List<Hilo> hilos = IntStream.range(0, numeroHilos).mapToObj(Hilo::new).collect(Collectors.toList());
+        CountDownLatch salida = new CountDownLatch(1);
+        List<Thread> trabajadores = hilos.stream()
+            .map(hilo -> new Thread(() -> {
+                SplittableRandom aleatorio = new SplittableRandom(hilo.autor.hashCode());
+                try {
+                    salida.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < operaciones; i++) {
+                    escribir(repositorio, hilo, compartidos, actualizacionesCompartidas, aleatorio, i);
+                }
+            }, hilo.autor))
+            .collect(Collectors.toList());
+        long inicio = System.nanoTime();
+        trabajadores.forEach(Thread::start);
+        salida.countDown();
+        for (Thread trabajador : trabajadores) {
+            trabajador.join();
+        }
+        long milis = (System.nanoTime() - inicio) / 1_000_000;
+
+        List<String> fallos = new ArrayList<>();
+        comprobarArticulos(repositorio, hilos, compartidos, actualizacionesCompartidas.get(), fallos);
+        comprobarIndiceCompartidos(repositorio, compartidos, operaciones, fallos);
+        comprobarHistorial(repositorio, hilos, compartidos.size() + actualizacionesCompartidas.get(), fallos);
+        if (!repositorio.eliminar(null).equals(Optional.of(false))) {
+            fallos.add("eliminar(null) no devuelve false");
+        }
+
+        long escrituras = hilos.stream().mapToLong(hilo -> hilo.escrituras).sum() + actualizacionesCompartidas.get();
+        System.out.printf("%s: %d hilos, %d escrituras aplicadas en %d ms%n", tipo, numeroHilos, escrituras, milis);
+        fallos.forEach(fallo -> System.out.println("FALLO: " + fallo));
+        System.out.println(fallos.isEmpty() ? "Sin pérdidas" : fallos.size() + " comprobaciones fallidas");
+        System.exit(fallos.isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Aplica una escritura al azar: crear, actualizar o eliminar uno de sus artículos, o
+     * actualizar uno de los compartidos
+     */
+    private static void escribir(ArtCientificoRepository repositorio, Hilo hilo, List<Long> compartidos,
+                                 AtomicLong actualizacionesCompartidas, SplittableRandom aleatorio, int paso) {
+        int eleccion = aleatorio.nextInt(10);
+        if (eleccion == 0) {
+            Long id = compartidos.get(aleatorio.nextInt(compartidos.size()));
+            // Años negativos: solo los usan los artículos compartidos
+            repositorio.actualizar(new ArtCientificoDTO.BuilderDTO().conId(id).conAnio(-(paso + 1)).build())
+                .ifPresent(articulo -> actualizacionesCompartidas.incrementAndGet());
+        } else if (eleccion < 5 || hilo.vivos.isEmpty()) {
+            repositorio.crearNuevo(articulo(hilo.autor, paso))
+                .flatMap(ArtCientificoDTO::getId)
+                .ifPresent(id -> {
+                    hilo.vivos.add(id);
+                    hilo.escrituras++;
+                });
+        } else if (eleccion < 8) {
+            Long id = hilo.vivos.get(aleatorio.nextInt(hilo.vivos.size()));
+            repositorio.actualizar(new ArtCientificoDTO.BuilderDTO().conId(id).conAnio(paso).build())
+                .ifPresent(articulo -> hilo.escrituras++);
+        } else {
+            Long id = hilo.vivos.remove(aleatorio.nextInt(hilo.vivos.size()));
+            if (repositorio.eliminar(id).orElse(false)) {
+                hilo.eliminados.add(id);
+                hilo.escrituras++;
+            }
+        }
+    }
+
+    private static ArtCientificoDTO articulo(String autor, int paso) {
+        return new ArtCientificoDTO.BuilderDTO()
+            .conNombre(autor + " " + paso)
+            .conAutor(autor)
+            .conAnio(paso)
+            .conPalabrasClaves(List.of("concurrencia"))
+            .build();
+    }
+
+    /**
+     * Comprueba los artículos de cada hilo contra la tabla y el índice por autor
+     */
+    private static void comprobarArticulos(ArtCientificoRepository repositorio, List<Hilo> hilos,
+                                           List<Long> compartidos, long actualizacionesCompartidas,
+                                           List<String> fallos) {
+        for (Hilo hilo : hilos) {
+            Set<Long> indexados = repositorio.buscarPorAutor(hilo.autor).orElse(List.of()).stream()
+                .map(articulo -> articulo.getId().orElseThrow())
+                .collect(Collectors.toSet());
+            if (!indexados.equals(new HashSet<>(hilo.vivos))) {
+                fallos.add(hilo.autor + ": el índice por autor tiene " + indexados.size()
+                    + " artículos y el hilo dejó " + hilo.vivos.size());
+            }
+            long perdidos = hilo.vivos.stream().filter(id -> !repositorio.existe(id)).count();
+            long resucitados = hilo.eliminados.stream().filter(repositorio::existe).count();
+            if (perdidos > 0 || resucitados > 0) {
+                fallos.add(hilo.autor + ": " + perdidos + " artículos perdidos, " + resucitados + " eliminados presentes");
+            }
+        }
+        long vivos = hilos.stream().mapToLong(hilo -> hilo.vivos.size()).sum() + compartidos.size();
+        int total = repositorio.obtenerTodos().map(List::size).orElse(0);
+        if (total != vivos) {
+            fallos.add("el repositorio tiene " + total + " artículos y deberían quedar " + vivos);
+        }
+        long eventosCompartidos = compartidos.stream()
+            .mapToLong(id -> repositorio.obtenerHistorialArticulo(id).map(List::size).orElse(0))
+            .sum();
+        if (eventosCompartidos != compartidos.size() + actualizacionesCompartidas) {
+            fallos.add("los artículos compartidos tienen " + eventosCompartidos + " eventos y se esperaban "
+                + (compartidos.size() + actualizacionesCompartidas));
+        }
+    }
+
+    /**
+     * Comprueba que cada artículo compartido está en el índice por año bajo su año final y bajo
+     * ningún otro
+     */
+    private static void comprobarIndiceCompartidos(ArtCientificoRepository repositorio, List<Long> compartidos,
+                                                   int operaciones, List<String> fallos) {
+        Map<Long, Integer> anioFinal = compartidos.stream()
+            .collect(Collectors.toMap(id -> id,
+                id -> repositorio.buscarPorId(id).flatMap(ArtCientificoDTO::getAnio).orElseThrow()));
+        long erroneos = IntStream.rangeClosed(1, operaciones)
+            .mapToLong(i -> repositorio.buscarPorAnio(-i).orElse(List.of()).stream()
+                .map(articulo -> articulo.getId().orElseThrow())
+                .filter(id -> anioFinal.getOrDefault(id, 0) != -i)
+                .count())
+            .sum();
+        long ausentes = anioFinal.entrySet().stream()
+            .filter(entrada -> !repositorio.buscarPorAnio(entrada.getValue()).orElse(List.of()).stream()
+                .anyMatch(articulo -> articulo.getId().orElseThrow().equals(entrada.getKey())))
+            .count();
+        if (erroneos > 0 || ausentes > 0) {
+            fallos.add("índice por año de los compartidos: " + erroneos + " entradas de años que ya no tienen, "
+                + ausentes + " sin su año final");
+        }
+    }
+
+    /**
+     * Comprueba que el historial tiene un evento por escritura, con secuencias distintas, y que
+     * el último evento de cada artículo coincide con su estado final
+     */
+    private static void comprobarHistorial(ArtCientificoRepository repositorio, List<Hilo> hilos,
+                                           long escriturasCompartidas, List<String> fallos) {
+        List<EventoHistorial> eventos = repositorio.obtenerHistorialEventos().orElse(List.of());
+        long esperados = hilos.stream().mapToLong(hilo -> hilo.escrituras).sum() + escriturasCompartidas;
+        if (eventos.size() != esperados) {
+            fallos.add("el historial tiene " + eventos.size() + " eventos y se aplicaron " + esperados + " escrituras");
+        }
+        long secuenciasDistintas = eventos.stream().mapToLong(EventoHistorial::getSecuencia).distinct().count();
+        if (secuenciasDistintas != eventos.size()) {
+            fallos.add((eventos.size() - secuenciasDistintas) + " secuencias repetidas en el historial");
+        }
+
+        Map<Long, TipoEvento> ultimoPorArticulo = new HashMap<>();
+        eventos.forEach(evento -> evento.getArticulo().getId()
+            .ifPresent(id -> ultimoPorArticulo.put(id, evento.getTipoEvento())));
+        for (Hilo hilo : hilos) {
+            long vivosEliminados = hilo.vivos.stream()
+                .filter(id -> ultimoPorArticulo.get(id) == TipoEvento.ELIMINACION)
+                .count();
+            long eliminadosSinEvento = hilo.eliminados.stream()
+                .filter(id -> ultimoPorArticulo.get(id) != TipoEvento.ELIMINACION)
+                .count();
+            if (vivosEliminados > 0 || eliminadosSinEvento > 0) {
+                fallos.add(hilo.autor + ": " + vivosEliminados + " vivos con eliminación como último evento, "
+                    + eliminadosSinEvento + " eliminados sin ella");
+            }
+        }
+    }
+}
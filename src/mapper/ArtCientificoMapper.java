@@ -1,7 +1,6 @@
 package mapper;
 
 import java.util.Optional;
-import java.util.ArrayList;
 import java.util.function.Function;
 
 import model.ArtCientificoModel;
@@ -53,20 +52,7 @@ public class ArtCientificoMapper {
      * manteniendo sus valores originales y cambiando solo los necesarios
      */
     public static final Function<Optional<ArtCientificoDTO>, ArtCientificoDTO.BuilderDTO> toDTOBuilder = 
-        dtoOpt -> {
-            ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO();
-            
-            dtoOpt.ifPresent(dto -> {
-                dto.getId().ifPresent(builder::conId);
-                dto.getNombre().ifPresent(builder::conNombre);
-                dto.getAutor().ifPresent(builder::conAutor);
-                dto.getPalabrasClaves().ifPresent(builder::conPalabrasClaves);
-                dto.getAnio().ifPresent(builder::conAnio);
-                dto.getResumen().ifPresent(builder::conResumen);
-            });
-            
-            return builder;
-        };
+        dtoOpt -> dtoOpt.map(ArtCientificoDTO.BuilderDTO::new).orElseGet(ArtCientificoDTO.BuilderDTO::new);
     
     /**
      * Función que crea un BuilderModel pre-cargado con los valores del Model
@@ -81,7 +67,7 @@ public class ArtCientificoMapper {
                 model.getId().ifPresent(i -> builder.conId(Optional.of(i)));
                 model.getNombre().ifPresent(n -> builder.conNombre(Optional.of(n)));
                 model.getAutor().ifPresent(a -> builder.conAutor(Optional.of(a)));
-                model.getPalabrasClaves().ifPresent(p -> builder.conPalabrasClaves(Optional.of(new ArrayList<>(p))));
+                model.getPalabrasClaves().ifPresent(p -> builder.conPalabrasClaves(Optional.of(p)));
                 model.getAnio().ifPresent(a -> builder.conAnio(Optional.of(a)));
                 model.getResumen().ifPresent(r -> builder.conResumen(Optional.of(r)));
             });
@@ -2,63 +2,66 @@ package model;
 
 import java.util.Optional;
 import java.util.List;
-import java.util.ArrayList;
+
+import common.validacion.ValidacionArticulo;
 
 /**
  * Clase que representa un artículo científico
+ * <p>
+ * Es inmutable: los Optional se crean una sola vez al construirlo y la lista de palabras clave
+ * no se puede modificar, así que los getters devuelven siempre las mismas instancias sin copiarlas.
  */
 public class ArtCientificoModel {
     
-    private final Long id;
-    private final String nombre;
-    private final String autor;
-    private final List<String> palabrasClaves;
-    private final Integer anio;
-    private final String resumen;
+    private final Optional<Long> id;
+    private final Optional<String> nombre;
+    private final Optional<String> autor;
+    private final Optional<List<String>> palabrasClaves;
+    private final Optional<Integer> anio;
+    private final Optional<String> resumen;
     
     private ArtCientificoModel(BuilderModel builder) {
-        this.id = builder.id;
-        this.nombre = builder.nombre;
-        this.autor = builder.autor;
-        this.palabrasClaves = builder.palabrasClaves != null ? builder.palabrasClaves : new ArrayList<>();
-        this.anio = builder.anio;
-        this.resumen = builder.resumen;
+        this.id = Optional.ofNullable(builder.id);
+        this.nombre = Optional.ofNullable(builder.nombre);
+        this.autor = Optional.ofNullable(builder.autor);
+        this.palabrasClaves = Optional.of(builder.palabrasClaves);
+        this.anio = Optional.ofNullable(builder.anio);
+        this.resumen = Optional.ofNullable(builder.resumen);
     }
     
     public Optional<Long> getId() {
-        return Optional.ofNullable(id);
+        return id;
     }
     
     public Optional<String> getNombre() {
-        return Optional.ofNullable(nombre);
+        return nombre;
     }
     
     public Optional<String> getAutor() {
-        return Optional.ofNullable(autor);
+        return autor;
     }
     
     public Optional<List<String>> getPalabrasClaves() {
-        return Optional.ofNullable(palabrasClaves)
-                      .map(ArrayList::new);
+        return palabrasClaves;
     }
     
     public Optional<Integer> getAnio() {
-        return Optional.ofNullable(anio);
+        return anio;
     }
     
     public Optional<String> getResumen() {
-        return Optional.ofNullable(resumen);
+        return resumen;
     }
     
     @Override
     public String toString() {
         return "ArtCientificoModel{" +
-                "id=" + id +
-                ", nombre='" + nombre + '\'' +
-                ", autor='" + autor + '\'' +
-                ", palabrasClaves=" + palabrasClaves +
-                ", anio=" + anio +
-                ", resumen='" + resumen + '\'' +
+                "id=" + id.orElse(null) +
+                ", nombre='" + nombre.orElse(null) + '\'' +
+                ", autor='" + autor.orElse(null) + '\'' +
+                ", palabrasClaves=" + palabrasClaves.orElse(null) +
+                ", anio=" + anio.orElse(null) +
+                ", resumen='" + resumen.orElse(null) + '\'' +
                 '}';
     }
     
@@ -74,7 +77,7 @@ public class ArtCientificoModel {
         private String resumen;
         
         public BuilderModel() {
-            this.palabrasClaves = new ArrayList<>();
+            this.palabrasClaves = List.of();
         }
         
         /**
@@ -108,12 +111,13 @@ public class ArtCientificoModel {
         }
         
         /**
-         * Establece la lista de palabras clave del artículo científico
+         * Establece la lista de palabras clave del artículo científico; se guarda una copia
+         * inmutable sin los elementos null
          * @param palabrasClaves lista de palabras clave (encapsulada en Optional)
          * @return el builder para encadenamiento
          */
         public BuilderModel conPalabrasClaves(Optional<List<String>> palabrasClaves) {
-            palabrasClaves.ifPresent(lista -> this.palabrasClaves = new ArrayList<>(lista));
+            palabrasClaves.ifPresent(lista -> this.palabrasClaves = ValidacionArticulo.palabrasClavesSinNulos(lista));
             return this;
         }
         
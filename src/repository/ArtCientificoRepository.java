@@ -2,9 +2,19 @@ package repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import dto.ArtCientificoDTO;
+import common.types.EstrategiaEspera;
 import common.types.TipoEvento;
+import repository.consulta.Consulta;
+import repository.consulta.PaginaArticulos;
+import repository.consulta.PlanConsulta;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.historial.ConteoIntervalo;
 
 /**
  * Interfaz para el repositorio de artículos científicos
@@ -19,12 +29,97 @@ public interface ArtCientificoRepository {
      * @return Optional con el DTO del artículo creado con su ID generado, o vacío si no se pudo crear
      */
     Optional<ArtCientificoDTO> crearNuevo(ArtCientificoDTO articuloDTO);
-    
+
+    /**
+     * Guarda un lote de artículos en una sola operación: crea los que no traen ID, con IDs
+     * reservados de una vez en un bloque contiguo, y actualiza los que sí lo traen. El lote se
+     * aplica dentro de una única sección crítica y sus eventos se registran juntos, con
+     * secuencias consecutivas.
+     * @param articulos los DTOs de los artículos a guardar
+     * @return el resultado de cada artículo, en el orden del lote: el artículo guardado, o vacío
+     *         si no se pudo guardar (un artículo nulo o la actualización de un ID que no existe)
+     */
+    List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> articulos);
+
     /**
      * Obtiene todos los artículos científicos
      * @return Optional con la lista de DTOs de todos los artículos, o vacío si no hay artículos
      */
     Optional<List<ArtCientificoDTO>> obtenerTodos();
+    
+    /**
+     * Obtiene una página de artículos en orden de ID, sin copiar la colección
+     * @param despuesDeId el cursor devuelto por la página anterior, o vacío para la primera página
+     * @param tamanio el número máximo de artículos (se recorta a PaginaArticulos.TAMANIO_MAXIMO)
+     * @return la página, con el cursor de la siguiente si hay más artículos
+     * @throws IllegalArgumentException si el tamaño no es positivo
+     */
+    PaginaArticulos obtenerPagina(Optional<Long> despuesDeId, int tamanio);
+    
+    /**
+     * Recorre todos los artículos en orden de ID de forma perezosa, página a página, de modo
+     * que en memoria solo está la página en curso
+     * @return un stream secuencial sobre todos los artículos
+     */
+    Stream<ArtCientificoDTO> recorrerTodos();
+    
+    /**
+     * Busca un artículo por su ID en tiempo constante y sin copiar la colección
+     * @param id el ID del artículo a buscar
+     * @return Optional con el DTO del artículo si existe, o vacío si no existe
+     */
+    Optional<ArtCientificoDTO> buscarPorId(Long id);
+    
+    /**
+     * Comprueba si existe un artículo con el ID indicado
+     * @param id el ID del artículo
+     * @return true si el artículo existe, false en caso contrario
+     */
+    boolean existe(Long id);
+    
+    /**
+     * Busca los artículos de un autor usando el índice secundario por autor
+     * @param autor el autor buscado (sin distinguir mayúsculas)
+     * @return Optional con la lista de artículos del autor, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorAutor(String autor);
+    
+    /**
+     * Busca los artículos publicados en un año usando el índice secundario por año
+     * @param anio el año de publicación
+     * @return Optional con la lista de artículos de ese año, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorAnio(Integer anio);
+    
+    /**
+     * Busca los artículos que contienen una palabra clave usando el índice secundario
+     * @param palabraClave la palabra clave buscada (sin distinguir mayúsculas)
+     * @return Optional con la lista de artículos con esa palabra clave, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(String palabraClave);
+    
+    /**
+     * Busca en el nombre y el resumen los artículos más relevantes para un texto (ranking BM25)
+     * @param consulta el texto de la búsqueda
+     * @param limite el número máximo de resultados
+     * @return Optional con los artículos de mayor a menor relevancia, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarTexto(String consulta, int limite);
+    
+    /**
+     * Busca los artículos cuyo nombre o resumen contienen una frase exacta
+     * @param frase la frase buscada
+     * @param limite el número máximo de resultados
+     * @return Optional con los artículos de mayor a menor relevancia, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarFrase(String frase, int limite);
+    
+    /**
+     * Genera el plan de ejecución de una consulta estructurada usando los índices del repositorio
+     * @param consulta la consulta a planificar
+     * @return el plan, que se puede ejecutar o explicar
+     */
+    PlanConsulta planificar(Consulta consulta);
 
     /**
      * Actualiza un artículo existente
@@ -41,18 +136,111 @@ public interface ArtCientificoRepository {
     Optional<Boolean> eliminar(Long id);
     
     /**
-     * Restaura un artículo previamente eliminado, insertándolo de nuevo con su ID original.
+     * Restaura un artículo previamente eliminado, insertándolo de nuevo con su ID original
+     * y registrando el evento de restauración en el historial.
      * @param articuloDTO El DTO del artículo a restaurar (debe contener el ID original)
      * @return Un Optional con el DTO del artículo restaurado si la operación fue exitosa, o vacío si no.
      */
     Optional<ArtCientificoDTO> restaurar(ArtCientificoDTO articuloDTO);
     
     /**
-     * Obtiene el historial completo de eventos
+     * Obtiene el historial completo de eventos, ordenado por número de secuencia
      * @return Optional con la lista de todos los eventos registrados o vacío si no hay eventos
      */
     Optional<List<EventoHistorial>> obtenerHistorialEventos();
     
+    /**
+     * Obtiene los eventos de un artículo ordenados por número de secuencia, usando la cadena de eventos del
+     * artículo (tiempo proporcional a sus propios eventos, sin recorrer el historial completo)
+     * @param id el ID del artículo
+     * @return Optional con la lista de eventos del artículo o vacío si no tiene eventos
+     */
+    Optional<List<EventoHistorial>> obtenerHistorialArticulo(Long id);
+    
+    /**
+     * Obtiene el evento de eliminación más reciente de un artículo (el de mayor número de
+     * secuencia, no el de fecha más reciente), usando el índice de lápidas
+     * @param id el ID del artículo
+     * @return Optional con el evento de eliminación o vacío si el artículo nunca se ha eliminado
+     */
+    Optional<EventoHistorial> buscarUltimaEliminacion(Long id);
+    
+    /**
+     * Obtiene los eventos de un rango de tiempo, ordenados por número de secuencia, usando el
+     * índice temporal del historial (sin recorrer los eventos de fuera del rango)
+     * @param desde el inicio del rango, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido, en milisegundos desde la época
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @return Optional con la lista de eventos o vacío si no hay eventos en el rango
+     */
+    Optional<List<EventoHistorial>> buscarEventosEntre(long desde, long hasta, Optional<TipoEvento> tipoEvento);
+    
+    /**
+     * Cuenta los eventos de intervalos consecutivos de un rango de tiempo, entregando cada conteo
+     * en cuanto se calcula
+     * @param desde el inicio del primer intervalo, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido, en milisegundos desde la época
+     * @param anchoIntervalo el ancho de cada intervalo en milisegundos
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @param destino el consumidor que recibe el conteo de cada intervalo, en orden
+     */
+    void contarEventosPorIntervalo(long desde, long hasta, long anchoIntervalo, Optional<TipoEvento> tipoEvento,
+                                   Consumer<ConteoIntervalo> destino);
+    
+    /**
+     * Obtiene el estado de un artículo tras el evento de una secuencia, buscando por bisección en
+     * la cadena de eventos del artículo (sin reproducir el historial)
+     * @param id el ID del artículo
+     * @param secuencia la secuencia del último evento que se tiene en cuenta
+     * @return Optional con el artículo tal como estaba, o vacío si no existía en ese punto
+     */
+    Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Long id, long secuencia);
+    
+    /**
+     * Obtiene el estado de un artículo en un instante, buscando por bisección en la cadena de
+     * eventos del artículo (sin reproducir el historial)
+     * @param id el ID del artículo
+     * @param marcaTiempo el instante, incluido, en milisegundos desde la época
+     * @return Optional con el artículo tal como estaba, o vacío si no existía en ese instante
+     */
+    Optional<ArtCientificoDTO> buscarPorIdEnInstante(Long id, long marcaTiempo);
+    
+    /**
+     * Obtiene el estado de todos los artículos tras el evento de una secuencia, en tiempo
+     * proporcional al número de artículos del historial
+     * @param secuencia la secuencia del último evento que se tiene en cuenta
+     * @return Optional con los artículos que existían en ese punto en orden de ID, o vacío si no había
+     */
+    Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(long secuencia);
+    
+    /**
+     * Obtiene el estado de todos los artículos en un instante, en tiempo proporcional al número
+     * de artículos del historial
+     * @param marcaTiempo el instante, incluido, en milisegundos desde la época
+     * @return Optional con los artículos que existían en ese instante en orden de ID, o vacío si no había
+     */
+    Optional<List<ArtCientificoDTO>> obtenerTodosEnInstante(long marcaTiempo);
+    
+    /**
+     * Suscribe un oyente a los eventos del repositorio. El oyente recibe por lotes, en su propio
+     * hilo y en orden de secuencia, los eventos registrados a partir de ahora; los escritores solo
+     * pagan la publicación en el buffer circular del bus.
+     * @param suscriptor el oyente
+     * @param estrategia cómo espera el hilo del oyente a que haya eventos nuevos
+     * @return la suscripción, que se cierra para cancelarla
+     */
+    BusEventos.Suscripcion suscribir(SuscriptorEventos suscriptor, EstrategiaEspera estrategia);
+    
+    /**
+     * Abre un cursor de captura de cambios sobre el historial, que entrega por lotes y en orden
+     * de secuencia los eventos pedidos por el consumidor, sin copiar el historial ni retener a
+     * los escritores
+     * @param desdeSecuencia la secuencia del primer evento a entregar, o vacío para entregar solo
+     *                       los eventos posteriores a la apertura
+     * @return el cursor, que se debe cerrar al terminar
+     */
+    CursorCambios abrirCambios(Optional<Long> desdeSecuencia);
+    
     /**
      * Registra un evento en el historial
      * @param articuloDTO El artículo relacionado con el evento
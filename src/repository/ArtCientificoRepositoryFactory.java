@@ -1,27 +1,83 @@
 package repository;
 
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import common.types.TipoRepositorio;
+import repository.impl.ArtCientificoRepositoryConcurrenteImpl;
 import repository.impl.ArtCientificoRepositoryImpl;
+import repository.impl.ArtCientificoRepositoryMapeadoImpl;
+import repository.impl.ArtCientificoRepositoryPersistenteImpl;
 
 /**
  * Fábrica para obtener instancias del repositorio
  * Implementa el patrón Singleton para asegurar una única instancia
  */
 public class ArtCientificoRepositoryFactory {
-    
+
     private static ArtCientificoRepository instancia;
-    
+
+    // Propiedad del sistema con el directorio de datos del repositorio persistente
+    public static final String PROPIEDAD_DIRECTORIO_DATOS = "artcientifico.datos";
+
+    // Tipo de repositorio que se creará al solicitar la instancia única
+    private static TipoRepositorio tipoConfigurado = TipoRepositorio.MEMORIA;
+
+    // Proveedores de cada implementación disponible
+    private static final Map<TipoRepositorio, Supplier<ArtCientificoRepository>> proveedores =
+        new EnumMap<>(Map.of(
+            TipoRepositorio.MEMORIA, ArtCientificoRepositoryImpl::new,
+            TipoRepositorio.CONCURRENTE, ArtCientificoRepositoryConcurrenteImpl::new,
+            TipoRepositorio.PERSISTENTE, () -> new ArtCientificoRepositoryPersistenteImpl(directorioDatos()),
+            TipoRepositorio.MAPEADO, () -> new ArtCientificoRepositoryMapeadoImpl(directorioDatos().resolve("mapeado"))
+        ));
+
+    /**
+     * Directorio de datos de los repositorios que guardan en disco
+     */
+    private static Path directorioDatos() {
+        return Path.of(System.getProperty(PROPIEDAD_DIRECTORIO_DATOS, "datos"));
+    }
+
     private ArtCientificoRepositoryFactory() {
         // Constructor privado para evitar instanciación directa
     }
-    
+
+    /**
+     * Configura el tipo de repositorio que devolverá getRepositorio().
+     * Debe invocarse antes de obtener la instancia única por primera vez.
+     * @param tipo el tipo de repositorio a utilizar
+     * @throws IllegalStateException si la instancia ya fue creada con otro tipo
+     */
+    public static synchronized void configurar(TipoRepositorio tipo) {
+        Optional.ofNullable(instancia)
+            .filter(existente -> tipo != tipoConfigurado)
+            .ifPresent(existente -> {
+                throw new IllegalStateException("El repositorio ya fue creado como " + tipoConfigurado);
+            });
+        tipoConfigurado = tipo;
+    }
+
     /**
      * Obtiene la instancia única del repositorio (patrón Singleton)
      * @return la instancia del repositorio
      */
     public static synchronized ArtCientificoRepository getRepositorio() {
         if (instancia == null) {
-            instancia = new ArtCientificoRepositoryImpl();
+            instancia = crearRepositorio(tipoConfigurado);
         }
         return instancia;
     }
-} 
\ No newline at end of file
+
+    /**
+     * Crea una instancia nueva e independiente del tipo indicado (no afecta al Singleton)
+     * @param tipo el tipo de repositorio a crear
+     * @return una nueva instancia del repositorio
+     */
+    public static ArtCientificoRepository crearRepositorio(TipoRepositorio tipo) {
+        return proveedores.get(tipo).get();
+    }
+}
@@ -1,6 +1,8 @@
 package repository;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import dto.ArtCientificoDTO;
 import common.types.TipoEvento;
 
@@ -23,8 +25,25 @@ public interface EventoHistorial {
     TipoEvento getTipoEvento();
     
     /**
-     * Obtiene la fecha y hora en que ocurrió el evento
+     * Obtiene el número de secuencia del evento, único y creciente en todo el historial.
+     * Es el criterio de orden de los eventos: dos eventos pueden compartir marca de tiempo,
+     * pero nunca secuencia.
+     * @return el número de secuencia (el primer evento tiene la secuencia 1)
+     */
+    long getSecuencia();
+
+    /**
+     * Obtiene el instante en que ocurrió el evento
+     * @return los milisegundos desde la época (UTC)
+     */
+    long getMarcaTiempo();
+
+    /**
+     * Obtiene la fecha y hora en que ocurrió el evento, en la zona horaria del sistema.
+     * Se calcula a partir de la marca de tiempo en cada llamada.
      * @return la fecha y hora del evento
      */
-    LocalDateTime getFechaEvento();
+    default LocalDateTime getFechaEvento() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(getMarcaTiempo()), ZoneId.systemDefault());
+    }
 } 
\ No newline at end of file
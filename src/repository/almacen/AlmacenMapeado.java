@@ -0,0 +1,493 @@
+package repository.almacen;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.codec.CodecEvento;
+import repository.historial.IndiceHistorial;
+import repository.historial.IndiceTemporal;
+
+/**
+ * Almacén de artículos en archivos de segmento mapeados en memoria.
+ * <p>
+ * Los artículos, las lápidas de los eliminados y los eventos del historial se anexan como
+ * registros a un segmento activo; cuando se llena se abre el siguiente. En el heap solo se
+ * guardan dos tablas compactas de posiciones (ID a posición del artículo vigente y número de
+ * secuencia a posición del evento), de modo que el volumen de datos no está limitado por el
+ * heap. Al abrir se recorren los segmentos en orden para reconstruir esas tablas.
+ * <p>
+ * Las actualizaciones y eliminaciones dejan registros obsoletos; compactar copia los registros
+ * aún necesarios de los segmentos con poco contenido vivo al segmento activo y borra el archivo.
+ * Es seguro para varios hilos: las lecturas comparten un cerrojo de lectura y las escrituras y
+ * la compactación de cada segmento toman el de escritura.
+ */
+public class AlmacenMapeado implements Closeable {
+
+    // Capacidad por defecto de cada segmento
+    public static final int TAMANIO_SEGMENTO = 64 << 20;
+
+    private static final Pattern PATRON_SEGMENTO = Pattern.compile("segmento-(\\d+)\\.dat");
+
+    private final Path directorio;
+    private final int tamanioSegmento;
+    private final boolean sincronizar;
+
+    private final ReentrantReadWriteLock cerrojo = new ReentrantReadWriteLock();
+    private final TreeMap<Integer, Segmento> segmentos = new TreeMap<>();
+    private Segmento activo;
+
+    // ID del artículo -> posición de su versión vigente
+    private final TablaPosiciones articulos = new TablaPosiciones();
+
+    // Número de secuencia del evento -> posición del evento
+    private final TablaPosiciones eventos = new TablaPosiciones();
+
+    private long ultimaSecuencia;
+    private long ultimaMarcaTiempo;
+    private long maximoId;
+    private long segmentosCompactados;
+    private long bytesRecuperados;
+
+    /**
+     * Abre (o crea) un almacén en un directorio
+     * @param directorio el directorio de los segmentos
+     * @param tamanioSegmento la capacidad de cada segmento nuevo en bytes
+     * @param sincronizar true para forzar a disco cada registro (msync); si no, los datos
+     *                    sobreviven a la caída del proceso pero no necesariamente a la del sistema
+     * @throws UncheckedIOException si el directorio o los segmentos no se pueden usar
+     */
+    public AlmacenMapeado(Path directorio, int tamanioSegmento, boolean sincronizar) {
+        this.directorio = directorio;
+        this.tamanioSegmento = tamanioSegmento;
+        this.sincronizar = sincronizar;
+        try {
+            Files.createDirectories(directorio);
+            for (int numero : numerosDeSegmento()) {
+                Segmento segmento = Segmento.abrir(numero, rutaSegmento(numero), tamanioSegmento);
+                segmentos.put(numero, segmento);
+                segmento.recuperar(inicio -> registrarLeido(segmento, inicio));
+            }
+            activo = segmentos.isEmpty() ? nuevoSegmento(1) : segmentos.lastEntry().getValue();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el almacén " + directorio, e);
+        }
+    }
+
+    private Path rutaSegmento(int numero) {
+        return directorio.resolve(String.format("segmento-%08d.dat", numero));
+    }
+
+    private List<Integer> numerosDeSegmento() throws IOException {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                .map(ruta -> PATRON_SEGMENTO.matcher(ruta.getFileName().toString()))
+                .filter(Matcher::matches)
+                .map(coincidencia -> Integer.parseInt(coincidencia.group(1)))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private Segmento nuevoSegmento(int numero) throws IOException {
+        Segmento segmento = Segmento.abrir(numero, rutaSegmento(numero), tamanioSegmento);
+        segmentos.put(numero, segmento);
+        return segmento;
+    }
+
+    // --- Posiciones: número de segmento (desde 1) en la parte alta y desplazamiento en la baja ---
+
+    private static long empaquetar(Segmento segmento, int inicio) {
+        return ((long) segmento.getNumero() << 32) | inicio;
+    }
+
+    private Segmento segmentoDe(long posicion) {
+        return segmentos.get((int) (posicion >>> 32));
+    }
+
+    private static int inicioDe(long posicion) {
+        return (int) posicion;
+    }
+
+    private int longitudEn(long posicion) {
+        return segmentoDe(posicion).getMapa().getInt(inicioDe(posicion));
+    }
+
+    /**
+     * Aplica a las tablas un registro encontrado al recorrer los segmentos al abrir
+     */
+    private void registrarLeido(Segmento segmento, int inicio) {
+        ByteBuffer mapa = segmento.getMapa();
+        long id = mapa.getLong(inicio + FormatoRegistro.POSICION_ID);
+        long posicion = empaquetar(segmento, inicio);
+        maximoId = Math.max(maximoId, id);
+        switch (mapa.get(inicio + FormatoRegistro.POSICION_TIPO)) {
+            case FormatoRegistro.TIPO_ARTICULO -> sustituirArticulo(id, posicion);
+            case FormatoRegistro.TIPO_LAPIDA -> sustituirArticulo(id, 0);
+            case FormatoRegistro.TIPO_EVENTO -> {
+                long secuencia = mapa.getLong(inicio + FormatoRegistro.POSICION_SECUENCIA);
+                // Un evento puede aparecer dos veces si una compactación se interrumpió
+                sustituirEvento(secuencia, posicion);
+                ultimaSecuencia = Math.max(ultimaSecuencia, secuencia);
+                ultimaMarcaTiempo = Math.max(ultimaMarcaTiempo, FormatoRegistro.leerMarcaTiempo(mapa, inicio));
+            }
+            default -> throw new IllegalStateException("Tipo de registro desconocido en " + segmento.getNumero());
+        }
+    }
+
+    /**
+     * Apunta un ID a una nueva posición (0 si se elimina) y descuenta la versión anterior
+     */
+    private void sustituirArticulo(long id, long posicion) {
+        long anterior = articulos.obtener(id);
+        if (anterior != 0) {
+            segmentoDe(anterior).sumarVivos(-longitudEn(anterior));
+        }
+        articulos.poner(id, posicion);
+        if (posicion != 0) {
+            segmentoDe(posicion).sumarVivos(longitudEn(posicion));
+        }
+    }
+
+    private void sustituirEvento(long secuencia, long posicion) {
+        long anterior = eventos.obtener(secuencia);
+        if (anterior != 0) {
+            segmentoDe(anterior).sumarVivos(-longitudEn(anterior));
+        }
+        eventos.poner(secuencia, posicion);
+        segmentoDe(posicion).sumarVivos(longitudEn(posicion));
+    }
+
+    /**
+     * Anexa un registro al segmento activo, abriendo uno nuevo si no cabe.
+     * Debe llamarse con el cerrojo de escritura adquirido.
+     */
+    private long anexar(ByteBuffer registro) {
+        try {
+            int inicio = activo.anexar(registro, sincronizar);
+            if (inicio < 0) {
+                activo.sincronizar();
+                activo = nuevoSegmento(activo.getNumero() + 1);
+                inicio = activo.anexar(registro, sincronizar);
+                if (inicio < 0) {
+                    throw new IllegalArgumentException("El registro no cabe en un segmento: " + registro.remaining() + " bytes");
+                }
+            }
+            return empaquetar(activo, inicio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un segmento nuevo", e);
+        }
+    }
+
+    private <T> T leyendo(Supplier<T> operacion) {
+        cerrojo.readLock().lock();
+        try {
+            return operacion.get();
+        } finally {
+            cerrojo.readLock().unlock();
+        }
+    }
+
+    private <T> T escribiendo(Supplier<T> operacion) {
+        cerrojo.writeLock().lock();
+        try {
+            return operacion.get();
+        } finally {
+            cerrojo.writeLock().unlock();
+        }
+    }
+
+    // --- Lectura ---
+
+    /**
+     * Obtiene la versión vigente de un artículo sin decodificarla
+     * @param id el ID del artículo
+     * @return Optional con la vista del artículo o vacío si no existe
+     */
+    public Optional<ArticuloMapeado> leer(long id) {
+        return leyendo(() -> Optional.of(articulos.obtener(id))
+            .filter(posicion -> posicion != 0)
+            .map(this::vistaArticulo));
+    }
+
+    private ArticuloMapeado vistaArticulo(long posicion) {
+        return new ArticuloMapeado(segmentoDe(posicion).getMapa(), inicioDe(posicion) + FormatoRegistro.TAMANIO_CABECERA);
+    }
+
+    /**
+     * Comprueba si existe un artículo
+     * @param id el ID del artículo
+     * @return true si existe
+     */
+    public boolean contiene(long id) {
+        return leyendo(() -> articulos.obtener(id) != 0);
+    }
+
+    /**
+     * Recorre los artículos existentes en orden de ID. Los IDs se toman al empezar y cada
+     * artículo se lee al consumirlo, así que refleja su versión vigente en ese momento.
+     * @return el stream de artículos
+     */
+    public Stream<ArticuloMapeado> articulos() {
+        LongStream.Builder ids = LongStream.builder();
+        leyendo(() -> {
+            articulos.recorrerIndices(ids::add);
+            return null;
+        });
+        return ids.build().mapToObj(this::leer).flatMap(Optional::stream);
+    }
+
+    /**
+     * Obtiene los IDs de los artículos existentes a partir de uno dado, en orden
+     * @param desde el primer ID a considerar
+     * @param maximo el número máximo de IDs
+     * @return los IDs en orden ascendente
+     */
+    public long[] idsDesde(long desde, int maximo) {
+        return leyendo(() -> {
+            LongStream.Builder ids = LongStream.builder();
+            int cuenta = 0;
+            for (long id = articulos.siguienteIndice(desde); id >= 0 && cuenta < maximo; id = articulos.siguienteIndice(id + 1)) {
+                ids.add(id);
+                cuenta++;
+            }
+            return ids.build().toArray();
+        });
+    }
+
+    /**
+     * Lee un evento del historial por su número de secuencia; el artículo se decodifica al pedirlo
+     * @param secuencia el número de secuencia del evento
+     * @return Optional con el evento o vacío si no existe
+     */
+    public Optional<EventoHistorial> leerEvento(long secuencia) {
+        return leyendo(() -> Optional.of(eventos.obtener(secuencia))
+            .filter(posicion -> posicion != 0)
+            .map(posicion -> new EventoMapeado(segmentoDe(posicion).getMapa(), inicioDe(posicion))));
+    }
+
+    /**
+     * Registra todos los eventos del historial en un índice por artículo y en un índice temporal,
+     * usando su número de secuencia como posición. Solo lee la cabecera de cada registro, sin
+     * decodificar artículos; los eventos sin ID de artículo (guardados con ID 0) no se encadenan.
+     * @param indice el índice por artículo a completar
+     * @param temporal el índice temporal a completar
+     */
+    public void indexarEventos(IndiceHistorial indice, IndiceTemporal temporal) {
+        leyendo(() -> {
+            eventos.recorrerIndices(secuencia -> {
+                long posicion = eventos.obtener(secuencia);
+                ByteBuffer mapa = segmentoDe(posicion).getMapa();
+                int inicio = inicioDe(posicion);
+                long id = mapa.getLong(inicio + FormatoRegistro.POSICION_ID);
+                TipoEvento tipoEvento = CodecEvento.tipoEvento(mapa.get(inicio + FormatoRegistro.POSICION_TIPO_EVENTO));
+                if (id != 0) {
+                    indice.registrar(id, secuencia, tipoEvento);
+                }
+                temporal.registrar(secuencia, FormatoRegistro.leerMarcaTiempo(mapa, inicio), tipoEvento);
+            });
+            return null;
+        });
+    }
+
+    /**
+     * Obtiene el historial completo en orden de registro; cada evento se decodifica al leerlo
+     * @return la lista de eventos
+     */
+    public List<EventoHistorial> eventos() {
+        return leyendo(() -> {
+            List<EventoHistorial> lista = new ArrayList<>();
+            eventos.recorrer(posicion -> lista.add(new EventoMapeado(segmentoDe(posicion).getMapa(), inicioDe(posicion))));
+            return lista;
+        });
+    }
+
+    /**
+     * Secuencia del último evento guardado
+     * @return la secuencia, o 0 si no hay eventos
+     */
+    public long getUltimaSecuencia() {
+        return leyendo(() -> ultimaSecuencia);
+    }
+
+    /**
+     * Número de artículos existentes
+     * @return los artículos
+     */
+    public long numeroArticulos() {
+        return leyendo(articulos::tamanio);
+    }
+
+    /**
+     * Siguiente ID no usado por ningún artículo, lápida o evento guardado
+     * @return el siguiente ID libre
+     */
+    public long getSiguienteId() {
+        return leyendo(() -> maximoId + 1);
+    }
+
+    // --- Escritura ---
+
+    /**
+     * Guarda la versión vigente de un artículo
+     * @param articulo el artículo (debe tener ID)
+     * @throws IllegalArgumentException si no tiene ID
+     */
+    public void escribirArticulo(ArtCientificoDTO articulo) {
+        long id = articulo.getId().orElseThrow(() -> new IllegalArgumentException("El artículo no tiene ID"));
+        ByteBuffer registro = FormatoRegistro.articulo(articulo);
+        escribiendo(() -> {
+            sustituirArticulo(id, anexar(registro));
+            maximoId = Math.max(maximoId, id);
+            return id;
+        });
+    }
+
+    /**
+     * Marca un artículo como eliminado
+     * @param id el ID del artículo
+     */
+    public void escribirLapida(long id) {
+        ByteBuffer registro = FormatoRegistro.lapida(id);
+        escribiendo(() -> {
+            anexar(registro);
+            sustituirArticulo(id, 0);
+            return id;
+        });
+    }
+
+    /**
+     * Añade un evento al historial con la siguiente secuencia. La marca de tiempo nunca retrocede
+     * respecto a la del evento anterior, aunque el reloj del sistema lo haga.
+     * @param tipoEvento el tipo de evento
+     * @param marcaTiempo la marca de tiempo propuesta, en milisegundos desde la época
+     * @param articulo el artículo tal y como queda registrado en el evento
+     * @return el número de secuencia del evento
+     */
+    public long escribirEvento(TipoEvento tipoEvento, long marcaTiempo, ArtCientificoDTO articulo) {
+        return escribiendo(() -> {
+            long secuencia = ultimaSecuencia + 1;
+            ultimaMarcaTiempo = Math.max(ultimaMarcaTiempo, marcaTiempo);
+            sustituirEvento(secuencia, anexar(FormatoRegistro.evento(secuencia, tipoEvento, ultimaMarcaTiempo, articulo)));
+            ultimaSecuencia = secuencia;
+            articulo.getId().ifPresent(id -> maximoId = Math.max(maximoId, id));
+            return secuencia;
+        });
+    }
+
+    // --- Compactación ---
+
+    /**
+     * Compacta los segmentos cerrados cuyo contenido vivo está por debajo de la proporción
+     * indicada. Cada segmento se compacta por separado, así que lectores y escritores solo
+     * esperan mientras se copia uno.
+     * @param proporcionVivos proporción de bytes vivos por debajo de la cual se compacta (0 a 1)
+     * @return los bytes recuperados
+     * @throws UncheckedIOException si no se puede escribir o borrar un segmento
+     */
+    public long compactar(double proporcionVivos) {
+        List<Integer> candidatos = leyendo(() -> segmentos.values().stream()
+            .filter(segmento -> segmento != activo)
+            .filter(segmento -> segmento.getBytesVivos() < proporcionVivos * segmento.getPosicion())
+            .map(Segmento::getNumero)
+            .collect(Collectors.toList()));
+        long recuperados = 0;
+        for (int numero : candidatos) {
+            recuperados += escribiendo(() -> Optional.ofNullable(segmentos.get(numero))
+                .filter(segmento -> segmento != activo)
+                .map(this::compactarSegmento)
+                .orElse(0L));
+        }
+        return recuperados;
+    }
+
+    /**
+     * Copia al segmento activo los registros aún necesarios de un segmento y lo borra.
+     * Debe llamarse con el cerrojo de escritura adquirido.
+     */
+    private long compactarSegmento(Segmento segmento) {
+        ByteBuffer mapa = segmento.getMapa();
+        long copiados = 0;
+        int inicio = 0;
+        while (inicio < segmento.getPosicion()) {
+            int longitud = mapa.getInt(inicio);
+            long id = mapa.getLong(inicio + FormatoRegistro.POSICION_ID);
+            long posicion = empaquetar(segmento, inicio);
+            switch (mapa.get(inicio + FormatoRegistro.POSICION_TIPO)) {
+                case FormatoRegistro.TIPO_ARTICULO -> {
+                    if (articulos.obtener(id) == posicion) {
+                        sustituirArticulo(id, anexar(mapa.slice(inicio, longitud)));
+                        copiados += longitud;
+                    }
+                }
+                case FormatoRegistro.TIPO_EVENTO -> {
+                    long secuencia = mapa.getLong(inicio + FormatoRegistro.POSICION_SECUENCIA);
+                    if (eventos.obtener(secuencia) == posicion) {
+                        sustituirEvento(secuencia, anexar(mapa.slice(inicio, longitud)));
+                        copiados += longitud;
+                    }
+                }
+                default -> {
+                    // Una lápida solo hace falta mientras el artículo siga eliminado y pueda
+                    // quedar una versión suya en un segmento anterior
+                    if (articulos.obtener(id) == 0 && segmentos.firstKey() < segmento.getNumero()) {
+                        anexar(mapa.slice(inicio, longitud));
+                        copiados += longitud;
+                    }
+                }
+            }
+            inicio += longitud;
+        }
+        // Las copias deben estar en disco antes de borrar el original
+        activo.sincronizar();
+        segmentos.remove(segmento.getNumero());
+        try {
+            segmento.borrar();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el segmento " + segmento.getNumero(), e);
+        }
+        long recuperados = segmento.getPosicion() - copiados;
+        segmentosCompactados++;
+        bytesRecuperados += recuperados;
+        return recuperados;
+    }
+
+    /**
+     * Obtiene las estadísticas de ocupación del almacén
+     * @return las estadísticas actuales
+     */
+    public EstadisticasAlmacen getEstadisticas() {
+        return leyendo(() -> new EstadisticasAlmacen(segmentos.size(),
+            segmentos.values().stream().mapToLong(Segmento::getPosicion).sum(),
+            segmentos.values().stream().mapToLong(Segmento::getBytesVivos).sum(),
+            articulos.tamanio(), eventos.tamanio(), segmentosCompactados, bytesRecuperados));
+    }
+
+    /**
+     * Fuerza a disco todos los segmentos
+     */
+    @Override
+    public void close() {
+        escribiendo(() -> {
+            segmentos.values().forEach(Segmento::sincronizar);
+            return null;
+        });
+    }
+}
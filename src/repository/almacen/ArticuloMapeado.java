@@ -0,0 +1,83 @@
+package repository.almacen;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+
+/**
+ * Vista de un artículo guardado en un segmento mapeado en memoria.
+ * Cada campo se decodifica al pedirlo, directamente del buffer mapeado, sin leer el resto;
+ * por ejemplo, consultar el año no decodifica ningún texto.
+ * <p>
+ * La vista es inmutable: los segmentos nunca se sobrescriben, así que sigue siendo válida
+ * aunque el artículo se actualice o se compacte después.
+ */
+public final class ArticuloMapeado {
+
+    private final ByteBuffer buffer;
+    private final int inicio;
+
+    ArticuloMapeado(ByteBuffer buffer, int inicio) {
+        this.buffer = buffer;
+        this.inicio = inicio;
+    }
+
+    /**
+     * Obtiene el ID del artículo
+     * @return Optional con el ID o vacío si no tiene
+     */
+    public Optional<Long> getId() {
+        return CodecArticulo.leerId(buffer, inicio);
+    }
+
+    /**
+     * Obtiene el año de publicación sin decodificar los textos
+     * @return Optional con el año o vacío si no tiene
+     */
+    public Optional<Integer> getAnio() {
+        return CodecArticulo.leerAnio(buffer, inicio);
+    }
+
+    /**
+     * Decodifica el nombre
+     * @return Optional con el nombre o vacío si no tiene
+     */
+    public Optional<String> getNombre() {
+        return CodecArticulo.leerNombre(buffer, inicio);
+    }
+
+    /**
+     * Decodifica el autor
+     * @return Optional con el autor o vacío si no tiene
+     */
+    public Optional<String> getAutor() {
+        return CodecArticulo.leerAutor(buffer, inicio);
+    }
+
+    /**
+     * Decodifica el resumen
+     * @return Optional con el resumen o vacío si no tiene
+     */
+    public Optional<String> getResumen() {
+        return CodecArticulo.leerResumen(buffer, inicio);
+    }
+
+    /**
+     * Decodifica las palabras clave
+     * @return Optional con la lista inmutable de palabras clave o vacío si no tiene
+     */
+    public Optional<List<String>> getPalabrasClaves() {
+        return CodecArticulo.leerPalabrasClaves(buffer, inicio);
+    }
+
+    /**
+     * Decodifica todos los campos
+     * @return el DTO del artículo
+     */
+    public ArtCientificoDTO aDTO() {
+        return CodecArticulo.decodificar(buffer, inicio);
+    }
+}
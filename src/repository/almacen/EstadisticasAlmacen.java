@@ -0,0 +1,98 @@
+package repository.almacen;
+
+/**
+ * Estadísticas de ocupación y compactación de un almacén mapeado en memoria
+ */
+public class EstadisticasAlmacen {
+
+    private final int segmentos;
+    private final long bytesOcupados;
+    private final long bytesVivos;
+    private final long articulos;
+    private final long eventos;
+    private final long segmentosCompactados;
+    private final long bytesRecuperados;
+
+    /**
+     * Constructor con los valores medidos
+     */
+    public EstadisticasAlmacen(int segmentos, long bytesOcupados, long bytesVivos, long articulos,
+                               long eventos, long segmentosCompactados, long bytesRecuperados) {
+        this.segmentos = segmentos;
+        this.bytesOcupados = bytesOcupados;
+        this.bytesVivos = bytesVivos;
+        this.articulos = articulos;
+        this.eventos = eventos;
+        this.segmentosCompactados = segmentosCompactados;
+        this.bytesRecuperados = bytesRecuperados;
+    }
+
+    /**
+     * Número de archivos de segmento
+     * @return los segmentos
+     */
+    public int getSegmentos() {
+        return segmentos;
+    }
+
+    /**
+     * Bytes escritos en los segmentos, incluidos los registros que ya no se necesitan
+     * @return los bytes ocupados
+     */
+    public long getBytesOcupados() {
+        return bytesOcupados;
+    }
+
+    /**
+     * Bytes de los registros que siguen siendo necesarios (versión actual de cada artículo y eventos)
+     * @return los bytes vivos
+     */
+    public long getBytesVivos() {
+        return bytesVivos;
+    }
+
+    /**
+     * Número de artículos existentes
+     * @return los artículos
+     */
+    public long getArticulos() {
+        return articulos;
+    }
+
+    /**
+     * Número de eventos del historial
+     * @return los eventos
+     */
+    public long getEventos() {
+        return eventos;
+    }
+
+    /**
+     * Segmentos compactados desde que se abrió el almacén
+     * @return los segmentos compactados
+     */
+    public long getSegmentosCompactados() {
+        return segmentosCompactados;
+    }
+
+    /**
+     * Bytes recuperados por la compactación desde que se abrió el almacén
+     * @return los bytes recuperados
+     */
+    public long getBytesRecuperados() {
+        return bytesRecuperados;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadisticasAlmacen{" +
+                "segmentos=" + segmentos +
+                ", bytesOcupados=" + bytesOcupados +
+                ", bytesVivos=" + bytesVivos +
+                ", articulos=" + articulos +
+                ", eventos=" + eventos +
+                ", segmentosCompactados=" + segmentosCompactados +
+                ", bytesRecuperados=" + bytesRecuperados +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package repository.almacen;
+
+import java.nio.ByteBuffer;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Evento del historial guardado en un segmento mapeado; el artículo se decodifica al pedirlo
+ */
+final class EventoMapeado implements EventoHistorial {
+
+    private final ByteBuffer buffer;
+    private final int inicio;
+
+    EventoMapeado(ByteBuffer buffer, int inicio) {
+        this.buffer = buffer;
+        this.inicio = inicio;
+    }
+
+    @Override
+    public ArtCientificoDTO getArticulo() {
+        return new ArticuloMapeado(buffer, inicio + FormatoRegistro.INICIO_CUERPO_EVENTO).aDTO();
+    }
+
+    @Override
+    public TipoEvento getTipoEvento() {
+        return TipoEvento.values()[buffer.get(inicio + FormatoRegistro.POSICION_TIPO_EVENTO)];
+    }
+
+    @Override
+    public long getSecuencia() {
+        return buffer.getLong(inicio + FormatoRegistro.POSICION_SECUENCIA);
+    }
+
+    @Override
+    public long getMarcaTiempo() {
+        return FormatoRegistro.leerMarcaTiempo(buffer, inicio);
+    }
+}
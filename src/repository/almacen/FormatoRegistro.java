@@ -0,0 +1,114 @@
+package repository.almacen;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+
+/**
+ * Formato de los registros de los segmentos mapeados en memoria.
+ * <p>
+ * Cada registro empieza con: longitud total (int), CRC32 del resto del registro (int),
+ * tipo (byte) e ID (long). La longitud se escribe en último lugar, de modo que un registro
+ * interrumpido por una caída queda con longitud 0 o con CRC incorrecto y se descarta.
+ * <p>
+ * El cuerpo de un artículo usa el formato de CodecArticulo, que permite leer cualquier campo
+ * directamente del buffer mapeado saltando los anteriores sin decodificarlos.
+ */
+final class FormatoRegistro {
+
+    static final byte TIPO_ARTICULO = 1;
+    static final byte TIPO_LAPIDA = 2;
+    static final byte TIPO_EVENTO = 3;
+
+    // Cabecera común: longitud, CRC, tipo e ID
+    static final int POSICION_CRC = 4;
+    static final int POSICION_TIPO = 8;
+    static final int POSICION_ID = 9;
+    static final int TAMANIO_CABECERA = 17;
+
+    // Datos propios de un evento, tras la cabecera común
+    static final int POSICION_SECUENCIA = TAMANIO_CABECERA;
+    static final int POSICION_TIPO_EVENTO = POSICION_SECUENCIA + 8;
+    static final int POSICION_MARCA_TIEMPO = POSICION_TIPO_EVENTO + 1;
+    static final int INICIO_CUERPO_EVENTO = POSICION_MARCA_TIEMPO + 12;
+
+    private FormatoRegistro() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Registro con el estado actual de un artículo
+     */
+    static ByteBuffer articulo(ArtCientificoDTO articulo) {
+        ByteBuffer registro = ByteBuffer.allocate(TAMANIO_CABECERA + CodecArticulo.tamanio(articulo));
+        cabecera(registro, TIPO_ARTICULO, articulo.getId().orElse(0L));
+        CodecArticulo.codificar(articulo, registro);
+        return cerrar(registro);
+    }
+
+    /**
+     * Registro que marca un artículo como eliminado
+     */
+    static ByteBuffer lapida(long id) {
+        ByteBuffer registro = ByteBuffer.allocate(TAMANIO_CABECERA);
+        cabecera(registro, TIPO_LAPIDA, id);
+        return cerrar(registro);
+    }
+
+    /**
+     * Registro de un evento del historial con el artículo tal y como quedó registrado
+     */
+    static ByteBuffer evento(long secuencia, TipoEvento tipoEvento, long marcaTiempo, ArtCientificoDTO articulo) {
+        ByteBuffer registro = ByteBuffer.allocate(INICIO_CUERPO_EVENTO + CodecArticulo.tamanio(articulo));
+        cabecera(registro, TIPO_EVENTO, articulo.getId().orElse(0L));
+        registro.putLong(secuencia);
+        registro.put((byte) tipoEvento.ordinal());
+        registro.putLong(Math.floorDiv(marcaTiempo, 1000L));
+        registro.putInt((int) Math.floorMod(marcaTiempo, 1000L) * 1_000_000);
+        CodecArticulo.codificar(articulo, registro);
+        return cerrar(registro);
+    }
+
+    private static void cabecera(ByteBuffer registro, byte tipo, long id) {
+        registro.putInt(registro.capacity());
+        registro.putInt(0);
+        registro.put(tipo);
+        registro.putLong(id);
+    }
+
+    /**
+     * Calcula el CRC y deja el registro listo para copiarlo
+     */
+    private static ByteBuffer cerrar(ByteBuffer registro) {
+        registro.flip();
+        registro.putInt(POSICION_CRC, crc(registro, 0));
+        return registro;
+    }
+
+    /**
+     * CRC32 de un registro a partir de la posición indicada del buffer
+     * @param buffer el buffer que contiene el registro
+     * @param inicio la posición donde empieza el registro
+     * @return el CRC del registro sin la longitud ni el propio CRC
+     */
+    static int crc(ByteBuffer buffer, int inicio) {
+        int longitud = buffer.getInt(inicio);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(inicio + POSICION_TIPO, longitud - POSICION_TIPO));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Marca de tiempo de un evento, guardada como segundos desde la época y nanosegundos
+     * @param buffer el buffer que contiene el registro
+     * @param inicio la posición donde empieza el registro
+     * @return los milisegundos desde la época
+     */
+    static long leerMarcaTiempo(ByteBuffer buffer, int inicio) {
+        int posicion = inicio + POSICION_MARCA_TIEMPO;
+        return buffer.getLong(posicion) * 1000L + buffer.getInt(posicion + 8) / 1_000_000;
+    }
+}
@@ -0,0 +1,112 @@
+package repository.almacen;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntConsumer;
+
+/**
+ * Archivo de segmento mapeado en memoria donde se anexan registros.
+ * Los registros ya escritos no se modifican nunca, así que se pueden leer sin cerrojo
+ * una vez publicados; el almacén serializa las escrituras.
+ */
+final class Segmento {
+
+    private final int numero;
+    private final Path ruta;
+    private final MappedByteBuffer mapa;
+
+    // Final de los registros escritos y bytes que siguen siendo necesarios
+    private int posicion;
+    private long bytesVivos;
+
+    private Segmento(int numero, Path ruta, MappedByteBuffer mapa) {
+        this.numero = numero;
+        this.ruta = ruta;
+        this.mapa = mapa;
+    }
+
+    /**
+     * Mapea un segmento, creándolo con la capacidad indicada si no existe
+     */
+    static Segmento abrir(int numero, Path ruta, int capacidad) throws IOException {
+        try (FileChannel canal = FileChannel.open(ruta,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long tamanio = Math.max(capacidad, canal.size());
+            return new Segmento(numero, ruta, canal.map(FileChannel.MapMode.READ_WRITE, 0, tamanio));
+        }
+    }
+
+    /**
+     * Busca el final de los registros válidos, descartando la cola interrumpida o dañada
+     * @param alLeer recibe la posición de cada registro válido, en orden
+     */
+    void recuperar(IntConsumer alLeer) {
+        int actual = 0;
+        while (actual + FormatoRegistro.TAMANIO_CABECERA <= mapa.capacity()) {
+            int longitud = mapa.getInt(actual);
+            if (longitud < FormatoRegistro.TAMANIO_CABECERA || actual + longitud > mapa.capacity()
+                    || FormatoRegistro.crc(mapa, actual) != mapa.getInt(actual + FormatoRegistro.POSICION_CRC)) {
+                break;
+            }
+            alLeer.accept(actual);
+            actual += longitud;
+        }
+        posicion = actual;
+    }
+
+    /**
+     * Anexa un registro completo; la longitud se publica en último lugar
+     * @return la posición del registro o -1 si no cabe en el segmento
+     */
+    int anexar(ByteBuffer registro, boolean sincronizar) {
+        int longitud = registro.remaining();
+        if (posicion + longitud > mapa.capacity()) {
+            return -1;
+        }
+        int inicio = posicion;
+        mapa.put(inicio + Integer.BYTES, registro, Integer.BYTES, longitud - Integer.BYTES);
+        mapa.putInt(inicio, longitud);
+        if (sincronizar) {
+            mapa.force(inicio, longitud);
+        }
+        posicion += longitud;
+        return inicio;
+    }
+
+    void sincronizar() {
+        mapa.force();
+    }
+
+    void borrar() throws IOException {
+        Files.deleteIfExists(ruta);
+    }
+
+    int getNumero() {
+        return numero;
+    }
+
+    ByteBuffer getMapa() {
+        return mapa;
+    }
+
+    int getPosicion() {
+        return posicion;
+    }
+
+    int getCapacidad() {
+        return mapa.capacity();
+    }
+
+    long getBytesVivos() {
+        return bytesVivos;
+    }
+
+    void sumarVivos(long bytes) {
+        bytesVivos += bytes;
+    }
+}
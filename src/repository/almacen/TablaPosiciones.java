@@ -0,0 +1,101 @@
+package repository.almacen;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Tabla compacta de posiciones indexada por un número no negativo (ID de artículo o número
+ * de secuencia de evento). Usa páginas de long[] que se reservan al primer uso, de modo que
+ * cada entrada ocupa 8 bytes sin objetos intermedios. El valor 0 indica que no hay posición.
+ * No es segura para varios hilos: el almacén la protege con su cerrojo.
+ */
+final class TablaPosiciones {
+
+    private static final int BITS_PAGINA = 16;
+    private static final int TAMANIO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANIO_PAGINA - 1;
+
+    private long[][] paginas = new long[16][];
+    private long ocupadas;
+
+    long obtener(long indice) {
+        int pagina = (int) (indice >>> BITS_PAGINA);
+        return indice < 0 || pagina >= paginas.length || paginas[pagina] == null
+            ? 0
+            : paginas[pagina][(int) indice & MASCARA_PAGINA];
+    }
+
+    void poner(long indice, long posicion) {
+        if (indice < 0) {
+            throw new IllegalArgumentException("Índice negativo: " + indice);
+        }
+        int pagina = (int) (indice >>> BITS_PAGINA);
+        if (pagina >= paginas.length) {
+            paginas = Arrays.copyOf(paginas, Math.max(pagina + 1, paginas.length * 2));
+        }
+        if (paginas[pagina] == null) {
+            paginas[pagina] = new long[TAMANIO_PAGINA];
+        }
+        long anterior = paginas[pagina][(int) indice & MASCARA_PAGINA];
+        paginas[pagina][(int) indice & MASCARA_PAGINA] = posicion;
+        ocupadas += (anterior == 0 ? 1 : 0) - (posicion == 0 ? 1 : 0);
+    }
+
+    void quitar(long indice) {
+        if (obtener(indice) != 0) {
+            poner(indice, 0);
+        }
+    }
+
+    long tamanio() {
+        return ocupadas;
+    }
+
+    /**
+     * Entrega las posiciones ocupadas en orden de índice
+     */
+    void recorrer(LongConsumer destino) {
+        for (long[] pagina : paginas) {
+            if (pagina != null) {
+                for (long posicion : pagina) {
+                    if (posicion != 0) {
+                        destino.accept(posicion);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el primer índice ocupado igual o posterior al indicado, saltando las páginas sin reservar
+     * @return el índice, o -1 si no hay ninguno
+     */
+    long siguienteIndice(long desde) {
+        long indice = Math.max(0, desde);
+        for (int pagina = (int) (indice >>> BITS_PAGINA); pagina < paginas.length; pagina++) {
+            if (paginas[pagina] != null) {
+                for (int i = pagina == indice >>> BITS_PAGINA ? (int) indice & MASCARA_PAGINA : 0; i < TAMANIO_PAGINA; i++) {
+                    if (paginas[pagina][i] != 0) {
+                        return ((long) pagina << BITS_PAGINA) | i;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Entrega los índices ocupados en orden
+     */
+    void recorrerIndices(LongConsumer destino) {
+        for (int pagina = 0; pagina < paginas.length; pagina++) {
+            if (paginas[pagina] != null) {
+                for (int i = 0; i < TAMANIO_PAGINA; i++) {
+                    if (paginas[pagina][i] != 0) {
+                        destino.accept(((long) pagina << BITS_PAGINA) | i);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package repository.codec;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Codificación binaria compacta y versionada de un ArtCientificoDTO, compartida por el log,
+ * las instantáneas y los segmentos mapeados.
+ * <p>
+ * Formato (versión 1): byte de versión, byte de presencia con un bit por campo opcional y los
+ * campos presentes en este orden: ID (varint), año (varint zigzag), nombre, autor, palabras
+ * clave (número de palabras en varint seguido de cada texto) y resumen. Los textos son UTF-8
+ * precedidos de su longitud en varint.
+ * <p>
+ * La codificación escribe directamente en el ByteBuffer de destino, y la lectura de un campo
+ * a partir de una posición absoluta salta los anteriores sin decodificarlos, de modo que se
+ * puede consultar, por ejemplo, el año de un artículo mapeado sin leer ningún texto.
+ */
+public final class CodecArticulo {
+
+    public static final byte VERSION = 1;
+
+    // Bits de presencia, en el mismo orden en que se escriben los campos
+    private static final int CON_ID = 1;
+    private static final int CON_ANIO = 1 << 1;
+    private static final int CON_NOMBRE = 1 << 2;
+    private static final int CON_AUTOR = 1 << 3;
+    private static final int CON_PALABRAS = 1 << 4;
+    private static final int CON_RESUMEN = 1 << 5;
+    private static final int ULTIMO_CAMPO = CON_RESUMEN;
+
+    // Versión y presencia
+    private static final int CABECERA = 2;
+
+    private CodecArticulo() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Calcula el tamaño exacto de la codificación de un artículo
+     * @param articulo el artículo
+     * @return el número de bytes que ocupará
+     */
+    public static int tamanio(ArtCientificoDTO articulo) {
+        int tamanio = CABECERA;
+        Optional<Long> id = articulo.getId();
+        if (id.isPresent()) {
+            tamanio += Varint.tamanio(id.get());
+        }
+        Optional<Integer> anio = articulo.getAnio();
+        if (anio.isPresent()) {
+            tamanio += Varint.tamanio(Varint.zigzag(anio.get()));
+        }
+        tamanio += tamanioTexto(articulo.getNombre());
+        tamanio += tamanioTexto(articulo.getAutor());
+        Optional<List<String>> palabras = articulo.getPalabrasClaves();
+        if (palabras.isPresent()) {
+            tamanio += Varint.tamanio(palabras.get().size());
+            for (String palabra : palabras.get()) {
+                tamanio += Utf8.tamanio(palabra);
+            }
+        }
+        tamanio += tamanioTexto(articulo.getResumen());
+        return tamanio;
+    }
+
+    private static int tamanioTexto(Optional<String> texto) {
+        return texto.isPresent() ? Utf8.tamanio(texto.get()) : 0;
+    }
+
+    /**
+     * Escribe un artículo en la posición actual del buffer, que avanza hasta el final de la codificación
+     * @param articulo el artículo
+     * @param destino el buffer de destino, con al menos tamanio(articulo) bytes libres
+     * @throws java.nio.BufferOverflowException si no cabe en el buffer
+     */
+    public static void codificar(ArtCientificoDTO articulo, ByteBuffer destino) {
+        Optional<Long> id = articulo.getId();
+        Optional<Integer> anio = articulo.getAnio();
+        Optional<String> nombre = articulo.getNombre();
+        Optional<String> autor = articulo.getAutor();
+        Optional<List<String>> palabras = articulo.getPalabrasClaves();
+        Optional<String> resumen = articulo.getResumen();
+
+        int presencia = (id.isPresent() ? CON_ID : 0)
+            | (anio.isPresent() ? CON_ANIO : 0)
+            | (nombre.isPresent() ? CON_NOMBRE : 0)
+            | (autor.isPresent() ? CON_AUTOR : 0)
+            | (palabras.isPresent() ? CON_PALABRAS : 0)
+            | (resumen.isPresent() ? CON_RESUMEN : 0);
+        destino.put(VERSION);
+        destino.put((byte) presencia);
+
+        // Sin lambdas ni conversiones intermedias: cada campo se escribe directamente en el destino
+        if (id.isPresent()) {
+            Varint.escribir(destino, id.get());
+        }
+        if (anio.isPresent()) {
+            Varint.escribir(destino, Varint.zigzag(anio.get()));
+        }
+        escribirTexto(nombre, destino);
+        escribirTexto(autor, destino);
+        if (palabras.isPresent()) {
+            List<String> lista = palabras.get();
+            Varint.escribir(destino, lista.size());
+            for (String palabra : lista) {
+                Utf8.escribir(destino, palabra);
+            }
+        }
+        escribirTexto(resumen, destino);
+    }
+
+    private static void escribirTexto(Optional<String> texto, ByteBuffer destino) {
+        if (texto.isPresent()) {
+            Utf8.escribir(destino, texto.get());
+        }
+    }
+
+    /**
+     * Lee un artículo en la posición actual del buffer, que avanza hasta el final de la codificación
+     * @param origen el buffer de origen
+     * @return el artículo decodificado
+     * @throws IllegalArgumentException si la versión no está soportada
+     */
+    public static ArtCientificoDTO decodificar(ByteBuffer origen) {
+        int inicio = origen.position();
+        ArtCientificoDTO articulo = decodificar(origen, inicio);
+        origen.position(inicio + longitud(origen, inicio));
+        return articulo;
+    }
+
+    /**
+     * Lee un artículo en una posición absoluta, sin mover el buffer
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return el artículo decodificado
+     * @throws IllegalArgumentException si la versión no está soportada o alguna longitud no cabe en el buffer
+     */
+    public static ArtCientificoDTO decodificar(ByteBuffer origen, int inicio) {
+        int presencia = presencia(origen, inicio);
+        int actual = inicio + CABECERA;
+        ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO();
+        // Un único recorrido: cada campo se lee y se salta antes de pasar al siguiente
+        if ((presencia & CON_ID) != 0) {
+            builder.conId(Varint.leer(origen, actual));
+            actual += Varint.longitud(origen, actual);
+        }
+        if ((presencia & CON_ANIO) != 0) {
+            builder.conAnio((int) Varint.desdeZigzag(Varint.leer(origen, actual)));
+            actual += Varint.longitud(origen, actual);
+        }
+        if ((presencia & CON_NOMBRE) != 0) {
+            builder.conNombre(Utf8.leer(origen, actual));
+            actual += Utf8.longitud(origen, actual);
+        }
+        if ((presencia & CON_AUTOR) != 0) {
+            builder.conAutor(Utf8.leer(origen, actual));
+            actual += Utf8.longitud(origen, actual);
+        }
+        if ((presencia & CON_PALABRAS) != 0) {
+            builder.conPalabrasClaves(leerPalabras(origen, actual));
+            actual += longitudCampo(origen, actual, CON_PALABRAS);
+        }
+        if ((presencia & CON_RESUMEN) != 0) {
+            builder.conResumen(Utf8.leer(origen, actual));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Número de bytes que ocupa la codificación guardada en una posición
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return los bytes que ocupa
+     */
+    public static int longitud(ByteBuffer origen, int inicio) {
+        return saltarHasta(origen, inicio, ULTIMO_CAMPO << 1) - inicio;
+    }
+
+    /**
+     * Lee el ID sin decodificar el resto de campos
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con el ID o vacío si no tiene
+     */
+    public static Optional<Long> leerId(ByteBuffer origen, int inicio) {
+        int posicion = posicion(origen, inicio, CON_ID);
+        return posicion < 0 ? Optional.empty() : Optional.of(Varint.leer(origen, posicion));
+    }
+
+    /**
+     * Lee el año sin decodificar ningún texto
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con el año o vacío si no tiene
+     */
+    public static Optional<Integer> leerAnio(ByteBuffer origen, int inicio) {
+        int posicion = posicion(origen, inicio, CON_ANIO);
+        return posicion < 0 ? Optional.empty() : Optional.of((int) Varint.desdeZigzag(Varint.leer(origen, posicion)));
+    }
+
+    /**
+     * Lee el nombre saltando los campos anteriores
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con el nombre o vacío si no tiene
+     */
+    public static Optional<String> leerNombre(ByteBuffer origen, int inicio) {
+        return texto(origen, posicion(origen, inicio, CON_NOMBRE));
+    }
+
+    /**
+     * Lee el autor saltando los campos anteriores
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con el autor o vacío si no tiene
+     */
+    public static Optional<String> leerAutor(ByteBuffer origen, int inicio) {
+        return texto(origen, posicion(origen, inicio, CON_AUTOR));
+    }
+
+    /**
+     * Lee las palabras clave saltando los campos anteriores
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con la lista inmutable de palabras clave o vacío si no tiene
+     */
+    public static Optional<List<String>> leerPalabrasClaves(ByteBuffer origen, int inicio) {
+        int posicion = posicion(origen, inicio, CON_PALABRAS);
+        return posicion < 0 ? Optional.empty() : Optional.of(leerPalabras(origen, posicion));
+    }
+
+    /**
+     * Lee el resumen saltando los campos anteriores
+     * @param origen el buffer de origen
+     * @param inicio la posición donde empieza la codificación
+     * @return Optional con el resumen o vacío si no tiene
+     */
+    public static Optional<String> leerResumen(ByteBuffer origen, int inicio) {
+        return texto(origen, posicion(origen, inicio, CON_RESUMEN));
+    }
+
+    private static Optional<String> texto(ByteBuffer origen, int posicion) {
+        return posicion < 0 ? Optional.empty() : Optional.of(Utf8.leer(origen, posicion));
+    }
+
+    private static List<String> leerPalabras(ByteBuffer origen, int posicion) {
+        String[] palabras = new String[Varint.leerCantidad(origen, posicion)];
+        int actual = posicion + Varint.longitud(origen, posicion);
+        for (int i = 0; i < palabras.length; i++) {
+            palabras[i] = Utf8.leer(origen, actual);
+            actual += Utf8.longitud(origen, actual);
+        }
+        return List.of(palabras);
+    }
+
+    /**
+     * Posición de un campo, o -1 si el artículo no lo tiene
+     */
+    private static int posicion(ByteBuffer origen, int inicio, int campo) {
+        return (presencia(origen, inicio) & campo) != 0 ? saltarHasta(origen, inicio, campo) : -1;
+    }
+
+    /**
+     * Salta los campos presentes anteriores a uno dado y devuelve la posición siguiente
+     */
+    private static int saltarHasta(ByteBuffer origen, int inicio, int campo) {
+        int presencia = presencia(origen, inicio);
+        int actual = inicio + CABECERA;
+        for (int anterior = CON_ID; anterior < campo; anterior <<= 1) {
+            if ((presencia & anterior) != 0) {
+                actual += longitudCampo(origen, actual, anterior);
+            }
+        }
+        return actual;
+    }
+
+    private static int longitudCampo(ByteBuffer origen, int posicion, int campo) {
+        switch (campo) {
+            case CON_ID:
+            case CON_ANIO:
+                return Varint.longitud(origen, posicion);
+            case CON_PALABRAS:
+                int cantidad = Varint.leerCantidad(origen, posicion);
+                int actual = posicion + Varint.longitud(origen, posicion);
+                for (int i = 0; i < cantidad; i++) {
+                    actual += Utf8.longitud(origen, actual);
+                }
+                return actual - posicion;
+            default:
+                return Utf8.longitud(origen, posicion);
+        }
+    }
+
+    private static int presencia(ByteBuffer origen, int inicio) {
+        byte version = origen.get(inicio);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versión de codificación de artículo no soportada: " + version);
+        }
+        return origen.get(inicio + 1);
+    }
+}
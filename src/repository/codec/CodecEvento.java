@@ -0,0 +1,171 @@
+package repository.codec;
+
+import java.nio.ByteBuffer;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Codificación binaria compacta y versionada de un EventoHistorial.
+ * <p>
+ * Formato (versión 2): byte de versión, tipo de evento (byte), número de secuencia (varint) y
+ * marca de tiempo, seguidos del artículo codificado con CodecArticulo. La marca de tiempo se
+ * guarda como segundos desde la época (varint zigzag) y nanosegundos (varint).
+ * <p>
+ * La versión 1 no llevaba secuencia; sus eventos se decodifican con secuencia 0 para que quien
+ * los cargue les asigne una.
+ */
+public final class CodecEvento {
+
+    public static final byte VERSION = 2;
+
+    private static final byte VERSION_SIN_SECUENCIA = 1;
+
+    private CodecEvento() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Calcula el tamaño exacto de la codificación de un evento
+     * @param evento el evento
+     * @return el número de bytes que ocupará
+     */
+    public static int tamanio(EventoHistorial evento) {
+        return 2 + Varint.tamanio(evento.getSecuencia()) + tamanioMarcaTiempo(evento.getMarcaTiempo())
+            + CodecArticulo.tamanio(evento.getArticulo());
+    }
+
+    /**
+     * Escribe un evento en la posición actual del buffer
+     * @param evento el evento
+     * @param destino el buffer de destino, con al menos tamanio(evento) bytes libres
+     */
+    public static void codificar(EventoHistorial evento, ByteBuffer destino) {
+        destino.put(VERSION);
+        destino.put((byte) evento.getTipoEvento().ordinal());
+        Varint.escribir(destino, evento.getSecuencia());
+        escribirMarcaTiempo(evento.getMarcaTiempo(), destino);
+        CodecArticulo.codificar(evento.getArticulo(), destino);
+    }
+
+    /**
+     * Lee un evento en la posición actual del buffer, que avanza hasta el final de la codificación
+     * @param origen el buffer de origen
+     * @return el evento decodificado, con su secuencia y su marca de tiempo originales
+     * @throws IllegalArgumentException si la versión o el tipo de evento no son válidos
+     */
+    public static EventoHistorial decodificar(ByteBuffer origen) {
+        byte version = origen.get();
+        if (version != VERSION && version != VERSION_SIN_SECUENCIA) {
+            throw new IllegalArgumentException("Versión de codificación de evento no soportada: " + version);
+        }
+        TipoEvento tipoEvento = tipoEvento(origen.get());
+        long secuencia = 0;
+        if (version == VERSION) {
+            secuencia = Varint.leer(origen, origen.position());
+            origen.position(origen.position() + Varint.longitud(origen, origen.position()));
+        }
+        long marcaTiempo = leerMarcaTiempo(origen, origen.position());
+        origen.position(origen.position() + longitudMarcaTiempo(origen, origen.position()));
+        return new EventoDecodificado(CodecArticulo.decodificar(origen), tipoEvento, secuencia, marcaTiempo);
+    }
+
+    /**
+     * Convierte el byte guardado en el tipo de evento
+     * @param ordinal el ordinal guardado
+     * @return el tipo de evento
+     * @throws IllegalArgumentException si no corresponde a ningún tipo
+     */
+    public static TipoEvento tipoEvento(int ordinal) {
+        TipoEvento[] tipos = TipoEvento.values();
+        if (ordinal < 0 || ordinal >= tipos.length) {
+            throw new IllegalArgumentException("Tipo de evento desconocido: " + ordinal);
+        }
+        return tipos[ordinal];
+    }
+
+    /**
+     * Bytes que ocupa una marca de tiempo codificada
+     * @param marcaTiempo los milisegundos desde la época
+     * @return el tamaño codificado
+     */
+    public static int tamanioMarcaTiempo(long marcaTiempo) {
+        return Varint.tamanio(Varint.zigzag(Math.floorDiv(marcaTiempo, 1000L)))
+            + Varint.tamanio(nanos(marcaTiempo));
+    }
+
+    /**
+     * Escribe una marca de tiempo en la posición actual del buffer
+     * @param marcaTiempo los milisegundos desde la época
+     * @param destino el buffer de destino
+     */
+    public static void escribirMarcaTiempo(long marcaTiempo, ByteBuffer destino) {
+        Varint.escribir(destino, Varint.zigzag(Math.floorDiv(marcaTiempo, 1000L)));
+        Varint.escribir(destino, nanos(marcaTiempo));
+    }
+
+    /**
+     * Lee una marca de tiempo en una posición absoluta, sin mover el buffer
+     * @param origen el buffer de origen
+     * @param posicion la posición donde empieza la marca de tiempo
+     * @return los milisegundos desde la época
+     */
+    public static long leerMarcaTiempo(ByteBuffer origen, int posicion) {
+        long segundos = Varint.desdeZigzag(Varint.leer(origen, posicion));
+        long nanos = Varint.leer(origen, posicion + Varint.longitud(origen, posicion));
+        return segundos * 1000L + nanos / 1_000_000L;
+    }
+
+    /**
+     * Bytes que ocupa la marca de tiempo guardada en una posición
+     * @param origen el buffer de origen
+     * @param posicion la posición donde empieza la marca de tiempo
+     * @return los bytes que ocupa
+     */
+    public static int longitudMarcaTiempo(ByteBuffer origen, int posicion) {
+        int segundos = Varint.longitud(origen, posicion);
+        return segundos + Varint.longitud(origen, posicion + segundos);
+    }
+
+    private static long nanos(long marcaTiempo) {
+        return Math.floorMod(marcaTiempo, 1000L) * 1_000_000L;
+    }
+
+    /**
+     * Evento del historial decodificado, con su secuencia y su marca de tiempo originales
+     */
+    private static final class EventoDecodificado implements EventoHistorial {
+        private final ArtCientificoDTO articulo;
+        private final TipoEvento tipoEvento;
+        private final long secuencia;
+        private final long marcaTiempo;
+
+        private EventoDecodificado(ArtCientificoDTO articulo, TipoEvento tipoEvento, long secuencia, long marcaTiempo) {
+            this.articulo = articulo;
+            this.tipoEvento = tipoEvento;
+            this.secuencia = secuencia;
+            this.marcaTiempo = marcaTiempo;
+        }
+
+        @Override
+        public ArtCientificoDTO getArticulo() {
+            return articulo;
+        }
+
+        @Override
+        public TipoEvento getTipoEvento() {
+            return tipoEvento;
+        }
+
+        @Override
+        public long getSecuencia() {
+            return secuencia;
+        }
+
+        @Override
+        public long getMarcaTiempo() {
+            return marcaTiempo;
+        }
+    }
+}
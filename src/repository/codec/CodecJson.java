@@ -0,0 +1,259 @@
+package repository.codec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Codificación JSON de un ArtCientificoDTO, escrita a mano para no depender de librerías externas.
+ * <p>
+ * Cada artículo es un objeto plano con las claves id, nombre, autor, palabrasClaves, anio y
+ * resumen; los campos vacíos se omiten al codificar y al decodificar se aceptan ausentes o null.
+ * Las claves desconocidas se ignoran.
+ */
+public final class CodecJson {
+
+    private CodecJson() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Codifica un artículo como objeto JSON
+     * @param articulo el artículo
+     * @return el texto JSON
+     */
+    public static String codificar(ArtCientificoDTO articulo) {
+        StringBuilder salida = new StringBuilder(256);
+        codificar(articulo, salida);
+        return salida.toString();
+    }
+
+    /**
+     * Añade un artículo como objeto JSON al final de un StringBuilder
+     * @param articulo el artículo
+     * @param salida el destino
+     */
+    public static void codificar(ArtCientificoDTO articulo, StringBuilder salida) {
+        salida.append('{');
+        int inicio = salida.length();
+        articulo.getId().ifPresent(id -> clave(salida, inicio, "id").append(id.longValue()));
+        articulo.getNombre().ifPresent(nombre -> texto(clave(salida, inicio, "nombre"), nombre));
+        articulo.getAutor().ifPresent(autor -> texto(clave(salida, inicio, "autor"), autor));
+        articulo.getPalabrasClaves().ifPresent(palabras -> {
+            clave(salida, inicio, "palabrasClaves").append('[');
+            for (int i = 0; i < palabras.size(); i++) {
+                if (i > 0) {
+                    salida.append(',');
+                }
+                texto(salida, palabras.get(i));
+            }
+            salida.append(']');
+        });
+        articulo.getAnio().ifPresent(anio -> clave(salida, inicio, "anio").append(anio.intValue()));
+        articulo.getResumen().ifPresent(resumen -> texto(clave(salida, inicio, "resumen"), resumen));
+        salida.append('}');
+    }
+
+    private static StringBuilder clave(StringBuilder salida, int inicio, String nombre) {
+        if (salida.length() > inicio) {
+            salida.append(',');
+        }
+        return texto(salida, nombre).append(':');
+    }
+
+    private static StringBuilder texto(StringBuilder salida, String texto) {
+        salida.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> salida.append("\\\"");
+                case '\\' -> salida.append("\\\\");
+                case '\n' -> salida.append("\\n");
+                case '\r' -> salida.append("\\r");
+                case '\t' -> salida.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        salida.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        salida.append(c);
+                    }
+                }
+            }
+        }
+        return salida.append('"');
+    }
+
+    /**
+     * Decodifica un objeto JSON con los campos de un artículo
+     * @param json el texto JSON
+     * @return el artículo decodificado
+     * @throws IllegalArgumentException si el texto no es un objeto JSON válido
+     */
+    public static ArtCientificoDTO decodificar(String json) {
+        Lector lector = new Lector(json);
+        ArtCientificoDTO articulo = lector.articulo();
+        lector.saltarEspacios();
+        if (lector.posicion < json.length()) {
+            throw lector.error("Contenido inesperado tras el objeto");
+        }
+        return articulo;
+    }
+
+    /**
+     * Analizador descendente recursivo del subconjunto de JSON que necesita un artículo
+     */
+    private static final class Lector {
+        private final String json;
+        private int posicion;
+
+        private Lector(String json) {
+            this.json = json;
+        }
+
+        private ArtCientificoDTO articulo() {
+            ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO();
+            esperar('{');
+            if (!consumir('}')) {
+                do {
+                    String clave = texto();
+                    esperar(':');
+                    if (consumir("null")) {
+                        continue;
+                    }
+                    switch (clave) {
+                        case "id" -> builder.conId(numero());
+                        case "nombre" -> builder.conNombre(texto());
+                        case "autor" -> builder.conAutor(texto());
+                        case "palabrasClaves" -> builder.conPalabrasClaves(textos());
+                        case "anio" -> builder.conAnio(Math.toIntExact(numero()));
+                        case "resumen" -> builder.conResumen(texto());
+                        default -> saltarValor();
+                    }
+                } while (consumir(','));
+                esperar('}');
+            }
+            return builder.build();
+        }
+
+        private List<String> textos() {
+            List<String> textos = new ArrayList<>();
+            esperar('[');
+            if (!consumir(']')) {
+                do {
+                    textos.add(texto());
+                } while (consumir(','));
+                esperar(']');
+            }
+            return textos;
+        }
+
+        private String texto() {
+            esperar('"');
+            StringBuilder texto = new StringBuilder();
+            while (posicion < json.length()) {
+                char c = json.charAt(posicion++);
+                if (c == '"') {
+                    return texto.toString();
+                }
+                if (c != '\\') {
+                    texto.append(c);
+                    continue;
+                }
+                if (posicion >= json.length()) {
+                    break;
+                }
+                char escape = json.charAt(posicion++);
+                switch (escape) {
+                    case 'n' -> texto.append('\n');
+                    case 'r' -> texto.append('\r');
+                    case 't' -> texto.append('\t');
+                    case 'b' -> texto.append('\b');
+                    case 'f' -> texto.append('\f');
+                    case 'u' -> {
+                        if (posicion + 4 > json.length()) {
+                            throw error("Escape unicode incompleto");
+                        }
+                        texto.append((char) Integer.parseInt(json.substring(posicion, posicion + 4), 16));
+                        posicion += 4;
+                    }
+                    default -> texto.append(escape);
+                }
+            }
+            throw error("Texto sin cerrar");
+        }
+
+        private long numero() {
+            saltarEspacios();
+            int inicio = posicion;
+            while (posicion < json.length() && "+-0123456789.eE".indexOf(json.charAt(posicion)) >= 0) {
+                posicion++;
+            }
+            try {
+                return Long.parseLong(json.substring(inicio, posicion));
+            } catch (NumberFormatException e) {
+                throw error("Número entero no válido");
+            }
+        }
+
+        private void saltarValor() {
+            saltarEspacios();
+            if (posicion >= json.length()) {
+                throw error("Falta un valor");
+            }
+            char c = json.charAt(posicion);
+            if (c == '"') {
+                texto();
+            } else if (c == '[' || c == '{') {
+                char cierre = c == '[' ? ']' : '}';
+                posicion++;
+                if (!consumir(cierre)) {
+                    do {
+                        if (cierre == '}') {
+                            texto();
+                            esperar(':');
+                        }
+                        saltarValor();
+                    } while (consumir(','));
+                    esperar(cierre);
+                }
+            } else if (!consumir("true") && !consumir("false")) {
+                numero();
+            }
+        }
+
+        private void saltarEspacios() {
+            while (posicion < json.length() && Character.isWhitespace(json.charAt(posicion))) {
+                posicion++;
+            }
+        }
+
+        private boolean consumir(char c) {
+            saltarEspacios();
+            if (posicion < json.length() && json.charAt(posicion) == c) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        private boolean consumir(String literal) {
+            saltarEspacios();
+            if (json.startsWith(literal, posicion)) {
+                posicion += literal.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void esperar(char c) {
+            if (!consumir(c)) {
+                throw error("Se esperaba '" + c + "'");
+            }
+        }
+
+        private IllegalArgumentException error(String mensaje) {
+            return new IllegalArgumentException(mensaje + " en la posición " + posicion + " del JSON");
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package repository.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Textos UTF-8 precedidos de su longitud en bytes (varint). La codificación se escribe
+ * carácter a carácter en el buffer, sin crear un byte[] intermedio; los sustitutos
+ * (surrogates) sueltos se codifican como '?', igual que String.getBytes.
+ */
+public final class Utf8 {
+
+    private Utf8() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Número de bytes UTF-8 de un texto, sin el prefijo de longitud
+     * @param texto el texto
+     * @return los bytes UTF-8
+     */
+    public static int bytes(String texto) {
+        int bytes = 0;
+        int longitud = texto.length();
+        for (int i = 0; i < longitud; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < longitud && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                bytes += 1;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Bytes que ocupa un texto con su prefijo de longitud
+     * @param texto el texto
+     * @return el tamaño codificado
+     */
+    public static int tamanio(String texto) {
+        int bytes = bytes(texto);
+        return Varint.tamanio(bytes) + bytes;
+    }
+
+    /**
+     * Escribe un texto con su prefijo de longitud en la posición actual del buffer
+     * @param destino el buffer de destino
+     * @param texto el texto
+     */
+    public static void escribir(ByteBuffer destino, String texto) {
+        Varint.escribir(destino, bytes(texto));
+        int longitud = texto.length();
+        for (int i = 0; i < longitud; i++) {
+            char c = texto.charAt(i);
+            if (c < 0x80) {
+                destino.put((byte) c);
+            } else if (c < 0x800) {
+                destino.put((byte) (0xC0 | (c >> 6)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < longitud && Character.isLowSurrogate(texto.charAt(i + 1))) {
+                int punto = Character.toCodePoint(c, texto.charAt(++i));
+                destino.put((byte) (0xF0 | (punto >> 18)));
+                destino.put((byte) (0x80 | ((punto >> 12) & 0x3F)));
+                destino.put((byte) (0x80 | ((punto >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (punto & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                destino.put((byte) '?');
+            } else {
+                destino.put((byte) (0xE0 | (c >> 12)));
+                destino.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                destino.put((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+    }
+
+    /**
+     * Lee un texto con prefijo de longitud en una posición absoluta, sin mover el buffer.
+     * Si el buffer tiene un array accesible se decodifica directamente de él.
+     * @param origen el buffer de origen
+     * @param posicion la posición del prefijo de longitud
+     * @return el texto
+     * @throws IllegalArgumentException si la longitud no cabe en el buffer
+     */
+    public static String leer(ByteBuffer origen, int posicion) {
+        int bytes = Varint.leerCantidad(origen, posicion);
+        int inicio = posicion + Varint.longitud(origen, posicion);
+        if (origen.hasArray()) {
+            return new String(origen.array(), origen.arrayOffset() + inicio, bytes, StandardCharsets.UTF_8);
+        }
+        byte[] copia = new byte[bytes];
+        origen.get(inicio, copia);
+        return new String(copia, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Número de bytes que ocupa el texto guardado en una posición, incluido el prefijo
+     * @param origen el buffer de origen
+     * @param posicion la posición del prefijo de longitud
+     * @return los bytes que ocupa
+     * @throws IllegalArgumentException si la longitud no cabe en el buffer
+     */
+    public static int longitud(ByteBuffer origen, int posicion) {
+        return Varint.longitud(origen, posicion) + Varint.leerCantidad(origen, posicion);
+    }
+}
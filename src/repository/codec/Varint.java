@@ -0,0 +1,112 @@
+package repository.codec;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Enteros de longitud variable (LEB128): 7 bits por byte, con el bit alto indicando que
+ * siguen más bytes. Los valores que pueden ser negativos se codifican antes en zigzag para
+ * que los de magnitud pequeña ocupen pocos bytes.
+ */
+public final class Varint {
+
+    private Varint() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Número de bytes que ocupa un valor sin signo
+     * @param valor el valor
+     * @return entre 1 y 10 bytes
+     */
+    public static int tamanio(long valor) {
+        int bytes = 1;
+        while ((valor & ~0x7FL) != 0) {
+            valor >>>= 7;
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Escribe un valor sin signo en la posición actual del buffer
+     * @param destino el buffer de destino
+     * @param valor el valor
+     */
+    public static void escribir(ByteBuffer destino, long valor) {
+        while ((valor & ~0x7FL) != 0) {
+            destino.put((byte) ((valor & 0x7F) | 0x80));
+            valor >>>= 7;
+        }
+        destino.put((byte) valor);
+    }
+
+    /**
+     * Lee un valor sin signo en una posición absoluta, sin mover el buffer
+     * @param origen el buffer de origen
+     * @param posicion la posición del primer byte
+     * @return el valor leído
+     * @throws IllegalArgumentException si el valor ocupa más de 10 bytes
+     */
+    public static long leer(ByteBuffer origen, int posicion) {
+        long valor = 0;
+        for (int desplazamiento = 0; desplazamiento < 64; desplazamiento += 7) {
+            byte actual = origen.get(posicion++);
+            valor |= (long) (actual & 0x7F) << desplazamiento;
+            if (actual >= 0) {
+                return valor;
+            }
+        }
+        throw new IllegalArgumentException("Varint mal formado");
+    }
+
+    /**
+     * Lee una longitud en bytes o un número de elementos que ocupan al menos un byte cada uno,
+     * comprobando que cabe en lo que queda del buffer tras el varint. Así una codificación dañada
+     * no llega a reservar un array de tamaño arbitrario.
+     * @param origen el buffer de origen
+     * @param posicion la posición del primer byte
+     * @return la cantidad leída
+     * @throws IllegalArgumentException si la cantidad no cabe antes del límite del buffer
+     */
+    public static int leerCantidad(ByteBuffer origen, int posicion) {
+        long cantidad = leer(origen, posicion);
+        int disponibles = origen.limit() - posicion - longitud(origen, posicion);
+        if (cantidad < 0 || cantidad > disponibles) {
+            throw new IllegalArgumentException("Cantidad fuera del buffer: " + Long.toUnsignedString(cantidad)
+                + " con " + disponibles + " bytes disponibles");
+        }
+        return (int) cantidad;
+    }
+
+    /**
+     * Número de bytes que ocupa el valor guardado en una posición
+     * @param origen el buffer de origen
+     * @param posicion la posición del primer byte
+     * @return los bytes que ocupa
+     */
+    public static int longitud(ByteBuffer origen, int posicion) {
+        int bytes = 1;
+        while (origen.get(posicion++) < 0) {
+            bytes++;
+        }
+        return bytes;
+    }
+
+    /**
+     * Convierte un valor con signo a zigzag (0, -1, 1, -2... pasan a 0, 1, 2, 3...)
+     * @param valor el valor con signo
+     * @return el valor sin signo
+     */
+    public static long zigzag(long valor) {
+        return (valor << 1) ^ (valor >> 63);
+    }
+
+    /**
+     * Deshace la conversión zigzag
+     * @param valor el valor sin signo
+     * @return el valor con signo original
+     */
+    public static long desdeZigzag(long valor) {
+        return (valor >>> 1) ^ -(valor & 1);
+    }
+}
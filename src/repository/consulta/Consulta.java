@@ -0,0 +1,158 @@
+package repository.consulta;
+
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.function.Function;
+
+import common.types.CampoOrden;
+import dto.ArtCientificoDTO;
+
+/**
+ * Consulta estructurada sobre artículos científicos: criterio, orden y límite de resultados
+ */
+public class Consulta {
+
+    private final Criterio criterio;
+    private final Optional<CampoOrden> orden;
+    private final boolean ascendente;
+    private final Optional<Integer> limite;
+
+    private Consulta(BuilderConsulta builder) {
+        this.criterio = builder.criterio;
+        this.orden = builder.orden;
+        this.ascendente = builder.ascendente;
+        this.limite = builder.limite;
+    }
+
+    /**
+     * Obtiene el criterio de la consulta
+     * @return el criterio (Criterio.todos() si no se indicó ninguno)
+     */
+    public Criterio getCriterio() {
+        return criterio;
+    }
+
+    /**
+     * Obtiene el campo por el que se ordenan los resultados
+     * @return Optional con el campo de orden o vacío si no se ordena
+     */
+    public Optional<CampoOrden> getOrden() {
+        return orden;
+    }
+
+    /**
+     * Indica si el orden es ascendente
+     * @return true si es ascendente, false si es descendente
+     */
+    public boolean isAscendente() {
+        return ascendente;
+    }
+
+    /**
+     * Obtiene el número máximo de resultados
+     * @return Optional con el límite o vacío si no hay límite
+     */
+    public Optional<Integer> getLimite() {
+        return limite;
+    }
+
+    /**
+     * Obtiene el comparador que corresponde al orden de la consulta (valores ausentes al final)
+     * @return Optional con el comparador o vacío si la consulta no se ordena
+     */
+    public Optional<Comparator<ArtCientificoDTO>> getComparador() {
+        return orden.map(campo -> comparador(campo, ascendente));
+    }
+
+    /**
+     * Obtiene el comparador por un campo (valores ausentes al final en orden ascendente)
+     * @param campo el campo de orden
+     * @param ascendente true para orden ascendente, false para descendente
+     * @return el comparador
+     */
+    public static Comparator<ArtCientificoDTO> comparador(CampoOrden campo, boolean ascendente) {
+        Comparator<ArtCientificoDTO> comparador = switch (campo) {
+            case ID -> porCampo(articulo -> articulo.getId().orElse(null));
+            case NOMBRE -> porCampo(articulo -> articulo.getNombre().orElse(null));
+            case AUTOR -> porCampo(articulo -> articulo.getAutor().orElse(null));
+            case ANIO -> porCampo(articulo -> articulo.getAnio().orElse(null));
+        };
+        return ascendente ? comparador : comparador.reversed();
+    }
+
+    private static <T extends Comparable<T>> Comparator<ArtCientificoDTO> porCampo(Function<ArtCientificoDTO, T> campo) {
+        return Comparator.comparing(campo, Comparator.nullsLast(Comparator.naturalOrder()));
+    }
+
+    @Override
+    public String toString() {
+        return "Consulta{" +
+                "criterio=" + criterio.describir() +
+                ", orden=" + orden +
+                ", ascendente=" + ascendente +
+                ", limite=" + limite +
+                '}';
+    }
+
+    /**
+     * BuilderConsulta para crear instancias de Consulta
+     */
+    public static class BuilderConsulta {
+        private Criterio criterio = Criterio.todos();
+        private Optional<CampoOrden> orden = Optional.empty();
+        private boolean ascendente = true;
+        private Optional<Integer> limite = Optional.empty();
+
+        public BuilderConsulta() {
+        }
+
+        /**
+         * Establece el criterio de la consulta
+         * @param criterio el criterio que deben cumplir los artículos
+         * @return el builder para encadenamiento
+         */
+        public BuilderConsulta donde(Criterio criterio) {
+            this.criterio = Optional.ofNullable(criterio).orElse(Criterio.todos());
+            return this;
+        }
+
+        /**
+         * Ordena los resultados de forma ascendente por un campo
+         * @param campo el campo de orden
+         * @return el builder para encadenamiento
+         */
+        public BuilderConsulta ordenarPor(CampoOrden campo) {
+            return ordenarPor(campo, true);
+        }
+
+        /**
+         * Ordena los resultados por un campo
+         * @param campo el campo de orden
+         * @param ascendente true para orden ascendente, false para descendente
+         * @return el builder para encadenamiento
+         */
+        public BuilderConsulta ordenarPor(CampoOrden campo, boolean ascendente) {
+            this.orden = Optional.ofNullable(campo);
+            this.ascendente = ascendente;
+            return this;
+        }
+
+        /**
+         * Limita el número de resultados
+         * @param limite el número máximo de resultados (debe ser positivo)
+         * @return el builder para encadenamiento
+         */
+        public BuilderConsulta limite(int limite) {
+            this.limite = Optional.of(limite).filter(l -> l > 0);
+            return this;
+        }
+
+        /**
+         * Construye y devuelve una instancia de Consulta
+         * @return la instancia de Consulta construida
+         */
+        public Consulta build() {
+            return new Consulta(this);
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package repository.consulta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import dto.ArtCientificoDTO;
+import repository.indice.AnalizadorTexto;
+import repository.indice.ConjuntoBits;
+import repository.indice.IndiceColumnar;
+import repository.indice.IndicesArticulos;
+
+/**
+ * Criterio de búsqueda estructurado sobre artículos científicos.
+ * Es un Predicate (se puede seguir usando con buscarPorCriterio), pero además expone su estructura
+ * para que el planificador de consultas pueda resolver las partes indexables con los índices
+ * secundarios, o con un escaneo del índice columnar, y evaluar como filtro solo el resto.
+ */
+public interface Criterio extends Predicate<ArtCientificoDTO> {
+
+    /**
+     * Descripción legible del criterio, usada por la explicación del plan
+     * @return la descripción del criterio
+     */
+    String describir();
+
+    // --- Fábricas de criterios ---
+
+    /**
+     * Criterio que acepta todos los artículos
+     * @return el criterio
+     */
+    static Criterio todos() {
+        return Todos.INSTANCIA;
+    }
+
+    /**
+     * Autor igual al indicado (sin distinguir mayúsculas)
+     * @param autor el autor buscado
+     * @return el criterio
+     */
+    static Criterio autorIgual(String autor) {
+        return new AutorIgual(autor);
+    }
+
+    /**
+     * Año de publicación igual al indicado
+     * @param anio el año buscado
+     * @return el criterio
+     */
+    static Criterio anioIgual(int anio) {
+        return new AnioEntre(anio, anio);
+    }
+
+    /**
+     * Año de publicación dentro del rango cerrado [desde, hasta]
+     * @param desde el año inicial (incluido)
+     * @param hasta el año final (incluido)
+     * @return el criterio
+     */
+    static Criterio anioEntre(int desde, int hasta) {
+        return new AnioEntre(desde, hasta);
+    }
+
+    /**
+     * Las palabras clave contienen la indicada (sin distinguir mayúsculas)
+     * @param palabraClave la palabra clave buscada
+     * @return el criterio
+     */
+    static Criterio contienePalabraClave(String palabraClave) {
+        return new ContienePalabraClave(palabraClave);
+    }
+
+    /**
+     * Nombre igual al indicado (sin distinguir mayúsculas). No indexado.
+     * @param nombre el nombre buscado
+     * @return el criterio
+     */
+    static Criterio nombreIgual(String nombre) {
+        return new NombreIgual(nombre);
+    }
+
+    /**
+     * El nombre o el resumen contienen el texto indicado (sin distinguir mayúsculas)
+     * @param texto el texto buscado
+     * @return el criterio
+     */
+    static Criterio textoContiene(String texto) {
+        return new TextoContiene(texto);
+    }
+
+    /**
+     * El nombre o el resumen contienen todos los términos del texto (sin distinguir mayúsculas
+     * ni acentos). A diferencia de textoContiene, se resuelve con el índice de texto completo.
+     * @param texto los términos buscados
+     * @return el criterio
+     */
+    static Criterio contieneTerminos(String texto) {
+        return new ContieneTerminos(texto);
+    }
+
+    /**
+     * Conjunción de criterios
+     * @param criterios los criterios que deben cumplirse todos
+     * @return el criterio
+     */
+    static Criterio y(Criterio... criterios) {
+        return new Y(List.of(criterios));
+    }
+
+    /**
+     * Disyunción de criterios
+     * @param criterios los criterios de los que debe cumplirse al menos uno
+     * @return el criterio
+     */
+    static Criterio o(Criterio... criterios) {
+        return new O(List.of(criterios));
+    }
+
+    /**
+     * Negación de un criterio
+     * @param criterio el criterio a negar
+     * @return el criterio
+     */
+    static Criterio no(Criterio criterio) {
+        return new No(criterio);
+    }
+
+    // --- Criterios que se pueden resolver con un índice ---
+
+    /**
+     * Criterio hoja que puede resolverse directamente con los índices secundarios
+     */
+    interface Indexable extends Criterio {
+
+        /**
+         * Estima el número de artículos que cumplen el criterio sin materializar los IDs
+         * @param indices los índices del repositorio
+         * @return el número de artículos indexados que lo cumplen
+         */
+        int estimar(IndicesArticulos indices);
+
+        /**
+         * Obtiene los IDs de los artículos que cumplen el criterio
+         * @param indices los índices del repositorio
+         * @return Optional con los IDs o vacío si no hay ninguno
+         */
+        Optional<Set<Long>> ids(IndicesArticulos indices);
+    }
+
+    /**
+     * Criterio hoja que puede evaluarse sobre el índice columnar, con el mismo resultado que test
+     */
+    interface Columnar extends Criterio {
+
+        /**
+         * Obtiene los IDs de los artículos que cumplen el criterio recorriendo las columnas
+         * @param columnas instantánea del índice columnar del repositorio
+         * @return los IDs
+         */
+        ConjuntoBits filtrar(IndiceColumnar.Instantanea columnas);
+    }
+
+    /**
+     * Normaliza un texto para compararlo sin distinguir mayúsculas
+     */
+    private static String minusculas(String texto) {
+        return texto.toLowerCase(Locale.ROOT);
+    }
+
+    final class Todos implements Columnar {
+        private static final Todos INSTANCIA = new Todos();
+
+        private Todos() {
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return true;
+        }
+
+        @Override
+        public ConjuntoBits filtrar(IndiceColumnar.Instantanea columnas) {
+            return columnas.todos();
+        }
+
+        @Override
+        public String describir() {
+            return "TODOS";
+        }
+    }
+
+    final class AutorIgual implements Indexable, Columnar {
+        private final String autor;
+
+        private AutorIgual(String autor) {
+            this.autor = IndicesArticulos.normalizar(autor);
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return articulo.getAutor().map(IndicesArticulos::normalizar).map(autor::equals).orElse(false);
+        }
+
+        @Override
+        public int estimar(IndicesArticulos indices) {
+            return indices.contarPorAutor(autor);
+        }
+
+        @Override
+        public Optional<Set<Long>> ids(IndicesArticulos indices) {
+            return indices.idsPorAutor(autor);
+        }
+
+        @Override
+        public ConjuntoBits filtrar(IndiceColumnar.Instantanea columnas) {
+            return columnas.autorIgual(autor);
+        }
+
+        @Override
+        public String describir() {
+            return "autor = '" + autor + "'";
+        }
+    }
+
+    final class AnioEntre implements Indexable, Columnar {
+        private final int desde;
+        private final int hasta;
+
+        private AnioEntre(int desde, int hasta) {
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return articulo.getAnio().map(anio -> anio >= desde && anio <= hasta).orElse(false);
+        }
+
+        @Override
+        public int estimar(IndicesArticulos indices) {
+            return indices.contarPorAnioEntre(desde, hasta);
+        }
+
+        @Override
+        public Optional<Set<Long>> ids(IndicesArticulos indices) {
+            return indices.idsPorAnioEntre(desde, hasta);
+        }
+
+        @Override
+        public ConjuntoBits filtrar(IndiceColumnar.Instantanea columnas) {
+            return columnas.anioEntre(desde, hasta);
+        }
+
+        @Override
+        public String describir() {
+            return desde == hasta ? "anio = " + desde : "anio ENTRE " + desde + " Y " + hasta;
+        }
+    }
+
+    final class ContienePalabraClave implements Indexable, Columnar {
+        private final String palabraClave;
+
+        private ContienePalabraClave(String palabraClave) {
+            this.palabraClave = IndicesArticulos.normalizar(palabraClave);
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            // Recorre la lista del artículo directamente, sin copiarla ni crear un stream por artículo
+            List<String> palabras = articulo.getPalabrasClaves().orElse(List.of());
+            for (String palabra : palabras) {
+                if (palabraClave.equals(IndicesArticulos.normalizar(palabra))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public int estimar(IndicesArticulos indices) {
+            return indices.contarPorPalabraClave(palabraClave);
+        }
+
+        @Override
+        public Optional<Set<Long>> ids(IndicesArticulos indices) {
+            return indices.idsPorPalabraClave(palabraClave);
+        }
+
+        @Override
+        public ConjuntoBits filtrar(IndiceColumnar.Instantanea columnas) {
+            return columnas.conPalabraClave(palabraClave);
+        }
+
+        /**
+         * Palabra clave buscada, ya normalizada
+         * @return la palabra clave
+         */
+        public String getPalabraClave() {
+            return palabraClave;
+        }
+
+        @Override
+        public String describir() {
+            return "palabrasClaves CONTIENE '" + palabraClave + "'";
+        }
+    }
+
+    final class ContieneTerminos implements Indexable {
+        private final String texto;
+        private final List<String> terminos;
+
+        private ContieneTerminos(String texto) {
+            this.texto = texto;
+            this.terminos = AnalizadorTexto.tokenizar(Optional.of(texto));
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            List<String> terminosArticulo = new ArrayList<>(AnalizadorTexto.tokenizar(articulo.getNombre()));
+            terminosArticulo.addAll(AnalizadorTexto.tokenizar(articulo.getResumen()));
+            return !terminos.isEmpty() && terminosArticulo.containsAll(terminos);
+        }
+
+        @Override
+        public int estimar(IndicesArticulos indices) {
+            return indices.getTexto().estimarTodos(texto);
+        }
+
+        @Override
+        public Optional<Set<Long>> ids(IndicesArticulos indices) {
+            return indices.getTexto().idsConTodos(texto);
+        }
+
+        @Override
+        public String describir() {
+            return "texto TERMINOS " + terminos;
+        }
+    }
+
+    // --- Criterios que solo se pueden evaluar como filtro ---
+
+    final class NombreIgual implements Criterio {
+        private final String nombre;
+
+        private NombreIgual(String nombre) {
+            this.nombre = IndicesArticulos.normalizar(nombre);
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return articulo.getNombre().map(IndicesArticulos::normalizar).map(nombre::equals).orElse(false);
+        }
+
+        @Override
+        public String describir() {
+            return "nombre = '" + nombre + "'";
+        }
+    }
+
+    final class TextoContiene implements Criterio {
+        private final String texto;
+
+        private TextoContiene(String texto) {
+            this.texto = minusculas(texto);
+        }
+
+        /**
+         * Texto buscado, ya normalizado
+         * @return el texto buscado
+         */
+        public String getTexto() {
+            return texto;
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return articulo.getNombre().map(Criterio::minusculas).map(n -> n.contains(texto)).orElse(false)
+                || articulo.getResumen().map(Criterio::minusculas).map(r -> r.contains(texto)).orElse(false);
+        }
+
+        @Override
+        public String describir() {
+            return "texto CONTIENE '" + texto + "'";
+        }
+    }
+
+    // --- Combinadores ---
+
+    final class Y implements Criterio {
+        private final List<Criterio> criterios;
+
+        private Y(List<Criterio> criterios) {
+            this.criterios = criterios;
+        }
+
+        /**
+         * Criterios combinados
+         * @return la lista inmutable de criterios
+         */
+        public List<Criterio> getCriterios() {
+            return criterios;
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return criterios.stream().allMatch(criterio -> criterio.test(articulo));
+        }
+
+        @Override
+        public String describir() {
+            return criterios.stream().map(Criterio::describir).collect(Collectors.joining(" Y ", "(", ")"));
+        }
+    }
+
+    final class O implements Criterio {
+        private final List<Criterio> criterios;
+
+        private O(List<Criterio> criterios) {
+            this.criterios = criterios;
+        }
+
+        /**
+         * Criterios combinados
+         * @return la lista inmutable de criterios
+         */
+        public List<Criterio> getCriterios() {
+            return criterios;
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return criterios.stream().anyMatch(criterio -> criterio.test(articulo));
+        }
+
+        @Override
+        public String describir() {
+            return criterios.stream().map(Criterio::describir).collect(Collectors.joining(" O ", "(", ")"));
+        }
+    }
+
+    final class No implements Criterio {
+        private final Criterio criterio;
+
+        private No(Criterio criterio) {
+            this.criterio = criterio;
+        }
+
+        /**
+         * Criterio negado
+         * @return el criterio
+         */
+        public Criterio getCriterio() {
+            return criterio;
+        }
+
+        @Override
+        public boolean test(ArtCientificoDTO articulo) {
+            return !criterio.test(articulo);
+        }
+
+        @Override
+        public String describir() {
+            return "NO " + criterio.describir();
+        }
+    }
+}
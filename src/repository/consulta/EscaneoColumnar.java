@@ -0,0 +1,73 @@
+package repository.consulta;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import repository.indice.ConjuntoBits;
+import repository.indice.IndiceColumnar;
+
+/**
+ * Evalúa criterios sobre el índice columnar: cada hoja columnar produce su mapa de bits y las
+ * conjunciones, disyunciones y negaciones se combinan palabra a palabra, sin construir artículos.
+ * El resultado es exactamente el conjunto de artículos que cumplen el criterio.
+ */
+final class EscaneoColumnar {
+
+    private EscaneoColumnar() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Indica si un criterio se puede evaluar entero sobre las columnas
+     * @param criterio el criterio
+     * @return true si todas sus hojas son columnares
+     */
+    static boolean admite(Criterio criterio) {
+        if (criterio instanceof Criterio.Columnar) {
+            return true;
+        }
+        if (criterio instanceof Criterio.Y y) {
+            return y.getCriterios().stream().allMatch(EscaneoColumnar::admite);
+        }
+        if (criterio instanceof Criterio.O o) {
+            return o.getCriterios().stream().allMatch(EscaneoColumnar::admite);
+        }
+        return criterio instanceof Criterio.No no && admite(no.getCriterio());
+    }
+
+    /**
+     * Obtiene los IDs de los artículos que cumplen un criterio admitido. Todas sus hojas se
+     * evalúan sobre la misma instantánea, así que ven el mismo estado.
+     * @param criterio el criterio, que debe cumplir admite
+     * @param columnas instantánea del índice columnar
+     * @return los IDs
+     * @throws IllegalArgumentException si el criterio tiene hojas que no son columnares
+     */
+    static ConjuntoBits filtrar(Criterio criterio, IndiceColumnar.Instantanea columnas) {
+        if (criterio instanceof Criterio.Columnar columnar) {
+            return columnar.filtrar(columnas);
+        }
+        if (criterio instanceof Criterio.Y y) {
+            return y.getCriterios().stream()
+                .map(hijo -> filtrar(hijo, columnas))
+                .reduce(ConjuntoBits::y)
+                .orElseGet(columnas::todos);
+        }
+        if (criterio instanceof Criterio.O o) {
+            // Las palabras clave de la disyunción se resuelven de una vez sobre un único mapa de bits
+            Map<Boolean, List<Criterio>> porTipo = o.getCriterios().stream()
+                .collect(Collectors.partitioningBy(hijo -> hijo instanceof Criterio.ContienePalabraClave));
+            List<String> palabrasClaves = porTipo.get(true).stream()
+                .map(hijo -> ((Criterio.ContienePalabraClave) hijo).getPalabraClave())
+                .collect(Collectors.toList());
+            return porTipo.get(false).stream()
+                .map(hijo -> filtrar(hijo, columnas))
+                .reduce(columnas.conAlgunaPalabraClave(palabrasClaves), ConjuntoBits::o);
+        }
+        if (criterio instanceof Criterio.No no) {
+            return columnas.todos().menos(filtrar(no.getCriterio(), columnas));
+        }
+        throw new IllegalArgumentException("Criterio no columnar: " + criterio.describir());
+    }
+}
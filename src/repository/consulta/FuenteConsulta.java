@@ -0,0 +1,72 @@
+package repository.consulta;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import dto.ArtCientificoDTO;
+import repository.indice.IndicesArticulos;
+
+/**
+ * Acceso a los datos de un repositorio que necesita el planificador de consultas:
+ * sus índices secundarios, la búsqueda por ID y el recorrido completo como último recurso
+ */
+public class FuenteConsulta {
+
+    private final IndicesArticulos indices;
+    private final Function<Long, Optional<ArtCientificoDTO>> buscarPorId;
+    private final Supplier<Stream<ArtCientificoDTO>> todos;
+    private final IntSupplier total;
+
+    /**
+     * Constructor de la fuente de datos
+     * @param indices los índices secundarios del repositorio
+     * @param buscarPorId función de búsqueda por ID en tiempo constante
+     * @param todos proveedor de un stream sobre todos los artículos (sin copiar la colección)
+     * @param total proveedor del número total de artículos
+     */
+    public FuenteConsulta(IndicesArticulos indices,
+                          Function<Long, Optional<ArtCientificoDTO>> buscarPorId,
+                          Supplier<Stream<ArtCientificoDTO>> todos,
+                          IntSupplier total) {
+        this.indices = indices;
+        this.buscarPorId = buscarPorId;
+        this.todos = todos;
+        this.total = total;
+    }
+
+    /**
+     * Obtiene los índices secundarios del repositorio
+     * @return los índices
+     */
+    public IndicesArticulos getIndices() {
+        return indices;
+    }
+
+    /**
+     * Busca un artículo por su ID
+     * @param id el ID del artículo
+     * @return Optional con el artículo o vacío si no existe
+     */
+    public Optional<ArtCientificoDTO> buscarPorId(Long id) {
+        return buscarPorId.apply(id);
+    }
+
+    /**
+     * Recorre todos los artículos del repositorio
+     * @return un stream sobre todos los artículos
+     */
+    public Stream<ArtCientificoDTO> todos() {
+        return todos.get();
+    }
+
+    /**
+     * Número total de artículos del repositorio
+     * @return el número de artículos
+     */
+    public int total() {
+        return total.getAsInt();
+    }
+}
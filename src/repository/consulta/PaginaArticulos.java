@@ -0,0 +1,95 @@
+package repository.consulta;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.function.LongFunction;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Página de un listado de artículos en orden de ID, con el cursor para pedir la siguiente.
+ * <p>
+ * El cursor es el ID del último artículo de la página: la siguiente página empieza en el primer
+ * ID mayor, de modo que el orden es estable aunque se creen o eliminen artículos entre páginas.
+ */
+public final class PaginaArticulos {
+
+    // Tamaño máximo de una página; los tamaños mayores se recortan
+    public static final int TAMANIO_MAXIMO = 1_000;
+
+    private final List<ArtCientificoDTO> articulos;
+    private final Optional<Long> siguienteCursor;
+
+    /**
+     * Constructor de la página
+     * @param articulos los artículos de la página en orden de ID
+     * @param siguienteCursor el cursor de la siguiente página, o vacío si es la última
+     */
+    public PaginaArticulos(List<ArtCientificoDTO> articulos, Optional<Long> siguienteCursor) {
+        this.articulos = List.copyOf(articulos);
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    /**
+     * Llena una página recorriendo los IDs ordenados posteriores al cursor. Los IDs cuyo
+     * artículo ya no existe se saltan.
+     * @param ids los IDs en orden ascendente a partir del cursor, sin boxing
+     * @param buscar la búsqueda de un artículo por ID
+     * @param tamanio el número de artículos pedido
+     * @return la página
+     * @throws IllegalArgumentException si el tamaño no es positivo
+     */
+    public static PaginaArticulos llenar(PrimitiveIterator.OfLong ids, LongFunction<Optional<ArtCientificoDTO>> buscar, int tamanio) {
+        int limite = tamanioValido(tamanio);
+        List<ArtCientificoDTO> articulos = new ArrayList<>(Math.min(limite, 64));
+        long ultimo = 0;
+        while (articulos.size() < limite && ids.hasNext()) {
+            long id = ids.nextLong();
+            Optional<ArtCientificoDTO> articulo = buscar.apply(id);
+            if (articulo.isPresent()) {
+                articulos.add(articulo.get());
+                ultimo = id;
+            }
+        }
+        return new PaginaArticulos(articulos, ids.hasNext() ? Optional.of(ultimo) : Optional.empty());
+    }
+
+    /**
+     * Comprueba un tamaño de página y lo recorta al máximo
+     * @param tamanio el tamaño pedido
+     * @return el tamaño que se usará
+     * @throws IllegalArgumentException si el tamaño no es positivo
+     */
+    public static int tamanioValido(int tamanio) {
+        if (tamanio <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser positivo");
+        }
+        return Math.min(tamanio, TAMANIO_MAXIMO);
+    }
+
+    /**
+     * Obtiene los artículos de la página
+     * @return la lista inmutable de artículos, en orden de ID
+     */
+    public List<ArtCientificoDTO> getArticulos() {
+        return articulos;
+    }
+
+    /**
+     * Obtiene el cursor de la siguiente página
+     * @return Optional con el ID a partir del cual continuar, o vacío si es la última página
+     */
+    public Optional<Long> getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    /**
+     * Indica si es la última página del listado
+     * @return true si no hay más páginas
+     */
+    public boolean esUltima() {
+        return siguienteCursor.isEmpty();
+    }
+}
@@ -0,0 +1,190 @@
+package repository.consulta;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import dto.ArtCientificoDTO;
+import repository.indice.ConjuntoBits;
+import repository.indice.IndiceColumnar;
+import repository.indice.IndicesArticulos;
+
+/**
+ * Plan de ejecución de una consulta generado por PlanificadorConsulta
+ */
+public class PlanConsulta {
+
+    private final Consulta consulta;
+    private final FuenteConsulta fuente;
+    private final Optional<Set<Long>> candidatos;
+    private final Criterio filtro;
+    private final List<String> pasos;
+
+    PlanConsulta(Consulta consulta, FuenteConsulta fuente, Optional<Set<Long>> candidatos,
+                 Criterio filtro, List<String> pasos) {
+        this.consulta = consulta;
+        this.fuente = fuente;
+        this.candidatos = candidatos;
+        this.filtro = filtro;
+        this.pasos = List.copyOf(pasos);
+    }
+
+    /**
+     * Indica si el plan necesita recorrer toda la colección
+     * @return true si no se pudo usar ningún índice
+     */
+    public boolean esEscaneoCompleto() {
+        return candidatos.isEmpty();
+    }
+
+    /**
+     * Ejecuta el plan
+     * @return Optional con la lista de artículos resultante, o vacío si no hay resultados
+     */
+    public Optional<List<ArtCientificoDTO>> ejecutar() {
+        Stream<ArtCientificoDTO> filtrados = filtrados();
+
+        List<ArtCientificoDTO> resultado = consulta.getComparador()
+            .map(comparador -> consulta.getLimite()
+                .map(limite -> mejores(filtrados, comparador, limite))
+                .orElseGet(() -> filtrados.sorted(comparador).collect(Collectors.toList())))
+            .orElseGet(() -> consulta.getLimite()
+                .map(limite -> filtrados.limit(limite).collect(Collectors.toList()))
+                .orElseGet(() -> filtrados.collect(Collectors.toList())));
+
+        return Optional.of(resultado).filter(lista -> !lista.isEmpty());
+    }
+
+    /**
+     * Recorre los resultados del plan en flujo, sin reunirlos en una lista. Si la consulta tiene
+     * límite se aplica (con orden, mediante el montículo acotado); si solo tiene orden, este no se
+     * aplica, para que quien los consuma pueda ordenarlos sin mantenerlos todos en memoria
+     * @return el stream de artículos que cumplen el criterio
+     */
+    public Stream<ArtCientificoDTO> recorrer() {
+        Stream<ArtCientificoDTO> filtrados = filtrados();
+        return consulta.getLimite()
+            .map(limite -> consulta.getComparador()
+                .map(comparador -> mejores(filtrados, comparador, limite).stream())
+                .orElseGet(() -> filtrados.limit(limite)))
+            .orElse(filtrados);
+    }
+
+    /**
+     * Cuenta los artículos que cumplen el criterio, sin tener en cuenta el orden ni el límite.
+     * Si el filtro residual es columnar se cuenta sobre el mapa de bits, sin construir artículos.
+     * @return el número de artículos
+     */
+    public long contar() {
+        return sobreSeleccionColumnar((columnas, ids) -> (long) ids.size())
+            .orElseGet(() -> filtrados().count());
+    }
+
+    /**
+     * Cuenta por año los artículos con año que cumplen el criterio, sin tener en cuenta el orden
+     * ni el límite. Si el filtro residual es columnar se agrega sobre las columnas, sin construir
+     * artículos.
+     * @return el número de artículos de cada año, en orden de año
+     */
+    public SortedMap<Integer, Long> contarPorAnio() {
+        return sobreSeleccionColumnar(IndiceColumnar.Instantanea::contarPorAnio)
+            .orElseGet(() -> filtrados()
+                .map(ArtCientificoDTO::getAnio)
+                .flatMap(Optional::stream)
+                .collect(Collectors.groupingBy(anio -> anio, TreeMap::new, Collectors.counting())));
+    }
+
+    /**
+     * Cuenta por autor los artículos con autor que cumplen el criterio, sin tener en cuenta el
+     * orden ni el límite. Los autores se agrupan normalizados, como en los índices.
+     * @return el número de artículos de cada autor, en orden alfabético
+     */
+    public SortedMap<String, Long> contarPorAutor() {
+        return sobreSeleccionColumnar(IndiceColumnar.Instantanea::contarPorAutor)
+            .orElseGet(() -> filtrados()
+                .map(ArtCientificoDTO::getAutor)
+                .flatMap(Optional::stream)
+                .collect(Collectors.groupingBy(IndicesArticulos::normalizar, TreeMap::new, Collectors.counting())));
+    }
+
+    /**
+     * Calcula un resultado sobre la selección del plan como mapa de bits (candidatos y criterio
+     * de comprobación evaluado sobre las columnas) y la misma instantánea de las columnas, o vacío
+     * si ese criterio no es columnar
+     */
+    private <T> Optional<T> sobreSeleccionColumnar(BiFunction<IndiceColumnar.Instantanea, ConjuntoBits, T> calculo) {
+        IndiceColumnar columnas = fuente.getIndices().getColumnas();
+        Criterio comprobacion = comprobacion();
+        if (!columnas.isCompleto() || !EscaneoColumnar.admite(comprobacion)) {
+            return Optional.empty();
+        }
+        IndiceColumnar.Instantanea instantanea = columnas.instantanea();
+        ConjuntoBits filtrados = EscaneoColumnar.filtrar(comprobacion, instantanea);
+        return Optional.of(calculo.apply(instantanea,
+            candidatos.map(ids -> ConjuntoBits.de(ids).y(filtrados)).orElse(filtrados)));
+    }
+
+    /**
+     * Artículos candidatos (o toda la colección) filtrados por el criterio de comprobación
+     */
+    private Stream<ArtCientificoDTO> filtrados() {
+        Stream<ArtCientificoDTO> origen = candidatos
+            .map(ids -> ids.stream()
+                .sorted()
+                .map(fuente::buscarPorId)
+                .flatMap(Optional::stream))
+            .orElseGet(fuente::todos);
+
+        Criterio comprobacion = comprobacion();
+        return comprobacion instanceof Criterio.Todos ? origen : origen.filter(comprobacion);
+    }
+
+    /**
+     * Criterio que deben cumplir los artículos obtenidos. Los candidatos salen de leer los índices
+     * sin cerrojo, y una escritura posterior puede hacer que un candidato ya no cumpla las hojas
+     * resueltas con ellos; por eso se comprueban contra el criterio completo, no solo contra el
+     * filtro residual. Sin candidatos basta el residual, que se evalúa sobre el estado leído.
+     */
+    private Criterio comprobacion() {
+        return candidatos.isPresent() ? consulta.getCriterio() : filtro;
+    }
+
+    /**
+     * Obtiene los primeros elementos según un orden sin ordenar todo el stream (montículo acotado)
+     */
+    private static List<ArtCientificoDTO> mejores(Stream<ArtCientificoDTO> articulos,
+                                                  Comparator<ArtCientificoDTO> comparador, int limite) {
+        PriorityQueue<ArtCientificoDTO> monticulo = new PriorityQueue<>(limite + 1, comparador.reversed());
+        articulos.forEachOrdered(articulo -> {
+            monticulo.offer(articulo);
+            if (monticulo.size() > limite) {
+                monticulo.poll();
+            }
+        });
+        List<ArtCientificoDTO> resultado = new ArrayList<>(monticulo);
+        resultado.sort(comparador);
+        return resultado;
+    }
+
+    /**
+     * Describe el plan elegido, un paso por línea
+     * @return la explicación del plan
+     */
+    public String explicar() {
+        return "PLAN para " + consulta.getCriterio().describir() + "\n"
+            + pasos.stream().map(paso -> "  " + paso).collect(Collectors.joining("\n"));
+    }
+
+    @Override
+    public String toString() {
+        return explicar();
+    }
+}
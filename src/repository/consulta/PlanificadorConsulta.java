@@ -0,0 +1,216 @@
+package repository.consulta;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import repository.indice.ConjuntoBits;
+import repository.indice.IndiceColumnar;
+
+/**
+ * Planificador de consultas: decide cómo resolver un criterio usando los índices secundarios.
+ * <ul>
+ *   <li>Los criterios hoja indexables se resuelven con su índice.</li>
+ *   <li>En una conjunción se parte del índice más selectivo y se intersecan los conjuntos de IDs
+ *       de los demás criterios indexables de tamaño comparable; el resto queda como filtro.</li>
+ *   <li>Una disyunción se resuelve como unión de IDs solo si todas sus ramas son indexables.</li>
+ *   <li>Si no hay ningún índice aplicable, o los índices devolverían una parte grande de la
+ *       colección, las partes que admite el índice columnar (año, autor, palabras clave y sus
+ *       combinaciones, negaciones incluidas) se resuelven con un escaneo de sus columnas.</li>
+ *   <li>Lo que no se puede indexar (texto, nombre) se evalúa como filtro sobre los candidatos,
+ *       o sobre toda la colección si no hay ningún acceso aplicable.</li>
+ * </ul>
+ */
+public class PlanificadorConsulta {
+
+    // Un índice se interseca si no es más de este número de veces mayor que el índice principal
+    private static final long FACTOR_INTERSECCION = 8;
+
+    // Se escanean las columnas si los índices devolverían más de esta fracción (1/n) de la colección:
+    // materializar un ID del índice cuesta decenas de veces más que recorrer una fila de las columnas
+    private static final long FRACCION_COLUMNAR = 64;
+
+    private PlanificadorConsulta() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Resultado de planificar un criterio: candidatos obtenidos por índice y filtros pendientes
+     */
+    private static class Acceso {
+        private final Set<Long> candidatos;
+        private final List<Criterio> filtros;
+
+        private Acceso(Set<Long> candidatos, List<Criterio> filtros) {
+            this.candidatos = candidatos;
+            this.filtros = filtros;
+        }
+    }
+
+    /**
+     * Genera el plan de ejecución de una consulta
+     * @param consulta la consulta a planificar
+     * @param fuente los datos e índices del repositorio
+     * @return el plan listo para ejecutar o explicar
+     */
+    public static PlanConsulta planificar(Consulta consulta, FuenteConsulta fuente) {
+        List<String> pasos = new ArrayList<>();
+        Criterio criterio = consulta.getCriterio();
+
+        Optional<Acceso> acceso = Optional.of(criterio)
+            .filter(c -> preferirColumnas(c, fuente))
+            .flatMap(c -> escanearColumnas(c, fuente, pasos))
+            .or(() -> acceder(criterio, fuente, pasos, 0));
+
+        List<Criterio> filtros = acceso
+            .map(a -> a.filtros)
+            .orElseGet(() -> {
+                pasos.add("ESCANEO COMPLETO (" + fuente.total() + " artículos)");
+                return criterio instanceof Criterio.Todos ? List.of() : List.of(criterio);
+            });
+        filtros.forEach(filtro -> pasos.add("FILTRO " + filtro.describir()));
+        consulta.getOrden().ifPresent(campo ->
+            pasos.add("ORDEN POR " + campo + (consulta.isAscendente() ? " ASC" : " DESC")
+                + consulta.getLimite().map(limite -> " (top-" + limite + ")").orElse("")));
+        consulta.getLimite().ifPresent(limite -> pasos.add("LIMITE " + limite));
+
+        Criterio filtro = filtros.isEmpty()
+            ? Criterio.todos()
+            : filtros.size() == 1 ? filtros.get(0) : Criterio.y(filtros.toArray(new Criterio[0]));
+
+        return new PlanConsulta(consulta, fuente, acceso.map(a -> a.candidatos), filtro, pasos);
+    }
+
+    /**
+     * Decide si conviene el escaneo columnar: cuando no hay acceso por índice o cuando el índice
+     * devolvería tantos IDs que materializarlos cuesta más que recorrer las columnas
+     */
+    private static boolean preferirColumnas(Criterio criterio, FuenteConsulta fuente) {
+        return !(criterio instanceof Criterio.Todos)
+            && fuente.getIndices().getColumnas().isCompleto()
+            && estimar(criterio, fuente).stream()
+                .allMatch(estimacion -> estimacion * FRACCION_COLUMNAR > fuente.total());
+    }
+
+    /**
+     * Resuelve con el índice columnar el criterio o, en una conjunción, sus partes columnares;
+     * el resto queda como filtro
+     * @return el acceso, o vacío si ninguna parte es columnar
+     */
+    private static Optional<Acceso> escanearColumnas(Criterio criterio, FuenteConsulta fuente, List<String> pasos) {
+        List<Criterio> partes = criterio instanceof Criterio.Y y ? y.getCriterios() : List.of(criterio);
+        List<Criterio> columnares = partes.stream().filter(EscaneoColumnar::admite).collect(Collectors.toList());
+        if (columnares.isEmpty()) {
+            return Optional.empty();
+        }
+        IndiceColumnar.Instantanea columnas = fuente.getIndices().getColumnas().instantanea();
+        ConjuntoBits ids = columnares.stream()
+            .map(parte -> EscaneoColumnar.filtrar(parte, columnas))
+            .reduce(ConjuntoBits::y)
+            .orElseThrow();
+        pasos.add("ESCANEO COLUMNAR " + columnares.stream().map(Criterio::describir).collect(Collectors.joining(" Y "))
+            + " (" + fuente.total() + " artículos) -> " + ids.size() + " candidatos");
+        List<Criterio> filtros = partes.stream()
+            .filter(parte -> !columnares.contains(parte))
+            .collect(Collectors.toList());
+        return Optional.of(new Acceso(ids, filtros));
+    }
+
+    /**
+     * Estima cuántos artículos devolverá el acceso por índice a un criterio, sin materializar IDs
+     * @return la estimación, o vacío si el criterio no se puede resolver con índices
+     */
+    private static OptionalLong estimar(Criterio criterio, FuenteConsulta fuente) {
+        if (criterio instanceof Criterio.Indexable indexable) {
+            return OptionalLong.of(indexable.estimar(fuente.getIndices()));
+        }
+        if (criterio instanceof Criterio.Y y) {
+            return y.getCriterios().stream()
+                .map(hijo -> estimar(hijo, fuente))
+                .filter(OptionalLong::isPresent)
+                .mapToLong(OptionalLong::getAsLong)
+                .min();
+        }
+        if (criterio instanceof Criterio.O o) {
+            List<OptionalLong> estimaciones = o.getCriterios().stream()
+                .map(hijo -> estimar(hijo, fuente))
+                .collect(Collectors.toList());
+            return estimaciones.stream().allMatch(OptionalLong::isPresent)
+                ? OptionalLong.of(estimaciones.stream().mapToLong(OptionalLong::getAsLong).sum())
+                : OptionalLong.empty();
+        }
+        return OptionalLong.empty();
+    }
+
+    /**
+     * Resuelve un criterio mediante índices
+     * @return el acceso por índice, o vacío si el criterio requiere un escaneo completo
+     */
+    private static Optional<Acceso> acceder(Criterio criterio, FuenteConsulta fuente, List<String> pasos, int nivel) {
+        String sangria = "  ".repeat(nivel);
+
+        if (criterio instanceof Criterio.Indexable indexable) {
+            Set<Long> ids = indexable.ids(fuente.getIndices()).orElse(Set.of());
+            pasos.add(sangria + "INDICE " + criterio.describir() + " -> " + ids.size() + " IDs");
+            return Optional.of(new Acceso(ids, List.of()));
+        }
+
+        if (criterio instanceof Criterio.Y y) {
+            List<Criterio> indexables = y.getCriterios().stream()
+                .filter(hijo -> estimar(hijo, fuente).isPresent())
+                .sorted(Comparator.comparingLong(hijo -> estimar(hijo, fuente).getAsLong()))
+                .collect(Collectors.toList());
+            if (indexables.isEmpty()) {
+                return Optional.empty();
+            }
+
+            Criterio principal = indexables.get(0);
+            long estimacionPrincipal = Math.max(1, estimar(principal, fuente).getAsLong());
+            pasos.add(sangria + "INTERSECCION partiendo del índice más selectivo:");
+            Acceso accesoPrincipal = acceder(principal, fuente, pasos, nivel + 1).orElseThrow();
+
+            Set<Long> candidatos = new HashSet<>(accesoPrincipal.candidatos);
+            List<Criterio> filtros = new ArrayList<>(accesoPrincipal.filtros);
+
+            indexables.stream().skip(1).forEach(hijo -> {
+                long estimacion = estimar(hijo, fuente).getAsLong();
+                if (!candidatos.isEmpty() && estimacion <= estimacionPrincipal * FACTOR_INTERSECCION) {
+                    Acceso accesoHijo = acceder(hijo, fuente, pasos, nivel + 1).orElseThrow();
+                    candidatos.retainAll(accesoHijo.candidatos);
+                    filtros.addAll(accesoHijo.filtros);
+                } else {
+                    // Materializar un índice mucho mayor costaría más que filtrar los candidatos
+                    pasos.add(sangria + "  (sin intersecar " + hijo.describir() + ": ~" + estimacion + " IDs)");
+                    filtros.add(hijo);
+                }
+            });
+            pasos.add(sangria + "  -> " + candidatos.size() + " candidatos");
+
+            y.getCriterios().stream()
+                .filter(hijo -> !indexables.contains(hijo))
+                .forEach(filtros::add);
+            return Optional.of(new Acceso(candidatos, filtros));
+        }
+
+        if (criterio instanceof Criterio.O o && estimar(criterio, fuente).isPresent()) {
+            pasos.add(sangria + "UNION:");
+            Set<Long> candidatos = new HashSet<>();
+            List<Acceso> accesos = o.getCriterios().stream()
+                .map(hijo -> acceder(hijo, fuente, pasos, nivel + 1).orElseThrow())
+                .collect(Collectors.toList());
+            accesos.forEach(a -> candidatos.addAll(a.candidatos));
+            pasos.add(sangria + "  -> " + candidatos.size() + " candidatos");
+
+            // Si alguna rama tiene filtros pendientes, la unión es solo un superconjunto
+            boolean exacta = accesos.stream().allMatch(a -> a.filtros.isEmpty());
+            return Optional.of(new Acceso(candidatos, exacta ? List.of() : List.of(criterio)));
+        }
+
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,72 @@
+package repository.consulta;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Recorrido perezoso de todos los artículos en orden de ID, pidiendo una página cada vez.
+ * En memoria solo está la página en curso, y cada página refleja el estado del repositorio al
+ * pedirla, así que el recorrido no bloquea a los escritores ni copia la colección.
+ */
+public final class RecorridoPaginado extends Spliterators.AbstractSpliterator<ArtCientificoDTO> {
+
+    // Tamaño de las páginas que se piden al repositorio
+    public static final int TAMANIO_PAGINA = 256;
+
+    /**
+     * Obtiene una página de artículos a partir de un cursor
+     */
+    @FunctionalInterface
+    public interface Paginador {
+        /**
+         * Obtiene la página
+         * @param cursor el ID tras el cual empieza la página, o vacío para la primera
+         * @param tamanio el número máximo de artículos
+         * @return la página
+         */
+        PaginaArticulos pagina(Optional<Long> cursor, int tamanio);
+    }
+
+    private final Paginador paginador;
+
+    private Iterator<ArtCientificoDTO> actual = Collections.emptyIterator();
+    private Optional<Long> cursor = Optional.empty();
+    private boolean agotado;
+
+    private RecorridoPaginado(Paginador paginador) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        this.paginador = paginador;
+    }
+
+    /**
+     * Crea un stream secuencial y perezoso sobre todos los artículos, en orden de ID
+     * @param paginador el origen de las páginas
+     * @return el stream
+     */
+    public static Stream<ArtCientificoDTO> stream(Paginador paginador) {
+        return StreamSupport.stream(new RecorridoPaginado(paginador), false);
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ArtCientificoDTO> accion) {
+        while (!actual.hasNext()) {
+            if (agotado) {
+                return false;
+            }
+            PaginaArticulos pagina = paginador.pagina(cursor, TAMANIO_PAGINA);
+            actual = pagina.getArticulos().iterator();
+            cursor = pagina.getSiguienteCursor();
+            agotado = pagina.esUltima();
+        }
+        accion.accept(actual.next());
+        return true;
+    }
+}
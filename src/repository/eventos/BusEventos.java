@@ -0,0 +1,353 @@
+package repository.eventos;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+import common.types.EstrategiaEspera;
+import repository.EventoHistorial;
+
+/**
+ * Bus de eventos en proceso sobre un buffer circular acotado y reservado de antemano.
+ * <p>
+ * Publicar un evento cuesta reservar la siguiente secuencia del bus (un incremento atómico),
+ * guardar la referencia en su ranura y marcar la ranura como publicada: no se reserva memoria ni
+ * se toma ningún cerrojo, salvo para despertar a un suscriptor BLOQUEANTE dormido. Cada
+ * suscriptor lee el buffer desde su propio hilo con su propio cursor y recibe en un solo lote
+ * todos los eventos publicados seguidos, de modo que índices, cachés, métricas o réplicas
+ * trabajan fuera del camino de escritura.
+ * <p>
+ * El buffer es acotado: si un suscriptor se retrasa una vuelta completa, el escritor espera
+ * (primero activamente y luego durmiendo brevemente) a que libere la ranura, en lugar de
+ * descartar eventos o crecer sin límite. Sin suscriptores, publicar nunca espera.
+ * <p>
+ * Un suscriptor que lanza una excepción sigue recibiendo los eventos siguientes; sus fallos se
+ * cuentan en su suscripción, que guarda además el último.
+ */
+public class BusEventos implements AutoCloseable {
+
+    // Capacidad por defecto del buffer (potencia de dos)
+    public static final int CAPACIDAD = 1 << 14;
+
+    // Esperas activas de un escritor antes de dormir mientras el buffer está lleno
+    private static final int ESPERAS_ACTIVAS = 128;
+
+    // Pausa de las esperas que duermen
+    private static final long NANOS_PAUSA = 100_000L;
+
+    // Espera máxima de un suscriptor bloqueado antes de volver a comprobar si debe terminar
+    private static final long MILIS_BLOQUEO = 10L;
+
+    private final EventoHistorial[] ranuras;
+    private final int mascara;
+
+    // Secuencia publicada en cada ranura (-1 si ninguna); la escritura volátil publica el evento
+    private final AtomicLongArray publicadas;
+
+    // Siguiente secuencia que se reservará
+    private final AtomicLong siguiente = new AtomicLong();
+
+    // Suscripciones activas; el array se sustituye entero, de modo que los escritores no usan cerrojo
+    private volatile Suscripcion[] suscripciones = new Suscripcion[0];
+    private final Object cerrojoSuscripciones = new Object();
+
+    // Aviso a los suscriptores BLOQUEANTE y número de ellos dormidos
+    private final Object monitor = new Object();
+    private final AtomicInteger bloqueados = new AtomicInteger();
+
+    private final AtomicInteger numeroHilos = new AtomicInteger();
+
+    private volatile boolean cerrado;
+
+    /**
+     * Suscripción de un SuscriptorEventos al bus, con su hilo y su cursor
+     */
+    public final class Suscripcion implements AutoCloseable, Runnable {
+        private final SuscriptorEventos suscriptor;
+        private final EstrategiaEspera estrategia;
+        private final Thread hilo;
+
+        // Última secuencia entregada al suscriptor; los escritores no la adelantan
+        private volatile long procesada;
+        private volatile boolean activa = true;
+        private volatile long lotes;
+
+        // Eventos cuya entrega falló y último fallo del suscriptor; solo los escribe su hilo
+        private volatile long fallos;
+        private volatile Optional<RuntimeException> ultimoFallo = Optional.empty();
+
+        private Suscripcion(SuscriptorEventos suscriptor, EstrategiaEspera estrategia, long procesada) {
+            this.suscriptor = suscriptor;
+            this.estrategia = estrategia;
+            this.procesada = procesada;
+            this.hilo = new Thread(this, "bus-eventos-" + numeroHilos.incrementAndGet());
+            this.hilo.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long siguienteLectura = procesada + 1;
+            int intentos = 0;
+            while (activa) {
+                long disponible = ultimaDisponible(siguienteLectura);
+                if (disponible < siguienteLectura) {
+                    if (cerrado && siguienteLectura >= siguiente.get()) {
+                        break;
+                    }
+                    esperar(siguienteLectura, intentos++);
+                    continue;
+                }
+                intentos = 0;
+                for (long secuencia = siguienteLectura; secuencia <= disponible; secuencia++) {
+                    entregar(ranuras[(int) secuencia & mascara], secuencia == disponible);
+                }
+                lotes++;
+                procesada = disponible;
+                siguienteLectura = disponible + 1;
+            }
+            quitar(this);
+        }
+
+        private void entregar(EventoHistorial evento, boolean finLote) {
+            try {
+                suscriptor.alRecibir(evento, finLote);
+            } catch (RuntimeException e) {
+                // Un suscriptor que falla no detiene la entrega a sí mismo ni a los demás
+                ultimoFallo = Optional.of(e);
+                fallos++;
+            }
+        }
+
+        private void esperar(long secuencia, int intentos) {
+            switch (estrategia) {
+                case OCUPADA -> Thread.onSpinWait();
+                case CEDER -> Thread.yield();
+                case DORMIR -> LockSupport.parkNanos(NANOS_PAUSA);
+                case BLOQUEANTE -> bloquear(secuencia);
+            }
+        }
+
+        /**
+         * Duerme hasta que se publique la secuencia. El contador de bloqueados se incrementa
+         * antes de comprobarla, así que un escritor que publique después lo ve y avisa.
+         */
+        private void bloquear(long secuencia) {
+            bloqueados.incrementAndGet();
+            try {
+                synchronized (monitor) {
+                    if (activa && !cerrado && publicadas.get((int) secuencia & mascara) != secuencia) {
+                        monitor.wait(MILIS_BLOQUEO);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                activa = false;
+            } finally {
+                bloqueados.decrementAndGet();
+            }
+        }
+
+        /**
+         * Obtiene la última secuencia del bus entregada al suscriptor
+         * @return la secuencia, o -1 si aún no ha recibido ninguna
+         */
+        public long getProcesada() {
+            return procesada;
+        }
+
+        /**
+         * Obtiene el número de lotes entregados al suscriptor
+         * @return el número de lotes
+         */
+        public long getLotes() {
+            return lotes;
+        }
+
+        /**
+         * Obtiene el número de eventos cuya entrega al suscriptor lanzó una excepción
+         * @return el número de fallos
+         */
+        public long getFallos() {
+            return fallos;
+        }
+
+        /**
+         * Obtiene la última excepción lanzada por el suscriptor al recibir un evento
+         * @return Optional con la excepción o vacío si nunca ha fallado
+         */
+        public Optional<RuntimeException> getUltimoFallo() {
+            return ultimoFallo;
+        }
+
+        /**
+         * Cancela la suscripción y espera a que el suscriptor termine el lote en curso
+         */
+        @Override
+        public void close() {
+            activa = false;
+            despertar();
+            if (Thread.currentThread() != hilo) {
+                try {
+                    hilo.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Constructor con la capacidad por defecto
+     */
+    public BusEventos() {
+        this(CAPACIDAD);
+    }
+
+    /**
+     * Constructor
+     * @param capacidad el número de ranuras del buffer, potencia de dos
+     * @throws IllegalArgumentException si la capacidad no es una potencia de dos positiva
+     */
+    public BusEventos(int capacidad) {
+        if (capacidad <= 0 || Integer.bitCount(capacidad) != 1) {
+            throw new IllegalArgumentException("La capacidad del bus debe ser una potencia de dos");
+        }
+        this.ranuras = new EventoHistorial[capacidad];
+        this.mascara = capacidad - 1;
+        this.publicadas = new AtomicLongArray(capacidad);
+        for (int i = 0; i < capacidad; i++) {
+            publicadas.set(i, -1);
+        }
+    }
+
+    /**
+     * Publica un evento para todos los suscriptores. Si el buffer está lleno, espera a que el
+     * suscriptor más retrasado libere la ranura.
+     * @param evento el evento
+     * @throws IllegalStateException si el bus está cerrado
+     */
+    public void publicar(EventoHistorial evento) {
+        if (cerrado) {
+            throw new IllegalStateException("El bus de eventos está cerrado");
+        }
+        long secuencia = siguiente.getAndIncrement();
+        esperarHueco(secuencia - ranuras.length);
+        int ranura = (int) secuencia & mascara;
+        ranuras[ranura] = evento;
+        publicadas.set(ranura, secuencia);
+        if (bloqueados.get() > 0) {
+            despertar();
+        }
+    }
+
+    /**
+     * Espera a que todos los suscriptores hayan procesado la secuencia que ocupaba la ranura
+     */
+    private void esperarHueco(long envoltura) {
+        for (int intentos = 0; envoltura >= 0 && envoltura > minimoProcesado(); intentos++) {
+            if (intentos < ESPERAS_ACTIVAS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(NANOS_PAUSA);
+            }
+        }
+    }
+
+    private long minimoProcesado() {
+        long minimo = Long.MAX_VALUE;
+        for (Suscripcion suscripcion : suscripciones) {
+            minimo = Math.min(minimo, suscripcion.procesada);
+        }
+        return minimo;
+    }
+
+    /**
+     * Última secuencia publicada de forma contigua desde la indicada, sin pasar de una vuelta
+     * del buffer, o la anterior a la indicada si aún no está publicada
+     */
+    private long ultimaDisponible(long desde) {
+        long secuencia = desde;
+        long limite = desde + ranuras.length;
+        while (secuencia < limite && publicadas.get((int) secuencia & mascara) == secuencia) {
+            secuencia++;
+        }
+        return secuencia - 1;
+    }
+
+    private void despertar() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Suscribe un oyente, que recibirá en su propio hilo los eventos publicados a partir de ahora
+     * @param suscriptor el oyente
+     * @param estrategia cómo espera el hilo del oyente a que haya eventos nuevos
+     * @return la suscripción, que se cierra para cancelarla
+     * @throws IllegalStateException si el bus está cerrado
+     */
+    public Suscripcion suscribir(SuscriptorEventos suscriptor, EstrategiaEspera estrategia) {
+        Suscripcion suscripcion;
+        synchronized (cerrojoSuscripciones) {
+            if (cerrado) {
+                throw new IllegalStateException("El bus de eventos está cerrado");
+            }
+            suscripcion = new Suscripcion(suscriptor, estrategia, siguiente.get() - 1);
+            Suscripcion[] nuevas = Arrays.copyOf(suscripciones, suscripciones.length + 1);
+            nuevas[nuevas.length - 1] = suscripcion;
+            suscripciones = nuevas;
+        }
+        suscripcion.hilo.start();
+        return suscripcion;
+    }
+
+    private void quitar(Suscripcion suscripcion) {
+        synchronized (cerrojoSuscripciones) {
+            suscripciones = Arrays.stream(suscripciones)
+                .filter(actual -> actual != suscripcion)
+                .toArray(Suscripcion[]::new);
+        }
+    }
+
+    /**
+     * Obtiene el número de eventos publicados en el bus
+     * @return el número de eventos
+     */
+    public long getPublicados() {
+        return siguiente.get();
+    }
+
+    /**
+     * Obtiene el número de suscripciones activas
+     * @return el número de suscripciones
+     */
+    public int numeroSuscripciones() {
+        return suscripciones.length;
+    }
+
+    /**
+     * Cierra el bus: no admite más publicaciones y espera a que cada suscriptor reciba los
+     * eventos ya publicados
+     */
+    @Override
+    public void close() {
+        Suscripcion[] actuales;
+        synchronized (cerrojoSuscripciones) {
+            cerrado = true;
+            actuales = suscripciones;
+        }
+        despertar();
+        for (Suscripcion suscripcion : actuales) {
+            try {
+                suscripcion.hilo.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
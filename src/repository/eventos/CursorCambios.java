@@ -0,0 +1,127 @@
+package repository.eventos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import repository.EventoHistorial;
+
+/**
+ * Cursor de captura de cambios (CDC) sobre el historial: entrega en orden de secuencia, por
+ * lotes, los eventos de creación, actualización, eliminación y restauración a partir de una
+ * secuencia dada.
+ * <p>
+ * El consumidor pide cada lote cuando puede procesarlo, con un tamaño máximo, así que marca su
+ * propio ritmo: el cursor solo guarda su posición y lee el historial sin cerrojo, de modo que un
+ * consumidor lento no retiene a los escritores ni obliga a copiar el historial. Para reanudar
+ * tras un reinicio basta con abrir otro cursor desde getSecuencia() + 1.
+ * <p>
+ * Cada cursor lo usa un solo hilo consumidor.
+ */
+public class CursorCambios implements AutoCloseable {
+
+    // Espera máxima entre comprobaciones mientras no hay eventos nuevos
+    private static final long MILIS_COMPROBACION = 10L;
+
+    private final FuenteCambios fuente;
+    private final Object aviso;
+    private final Runnable alCerrar;
+
+    private long posicion;
+    private long secuencia;
+    private volatile boolean abierto = true;
+
+    /**
+     * Constructor
+     * @param fuente el historial que se recorre
+     * @param aviso el monitor que se notifica cuando se publican eventos
+     * @param posicion la posición del primer evento a entregar
+     * @param alCerrar acción a ejecutar al cerrar el cursor
+     */
+    CursorCambios(FuenteCambios fuente, Object aviso, long posicion, Runnable alCerrar) {
+        this.fuente = fuente;
+        this.aviso = aviso;
+        this.posicion = posicion;
+        this.alCerrar = alCerrar;
+    }
+
+    /**
+     * Obtiene el siguiente lote de eventos, esperando a que haya alguno si el cursor está al día
+     * @param maximo el número máximo de eventos del lote
+     * @param milisEspera la espera máxima si no hay eventos, en milisegundos (0 para no esperar)
+     * @return los eventos en orden de secuencia; vacío si no hubo eventos en la espera o el cursor está cerrado
+     * @throws IllegalArgumentException si el máximo no es positivo
+     */
+    public List<EventoHistorial> siguienteLote(int maximo, long milisEspera) {
+        if (maximo <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo del lote debe ser positivo");
+        }
+        long fin = esperarEventos(milisEspera);
+        if (!abierto || fin <= posicion) {
+            return List.of();
+        }
+        int cantidad = (int) Math.min(maximo, fin - posicion);
+        List<EventoHistorial> lote = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            lote.add(fuente.obtener(posicion++));
+        }
+        secuencia = lote.get(cantidad - 1).getSecuencia();
+        return lote;
+    }
+
+    /**
+     * Espera a que haya eventos después de la posición del cursor o a que venza la espera.
+     * El aviso puede llegar justo antes de que el evento se pueda leer, por eso se vuelve a
+     * comprobar cada poco tiempo.
+     */
+    private long esperarEventos(long milisEspera) {
+        long fin = fuente.finPublicado();
+        long limite = System.currentTimeMillis() + milisEspera;
+        while (abierto && fin <= posicion) {
+            long restante = limite - System.currentTimeMillis();
+            if (restante <= 0) {
+                break;
+            }
+            synchronized (aviso) {
+                fin = fuente.finPublicado();
+                if (fin > posicion) {
+                    break;
+                }
+                try {
+                    aviso.wait(Math.min(restante, MILIS_COMPROBACION));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            fin = fuente.finPublicado();
+        }
+        return fin;
+    }
+
+    /**
+     * Obtiene la secuencia del último evento entregado
+     * @return la secuencia, o 0 si aún no ha entregado ninguno
+     */
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    /**
+     * Obtiene el número de eventos publicados que el cursor aún no ha entregado
+     * @return el retraso del cursor en eventos
+     */
+    public long getRetraso() {
+        return Math.max(0, fuente.finPublicado() - posicion);
+    }
+
+    /**
+     * Cierra el cursor
+     */
+    @Override
+    public void close() {
+        if (abierto) {
+            abierto = false;
+            alCerrar.run();
+        }
+    }
+}
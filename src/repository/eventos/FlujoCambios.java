@@ -0,0 +1,69 @@
+package repository.eventos;
+
+import java.util.Optional;
+
+import common.types.EstrategiaEspera;
+
+/**
+ * Abre cursores de cambios sobre el historial de un repositorio.
+ * <p>
+ * Mientras haya algún cursor abierto, una suscripción BLOQUEANTE al bus de eventos despierta a
+ * los cursores que esperan eventos nuevos al final de cada lote publicado; los cursores leen
+ * después los eventos del historial, no del bus, así que no lo retienen.
+ */
+public class FlujoCambios {
+
+    private final FuenteCambios fuente;
+    private final BusEventos bus;
+
+    private final Object aviso = new Object();
+
+    // Suscripción que despierta a los cursores (null si no hay cursores abiertos)
+    private BusEventos.Suscripcion despertador;
+    private int cursoresAbiertos;
+
+    /**
+     * Constructor
+     * @param fuente el historial sobre el que se abren los cursores
+     * @param bus el bus en el que se publican los eventos del historial
+     */
+    public FlujoCambios(FuenteCambios fuente, BusEventos bus) {
+        this.fuente = fuente;
+        this.bus = bus;
+    }
+
+    /**
+     * Abre un cursor de cambios
+     * @param desdeSecuencia la secuencia del primer evento a entregar, o vacío para entregar
+     *                       solo los eventos posteriores a la apertura
+     * @return el cursor, que se debe cerrar al terminar
+     */
+    public CursorCambios abrir(Optional<Long> desdeSecuencia) {
+        synchronized (this) {
+            if (cursoresAbiertos++ == 0) {
+                despertador = bus.suscribir((evento, finLote) -> {
+                    if (finLote) {
+                        synchronized (aviso) {
+                            aviso.notifyAll();
+                        }
+                    }
+                }, EstrategiaEspera.BLOQUEANTE);
+            }
+        }
+        long posicion = desdeSecuencia.map(fuente::posicionDeSecuencia).orElseGet(fuente::finPublicado);
+        return new CursorCambios(fuente, aviso, posicion, this::alCerrarCursor);
+    }
+
+    private void alCerrarCursor() {
+        BusEventos.Suscripcion cerrada = null;
+        synchronized (this) {
+            if (--cursoresAbiertos == 0) {
+                cerrada = despertador;
+                despertador = null;
+            }
+        }
+        if (cerrada != null) {
+            cerrada.close();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package repository.eventos;
+
+import repository.EventoHistorial;
+
+/**
+ * Historial de solo anexado que se puede leer por posición, sobre el que se abren cursores de
+ * cambios. Las posiciones son consecutivas y siguen el orden de secuencia de los eventos.
+ */
+public interface FuenteCambios {
+
+    /**
+     * Obtiene la posición del primer evento con secuencia igual o posterior a la indicada
+     * @param secuencia la secuencia buscada
+     * @return la posición, o finPublicado() si todos los eventos son anteriores
+     */
+    long posicionDeSecuencia(long secuencia);
+
+    /**
+     * Obtiene la posición siguiente a la del último evento que ya se puede leer
+     * @return la posición
+     */
+    long finPublicado();
+
+    /**
+     * Obtiene el evento de una posición anterior a finPublicado()
+     * @param posicion la posición
+     * @return el evento
+     */
+    EventoHistorial obtener(long posicion);
+}
@@ -0,0 +1,22 @@
+package repository.eventos;
+
+import repository.EventoHistorial;
+
+/**
+ * Oyente de los eventos publicados en el BusEventos.
+ * <p>
+ * Cada suscriptor recibe los eventos en su propio hilo, en orden de publicación y por lotes:
+ * todos los eventos disponibles se entregan seguidos y el último del lote se marca, de modo que
+ * el suscriptor puede acumular trabajo (por ejemplo, una escritura en un índice o una réplica) y
+ * hacerlo una sola vez por lote.
+ */
+@FunctionalInterface
+public interface SuscriptorEventos {
+
+    /**
+     * Recibe un evento
+     * @param evento el evento publicado
+     * @param finLote true si es el último evento disponible del lote actual
+     */
+    void alRecibir(EventoHistorial evento, boolean finLote);
+}
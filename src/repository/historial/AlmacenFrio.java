@@ -0,0 +1,479 @@
+package repository.historial;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.codec.CodecEvento;
+
+/**
+ * Nivel frío del historial: eventos que ya no caben en memoria según la política de retención,
+ * guardados en segmentos de disco de solo lectura y mapeados en memoria.
+ * <p>
+ * Cada segmento contiene un lote de eventos ordenado por posición, cada uno como longitud (int)
+ * y evento completo en el formato de CodecEvento, seguido de su tabla de posiciones (posición y
+ * desplazamiento de cada evento) y de su tabla de artículos (ID y posición de cada evento con
+ * ID, ordenada por ID y posición). Las tablas se consultan por bisección sobre el mapeo, así que
+ * un evento retirado no ocupa nada en el heap: de cada segmento solo se guardan su ruta, su mapeo
+ * y el tamaño de sus tablas.
+ * <p>
+ * Cuando hay demasiados segmentos, los más pequeños se fusionan en uno, copiando los eventos sin
+ * decodificarlos; si no caben todos bajo el tamaño máximo de segmento, se fusionan solo los que
+ * caben, de modo que el número de segmentos no crece mientras haya segmentos pequeños.
+ * <p>
+ * Es un desbordamiento del proceso, no una copia durable: la durabilidad del historial es cosa
+ * del repositorio (log e instantáneas). Al abrirlo se borran los segmentos que hubiera.
+ */
+public class AlmacenFrio implements Closeable {
+
+    // Número de segmentos a partir del cual se fusionan los más pequeños
+    static final int MAXIMO_SEGMENTOS = 8;
+
+    // Tamaño máximo de un segmento fusionado
+    private static final long MAXIMO_BYTES_SEGMENTO = 1L << 30;
+
+    // Bytes de una entrada de la tabla de posiciones (posición y desplazamiento)
+    private static final int ENTRADA_POSICION = 12;
+
+    // Bytes de una entrada de la tabla de artículos (ID y posición)
+    private static final int ENTRADA_ARTICULO = 16;
+
+    private static final String EXTENSION = ".frio";
+
+    private final Path directorio;
+
+    // Segmentos actuales; la lista se sustituye entera, de modo que los lectores no usan cerrojo
+    private volatile List<SegmentoFrio> segmentos = List.of();
+
+    private int siguienteNumero = 1;
+
+    // Segmentos fusionados que no se pudieron borrar; se reintentan en cada escritura
+    private final List<Path> pendientesBorrar = new ArrayList<>();
+
+    // Último fallo al borrar un segmento, hasta que se consigue borrar
+    private volatile Optional<RuntimeException> errorBorrado = Optional.empty();
+
+    /**
+     * Lote de eventos guardado en un archivo mapeado, con sus tablas al final del archivo
+     */
+    private static final class SegmentoFrio {
+        private final Path ruta;
+        private final MappedByteBuffer mapa;
+        private final int numeroEventos;
+        private final int numeroArticulos;
+        private final int inicioPosiciones;
+        private final int inicioArticulos;
+
+        private SegmentoFrio(Path ruta, MappedByteBuffer mapa, int numeroEventos, int numeroArticulos) {
+            this.ruta = ruta;
+            this.mapa = mapa;
+            this.numeroEventos = numeroEventos;
+            this.numeroArticulos = numeroArticulos;
+            this.inicioArticulos = mapa.capacity() - numeroArticulos * ENTRADA_ARTICULO;
+            this.inicioPosiciones = inicioArticulos - numeroEventos * ENTRADA_POSICION;
+        }
+
+        private int bytes() {
+            return mapa.capacity();
+        }
+
+        private long posicion(int entrada) {
+            return mapa.getLong(inicioPosiciones + entrada * ENTRADA_POSICION);
+        }
+
+        private int desplazamiento(int entrada) {
+            return mapa.getInt(inicioPosiciones + entrada * ENTRADA_POSICION + 8);
+        }
+
+        private long idArticulo(int entrada) {
+            return mapa.getLong(inicioArticulos + entrada * ENTRADA_ARTICULO);
+        }
+
+        private long posicionArticulo(int entrada) {
+            return mapa.getLong(inicioArticulos + entrada * ENTRADA_ARTICULO + 8);
+        }
+
+        /**
+         * Entrada de una posición en la tabla de posiciones, o -1 si no está en el segmento
+         */
+        private int buscar(long posicion) {
+            if (numeroEventos == 0 || posicion < posicion(0) || posicion > posicion(numeroEventos - 1)) {
+                return -1;
+            }
+            int bajo = 0;
+            int alto = numeroEventos - 1;
+            while (bajo <= alto) {
+                int medio = (bajo + alto) >>> 1;
+                long encontrada = posicion(medio);
+                if (encontrada < posicion) {
+                    bajo = medio + 1;
+                } else if (encontrada > posicion) {
+                    alto = medio - 1;
+                } else {
+                    return medio;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Primera entrada de la tabla de artículos con ese ID o mayor
+         */
+        private int primeraDe(long id) {
+            int bajo = 0;
+            int alto = numeroArticulos;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (idArticulo(medio) < id) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        /**
+         * Longitud y bytes del evento de una entrada, tal y como están en el archivo
+         */
+        private ByteBuffer bytesEvento(int entrada) {
+            int inicio = desplazamiento(entrada);
+            return mapa.slice(inicio, 4 + mapa.getInt(inicio));
+        }
+
+        /**
+         * Evento guardado en una entrada del segmento
+         */
+        private EventoHistorial leer(int entrada) {
+            int inicio = desplazamiento(entrada);
+            return CodecEvento.decodificar(mapa.slice(inicio + 4, mapa.getInt(inicio)));
+        }
+    }
+
+    /**
+     * Abre el almacén frío en un directorio, borrando los segmentos de una ejecución anterior
+     * @param directorio el directorio de los segmentos
+     * @throws UncheckedIOException si el directorio no se puede usar
+     */
+    public AlmacenFrio(Path directorio) {
+        this.directorio = directorio;
+        try {
+            Files.createDirectories(directorio);
+            try (Stream<Path> archivos = Files.list(directorio)) {
+                for (Path ruta : (Iterable<Path>) archivos.filter(AlmacenFrio::esSegmento)::iterator) {
+                    Files.deleteIfExists(ruta);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo preparar el almacén frío en " + directorio, e);
+        }
+    }
+
+    private static boolean esSegmento(Path ruta) {
+        return ruta.getFileName().toString().endsWith(EXTENSION);
+    }
+
+    /**
+     * Guarda un lote de eventos en un segmento nuevo
+     * @param posiciones las posiciones de los eventos en el historial, en orden ascendente
+     * @param eventos los eventos, con el artículo completo, en el mismo orden
+     * @throws UncheckedIOException si no se puede escribir el segmento
+     */
+    public synchronized void guardar(long[] posiciones, List<EventoHistorial> eventos) {
+        // Tabla de artículos: índices de los eventos con ID, ordenados por ID y posición
+        long[] ids = new long[posiciones.length];
+        List<Integer> conId = new ArrayList<>();
+        for (int i = 0; i < posiciones.length; i++) {
+            Optional<Long> id = Optional.ofNullable(eventos.get(i).getArticulo()).flatMap(ArtCientificoDTO::getId);
+            if (id.isPresent()) {
+                ids[i] = id.get();
+                conId.add(i);
+            }
+        }
+        conId.sort(Comparator.<Integer>comparingLong(i -> ids[i]).thenComparingLong(i -> posiciones[i]));
+
+        Path ruta = siguienteRuta();
+        try (DataOutputStream salida = abrir(ruta)) {
+            ByteBuffer contenido = ByteBuffer.allocate(0);
+            int[] desplazamientos = new int[posiciones.length];
+            int desplazamiento = 0;
+            for (int i = 0; i < posiciones.length; i++) {
+                int tamanio = CodecEvento.tamanio(eventos.get(i));
+                if (contenido.capacity() < tamanio) {
+                    contenido = ByteBuffer.allocate(Math.max(tamanio, contenido.capacity() * 2));
+                }
+                contenido.clear();
+                CodecEvento.codificar(eventos.get(i), contenido);
+                salida.writeInt(tamanio);
+                salida.write(contenido.array(), 0, tamanio);
+                desplazamientos[i] = desplazamiento;
+                desplazamiento += 4 + tamanio;
+            }
+            for (int i = 0; i < posiciones.length; i++) {
+                salida.writeLong(posiciones[i]);
+                salida.writeInt(desplazamientos[i]);
+            }
+            for (int i : conId) {
+                salida.writeLong(ids[i]);
+                salida.writeLong(posiciones[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el segmento frío " + ruta, e);
+        }
+        agregarSegmento(mapear(ruta, posiciones.length, conId.size()));
+        reintentarBorrados();
+        if (segmentos.size() > MAXIMO_SEGMENTOS) {
+            fusionarPequenios();
+        }
+    }
+
+    /**
+     * Lee el evento de una posición
+     * @param posicion la posición del evento en el historial
+     * @return Optional con el evento o vacío si no está en el almacén frío
+     */
+    public Optional<EventoHistorial> leer(long posicion) {
+        for (SegmentoFrio segmento : segmentos) {
+            int entrada = segmento.buscar(posicion);
+            if (entrada >= 0) {
+                return Optional.of(segmento.leer(entrada));
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Obtiene las posiciones de los eventos de un artículo guardados en el almacén frío
+     * @param id el ID del artículo
+     * @return las posiciones en orden ascendente (vacío si no tiene eventos en el almacén frío)
+     */
+    public long[] posicionesDe(long id) {
+        LongStream.Builder posiciones = LongStream.builder();
+        for (SegmentoFrio segmento : segmentos) {
+            for (int entrada = segmento.primeraDe(id);
+                 entrada < segmento.numeroArticulos && segmento.idArticulo(entrada) == id;
+                 entrada++) {
+                posiciones.add(segmento.posicionArticulo(entrada));
+            }
+        }
+        // Los segmentos pueden intercalar posiciones del mismo artículo
+        return posiciones.build().sorted().toArray();
+    }
+
+    /**
+     * Número de eventos del almacén frío
+     * @return el número de eventos
+     */
+    public long numeroEventos() {
+        return segmentos.stream().mapToLong(segmento -> segmento.numeroEventos).sum();
+    }
+
+    /**
+     * Bytes que ocupan los segmentos en disco
+     * @return los bytes
+     */
+    public long bytes() {
+        return segmentos.stream().mapToLong(SegmentoFrio::bytes).sum();
+    }
+
+    /**
+     * Número de segmentos del almacén frío
+     * @return el número de segmentos
+     */
+    public int numeroSegmentos() {
+        return segmentos.size();
+    }
+
+    /**
+     * Obtiene el último fallo al borrar un segmento fusionado o cerrado. El borrado se reintenta
+     * en cada escritura y al cerrar, y el fallo se olvida cuando ya no queda ninguno pendiente.
+     * @return Optional con el error o vacío si no queda ningún segmento por borrar
+     */
+    public Optional<RuntimeException> getErrorBorrado() {
+        return errorBorrado;
+    }
+
+    private Path siguienteRuta() {
+        return directorio.resolve(String.format("historial-%08d%s", siguienteNumero++, EXTENSION));
+    }
+
+    private static DataOutputStream abrir(Path ruta) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(
+            Files.newOutputStream(ruta, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)));
+    }
+
+    private static SegmentoFrio mapear(Path ruta, int numeroEventos, int numeroArticulos) {
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            return new SegmentoFrio(ruta, canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()),
+                numeroEventos, numeroArticulos);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo mapear el segmento frío " + ruta, e);
+        }
+    }
+
+    private void agregarSegmento(SegmentoFrio segmento) {
+        List<SegmentoFrio> nuevos = new ArrayList<>(segmentos);
+        nuevos.add(segmento);
+        segmentos = List.copyOf(nuevos);
+    }
+
+    /**
+     * Fusiona en uno solo, en orden de posición, los segmentos más pequeños que quepan juntos
+     * bajo el tamaño máximo (como mucho la mitad más uno). Los eventos y las tablas se copian
+     * del mapeo al archivo nuevo sin decodificarlos ni cargarlos en el heap.
+     */
+    private void fusionarPequenios() {
+        List<SegmentoFrio> porTamanio = new ArrayList<>(segmentos);
+        porTamanio.sort(Comparator.comparingInt(SegmentoFrio::bytes));
+        List<SegmentoFrio> fusionados = new ArrayList<>();
+        long bytes = 0;
+        for (SegmentoFrio segmento : porTamanio) {
+            if (fusionados.size() > MAXIMO_SEGMENTOS / 2 || bytes + segmento.bytes() > MAXIMO_BYTES_SEGMENTO) {
+                break;
+            }
+            fusionados.add(segmento);
+            bytes += segmento.bytes();
+        }
+        if (fusionados.size() < 2) {
+            // Todos los segmentos salvo uno superan la mitad del tamaño máximo: su número
+            // solo crece con los bytes del almacén, no con los lotes guardados
+            return;
+        }
+
+        Path ruta = siguienteRuta();
+        int numeroEventos = fusionados.stream().mapToInt(segmento -> segmento.numeroEventos).sum();
+        int numeroArticulos = fusionados.stream().mapToInt(segmento -> segmento.numeroArticulos).sum();
+        try (DataOutputStream salida = abrir(ruta)) {
+            byte[] copia = new byte[0];
+            int[] cursores = new int[fusionados.size()];
+            for (int i = 0; i < numeroEventos; i++) {
+                int elegido = siguientePorPosicion(fusionados, cursores);
+                ByteBuffer evento = fusionados.get(elegido).bytesEvento(cursores[elegido]++);
+                if (copia.length < evento.remaining()) {
+                    copia = new byte[Math.max(evento.remaining(), copia.length * 2)];
+                }
+                int longitud = evento.remaining();
+                evento.get(copia, 0, longitud);
+                salida.write(copia, 0, longitud);
+            }
+            // La tabla de posiciones se recalcula en el mismo orden en que se copiaron los eventos
+            Arrays.fill(cursores, 0);
+            int desplazamiento = 0;
+            for (int i = 0; i < numeroEventos; i++) {
+                int elegido = siguientePorPosicion(fusionados, cursores);
+                SegmentoFrio origen = fusionados.get(elegido);
+                salida.writeLong(origen.posicion(cursores[elegido]));
+                salida.writeInt(desplazamiento);
+                desplazamiento += origen.bytesEvento(cursores[elegido]++).remaining();
+            }
+            Arrays.fill(cursores, 0);
+            for (int i = 0; i < numeroArticulos; i++) {
+                int elegido = siguientePorArticulo(fusionados, cursores);
+                SegmentoFrio origen = fusionados.get(elegido);
+                salida.writeLong(origen.idArticulo(cursores[elegido]));
+                salida.writeLong(origen.posicionArticulo(cursores[elegido]++));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir el segmento frío " + ruta, e);
+        }
+        SegmentoFrio nuevo = mapear(ruta, numeroEventos, numeroArticulos);
+
+        List<SegmentoFrio> restantes = new ArrayList<>(segmentos);
+        restantes.removeAll(fusionados);
+        restantes.add(nuevo);
+        segmentos = List.copyOf(restantes);
+        // Los lectores que aún usen los segmentos fusionados conservan su mapeo
+        fusionados.forEach(segmento -> pendientesBorrar.add(segmento.ruta));
+        reintentarBorrados();
+    }
+
+    /**
+     * Segmento con la menor posición pendiente de copiar. Son pocos segmentos: basta con
+     * buscarlo linealmente.
+     */
+    private static int siguientePorPosicion(List<SegmentoFrio> fusionados, int[] cursores) {
+        int elegido = -1;
+        for (int s = 0; s < fusionados.size(); s++) {
+            SegmentoFrio segmento = fusionados.get(s);
+            if (cursores[s] < segmento.numeroEventos && (elegido < 0
+                    || segmento.posicion(cursores[s]) < fusionados.get(elegido).posicion(cursores[elegido]))) {
+                elegido = s;
+            }
+        }
+        return elegido;
+    }
+
+    /**
+     * Segmento con la menor entrada (ID y posición) pendiente de copiar de la tabla de artículos
+     */
+    private static int siguientePorArticulo(List<SegmentoFrio> fusionados, int[] cursores) {
+        int elegido = -1;
+        for (int s = 0; s < fusionados.size(); s++) {
+            SegmentoFrio segmento = fusionados.get(s);
+            if (cursores[s] >= segmento.numeroArticulos) {
+                continue;
+            }
+            if (elegido < 0) {
+                elegido = s;
+                continue;
+            }
+            SegmentoFrio actual = fusionados.get(elegido);
+            int orden = Long.compare(segmento.idArticulo(cursores[s]), actual.idArticulo(cursores[elegido]));
+            if (orden < 0 || orden == 0
+                    && segmento.posicionArticulo(cursores[s]) < actual.posicionArticulo(cursores[elegido])) {
+                elegido = s;
+            }
+        }
+        return elegido;
+    }
+
+    /**
+     * Intenta borrar los segmentos pendientes; los que fallan siguen pendientes y su error queda
+     * en getErrorBorrado
+     */
+    private void reintentarBorrados() {
+        pendientesBorrar.removeIf(ruta -> {
+            try {
+                Files.deleteIfExists(ruta);
+                return true;
+            } catch (IOException e) {
+                errorBorrado = Optional.of(new UncheckedIOException("No se pudo borrar el segmento frío " + ruta, e));
+                return false;
+            }
+        });
+        if (pendientesBorrar.isEmpty()) {
+            errorBorrado = Optional.empty();
+        }
+    }
+
+    /**
+     * Borra los segmentos del almacén frío
+     * @throws UncheckedIOException si algún segmento no se pudo borrar
+     */
+    @Override
+    public synchronized void close() {
+        segmentos.forEach(segmento -> pendientesBorrar.add(segmento.ruta));
+        segmentos = List.of();
+        reintentarBorrados();
+        errorBorrado.ifPresent(error -> {
+            throw error;
+        });
+    }
+}
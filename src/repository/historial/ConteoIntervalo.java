@@ -0,0 +1,56 @@
+package repository.historial;
+
+/**
+ * Número de eventos del historial en un intervalo de tiempo [inicio, fin)
+ */
+public class ConteoIntervalo {
+
+    private final long inicio;
+    private final long fin;
+    private final long cuenta;
+
+    /**
+     * Constructor del conteo
+     * @param inicio el inicio del intervalo, incluido, en milisegundos desde la época
+     * @param fin el fin del intervalo, excluido, en milisegundos desde la época
+     * @param cuenta el número de eventos del intervalo
+     */
+    public ConteoIntervalo(long inicio, long fin, long cuenta) {
+        this.inicio = inicio;
+        this.fin = fin;
+        this.cuenta = cuenta;
+    }
+
+    /**
+     * Obtiene el inicio del intervalo (incluido)
+     * @return los milisegundos desde la época
+     */
+    public long getInicio() {
+        return inicio;
+    }
+
+    /**
+     * Obtiene el fin del intervalo (excluido)
+     * @return los milisegundos desde la época
+     */
+    public long getFin() {
+        return fin;
+    }
+
+    /**
+     * Obtiene el número de eventos del intervalo
+     * @return el número de eventos
+     */
+    public long getCuenta() {
+        return cuenta;
+    }
+
+    @Override
+    public String toString() {
+        return "ConteoIntervalo{" +
+                "inicio=" + inicio +
+                ", fin=" + fin +
+                ", cuenta=" + cuenta +
+                '}';
+    }
+}
@@ -0,0 +1,79 @@
+package repository.historial;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Estado de los artículos en un punto pasado del historial, para auditorías.
+ * <p>
+ * El punto se expresa como una posición límite del historial (excluida) y el estado de un
+ * artículo en ese punto se deduce de su último evento anterior al límite: ninguno si es una
+ * eliminación, el artículo del evento si es una creación o una restauración, y, si es una
+ * actualización (cuyo evento guarda el artículo previo), el artículo del evento siguiente de su
+ * cadena, o el vigente si no lo hay. Los eventos se buscan por bisección en la cadena del
+ * artículo del IndiceHistorial y su artículo se reconstruye desde el punto de control más
+ * cercano, así que consultar un artículo no recorre el historial y consultar la colección
+ * completa cuesta un tiempo proporcional al número de artículos, no al de eventos.
+ */
+public class EstadosPasados {
+
+    private final IndiceHistorial indice;
+
+    // Acceso a un evento por su posición
+    private final LongFunction<EventoHistorial> eventos;
+
+    // Búsqueda de la versión vigente de un artículo por su ID
+    private final LongFunction<Optional<ArtCientificoDTO>> vigentes;
+
+    /**
+     * Constructor
+     * @param indice el índice del historial por artículo
+     * @param eventos acceso a un evento por su posición
+     * @param vigentes búsqueda de la versión vigente de un artículo por su ID
+     */
+    public EstadosPasados(IndiceHistorial indice, LongFunction<EventoHistorial> eventos,
+                          LongFunction<Optional<ArtCientificoDTO>> vigentes) {
+        this.indice = indice;
+        this.eventos = eventos;
+        this.vigentes = vigentes;
+    }
+
+    /**
+     * Obtiene el estado de un artículo en un punto del historial
+     * @param id el ID del artículo
+     * @param limite la posición límite, excluida
+     * @return Optional con el artículo, o vacío si no existía en ese punto
+     */
+    public Optional<ArtCientificoDTO> articulo(long id, long limite) {
+        long[] alrededor = indice.posicionesAlrededorDe(id, limite);
+        if (alrededor[0] < 0) {
+            return Optional.empty();
+        }
+        EventoHistorial ultimo = eventos.apply(alrededor[0]);
+        return switch (ultimo.getTipoEvento()) {
+            case ELIMINACION -> Optional.empty();
+            case CREACION, RESTAURACION -> Optional.of(ultimo.getArticulo());
+            case ACTUALIZACION -> alrededor[1] >= 0
+                ? Optional.of(eventos.apply(alrededor[1]).getArticulo())
+                : vigentes.apply(id);
+        };
+    }
+
+    /**
+     * Obtiene el estado de la colección completa en un punto del historial
+     * @param limite la posición límite, excluida
+     * @return los artículos que existían en ese punto, en orden de ID
+     */
+    public List<ArtCientificoDTO> coleccion(long limite) {
+        List<ArtCientificoDTO> articulos = new ArrayList<>();
+        for (long id : indice.articulos()) {
+            articulo(id, limite).ifPresent(articulos::add);
+        }
+        return articulos;
+    }
+}
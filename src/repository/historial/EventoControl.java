@@ -0,0 +1,80 @@
+package repository.historial;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Punto de control del historial en modo DELTA: guarda el artículo completo, pero reutiliza los
+ * valores del evento anterior del mismo artículo en los campos que no cambian, de modo que un
+ * texto reenviado sin cambios no se guarda dos veces.
+ */
+final class EventoControl implements EventoHistorial {
+
+    private final ArtCientificoDTO articulo;
+    private final TipoEvento tipoEvento;
+    private final long secuencia;
+    private final long marcaTiempo;
+
+    private EventoControl(ArtCientificoDTO articulo, EventoHistorial evento) {
+        this.articulo = articulo;
+        this.tipoEvento = evento.getTipoEvento();
+        this.secuencia = evento.getSecuencia();
+        this.marcaTiempo = evento.getMarcaTiempo();
+    }
+
+    /**
+     * Crea el punto de control de un evento
+     * @param anterior el evento anterior del mismo artículo tal y como está guardado
+     * @param evento el evento nuevo, con el artículo completo
+     * @return el punto de control
+     */
+    static EventoControl desde(EventoHistorial anterior, EventoHistorial evento) {
+        ArtCientificoDTO previo = anterior.getArticulo();
+        ArtCientificoDTO actual = evento.getArticulo();
+        ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO(actual);
+        if (previo.getNombre().equals(actual.getNombre())) {
+            builder.conNombre(previo.getNombre().orElse(null));
+        }
+        if (previo.getAutor().equals(actual.getAutor())) {
+            builder.conAutor(previo.getAutor().orElse(null));
+        }
+        if (previo.getPalabrasClaves().equals(actual.getPalabrasClaves())) {
+            builder.conPalabrasClaves(previo.getPalabrasClaves().orElse(null));
+        }
+        if (previo.getResumen().equals(actual.getResumen())) {
+            builder.conResumen(previo.getResumen().orElse(null));
+        }
+        return new EventoControl(builder.build(), evento);
+    }
+
+    /**
+     * Crea un punto de control con el artículo completo de un evento guardado, por ejemplo de un
+     * delta cuya base ha pasado al almacén frío
+     * @param evento el evento guardado en el historial
+     * @return el punto de control
+     */
+    static EventoControl completo(EventoHistorial evento) {
+        return new EventoControl(evento.getArticulo(), evento);
+    }
+
+    @Override
+    public ArtCientificoDTO getArticulo() {
+        return articulo;
+    }
+
+    @Override
+    public TipoEvento getTipoEvento() {
+        return tipoEvento;
+    }
+
+    @Override
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    @Override
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+}
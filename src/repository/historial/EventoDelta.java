@@ -0,0 +1,168 @@
+package repository.historial;
+
+import java.util.Arrays;
+import java.util.List;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Evento del historial que guarda solo los campos del artículo que cambian respecto al evento
+ * anterior del mismo artículo (su base). El artículo completo se reconstruye al pedirlo,
+ * recorriendo las bases hasta el último evento completo (punto de control) y aplicando encima,
+ * con un único builder, el valor más reciente de cada campo cambiado.
+ */
+final class EventoDelta implements EventoHistorial {
+
+    // Campos que puede llevar un delta; el ID nunca cambia dentro de la cadena de un artículo
+    private static final int NOMBRE = 1;
+    private static final int AUTOR = 2;
+    private static final int PALABRAS = 4;
+    private static final int ANIO = 8;
+    private static final int RESUMEN = 16;
+    private static final int TODOS = NOMBRE | AUTOR | PALABRAS | ANIO | RESUMEN;
+
+    private static final Object[] SIN_VALORES = new Object[0];
+
+    private final EventoHistorial base;
+    private final TipoEvento tipoEvento;
+    private final long secuencia;
+    private final long marcaTiempo;
+
+    // Campos cambiados y sus valores (null si el campo queda vacío), en el orden de los bits
+    private final byte cambios;
+    private final Object[] valores;
+
+    // Número de deltas desde el último punto de control, incluido este
+    private final int profundidad;
+
+    private EventoDelta(EventoHistorial base, EventoHistorial evento, byte cambios, Object[] valores, int profundidad) {
+        this.base = base;
+        this.tipoEvento = evento.getTipoEvento();
+        this.secuencia = evento.getSecuencia();
+        this.marcaTiempo = evento.getMarcaTiempo();
+        this.cambios = cambios;
+        this.valores = valores;
+        this.profundidad = profundidad;
+    }
+
+    /**
+     * Crea el mismo delta sobre otra base que representa el mismo estado del artículo, por
+     * ejemplo cuando la base original pasa al almacén frío y se sustituye por un punto de control
+     * @param nuevaBase la nueva base
+     * @return el delta sobre la nueva base
+     */
+    EventoDelta conBase(EventoHistorial nuevaBase) {
+        return new EventoDelta(nuevaBase, this, cambios, valores, profundidad(nuevaBase) + 1);
+    }
+
+    /**
+     * Crea el delta de un evento respecto al evento anterior de su artículo
+     * @param base el evento anterior tal y como está guardado en el historial
+     * @param evento el evento nuevo, con el artículo completo
+     * @return el delta
+     */
+    static EventoDelta desde(EventoHistorial base, EventoHistorial evento) {
+        ArtCientificoDTO anterior = base.getArticulo();
+        ArtCientificoDTO actual = evento.getArticulo();
+        int cambios = 0;
+        int numero = 0;
+        Object[] candidatos = new Object[5];
+        if (!anterior.getNombre().equals(actual.getNombre())) {
+            cambios |= NOMBRE;
+            candidatos[numero++] = actual.getNombre().orElse(null);
+        }
+        if (!anterior.getAutor().equals(actual.getAutor())) {
+            cambios |= AUTOR;
+            candidatos[numero++] = actual.getAutor().orElse(null);
+        }
+        if (!anterior.getPalabrasClaves().equals(actual.getPalabrasClaves())) {
+            cambios |= PALABRAS;
+            candidatos[numero++] = actual.getPalabrasClaves().orElse(null);
+        }
+        if (!anterior.getAnio().equals(actual.getAnio())) {
+            cambios |= ANIO;
+            candidatos[numero++] = actual.getAnio().orElse(null);
+        }
+        if (!anterior.getResumen().equals(actual.getResumen())) {
+            cambios |= RESUMEN;
+            candidatos[numero++] = actual.getResumen().orElse(null);
+        }
+        Object[] valores = numero == 0 ? SIN_VALORES : Arrays.copyOf(candidatos, numero);
+        return new EventoDelta(base, evento, (byte) cambios, valores, profundidad(base) + 1);
+    }
+
+    /**
+     * Número de deltas desde el último punto de control hasta un evento guardado
+     * @param evento el evento guardado en el historial
+     * @return 0 si es un evento completo
+     */
+    static int profundidad(EventoHistorial evento) {
+        return evento instanceof EventoDelta delta ? delta.profundidad : 0;
+    }
+
+    /**
+     * Reconstruye el artículo completo del evento
+     */
+    @Override
+    public ArtCientificoDTO getArticulo() {
+        EventoHistorial control = base;
+        while (control instanceof EventoDelta delta) {
+            control = delta.base;
+        }
+        ArtCientificoDTO completo = control.getArticulo();
+
+        // Del más reciente al más antiguo: el primer valor encontrado de cada campo es el vigente
+        int pendientes = TODOS;
+        ArtCientificoDTO.BuilderDTO builder = null;
+        for (EventoHistorial actual = this; actual instanceof EventoDelta delta; actual = delta.base) {
+            int aplicables = delta.cambios & pendientes;
+            if (aplicables != 0) {
+                builder = builder == null ? new ArtCientificoDTO.BuilderDTO(completo) : builder;
+                delta.aplicar(aplicables, builder);
+                pendientes &= ~aplicables;
+            }
+        }
+        return builder == null ? completo : builder.build();
+    }
+
+    /**
+     * Aplica al builder los campos indicados de este delta
+     */
+    @SuppressWarnings("unchecked")
+    private void aplicar(int campos, ArtCientificoDTO.BuilderDTO builder) {
+        int indice = 0;
+        for (int campo = NOMBRE; campo <= RESUMEN; campo <<= 1) {
+            if ((cambios & campo) == 0) {
+                continue;
+            }
+            Object valor = valores[indice++];
+            if ((campos & campo) == 0) {
+                continue;
+            }
+            switch (campo) {
+                case NOMBRE -> builder.conNombre((String) valor);
+                case AUTOR -> builder.conAutor((String) valor);
+                case PALABRAS -> builder.conPalabrasClaves((List<String>) valor);
+                case ANIO -> builder.conAnio((Integer) valor);
+                default -> builder.conResumen((String) valor);
+            }
+        }
+    }
+
+    @Override
+    public TipoEvento getTipoEvento() {
+        return tipoEvento;
+    }
+
+    @Override
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    @Override
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+}
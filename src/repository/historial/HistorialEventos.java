@@ -0,0 +1,546 @@
+package repository.historial;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import common.types.ModoHistorial;
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.eventos.FuenteCambios;
+
+/**
+ * Historial de eventos en memoria, de solo anexado, con acceso por posición y por artículo.
+ * <p>
+ * El historial asigna a cada evento nuevo su número de secuencia, global y creciente, y una marca
+ * de tiempo que nunca retrocede.
+ * <p>
+ * Los eventos se guardan en páginas que nunca se mueven: anexar solo toma un cerrojo breve para
+ * reservar el hueco, y los lectores recorren las páginas sin cerrojo hasta el tamaño publicado
+ * (volátil), que se actualiza después de escribir el evento. Cada evento con ID se encadena
+ * además en el IndiceHistorial, para consultar el historial de un artículo o su última
+ * eliminación sin recorrer el historial completo, y en el IndiceTemporal, para las consultas por
+ * rango de tiempo.
+ * <p>
+ * En modo DELTA, cada evento de un artículo guarda solo los campos que cambian respecto a su
+ * evento anterior, y uno de cada INTERVALO_CONTROL se guarda completo; el artículo se reconstruye
+ * al pedirlo. Así una edición ocupa lo que cambia y no un artículo entero.
+ * <p>
+ * Con una PoliticaRetencion limitada, cada LOTE_RETENCION eventos anexados se retienen los que
+ * incumplen la política: se escriben completos en el AlmacenFrio, se quitan de sus páginas
+ * (las páginas que quedan vacías se liberan) y la cadena de deltas de cada artículo afectado se
+ * rehace desde un punto de control en memoria. Las lecturas por posición, y con ellas todas las
+ * consultas, buscan en el almacén frío los eventos que ya no están en memoria. Los eventos
+ * retenidos tampoco ocupan memoria en los índices: salen de la cadena de su artículo en el
+ * IndiceHistorial, que los pide al almacén frío cuando hacen falta, y las cubetas del
+ * IndiceTemporal anteriores al corte se funden en cubetas de un lote de retención.
+ */
+public class HistorialEventos implements FuenteCambios {
+
+    // Eventos de un artículo entre dos puntos de control por defecto
+    public static final int INTERVALO_CONTROL = 16;
+
+    // Eventos anexados entre dos retenciones; con límite de eventos, el nivel caliente no
+    // supera ese límite más un lote
+    public static final int LOTE_RETENCION = 4096;
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANIO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANIO_PAGINA - 1;
+
+    private final Object cerrojo = new Object();
+
+    // Páginas de eventos; el array exterior se sustituye al crecer, las páginas se comparten
+    private volatile EventoHistorial[][] paginas = new EventoHistorial[16][];
+
+    // Número de eventos publicados; todos los anteriores son visibles para los lectores
+    private volatile int tamanio;
+
+    private final IndiceHistorial indice = new IndiceHistorial(this::posicionesFrias);
+
+    private final IndiceTemporal temporal = new IndiceTemporal(this::obtener);
+
+    private final EstadosPasados estados;
+
+    private final ModoHistorial modo;
+
+    // Eventos de un artículo entre dos puntos de control, en modo DELTA
+    private final int intervaloControl;
+
+    // Secuencia y marca de tiempo del último evento añadido; protegidas por el cerrojo
+    private long ultimaSecuencia;
+    private long ultimaMarcaTiempo;
+
+    private final PoliticaRetencion politica;
+
+    // Nivel frío (vacío si la política no limita el historial en memoria)
+    private final Optional<AlmacenFrio> almacenFrio;
+
+    // Estado de la retención, protegido por el cerrojo: todas las posiciones anteriores al corte
+    // están en el nivel frío; por encima, solo las que retiene el límite por artículo
+    private int corte;
+    private int calientes;
+    private int anexadosDesdeRetencion;
+
+    // Artículos con eventos nuevos desde la última retención, para el límite por artículo
+    private final Set<Long> tocados = new HashSet<>();
+
+    /**
+     * Constructor. La búsqueda de la versión vigente es obligatoria: los eventos de
+     * actualización guardan la versión previa, así que sin ella un artículo cuyo último evento es
+     * una actualización no tendría estado tras ese evento.
+     * @param modo cómo se guardan los artículos de los eventos
+     * @param intervaloControl en modo DELTA, cada cuántos eventos de un artículo se guarda uno
+     *                         completo como punto de control
+     * @param politica qué eventos se mantienen en memoria; sin directorio, el nivel frío se
+     *                 crea en un directorio temporal
+     * @param vigentes búsqueda de la versión vigente de un artículo por su ID, para los estados
+     *                 pasados posteriores a su última actualización
+     * @throws IllegalArgumentException si el intervalo no es positivo
+     * @throws UncheckedIOException si no se puede preparar el directorio del nivel frío
+     */
+    public HistorialEventos(ModoHistorial modo, int intervaloControl, PoliticaRetencion politica,
+                            LongFunction<Optional<ArtCientificoDTO>> vigentes) {
+        if (intervaloControl <= 0) {
+            throw new IllegalArgumentException("El intervalo de control debe ser positivo");
+        }
+        this.modo = modo;
+        this.intervaloControl = intervaloControl;
+        this.estados = new EstadosPasados(indice, this::obtener, vigentes);
+        this.politica = politica;
+        this.almacenFrio = politica.esLimitada()
+            ? Optional.of(new AlmacenFrio(politica.getDirectorio().orElseGet(HistorialEventos::directorioTemporal)))
+            : Optional.empty();
+    }
+
+    private static Path directorioTemporal() {
+        try {
+            Path directorio = Files.createTempDirectory("historial-frio");
+            directorio.toFile().deleteOnExit();
+            return directorio;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio temporal del historial", e);
+        }
+    }
+
+    /**
+     * Crea un evento con la secuencia y la marca de tiempo que le asigna el historial
+     */
+    @FunctionalInterface
+    public interface FabricaEvento {
+        /**
+         * Crea el evento
+         * @param secuencia la secuencia asignada
+         * @param marcaTiempo la marca de tiempo asignada, en milisegundos desde la época
+         * @return el evento
+         */
+        EventoHistorial crear(long secuencia, long marcaTiempo);
+    }
+
+    /**
+     * Añade un evento nuevo al final del historial, asignándole la siguiente secuencia.
+     * La marca de tiempo nunca retrocede respecto a la del evento anterior, aunque el reloj
+     * del sistema lo haga, de modo que el historial queda ordenado también por tiempo.
+     * <p>
+     * La fábrica se invoca con el cerrojo del historial tomado: lo que haga (por ejemplo, anotar
+     * el evento en un log) ocurre en el mismo orden que las secuencias.
+     * @param marcaTiempo la marca de tiempo propuesta, en milisegundos desde la época
+     * @param fabrica la fábrica que crea el evento
+     * @return el evento añadido
+     */
+    public EventoHistorial agregar(long marcaTiempo, FabricaEvento fabrica) {
+        synchronized (cerrojo) {
+            EventoHistorial evento = fabrica.crear(ultimaSecuencia + 1, Math.max(ultimaMarcaTiempo, marcaTiempo));
+            anexar(evento);
+            return evento;
+        }
+    }
+
+    /**
+     * Añade un lote de eventos nuevos al final del historial, con secuencias consecutivas y la
+     * misma marca de tiempo, tomando el cerrojo una sola vez para todo el lote. Las fábricas se
+     * invocan en orden con el cerrojo tomado, igual que en agregar.
+     * @param marcaTiempo la marca de tiempo propuesta, en milisegundos desde la época
+     * @param fabricas las fábricas que crean los eventos, en el orden del lote
+     * @return los eventos añadidos, en el mismo orden
+     */
+    public List<EventoHistorial> agregarLote(long marcaTiempo, List<FabricaEvento> fabricas) {
+        List<EventoHistorial> eventos = new ArrayList<>(fabricas.size());
+        synchronized (cerrojo) {
+            long marca = Math.max(ultimaMarcaTiempo, marcaTiempo);
+            for (FabricaEvento fabrica : fabricas) {
+                EventoHistorial evento = fabrica.crear(ultimaSecuencia + 1, marca);
+                anexar(evento);
+                eventos.add(evento);
+            }
+        }
+        return eventos;
+    }
+
+    /**
+     * Añade al final del historial un evento que ya tiene su secuencia, por ejemplo al cargarlo
+     * de una instantánea. Los eventos sin secuencia (0) reciben la siguiente.
+     * @param evento el evento
+     * @param fabrica la fábrica que crea una copia del evento si hay que asignarle secuencia
+     */
+    public void cargar(EventoHistorial evento, FabricaEvento fabrica) {
+        synchronized (cerrojo) {
+            anexar(evento.getSecuencia() > 0
+                ? evento
+                : fabrica.crear(ultimaSecuencia + 1, evento.getMarcaTiempo()));
+        }
+    }
+
+    /**
+     * Guarda el evento en la siguiente posición y lo publica. Debe llamarse con el cerrojo tomado.
+     */
+    private void anexar(EventoHistorial evento) {
+        // El artículo se lee una sola vez: los eventos compactos construyen el DTO en cada lectura
+        ArtCientificoDTO articulo = evento.getArticulo();
+        EventoHistorial guardado = comprimir(evento, articulo);
+        int posicion = tamanio;
+        int pagina = posicion >>> BITS_PAGINA;
+        EventoHistorial[][] actuales = paginas;
+        if (pagina == actuales.length) {
+            actuales = Arrays.copyOf(actuales, actuales.length * 2);
+        }
+        if (actuales[pagina] == null) {
+            actuales[pagina] = new EventoHistorial[TAMANIO_PAGINA];
+        }
+        actuales[pagina][posicion & MASCARA_PAGINA] = guardado;
+        paginas = actuales;
+        Optional<Long> id = Optional.ofNullable(articulo).flatMap(ArtCientificoDTO::getId);
+        id.ifPresent(clave -> indice.registrar(clave, posicion, evento.getTipoEvento()));
+        temporal.registrar(posicion, evento.getMarcaTiempo(), evento.getTipoEvento());
+        ultimaSecuencia = Math.max(ultimaSecuencia, evento.getSecuencia());
+        ultimaMarcaTiempo = Math.max(ultimaMarcaTiempo, evento.getMarcaTiempo());
+        tamanio = posicion + 1;
+
+        if (almacenFrio.isPresent()) {
+            calientes++;
+            politica.getProfundidadArticulo().flatMap(profundidad -> id).ifPresent(tocados::add);
+            if (++anexadosDesdeRetencion >= LOTE_RETENCION) {
+                retener(almacenFrio.get());
+            }
+        }
+    }
+
+    /**
+     * Pasa al nivel frío los eventos que incumplen la política de retención. Debe llamarse con
+     * el cerrojo tomado; los eventos se escriben en disco antes de quitarlos de las páginas, de
+     * modo que un lector sin cerrojo siempre los encuentra en uno de los dos niveles.
+     */
+    private void retener(AlmacenFrio frio) {
+        anexadosDesdeRetencion = 0;
+        EventoHistorial[][] actuales = paginas;
+        List<Integer> posiciones = new ArrayList<>();
+
+        // Por antigüedad y por número: un tramo inicial del historial, desde el corte actual
+        long limiteEdad = politica.getEdadMaxima()
+            .map(edad -> System.currentTimeMillis() - edad.toMillis())
+            .orElse(Long.MIN_VALUE);
+        int exceso = politica.getMaximoEventos().map(maximo -> calientes - maximo).orElse(0);
+        int fin = corte;
+        for (; fin < tamanio; fin++) {
+            EventoHistorial evento = caliente(actuales, fin);
+            if (evento == null) {
+                continue;
+            }
+            if (posiciones.size() >= exceso && evento.getMarcaTiempo() >= limiteEdad) {
+                break;
+            }
+            posiciones.add(fin);
+        }
+        int nuevoCorte = fin;
+
+        // Por artículo: los eventos en memoria de cada artículo que superan la profundidad
+        politica.getProfundidadArticulo().ifPresent(profundidad -> {
+            for (long id : tocados) {
+                long[] cadena = indice.posicionesRecientes(id);
+                // Los eventos retenidos de un artículo son siempre los más antiguos de su cadena
+                for (int i = cadena.length - profundidad - 1; i >= 0 && cadena[i] >= nuevoCorte; i--) {
+                    int posicion = (int) cadena[i];
+                    if (caliente(actuales, posicion) == null) {
+                        break;
+                    }
+                    posiciones.add(posicion);
+                }
+            }
+            tocados.clear();
+        });
+        if (posiciones.isEmpty()) {
+            return;
+        }
+
+        posiciones.sort(null);
+        long[] ordenadas = new long[posiciones.size()];
+        List<EventoHistorial> eventos = new ArrayList<>(posiciones.size());
+        // Eventos retenidos de cada artículo afectado
+        Map<Long, Integer> afectados = new HashMap<>();
+        for (int i = 0; i < ordenadas.length; i++) {
+            ordenadas[i] = posiciones.get(i);
+            EventoHistorial evento = caliente(actuales, posiciones.get(i));
+            eventos.add(evento);
+            Optional.ofNullable(evento.getArticulo()).flatMap(ArtCientificoDTO::getId)
+                .ifPresent(id -> afectados.merge(id, 1, Integer::sum));
+        }
+        frio.guardar(ordenadas, eventos);
+
+        // Primero se rehacen las cadenas, que aún leen los eventos retenidos de las páginas; luego
+        // salen de los índices, cuando el almacén frío ya los tiene
+        afectados.forEach((id, retenidos) -> {
+            rehacerCadena(actuales, id, posiciones);
+            indice.retirar(id, retenidos);
+        });
+        for (int posicion : posiciones) {
+            actuales[posicion >>> BITS_PAGINA][posicion & MASCARA_PAGINA] = null;
+        }
+        for (int pagina = corte >>> BITS_PAGINA; pagina < nuevoCorte >>> BITS_PAGINA; pagina++) {
+            actuales[pagina] = null;
+        }
+        calientes -= posiciones.size();
+        corte = nuevoCorte;
+        paginas = actuales;
+        temporal.compactar(nuevoCorte, LOTE_RETENCION);
+    }
+
+    /**
+     * Tras retener los eventos más antiguos de un artículo, convierte su primer evento en memoria
+     * en un punto de control y vuelve a apoyar sobre él los deltas siguientes, para que ninguno
+     * mantenga vivos en memoria los eventos retenidos. Los eventos retenidos de cada artículo son
+     * siempre los más antiguos de su cadena.
+     */
+    private void rehacerCadena(EventoHistorial[][] actuales, long id, List<Integer> retenidas) {
+        EventoHistorial anterior = null;
+        for (long posicion : indice.posicionesRecientes(id)) {
+            int indicePosicion = (int) posicion;
+            EventoHistorial evento = caliente(actuales, indicePosicion);
+            if (evento == null || Collections.binarySearch(retenidas, indicePosicion) >= 0) {
+                continue;
+            }
+            EventoHistorial nuevo;
+            if (anterior == null) {
+                if (!(evento instanceof EventoDelta)) {
+                    return;
+                }
+                nuevo = EventoControl.completo(evento);
+            } else if (evento instanceof EventoDelta delta) {
+                nuevo = delta.conBase(anterior);
+            } else {
+                return;
+            }
+            actuales[indicePosicion >>> BITS_PAGINA][indicePosicion & MASCARA_PAGINA] = nuevo;
+            anterior = nuevo;
+        }
+    }
+
+    /**
+     * Posiciones de los eventos de un artículo que están en el nivel frío
+     */
+    private long[] posicionesFrias(long id) {
+        return almacenFrio.map(frio -> frio.posicionesDe(id)).orElseGet(() -> new long[0]);
+    }
+
+    /**
+     * Evento de una posición si está en memoria, o null si está en el nivel frío
+     */
+    private static EventoHistorial caliente(EventoHistorial[][] actuales, int posicion) {
+        EventoHistorial[] pagina = actuales[posicion >>> BITS_PAGINA];
+        return pagina == null ? null : pagina[posicion & MASCARA_PAGINA];
+    }
+
+    /**
+     * En modo DELTA, sustituye el evento por su delta respecto al evento anterior del mismo
+     * artículo o, cuando toca, por un punto de control. El primer evento de cada artículo y los
+     * eventos sin ID se guardan tal cual.
+     */
+    private EventoHistorial comprimir(EventoHistorial evento, ArtCientificoDTO articulo) {
+        if (modo == ModoHistorial.COMPLETO || articulo == null) {
+            return evento;
+        }
+        return articulo.getId()
+            .map(indice::ultimaPosicion)
+            .filter(OptionalLong::isPresent)
+            .map(posicion -> caliente(paginas, (int) posicion.getAsLong()))
+            .filter(anterior -> anterior != null)
+            .<EventoHistorial>map(anterior -> EventoDelta.profundidad(anterior) + 1 < intervaloControl
+                ? EventoDelta.desde(anterior, evento)
+                : EventoControl.desde(anterior, evento))
+            .orElse(evento);
+    }
+
+    /**
+     * Secuencia del último evento añadido
+     * @return la secuencia, o 0 si el historial está vacío
+     */
+    public long ultimaSecuencia() {
+        synchronized (cerrojo) {
+            return ultimaSecuencia;
+        }
+    }
+
+    /**
+     * Número de eventos del historial
+     * @return el número de eventos
+     */
+    public int tamanio() {
+        return tamanio;
+    }
+
+    @Override
+    public long posicionDeSecuencia(long secuencia) {
+        return secuencia == Long.MIN_VALUE ? 0 : limitePorSecuencia(secuencia - 1);
+    }
+
+    @Override
+    public long finPublicado() {
+        return tamanio;
+    }
+
+    /**
+     * Obtiene el evento de una posición
+     * @param posicion la posición, menor que tamanio()
+     * @return el evento
+     */
+    @Override
+    public EventoHistorial obtener(long posicion) {
+        EventoHistorial evento = caliente(paginas, (int) posicion);
+        if (evento != null) {
+            return evento;
+        }
+        return almacenFrio.flatMap(frio -> frio.leer(posicion))
+            .orElseThrow(() -> new IllegalStateException("No hay evento en la posición " + posicion));
+    }
+
+    /**
+     * Recorre en orden de registro los primeros eventos del historial
+     * @param cantidad el número de eventos a recorrer (como máximo, el tamaño actual)
+     * @param destino el consumidor que recibe cada evento
+     */
+    public void recorrer(int cantidad, Consumer<EventoHistorial> destino) {
+        int limite = Math.min(cantidad, tamanio);
+        for (int i = 0; i < limite; i++) {
+            destino.accept(obtener(i));
+        }
+    }
+
+    /**
+     * Copia el historial completo en orden de registro
+     * @return la lista de eventos
+     */
+    public List<EventoHistorial> todos() {
+        List<EventoHistorial> eventos = new ArrayList<>(tamanio);
+        recorrer(Integer.MAX_VALUE, eventos::add);
+        return eventos;
+    }
+
+    /**
+     * Obtiene los eventos de un artículo en orden de registro, en tiempo proporcional a su número
+     * @param id el ID del artículo
+     * @return la lista de eventos del artículo (vacía si no tiene)
+     */
+    public List<EventoHistorial> deArticulo(long id) {
+        long[] posiciones = indice.posiciones(id);
+        List<EventoHistorial> eventos = new ArrayList<>(posiciones.length);
+        for (long posicion : posiciones) {
+            eventos.add(obtener(posicion));
+        }
+        return eventos;
+    }
+
+    /**
+     * Obtiene la eliminación más reciente de un artículo
+     * @param id el ID del artículo
+     * @return Optional con el evento de eliminación o vacío si nunca se ha eliminado
+     */
+    public Optional<EventoHistorial> ultimaEliminacion(long id) {
+        OptionalLong posicion = indice.ultimaEliminacion(id);
+        return posicion.isPresent() ? Optional.of(obtener(posicion.getAsLong())) : Optional.empty();
+    }
+
+    /**
+     * Obtiene el índice temporal del historial, para consultas y conteos por rango de tiempo
+     * @return el índice temporal
+     */
+    public IndiceTemporal getTemporal() {
+        return temporal;
+    }
+
+    /**
+     * Obtiene el estado de los artículos en puntos pasados del historial, expresados con
+     * limitePorSecuencia o limitePorMarcaTiempo
+     * @return los estados pasados
+     */
+    public EstadosPasados getEstados() {
+        return estados;
+    }
+
+    /**
+     * Posición límite del historial hasta una secuencia, por bisección sobre las posiciones
+     * @param secuencia la secuencia del último evento incluido
+     * @return el número de eventos con secuencia menor o igual
+     */
+    public long limitePorSecuencia(long secuencia) {
+        int bajo = 0;
+        int alto = tamanio;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (obtener(medio).getSecuencia() <= secuencia) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    /**
+     * Posición límite del historial hasta un instante, usando el índice temporal
+     * @param marcaTiempo el instante incluido, en milisegundos desde la época
+     * @return el número de eventos con marca de tiempo menor o igual
+     */
+    public long limitePorMarcaTiempo(long marcaTiempo) {
+        return marcaTiempo == Long.MAX_VALUE ? tamanio : Math.min(tamanio, temporal.posicionDesde(marcaTiempo + 1));
+    }
+
+    /**
+     * Número de eventos del historial que están en memoria
+     * @return el número de eventos del nivel caliente
+     */
+    public int numeroCalientes() {
+        synchronized (cerrojo) {
+            return almacenFrio.isPresent() ? calientes : tamanio;
+        }
+    }
+
+    /**
+     * Obtiene el nivel frío del historial
+     * @return Optional con el almacén frío o vacío si la política no limita el historial
+     */
+    public Optional<AlmacenFrio> getAlmacenFrio() {
+        return almacenFrio;
+    }
+
+    /**
+     * Cierra el nivel frío y borra sus segmentos
+     * @throws UncheckedIOException si algún segmento no se pudo borrar
+     */
+    public void close() {
+        synchronized (cerrojo) {
+            almacenFrio.ifPresent(AlmacenFrio::close);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package repository.historial;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.LongFunction;
+import java.util.stream.LongStream;
+
+import common.types.TipoEvento;
+import repository.indice.TablaPorId;
+
+/**
+ * Índice del historial por artículo: para cada ID guarda la cadena de posiciones de sus eventos,
+ * en orden de registro, y la posición de su eliminación más reciente (lápida).
+ * <p>
+ * Las posiciones las asigna el almacén del historial (índice en memoria, número de secuencia en
+ * disco...), de modo que el mismo índice sirve para cualquier almacén. Consultar el historial o la
+ * última eliminación de un artículo cuesta un tiempo proporcional a sus propios eventos, no al
+ * tamaño del historial completo.
+ * <p>
+ * Cuando el almacén retira a otro nivel los eventos más antiguos de un artículo, sus posiciones
+ * se quitan de la cadena y solo se cuenta cuántos hay; las consultas que los necesitan los piden
+ * a la fuente de posiciones retiradas. Así un evento retirado no ocupa nada en el índice.
+ */
+public class IndiceHistorial {
+
+    private static final int CAPACIDAD_INICIAL = 4;
+
+    private static final long[] SIN_POSICIONES = new long[0];
+
+    // Cadena de cada artículo, por ID
+    private final TablaPorId<Cadena> cadenas = new TablaPorId<>();
+
+    // Posiciones retiradas de cada artículo, en orden ascendente
+    private final LongFunction<long[]> retiradas;
+
+    /**
+     * Constructor de un índice cuyo almacén nunca retira eventos
+     */
+    public IndiceHistorial() {
+        this(id -> SIN_POSICIONES);
+    }
+
+    /**
+     * Constructor
+     * @param retiradas fuente de las posiciones retiradas de un artículo por su ID, en orden
+     *                  ascendente; puede incluir también posiciones que aún están en la cadena
+     */
+    public IndiceHistorial(LongFunction<long[]> retiradas) {
+        this.retiradas = retiradas;
+    }
+
+    /**
+     * Cadena de eventos de un artículo, sin los retirados. Se sincroniza sobre sí misma: los
+     * escritores del mismo artículo ya están serializados en los repositorios, así que el
+     * cerrojo casi nunca compite.
+     */
+    private static final class Cadena {
+        private long[] posiciones = new long[CAPACIDAD_INICIAL];
+        private int cuenta;
+        private int retirados;
+        private long ultimaEliminacion = -1;
+
+        private synchronized void agregar(long posicion, TipoEvento tipoEvento) {
+            if (cuenta == posiciones.length) {
+                posiciones = Arrays.copyOf(posiciones, Math.max(CAPACIDAD_INICIAL, cuenta * 2));
+            }
+            posiciones[cuenta++] = posicion;
+            if (tipoEvento == TipoEvento.ELIMINACION) {
+                ultimaEliminacion = posicion;
+            }
+        }
+
+        private synchronized void retirar(int cantidad) {
+            int quedan = cuenta - cantidad;
+            posiciones = quedan == 0 ? SIN_POSICIONES : Arrays.copyOfRange(posiciones, cantidad, cuenta);
+            cuenta = quedan;
+            retirados += cantidad;
+        }
+
+        private synchronized boolean tieneRetirados() {
+            return retirados > 0;
+        }
+
+        private synchronized long[] copiar() {
+            return Arrays.copyOf(posiciones, cuenta);
+        }
+
+        private synchronized long getUltima() {
+            return cuenta == 0 ? -1 : posiciones[cuenta - 1];
+        }
+
+        private synchronized long getUltimaEliminacion() {
+            return ultimaEliminacion;
+        }
+
+        /**
+         * Número de posiciones de la cadena anteriores al límite, por bisección
+         */
+        private int contarAntesDe(long limite) {
+            int bajo = 0;
+            int alto = cuenta;
+            while (bajo < alto) {
+                int medio = (bajo + alto) >>> 1;
+                if (posiciones[medio] < limite) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        /**
+         * Última posición anterior al límite y primera posterior o igual (-1 si no hay)
+         */
+        private synchronized long[] getAlrededorDe(long limite) {
+            int antes = contarAntesDe(limite);
+            return new long[] {
+                antes == 0 ? -1 : posiciones[antes - 1],
+                antes == cuenta ? -1 : posiciones[antes]
+            };
+        }
+    }
+
+    /**
+     * Añade un evento al final de la cadena de su artículo
+     * @param id el ID del artículo
+     * @param posicion la posición del evento en el almacén del historial
+     * @param tipoEvento el tipo de evento
+     */
+    public void registrar(long id, long posicion, TipoEvento tipoEvento) {
+        Cadena cadena = cadenas.obtener(id);
+        if (cadena == null) {
+            Cadena nueva = new Cadena();
+            cadena = Optional.ofNullable(cadenas.ponerSiAusente(id, nueva)).orElse(nueva);
+        }
+        cadena.agregar(posicion, tipoEvento);
+    }
+
+    /**
+     * Quita de la cadena de un artículo sus posiciones más antiguas, que el almacén ha retirado
+     * y a partir de ahora da la fuente de posiciones retiradas
+     * @param id el ID del artículo
+     * @param cantidad el número de posiciones retiradas, como mucho las de la cadena
+     */
+    public void retirar(long id, int cantidad) {
+        Cadena cadena = cadenas.obtener(id);
+        if (cadena != null && cantidad > 0) {
+            cadena.retirar(cantidad);
+        }
+    }
+
+    /**
+     * Obtiene las posiciones de los eventos de un artículo en orden de registro
+     * @param id el ID del artículo
+     * @return las posiciones (vacío si el artículo no tiene eventos)
+     */
+    public long[] posiciones(long id) {
+        Cadena cadena = cadenas.obtener(id);
+        if (cadena == null) {
+            return new long[0];
+        }
+        // Se copia antes de mirar si hay retirados: si se retira algo entre medias, se ve después
+        long[] recientes = cadena.copiar();
+        if (!cadena.tieneRetirados()) {
+            return recientes;
+        }
+        // Las retiradas son las más antiguas; las que aún estén en la copia se descartan
+        long primeraReciente = recientes.length == 0 ? Long.MAX_VALUE : recientes[0];
+        long[] antiguas = Arrays.stream(retiradas.apply(id)).filter(p -> p < primeraReciente).toArray();
+        long[] todas = Arrays.copyOf(antiguas, antiguas.length + recientes.length);
+        System.arraycopy(recientes, 0, todas, antiguas.length, recientes.length);
+        return todas;
+    }
+
+    /**
+     * Obtiene las posiciones de los eventos de un artículo que no se han retirado, sin consultar
+     * la fuente de posiciones retiradas
+     * @param id el ID del artículo
+     * @return las posiciones en orden de registro (vacío si no le queda ninguna)
+     */
+    public long[] posicionesRecientes(long id) {
+        Cadena cadena = cadenas.obtener(id);
+        return cadena == null ? new long[0] : cadena.copiar();
+    }
+
+    /**
+     * Obtiene la posición del evento más reciente de un artículo
+     * @param id el ID del artículo
+     * @return la posición, o vacío si el artículo no tiene eventos
+     */
+    public OptionalLong ultimaPosicion(long id) {
+        Cadena cadena = cadenas.obtener(id);
+        if (cadena == null) {
+            return OptionalLong.empty();
+        }
+        long ultima = cadena.getUltima();
+        return ultima >= 0 ? OptionalLong.of(ultima) : Arrays.stream(posiciones(id)).max();
+    }
+
+    /**
+     * Obtiene la posición de la eliminación más reciente de un artículo
+     * @param id el ID del artículo
+     * @return la posición, o vacío si nunca se ha eliminado
+     */
+    public OptionalLong ultimaEliminacion(long id) {
+        Cadena cadena = cadenas.obtener(id);
+        long posicion = cadena == null ? -1 : cadena.getUltimaEliminacion();
+        return posicion < 0 ? OptionalLong.empty() : OptionalLong.of(posicion);
+    }
+
+    /**
+     * Obtiene, por bisección y sin recorrer la cadena de un artículo, la posición de su último
+     * evento anterior a un límite y la de su primer evento a partir del límite
+     * @param id el ID del artículo
+     * @param limite la posición límite
+     * @return las dos posiciones ({anterior, siguiente}), con -1 para la que no exista
+     */
+    public long[] posicionesAlrededorDe(long id, long limite) {
+        Cadena cadena = cadenas.obtener(id);
+        if (cadena == null) {
+            return new long[] {-1, -1};
+        }
+        long[] alrededor = cadena.getAlrededorDe(limite);
+        if (alrededor[0] >= 0 || !cadena.tieneRetirados()) {
+            return alrededor;
+        }
+        // El límite cae antes de la cadena en memoria: se busca en la cadena completa
+        long[] todas = posiciones(id);
+        int antes = Arrays.binarySearch(todas, limite);
+        antes = antes >= 0 ? antes : -antes - 1;
+        return new long[] {
+            antes == 0 ? -1 : todas[antes - 1],
+            antes == todas.length ? -1 : todas[antes]
+        };
+    }
+
+    /**
+     * Obtiene los IDs de todos los artículos con eventos, en orden ascendente
+     * @return los IDs
+     */
+    public long[] articulos() {
+        LongStream.Builder ids = LongStream.builder();
+        cadenas.recorrer((id, cadena) -> ids.add(id));
+        return ids.build().toArray();
+    }
+
+    /**
+     * Número de artículos con eventos en el índice
+     * @return el número de cadenas
+     */
+    public int numeroArticulos() {
+        return cadenas.tamanio();
+    }
+}
@@ -0,0 +1,366 @@
+package repository.historial;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+import common.types.TipoEvento;
+import repository.EventoHistorial;
+
+/**
+ * Índice temporal del historial, por cubetas de tiempo de ancho fijo y de solo anexado.
+ * <p>
+ * Los eventos se registran en orden de posición, con posiciones consecutivas y marcas de tiempo
+ * que no retroceden, así que cada cubeta cubre un tramo continuo de posiciones. Para cada cubeta
+ * se guarda su inicio, la posición de su primer evento y el número de eventos de cada tipo.
+ * <p>
+ * Una consulta por rango busca por bisección la cubeta de cada extremo y, dentro de ella, la
+ * posición exacta leyendo las marcas de tiempo de los eventos. Con filtro por tipo, las cubetas
+ * sin eventos de ese tipo se saltan sin leerlas, y los conteos usan directamente los contadores
+ * de las cubetas completas: solo se leen los eventos de las cubetas de los extremos.
+ * <p>
+ * Las cubetas de un tramo que el historial ya ha retirado de memoria se pueden fundir en unas
+ * pocas (compactar), de modo que el índice no crece con el tiempo que cubre el nivel frío.
+ */
+public class IndiceTemporal {
+
+    // Ancho por defecto de las cubetas: un minuto
+    public static final long ANCHO_CUBETA = 60_000L;
+
+    private static final int TIPOS = TipoEvento.values().length;
+    private static final int CAPACIDAD_INICIAL = 64;
+
+    private final long anchoCubeta;
+
+    // Acceso a un evento por su posición, para afinar los extremos y filtrar por tipo
+    private final LongFunction<EventoHistorial> eventos;
+
+    private final Object cerrojo = new Object();
+
+    // Cubetas en orden: inicio, posición del primer evento y cuentas por tipo (TIPOS por cubeta)
+    private long[] inicios = new long[CAPACIDAD_INICIAL];
+    private long[] primeras = new long[CAPACIDAD_INICIAL];
+    private int[] cuentas = new int[CAPACIDAD_INICIAL * TIPOS];
+    private int numeroCubetas;
+
+    // Cubetas iniciales ya fundidas por compactar, que no se vuelven a revisar
+    private int compactadas;
+
+    // Posición siguiente a la del último evento registrado
+    private long fin;
+
+    /**
+     * Constructor con cubetas del ancho por defecto
+     * @param eventos acceso a un evento por su posición
+     */
+    public IndiceTemporal(LongFunction<EventoHistorial> eventos) {
+        this(ANCHO_CUBETA, eventos);
+    }
+
+    /**
+     * Constructor
+     * @param anchoCubeta el ancho de cada cubeta en milisegundos
+     * @param eventos acceso a un evento por su posición
+     * @throws IllegalArgumentException si el ancho no es positivo
+     */
+    public IndiceTemporal(long anchoCubeta, LongFunction<EventoHistorial> eventos) {
+        if (anchoCubeta <= 0) {
+            throw new IllegalArgumentException("El ancho de las cubetas debe ser positivo");
+        }
+        this.anchoCubeta = anchoCubeta;
+        this.eventos = eventos;
+    }
+
+    /**
+     * Registra el evento siguiente del historial. Si su marca de tiempo fuera anterior a la
+     * cubeta actual, se cuenta en esta.
+     * @param posicion la posición del evento, consecutiva a la del anterior
+     * @param marcaTiempo la marca de tiempo del evento
+     * @param tipoEvento el tipo de evento
+     */
+    public void registrar(long posicion, long marcaTiempo, TipoEvento tipoEvento) {
+        synchronized (cerrojo) {
+            long inicio = Math.floorDiv(marcaTiempo, anchoCubeta) * anchoCubeta;
+            if (numeroCubetas == 0 || inicio > inicios[numeroCubetas - 1]) {
+                if (numeroCubetas == inicios.length) {
+                    inicios = Arrays.copyOf(inicios, numeroCubetas * 2);
+                    primeras = Arrays.copyOf(primeras, numeroCubetas * 2);
+                    cuentas = Arrays.copyOf(cuentas, numeroCubetas * 2 * TIPOS);
+                }
+                inicios[numeroCubetas] = inicio;
+                primeras[numeroCubetas] = posicion;
+                numeroCubetas++;
+            }
+            cuentas[(numeroCubetas - 1) * TIPOS + tipoEvento.ordinal()]++;
+            fin = posicion + 1;
+        }
+    }
+
+    /**
+     * Funde las cubetas que terminan antes de una posición en cubetas de al menos un número de
+     * eventos. Las consultas siguen siendo exactas, porque dentro de una cubeta fundida la
+     * posición se afina igualmente por bisección sobre las marcas de tiempo, pero leen más eventos
+     * de sus extremos. La última cubeta nunca se funde.
+     * @param limite la posición hasta la que se pueden fundir cubetas, excluida
+     * @param minimo el número de eventos con el que se cierra cada cubeta fundida
+     */
+    public void compactar(long limite, int minimo) {
+        synchronized (cerrojo) {
+            // Los cortes tomados comparten los arrays: se funde sobre copias
+            long[] nuevosInicios = inicios.clone();
+            long[] nuevasPrimeras = primeras.clone();
+            int[] nuevasCuentas = cuentas.clone();
+            int escritas = compactadas;
+            int cubeta = compactadas;
+            while (cubeta < numeroCubetas - 1) {
+                int siguiente = cubeta;
+                long total = 0;
+                while (siguiente < numeroCubetas - 1 && primeras[siguiente + 1] <= limite && total < minimo) {
+                    total += primeras[siguiente + 1] - primeras[siguiente];
+                    siguiente++;
+                }
+                if (total < minimo) {
+                    // Grupo incompleto: se espera a que se retiren más cubetas
+                    break;
+                }
+                nuevosInicios[escritas] = inicios[cubeta];
+                nuevasPrimeras[escritas] = primeras[cubeta];
+                Arrays.fill(nuevasCuentas, escritas * TIPOS, (escritas + 1) * TIPOS, 0);
+                for (int origen = cubeta; origen < siguiente; origen++) {
+                    for (int tipo = 0; tipo < TIPOS; tipo++) {
+                        nuevasCuentas[escritas * TIPOS + tipo] += cuentas[origen * TIPOS + tipo];
+                    }
+                }
+                escritas++;
+                cubeta = siguiente;
+            }
+            if (escritas == cubeta) {
+                compactadas = escritas;
+                return;
+            }
+            int restantes = numeroCubetas - cubeta;
+            System.arraycopy(inicios, cubeta, nuevosInicios, escritas, restantes);
+            System.arraycopy(primeras, cubeta, nuevasPrimeras, escritas, restantes);
+            System.arraycopy(cuentas, cubeta * TIPOS, nuevasCuentas, escritas * TIPOS, restantes * TIPOS);
+            // registrar suma sobre las cuentas de las cubetas nuevas: deben quedar a cero
+            Arrays.fill(nuevasCuentas, (escritas + restantes) * TIPOS, nuevasCuentas.length, 0);
+            inicios = nuevosInicios;
+            primeras = nuevasPrimeras;
+            cuentas = nuevasCuentas;
+            numeroCubetas = escritas + restantes;
+            compactadas = escritas;
+        }
+    }
+
+    /**
+     * Número de cubetas del índice
+     * @return el número de cubetas
+     */
+    public int numeroCubetas() {
+        synchronized (cerrojo) {
+            return numeroCubetas;
+        }
+    }
+
+    /**
+     * Obtiene los eventos de un rango de tiempo en orden de secuencia
+     * @param desde el inicio del rango, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @return la lista de eventos (vacía si no hay)
+     */
+    public List<EventoHistorial> entre(long desde, long hasta, Optional<TipoEvento> tipoEvento) {
+        List<EventoHistorial> resultado = new ArrayList<>();
+        recorrerEntre(desde, hasta, tipoEvento, resultado::add);
+        return resultado;
+    }
+
+    /**
+     * Recorre los eventos de un rango de tiempo en orden de secuencia
+     * @param desde el inicio del rango, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @param destino el consumidor que recibe cada evento
+     */
+    public void recorrerEntre(long desde, long hasta, Optional<TipoEvento> tipoEvento,
+                              Consumer<EventoHistorial> destino) {
+        Corte corte = cortar();
+        long primera = corte.posicion(desde);
+        long ultima = corte.posicion(hasta);
+        int tipo = tipoEvento.map(TipoEvento::ordinal).orElse(-1);
+        for (int cubeta = corte.cubetaDePosicion(primera);
+             cubeta >= 0 && cubeta < corte.numero && corte.primeras[cubeta] < ultima;
+             cubeta++) {
+            if (tipo >= 0 && corte.cuenta(cubeta, tipo) == 0) {
+                continue;
+            }
+            long hastaPosicion = Math.min(ultima, corte.finDe(cubeta));
+            for (long posicion = Math.max(primera, corte.primeras[cubeta]); posicion < hastaPosicion; posicion++) {
+                EventoHistorial evento = eventos.apply(posicion);
+                if (tipo < 0 || evento.getTipoEvento().ordinal() == tipo) {
+                    destino.accept(evento);
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene la primera posición cuya marca de tiempo es igual o posterior a la indicada
+     * @param marcaTiempo la marca de tiempo en milisegundos desde la época
+     * @return la posición, o la siguiente a la del último evento si todos son anteriores
+     */
+    public long posicionDesde(long marcaTiempo) {
+        return cortar().posicion(marcaTiempo);
+    }
+
+    /**
+     * Cuenta los eventos de un rango de tiempo
+     * @param desde el inicio del rango, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @return el número de eventos
+     */
+    public long contar(long desde, long hasta, Optional<TipoEvento> tipoEvento) {
+        Corte corte = cortar();
+        return corte.contar(corte.posicion(desde), corte.posicion(hasta), tipoEvento.map(TipoEvento::ordinal).orElse(-1));
+    }
+
+    /**
+     * Cuenta los eventos de intervalos consecutivos del mismo ancho, entregando cada conteo en
+     * cuanto se calcula. El último intervalo termina en el fin del rango aunque sea más corto.
+     * @param desde el inicio del primer intervalo, incluido, en milisegundos desde la época
+     * @param hasta el fin del rango, excluido
+     * @param anchoIntervalo el ancho de cada intervalo en milisegundos
+     * @param tipoEvento el tipo de evento, o vacío para todos
+     * @param destino el consumidor que recibe el conteo de cada intervalo, en orden
+     * @throws IllegalArgumentException si el ancho no es positivo
+     */
+    public void contarPorIntervalo(long desde, long hasta, long anchoIntervalo, Optional<TipoEvento> tipoEvento,
+                                   Consumer<ConteoIntervalo> destino) {
+        if (anchoIntervalo <= 0) {
+            throw new IllegalArgumentException("El ancho de los intervalos debe ser positivo");
+        }
+        Corte corte = cortar();
+        int tipo = tipoEvento.map(TipoEvento::ordinal).orElse(-1);
+        long posicion = corte.posicion(desde);
+        for (long inicio = desde; inicio < hasta; ) {
+            long finIntervalo = hasta - inicio <= anchoIntervalo ? hasta : inicio + anchoIntervalo;
+            long siguiente = corte.posicion(finIntervalo);
+            destino.accept(new ConteoIntervalo(inicio, finIntervalo, corte.contar(posicion, siguiente, tipo)));
+            posicion = siguiente;
+            inicio = finIntervalo;
+        }
+    }
+
+    /**
+     * Toma las cubetas registradas hasta ahora. Los arrays se comparten: las cubetas anteriores a
+     * la última ya no cambian y la última solo puede ganar eventos posteriores al corte, por lo
+     * que sus cuentas no se usan y sus eventos se leen.
+     */
+    private Corte cortar() {
+        synchronized (cerrojo) {
+            return new Corte(inicios, primeras, cuentas, numeroCubetas, fin);
+        }
+    }
+
+    /**
+     * Cubetas visibles en un momento dado y búsquedas sobre ellas
+     */
+    private final class Corte {
+        private final long[] inicios;
+        private final long[] primeras;
+        private final int[] cuentas;
+        private final int numero;
+        private final long fin;
+
+        private Corte(long[] inicios, long[] primeras, int[] cuentas, int numero, long fin) {
+            this.inicios = inicios;
+            this.primeras = primeras;
+            this.cuentas = cuentas;
+            this.numero = numero;
+            this.fin = fin;
+        }
+
+        private long finDe(int cubeta) {
+            return cubeta + 1 < numero ? primeras[cubeta + 1] : fin;
+        }
+
+        private int cuenta(int cubeta, int tipo) {
+            return cuentas[cubeta * TIPOS + tipo];
+        }
+
+        /**
+         * Última cubeta cuyo inicio no es posterior a la marca indicada, o -1 si no hay
+         */
+        private int cubetaDeMarca(long marcaTiempo) {
+            int encontrada = Arrays.binarySearch(inicios, 0, numero, marcaTiempo);
+            return encontrada >= 0 ? encontrada : -encontrada - 2;
+        }
+
+        /**
+         * Cubeta que contiene una posición, o -1 si es anterior a todas
+         */
+        private int cubetaDePosicion(long posicion) {
+            int encontrada = Arrays.binarySearch(primeras, 0, numero, posicion);
+            return encontrada >= 0 ? encontrada : -encontrada - 2;
+        }
+
+        /**
+         * Primera posición con marca de tiempo igual o posterior a la indicada
+         */
+        private long posicion(long marcaTiempo) {
+            if (numero == 0) {
+                return fin;
+            }
+            int cubeta = cubetaDeMarca(marcaTiempo);
+            if (cubeta < 0) {
+                return primeras[0];
+            }
+            long bajo = primeras[cubeta];
+            long alto = finDe(cubeta);
+            while (bajo < alto) {
+                long medio = (bajo + alto) >>> 1;
+                if (eventos.apply(medio).getMarcaTiempo() < marcaTiempo) {
+                    bajo = medio + 1;
+                } else {
+                    alto = medio;
+                }
+            }
+            return bajo;
+        }
+
+        /**
+         * Eventos entre dos posiciones, del tipo indicado (o de todos si es negativo)
+         */
+        private long contar(long primera, long ultima, int tipo) {
+            if (tipo < 0 || primera >= ultima) {
+                return Math.max(0, ultima - primera);
+            }
+            long total = 0;
+            for (int cubeta = Math.max(0, cubetaDePosicion(primera));
+                 cubeta < numero && primeras[cubeta] < ultima;
+                 cubeta++) {
+                int enCubeta = cuenta(cubeta, tipo);
+                if (enCubeta == 0) {
+                    continue;
+                }
+                long desdePosicion = Math.max(primera, primeras[cubeta]);
+                long hastaPosicion = Math.min(ultima, finDe(cubeta));
+                boolean completa = desdePosicion == primeras[cubeta] && hastaPosicion == finDe(cubeta);
+                if (completa && cubeta + 1 < numero) {
+                    total += enCubeta;
+                } else {
+                    for (long posicion = desdePosicion; posicion < hastaPosicion; posicion++) {
+                        if (eventos.apply(posicion).getTipoEvento().ordinal() == tipo) {
+                            total++;
+                        }
+                    }
+                }
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package repository.historial;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Política de retención del historial en memoria: qué eventos se mantienen en el nivel caliente
+ * (heap) y cuáles pasan al almacén frío en disco. Un evento pasa al nivel frío en cuanto incumple
+ * cualquiera de los límites configurados; sin límites, todo el historial queda en memoria.
+ */
+public final class PoliticaRetencion {
+
+    /**
+     * Política sin límites: todo el historial en memoria
+     */
+    public static final PoliticaRetencion SIN_LIMITE = new BuilderPolitica().build();
+
+    private final Optional<Integer> maximoEventos;
+    private final Optional<Duration> edadMaxima;
+    private final Optional<Integer> profundidadArticulo;
+    private final Optional<Path> directorio;
+
+    private PoliticaRetencion(BuilderPolitica builder) {
+        this.maximoEventos = builder.maximoEventos;
+        this.edadMaxima = builder.edadMaxima;
+        this.profundidadArticulo = builder.profundidadArticulo;
+        this.directorio = builder.directorio;
+    }
+
+    /**
+     * Obtiene el número máximo de eventos en memoria
+     * @return Optional con el máximo o vacío si no hay límite
+     */
+    public Optional<Integer> getMaximoEventos() {
+        return maximoEventos;
+    }
+
+    /**
+     * Obtiene la edad máxima de los eventos en memoria
+     * @return Optional con la edad máxima o vacío si no hay límite
+     */
+    public Optional<Duration> getEdadMaxima() {
+        return edadMaxima;
+    }
+
+    /**
+     * Obtiene el número máximo de eventos en memoria de cada artículo (los más recientes)
+     * @return Optional con el máximo o vacío si no hay límite
+     */
+    public Optional<Integer> getProfundidadArticulo() {
+        return profundidadArticulo;
+    }
+
+    /**
+     * Obtiene el directorio del almacén frío
+     * @return Optional con el directorio o vacío para usar uno temporal
+     */
+    public Optional<Path> getDirectorio() {
+        return directorio;
+    }
+
+    /**
+     * Indica si la política limita el historial en memoria
+     * @return true si hay algún límite configurado
+     */
+    public boolean esLimitada() {
+        return maximoEventos.isPresent() || edadMaxima.isPresent() || profundidadArticulo.isPresent();
+    }
+
+    /**
+     * Crea una copia de la política con otro directorio para el almacén frío
+     * @param directorio el directorio del almacén frío
+     * @return la nueva política
+     */
+    public PoliticaRetencion conDirectorio(Path directorio) {
+        return new BuilderPolitica(this).conDirectorio(directorio).build();
+    }
+
+    @Override
+    public String toString() {
+        return "PoliticaRetencion{" +
+                "maximoEventos=" + maximoEventos +
+                ", edadMaxima=" + edadMaxima +
+                ", profundidadArticulo=" + profundidadArticulo +
+                ", directorio=" + directorio +
+                '}';
+    }
+
+    /**
+     * BuilderPolitica para crear instancias de PoliticaRetencion
+     */
+    public static class BuilderPolitica {
+        private Optional<Integer> maximoEventos = Optional.empty();
+        private Optional<Duration> edadMaxima = Optional.empty();
+        private Optional<Integer> profundidadArticulo = Optional.empty();
+        private Optional<Path> directorio = Optional.empty();
+
+        public BuilderPolitica() {
+        }
+
+        /**
+         * Crea un builder con los valores de una política existente
+         * @param base la política de partida
+         */
+        public BuilderPolitica(PoliticaRetencion base) {
+            this.maximoEventos = base.maximoEventos;
+            this.edadMaxima = base.edadMaxima;
+            this.profundidadArticulo = base.profundidadArticulo;
+            this.directorio = base.directorio;
+        }
+
+        /**
+         * Limita el número de eventos en memoria; los más antiguos pasan al almacén frío
+         * @param maximoEventos el número máximo de eventos, positivo
+         * @return el builder para encadenamiento
+         */
+        public BuilderPolitica conMaximoEventos(int maximoEventos) {
+            this.maximoEventos = Optional.of(maximoEventos);
+            return this;
+        }
+
+        /**
+         * Limita la edad de los eventos en memoria; los más antiguos pasan al almacén frío
+         * @param edadMaxima la edad máxima, positiva
+         * @return el builder para encadenamiento
+         */
+        public BuilderPolitica conEdadMaxima(Duration edadMaxima) {
+            this.edadMaxima = Optional.ofNullable(edadMaxima);
+            return this;
+        }
+
+        /**
+         * Limita los eventos en memoria de cada artículo a los más recientes
+         * @param profundidadArticulo el número de eventos por artículo, positivo
+         * @return el builder para encadenamiento
+         */
+        public BuilderPolitica conProfundidadArticulo(int profundidadArticulo) {
+            this.profundidadArticulo = Optional.of(profundidadArticulo);
+            return this;
+        }
+
+        /**
+         * Establece el directorio del almacén frío
+         * @param directorio el directorio
+         * @return el builder para encadenamiento
+         */
+        public BuilderPolitica conDirectorio(Path directorio) {
+            this.directorio = Optional.ofNullable(directorio);
+            return this;
+        }
+
+        /**
+         * Construye y devuelve la política
+         * @return la política construida
+         * @throws IllegalArgumentException si algún límite no es positivo
+         */
+        public PoliticaRetencion build() {
+            if (maximoEventos.filter(maximo -> maximo <= 0).isPresent()
+                    || profundidadArticulo.filter(profundidad -> profundidad <= 0).isPresent()
+                    || edadMaxima.filter(edad -> edad.isNegative() || edad.isZero()).isPresent()) {
+                throw new IllegalArgumentException("Los límites de retención deben ser positivos");
+            }
+            return new PoliticaRetencion(this);
+        }
+    }
+}
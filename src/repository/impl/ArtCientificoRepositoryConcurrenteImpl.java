@@ -0,0 +1,722 @@
+package repository.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.PrimitiveIterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import common.types.EstrategiaEspera;
+import common.types.ModoHistorial;
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.ArtCientificoRepository;
+import repository.EventoHistorial;
+import repository.consulta.Consulta;
+import repository.consulta.FuenteConsulta;
+import repository.consulta.PaginaArticulos;
+import repository.consulta.PlanConsulta;
+import repository.consulta.PlanificadorConsulta;
+import repository.consulta.RecorridoPaginado;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.FlujoCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.historial.ConteoIntervalo;
+import repository.historial.HistorialEventos;
+import repository.historial.PoliticaRetencion;
+import repository.indice.DiccionarioTextos;
+import repository.indice.IndiceTextoCompleto;
+import repository.indice.IndicesArticulos;
+import repository.indice.TablaPorId;
+import repository.persistencia.ContenidoInstantanea;
+
+/**
+ * Implementación del repositorio en memoria segura para varios hilos escritores.
+ * Utiliza una tabla concurrente por ID para los artículos, un historial de solo anexado indexado por artículo
+ * y un conjunto de cerrojos por franjas (lock striping): cada artículo se asigna a una franja
+ * según su ID, de modo que la modificación de la tabla y el registro del evento correspondiente
+ * son atómicos por artículo sin serializar las escrituras sobre artículos distintos.
+ * <p>
+ * Permite además abrir una vista consistente del estado (para instantáneas) sin detener a los
+ * escritores: el corte se toma adquiriendo todas las franjas durante un instante y, mientras la
+ * vista está abierta, cada escritura guarda antes la versión previa del artículo que modifica.
+ */
+public class ArtCientificoRepositoryConcurrenteImpl implements ArtCientificoRepository {
+
+    // Número de franjas por núcleo disponible (se redondea a potencia de dos)
+    protected static final int FRANJAS_POR_NUCLEO = 4;
+
+    // Almacena los artículos científicos en memoria, en forma compacta, por ID y en orden de ID
+    private final TablaPorId<ArticuloCompacto> articulos = new TablaPorId<>();
+
+    // Autores y palabras clave de los artículos guardados, codificados una sola vez
+    private final DiccionarioTextos diccionario = new DiccionarioTextos();
+
+    // Historial de eventos para artículos (creación, actualización, eliminación)
+    private final HistorialEventos historialEventos;
+
+    // Bus que publica los eventos registrados a los suscriptores
+    private final BusEventos bus = new BusEventos();
+
+    // Cursores de captura de cambios sobre el historial
+    private final FlujoCambios cambios;
+
+    // Generador de IDs para los artículos
+    private final AtomicLong idGenerator = new AtomicLong(1);
+
+    // Índices secundarios por autor, año y palabra clave
+    private final IndicesArticulos indices = new IndicesArticulos();
+
+    // Acceso a índices y datos para el planificador de consultas
+    private final FuenteConsulta fuenteConsulta =
+        new FuenteConsulta(indices, this::buscarPorId, () -> articulos.valores().map(this::materializar),
+            articulos::tamanio);
+
+    // Cerrojos por franja que protegen las operaciones de cada artículo
+    private final ReentrantLock[] franjas;
+
+    // Versión de cada artículo modificado desde el corte de la vista consistente abierta
+    // (vacío si no existía en el corte); es null cuando no hay ninguna vista abierta
+    private volatile ConcurrentHashMap<Long, Optional<ArtCientificoDTO>> preimagenes;
+
+    /**
+     * Constructor que dimensiona las franjas según el número de núcleos disponibles
+     */
+    public ArtCientificoRepositoryConcurrenteImpl() {
+        this(Runtime.getRuntime().availableProcessors() * FRANJAS_POR_NUCLEO);
+    }
+
+    /**
+     * Constructor que permite indicar el número mínimo de franjas
+     * @param numeroFranjas número mínimo de franjas (se redondea a la siguiente potencia de dos)
+     */
+    public ArtCientificoRepositoryConcurrenteImpl(int numeroFranjas) {
+        this(numeroFranjas, ModoHistorial.DELTA);
+    }
+
+    /**
+     * Constructor que permite indicar el número mínimo de franjas y cómo guarda el historial
+     * los artículos de sus eventos
+     * @param numeroFranjas número mínimo de franjas (se redondea a la siguiente potencia de dos)
+     * @param modoHistorial artículo completo en cada evento, o solo los campos cambiados
+     */
+    public ArtCientificoRepositoryConcurrenteImpl(int numeroFranjas, ModoHistorial modoHistorial) {
+        this(numeroFranjas, modoHistorial, PoliticaRetencion.SIN_LIMITE);
+    }
+
+    /**
+     * Constructor que permite indicar además qué parte del historial se mantiene en memoria;
+     * el resto pasa al almacén frío en disco y se sigue consultando de forma transparente
+     * @param numeroFranjas número mínimo de franjas (se redondea a la siguiente potencia de dos)
+     * @param modoHistorial artículo completo en cada evento, o solo los campos cambiados
+     * @param politicaHistorial la política de retención del historial en memoria
+     */
+    public ArtCientificoRepositoryConcurrenteImpl(int numeroFranjas, ModoHistorial modoHistorial,
+            PoliticaRetencion politicaHistorial) {
+        this.historialEventos = new HistorialEventos(modoHistorial, HistorialEventos.INTERVALO_CONTROL,
+            politicaHistorial, id -> buscarPorId(id));
+        this.cambios = new FlujoCambios(historialEventos, bus);
+        int tamanio = Integer.highestOneBit(Math.max(1, numeroFranjas - 1)) << 1;
+        this.franjas = IntStream.range(0, tamanio)
+            .mapToObj(i -> new ReentrantLock())
+            .toArray(ReentrantLock[]::new);
+    }
+
+    /**
+     * Obtiene el cerrojo de la franja que corresponde a un ID
+     * @param id el ID del artículo
+     * @return el cerrojo de su franja
+     */
+    private ReentrantLock franjaDe(Long id) {
+        return franjas[indiceFranja(id)];
+    }
+
+    /**
+     * Obtiene la posición en el array de franjas de la franja que corresponde a un ID
+     */
+    private int indiceFranja(Long id) {
+        int hash = Long.hashCode(id);
+        hash ^= (hash >>> 16);
+        return hash & (franjas.length - 1);
+    }
+
+    /**
+     * Ejecuta una operación en exclusión mutua con el resto de operaciones del mismo artículo
+     * @param id el ID del artículo
+     * @param operacion la operación a ejecutar
+     * @return el resultado de la operación
+     */
+    private <T> T conFranja(Long id, Supplier<T> operacion) {
+        ReentrantLock cerrojo = franjaDe(id);
+        cerrojo.lock();
+        try {
+            return operacion.get();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta una operación con varias franjas adquiridas. Se adquieren en orden creciente, igual
+     * que en conTodasLasFranjas, de modo que dos lotes concurrentes no pueden bloquearse entre sí.
+     * @param indices las posiciones de las franjas
+     * @param operacion la operación a ejecutar
+     * @return el resultado de la operación
+     */
+    private <T> T conFranjas(BitSet indices, Supplier<T> operacion) {
+        indices.stream().forEach(i -> franjas[i].lock());
+        try {
+            return operacion.get();
+        } finally {
+            indices.stream().forEach(i -> franjas[i].unlock());
+        }
+    }
+
+    /**
+     * Ejecuta una operación con todas las franjas adquiridas, es decir, sin ninguna escritura en curso
+     */
+    private <T> T conTodasLasFranjas(Supplier<T> operacion) {
+        Arrays.stream(franjas).forEach(ReentrantLock::lock);
+        try {
+            return operacion.get();
+        } finally {
+            Arrays.stream(franjas).forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * Guarda la versión actual de un artículo antes de modificarlo si hay una vista abierta.
+     * Debe llamarse dentro de la franja del artículo.
+     */
+    private void guardarPreimagen(Long id) {
+        Optional.ofNullable(preimagenes)
+            .ifPresent(mapa -> mapa.computeIfAbsent(id, this::obtener));
+    }
+
+    /**
+     * Construye el DTO de un artículo guardado
+     */
+    private ArtCientificoDTO materializar(ArticuloCompacto articulo) {
+        return articulo.aDTO(diccionario);
+    }
+
+    /**
+     * Obtiene el DTO del artículo guardado con un ID
+     */
+    private Optional<ArtCientificoDTO> obtener(long id) {
+        return Optional.ofNullable(articulos.obtener(id)).map(this::materializar);
+    }
+
+    /**
+     * Punto de extensión invocado dentro de la franja del artículo después de cada escritura
+     * aplicada en memoria, al numerar su evento del historial. Las subclases lo usan, por ejemplo,
+     * para anotar la escritura en un registro persistente en el mismo orden que las secuencias.
+     * @param tipo el tipo de escritura realizada
+     * @param articulo el estado del artículo tras la escritura (o el eliminado, en ELIMINACION)
+     * @param marcaTiempo la marca de tiempo del evento registrado en el historial para esta escritura
+     */
+    protected void alEscribir(TipoEvento tipo, ArtCientificoDTO articulo, long marcaTiempo) {
+        // Sin efecto en el repositorio en memoria
+    }
+
+    /**
+     * Punto de extensión invocado dentro de la franja del artículo después de registrar
+     * un evento mediante registrarEvento
+     * @param articulo el artículo del evento
+     * @param tipoEvento el tipo de evento
+     * @param marcaTiempo la marca de tiempo asignada al evento
+     */
+    protected void alRegistrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento, long marcaTiempo) {
+        // Sin efecto en el repositorio en memoria
+    }
+
+    /**
+     * Marca de tiempo que se propone para los eventos nuevos. Las subclases pueden sustituirla,
+     * por ejemplo, para conservar la original al reconstruir el historial desde disco.
+     * @return los milisegundos desde la época
+     */
+    protected long marcaTiempoEvento() {
+        return System.currentTimeMillis();
+    }
+
+    /**
+     * Registra un evento en el historial, dentro de la franja del artículo
+     */
+    @Override
+    public void registrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
+        Long id = Optional.ofNullable(articulo).flatMap(ArtCientificoDTO::getId).orElse(0L);
+        conFranja(id, () -> historialEventos.agregar(marcaTiempoEvento(), fabricaEvento(
+            (secuencia, marcaTiempo) -> new EventoHistorialImpl(articulo, tipoEvento, secuencia, marcaTiempo),
+            evento -> alRegistrarEvento(articulo, tipoEvento, evento.getMarcaTiempo()))));
+    }
+
+    /**
+     * Añade un evento al historial; es el camino interno que usan las operaciones del repositorio.
+     * El punto de extensión se invoca con el evento ya numerado y antes de que otro evento
+     * reciba secuencia, así que lo que anote queda en el mismo orden que el historial.
+     * @param articulo el artículo del evento, en la forma compacta que comparte con el almacén
+     * @param tipoEvento el tipo de evento
+     * @param alAnotar el punto de extensión asociado a la escritura
+     * @return el evento añadido
+     */
+    private EventoHistorial anotarEvento(ArticuloCompacto articulo, TipoEvento tipoEvento,
+                                         Consumer<EventoHistorial> alAnotar) {
+        return historialEventos.agregar(marcaTiempoEvento(), fabricaEvento(articulo, tipoEvento, alAnotar));
+    }
+
+    /**
+     * Crea la fábrica de un evento que, ya numerado, invoca el punto de extensión y se publica
+     * en el bus con el cerrojo del historial tomado
+     */
+    private HistorialEventos.FabricaEvento fabricaEvento(ArticuloCompacto articulo, TipoEvento tipoEvento,
+                                                         Consumer<EventoHistorial> alAnotar) {
+        return fabricaEvento((secuencia, marcaTiempo) ->
+            new EventoCompacto(articulo, diccionario, tipoEvento, secuencia, marcaTiempo), alAnotar);
+    }
+
+    /**
+     * Envuelve la creación de un evento para que, ya numerado, invoque el punto de extensión y
+     * se publique en el bus
+     */
+    private HistorialEventos.FabricaEvento fabricaEvento(HistorialEventos.FabricaEvento creacion,
+                                                         Consumer<EventoHistorial> alAnotar) {
+        return (secuencia, marcaTiempo) -> {
+            EventoHistorial evento = creacion.crear(secuencia, marcaTiempo);
+            alAnotar.accept(evento);
+            bus.publicar(evento);
+            return evento;
+        };
+    }
+
+    /**
+     * Carga un artículo ya existente (por ejemplo, desde una instantánea) sin registrar eventos
+     * @param articulo el artículo con su ID asignado
+     */
+    protected void cargarArticulo(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> conFranja(id, () -> {
+            idGenerator.accumulateAndGet(id + 1, Math::max);
+            Optional.ofNullable(articulos.poner(id, ArticuloCompacto.desde(articulo, diccionario)))
+                .map(this::materializar)
+                .ifPresent(indices::desindexar);
+            indices.indexar(articulo);
+            return articulo;
+        }));
+    }
+
+    /**
+     * Añade al final del historial un evento ya existente (por ejemplo, desde una instantánea)
+     * @param evento el evento con su fecha original
+     */
+    protected void cargarEvento(EventoHistorial evento) {
+        historialEventos.cargar(evento, (secuencia, marcaTiempo) ->
+            new EventoHistorialImpl(evento.getArticulo(), evento.getTipoEvento(), secuencia, marcaTiempo));
+    }
+
+    /**
+     * Garantiza que el generador no entregue IDs inferiores al indicado
+     * @param siguienteId el siguiente ID mínimo
+     */
+    protected void ajustarSiguienteId(long siguienteId) {
+        idGenerator.accumulateAndGet(siguienteId, Math::max);
+    }
+
+    /**
+     * Abre una vista consistente del estado actual. El corte se toma con todas las franjas
+     * adquiridas, por lo que solo detiene a los escritores durante ese instante; después, la
+     * vista se puede recorrer mientras siguen las escrituras. Solo puede haber una vista abierta.
+     * @param enElCorte acción que se ejecuta en el instante del corte, sin escrituras en curso
+     * @return la vista, que debe cerrarse al terminar de recorrerla
+     * @throws IllegalStateException si ya hay una vista abierta
+     */
+    protected VistaConsistente abrirVistaConsistente(Runnable enElCorte) {
+        return conTodasLasFranjas(() -> {
+            if (preimagenes != null) {
+                throw new IllegalStateException("Ya hay una vista consistente abierta");
+            }
+            preimagenes = new ConcurrentHashMap<>();
+            enElCorte.run();
+            return new VistaConsistente(idGenerator.get(), historialEventos.tamanio());
+        });
+    }
+
+    /**
+     * Estado del repositorio en el instante de un corte, recorrible mientras continúan las
+     * escrituras. Los artículos modificados después del corte se entregan con su versión previa.
+     */
+    protected class VistaConsistente implements ContenidoInstantanea, AutoCloseable {
+        private final long siguienteId;
+        private final int numeroEventos;
+
+        private VistaConsistente(long siguienteId, int numeroEventos) {
+            this.siguienteId = siguienteId;
+            this.numeroEventos = numeroEventos;
+        }
+
+        @Override
+        public long getSiguienteId() {
+            return siguienteId;
+        }
+
+        @Override
+        public void recorrerArticulos(Consumer<ArtCientificoDTO> destino) {
+            // IDs ya entregados: un artículo visto en la tabla puede reaparecer luego como preimagen
+            BitSet visitados = new BitSet();
+            Set<Long> visitadosFueraDeRango = new HashSet<>();
+            LongConsumer visitar = id -> conFranja(id, () ->
+                Optional.of(id)
+                    .filter(clave -> marcarVisitado(clave, visitados, visitadosFueraDeRango))
+                    .flatMap(clave -> Optional.ofNullable(preimagenes.get(clave))
+                        .orElseGet(() -> obtener(clave))))
+                .ifPresent(destino);
+
+            articulos.recorrer((id, articulo) -> visitar.accept(id));
+            // Artículos eliminados después del corte que no se vieron en la tabla
+            preimagenes.keySet().forEach(visitar::accept);
+        }
+
+        /**
+         * Marca un ID como entregado
+         * @return true si no se había entregado antes
+         */
+        private boolean marcarVisitado(long id, BitSet visitados, Set<Long> visitadosFueraDeRango) {
+            if (id < 0 || id > Integer.MAX_VALUE) {
+                return visitadosFueraDeRango.add(id);
+            }
+            boolean nuevo = !visitados.get((int) id);
+            visitados.set((int) id);
+            return nuevo;
+        }
+
+        @Override
+        public void recorrerEventos(Consumer<EventoHistorial> destino) {
+            historialEventos.recorrer(numeroEventos, destino);
+        }
+
+        /**
+         * Cierra la vista; las escrituras dejan de guardar preimágenes
+         */
+        @Override
+        public void close() {
+            preimagenes = null;
+        }
+    }
+
+    /**
+     * Inserta un artículo que ya trae su ID (por ejemplo, al reconstruir el estado desde disco)
+     * y garantiza que el generador de IDs no vuelva a entregarlo.
+     * @param articulo el artículo con su ID asignado
+     * @return Optional con el artículo insertado o vacío si no tiene ID
+     */
+    protected Optional<ArtCientificoDTO> insertarConId(ArtCientificoDTO articulo) {
+        return articulo.getId().map(id -> conFranja(id, () -> {
+            idGenerator.accumulateAndGet(id + 1, Math::max);
+            ArticuloCompacto compacto = ArticuloCompacto.desde(articulo, diccionario);
+            guardarPreimagen(id);
+            Optional.ofNullable(articulos.poner(id, compacto))
+                .map(this::materializar)
+                .ifPresent(indices::desindexar);
+            indices.indexar(articulo);
+            anotarEvento(compacto, TipoEvento.CREACION,
+                evento -> alEscribir(TipoEvento.CREACION, articulo, evento.getMarcaTiempo()));
+            return articulo;
+        }));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> crearNuevo(ArtCientificoDTO articuloDTO) {
+        Long nuevoId = idGenerator.getAndIncrement();
+
+        ArtCientificoDTO nuevoArticulo = new ArtCientificoDTO.BuilderDTO(articuloDTO)
+            .conId(nuevoId)
+            .build();
+
+        ArticuloCompacto compacto = ArticuloCompacto.desde(nuevoArticulo, diccionario);
+        return conFranja(nuevoId, () -> {
+            guardarPreimagen(nuevoId);
+            articulos.poner(nuevoId, compacto);
+            indices.indexar(nuevoArticulo);
+            anotarEvento(compacto, TipoEvento.CREACION,
+                evento -> alEscribir(TipoEvento.CREACION, nuevoArticulo, evento.getMarcaTiempo()));
+            return Optional.of(nuevoArticulo);
+        });
+    }
+
+    /**
+     * Guarda el lote con las franjas de todos sus artículos adquiridas a la vez: los IDs nuevos
+     * se reservan antes en un solo incremento del generador para saber qué franjas tomar, y los
+     * eventos se registran juntos al final, antes de soltar las franjas
+     */
+    @Override
+    public List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> lote) {
+        long nuevos = lote.stream().filter(articulo -> articulo != null && articulo.getId().isEmpty()).count();
+        long siguienteId = idGenerator.getAndAdd(nuevos);
+
+        // Artículos nuevos con su ID ya asignado (null en las actualizaciones) y franjas del lote
+        ArtCientificoDTO[] creados = new ArtCientificoDTO[lote.size()];
+        BitSet franjasLote = new BitSet(franjas.length);
+        for (int i = 0; i < lote.size(); i++) {
+            ArtCientificoDTO articulo = lote.get(i);
+            if (articulo == null) {
+                continue;
+            }
+            if (articulo.getId().isEmpty()) {
+                creados[i] = new ArtCientificoDTO.BuilderDTO(articulo).conId(siguienteId++).build();
+            }
+            franjasLote.set(indiceFranja(Optional.ofNullable(creados[i]).orElse(articulo).getId().get()));
+        }
+
+        return conFranjas(franjasLote, () -> {
+            // Todo el lote se compacta antes de tocar la tabla, los índices o el historial
+            List<Optional<EscrituraLote>> escrituras =
+                EscrituraLote.preparar(lote, creados, articulos::obtener, this::materializar, diccionario);
+            List<HistorialEventos.FabricaEvento> fabricas = new ArrayList<>();
+            List<Optional<ArtCientificoDTO>> resultados = new ArrayList<>(lote.size());
+            for (Optional<EscrituraLote> escritura : escrituras) {
+                resultados.add(escritura.map(e -> aplicarEnLote(e, fabricas)));
+            }
+            historialEventos.agregarLote(marcaTiempoEvento(), fabricas);
+            return resultados;
+        });
+    }
+
+    /**
+     * Aplica una escritura ya preparada del lote y añade la fábrica de su evento. Debe llamarse
+     * dentro de la franja del artículo.
+     */
+    private ArtCientificoDTO aplicarEnLote(EscrituraLote escritura, List<HistorialEventos.FabricaEvento> fabricas) {
+        ArtCientificoDTO articulo = escritura.getArticulo();
+        ArticuloCompacto compacto = escritura.getCompacto();
+        guardarPreimagen(compacto.getId());
+        articulos.poner(compacto.getId(), compacto);
+        if (escritura.esCreacion()) {
+            indices.indexar(articulo);
+            fabricas.add(fabricaEvento(compacto, TipoEvento.CREACION,
+                evento -> alEscribir(TipoEvento.CREACION, articulo, evento.getMarcaTiempo())));
+        } else {
+            indices.reindexar(escritura.getPrevio(), articulo);
+            fabricas.add(fabricaEvento(escritura.getCompactoPrevio(), TipoEvento.ACTUALIZACION,
+                evento -> alEscribir(TipoEvento.ACTUALIZACION, articulo, evento.getMarcaTiempo())));
+        }
+        return articulo;
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodos() {
+        List<ArtCientificoDTO> todosLosArticulos = new ArrayList<>(articulos.tamanio());
+        articulos.recorrer((id, articulo) -> todosLosArticulos.add(materializar(articulo)));
+        return todosLosArticulos.isEmpty() ? Optional.empty() : Optional.of(todosLosArticulos);
+    }
+
+    @Override
+    public PaginaArticulos obtenerPagina(Optional<Long> despuesDeId, int tamanio) {
+        PrimitiveIterator.OfLong siguientes = articulos.idsDespuesDe(despuesDeId.orElse(-1L));
+        return PaginaArticulos.llenar(siguientes, this::obtener, tamanio);
+    }
+
+    @Override
+    public Stream<ArtCientificoDTO> recorrerTodos() {
+        return RecorridoPaginado.stream(this::obtenerPagina);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorId(Long id) {
+        return Optional.ofNullable(id).flatMap(this::obtener);
+    }
+
+    @Override
+    public boolean existe(Long id) {
+        return id != null && articulos.contiene(id);
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAutor(String autor) {
+        return Optional.ofNullable(autor)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAutor(a), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAnio(Integer anio) {
+        return Optional.ofNullable(anio)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAnio(a), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(String palabraClave) {
+        return Optional.ofNullable(palabraClave)
+            .flatMap(p -> IndicesArticulos.resolver(indices.idsPorPalabraClave(p), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarTexto(String consulta, int limite) {
+        return Optional.ofNullable(consulta)
+            .map(texto -> indices.getTexto().buscar(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarFrase(String frase, int limite) {
+        return Optional.ofNullable(frase)
+            .map(texto -> indices.getTexto().buscarFrase(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+
+    /**
+     * Convierte los resultados del índice de texto en artículos, manteniendo el orden de relevancia
+     */
+    private Optional<List<ArtCientificoDTO>> resolverPuntuaciones(List<IndiceTextoCompleto.PuntuacionTexto> puntuaciones) {
+        return Optional.of(puntuaciones.stream()
+                .map(IndiceTextoCompleto.PuntuacionTexto::getId)
+                .map(this::buscarPorId)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+            .filter(lista -> !lista.isEmpty());
+    }
+
+    @Override
+    public PlanConsulta planificar(Consulta consulta) {
+        return PlanificadorConsulta.planificar(consulta, fuenteConsulta);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> actualizar(ArtCientificoDTO articuloDTO) {
+        return articuloDTO.getId()
+            .flatMap(id -> conFranja(id, () ->
+                Optional.ofNullable(articulos.obtener(id))
+                    .map(compactoExistente -> {
+                        ArtCientificoDTO articuloExistente = materializar(compactoExistente);
+                        ArtCientificoDTO articuloActualizado = FusionArticulos.fusionar.apply(articuloExistente, articuloDTO);
+                        ArticuloCompacto compactoActualizado =
+                            ArticuloCompacto.desde(articuloActualizado, diccionario, compactoExistente);
+                        guardarPreimagen(id);
+                        articulos.poner(id, compactoActualizado);
+                        indices.reindexar(articuloExistente, articuloActualizado);
+                        anotarEvento(compactoExistente, TipoEvento.ACTUALIZACION,
+                            evento -> alEscribir(TipoEvento.ACTUALIZACION, articuloActualizado, evento.getMarcaTiempo()));
+                        return articuloActualizado;
+                    })));
+    }
+
+    @Override
+    public Optional<Boolean> eliminar(Long id) {
+        // Sin ID no hay franja que tomar ni artículo que eliminar
+        if (id == null) {
+            return Optional.of(false);
+        }
+        return conFranja(id, () -> {
+            guardarPreimagen(id);
+            return Optional.ofNullable(articulos.quitar(id))
+                .map(compacto -> {
+                    ArtCientificoDTO articulo = materializar(compacto);
+                    indices.desindexar(articulo);
+                    anotarEvento(compacto, TipoEvento.ELIMINACION,
+                        evento -> alEscribir(TipoEvento.ELIMINACION, articulo, evento.getMarcaTiempo()));
+                    return true;
+                })
+                .or(() -> Optional.of(false));
+        });
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> restaurar(ArtCientificoDTO articuloDTO) {
+        return articuloDTO.getId()
+            .flatMap(id -> conFranja(id, () -> {
+                ArticuloCompacto compacto = ArticuloCompacto.desde(articuloDTO, diccionario);
+                guardarPreimagen(id);
+                // Solo se inserta si no existe ya un artículo con ese ID
+                return Optional.of(articuloDTO)
+                    .filter(articulo -> articulos.ponerSiAusente(id, compacto) == null)
+                    .map(articulo -> {
+                        indices.indexar(articulo);
+                        anotarEvento(compacto, TipoEvento.RESTAURACION,
+                            evento -> alEscribir(TipoEvento.RESTAURACION, articulo, evento.getMarcaTiempo()));
+                        return articulo;
+                    });
+            }));
+    }
+
+    /**
+     * Cierra el bus de eventos, tras entregar los eventos ya publicados, y el nivel frío del
+     * historial, borrando sus segmentos de disco
+     */
+    protected void cerrarHistorial() {
+        bus.close();
+        historialEventos.close();
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialEventos() {
+        List<EventoHistorial> eventos = historialEventos.todos();
+        return eventos.isEmpty() ? Optional.empty() : Optional.of(eventos);
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialArticulo(Long id) {
+        return Optional.ofNullable(id)
+            .map(historialEventos::deArticulo)
+            .filter(eventos -> !eventos.isEmpty());
+    }
+
+    @Override
+    public Optional<EventoHistorial> buscarUltimaEliminacion(Long id) {
+        return Optional.ofNullable(id).flatMap(historialEventos::ultimaEliminacion);
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> buscarEventosEntre(long desde, long hasta, Optional<TipoEvento> tipoEvento) {
+        return Optional.of(historialEventos.getTemporal().entre(desde, hasta, tipoEvento))
+            .filter(eventos -> !eventos.isEmpty());
+    }
+
+    @Override
+    public void contarEventosPorIntervalo(long desde, long hasta, long anchoIntervalo, Optional<TipoEvento> tipoEvento,
+                                          Consumer<ConteoIntervalo> destino) {
+        historialEventos.getTemporal().contarPorIntervalo(desde, hasta, anchoIntervalo, tipoEvento, destino);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Long id, long secuencia) {
+        return Optional.ofNullable(id)
+            .flatMap(clave -> historialEventos.getEstados().articulo(clave, historialEventos.limitePorSecuencia(secuencia)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnInstante(Long id, long marcaTiempo) {
+        return Optional.ofNullable(id)
+            .flatMap(clave -> historialEventos.getEstados().articulo(clave, historialEventos.limitePorMarcaTiempo(marcaTiempo)));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(long secuencia) {
+        return Optional.of(historialEventos.getEstados().coleccion(historialEventos.limitePorSecuencia(secuencia)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnInstante(long marcaTiempo) {
+        return Optional.of(historialEventos.getEstados().coleccion(historialEventos.limitePorMarcaTiempo(marcaTiempo)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+
+    @Override
+    public BusEventos.Suscripcion suscribir(SuscriptorEventos suscriptor, EstrategiaEspera estrategia) {
+        return bus.suscribir(suscriptor, estrategia);
+    }
+
+    @Override
+    public CursorCambios abrirCambios(Optional<Long> desdeSecuencia) {
+        return cambios.abrir(desdeSecuencia);
+    }
+}
@@ -3,65 +3,111 @@ package repository.impl;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.PrimitiveIterator;
 import java.util.concurrent.atomic.AtomicLong;
-import java.time.LocalDateTime;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import common.types.EstrategiaEspera;
+import common.types.ModoHistorial;
+import common.types.TipoEvento;
 import dto.ArtCientificoDTO;
 import repository.ArtCientificoRepository;
 import repository.EventoHistorial;
-import common.types.TipoEvento;
+import repository.consulta.Consulta;
+import repository.consulta.FuenteConsulta;
+import repository.consulta.PaginaArticulos;
+import repository.consulta.PlanConsulta;
+import repository.consulta.PlanificadorConsulta;
+import repository.consulta.RecorridoPaginado;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.FlujoCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.historial.ConteoIntervalo;
+import repository.historial.HistorialEventos;
+import repository.historial.PoliticaRetencion;
+import repository.indice.DiccionarioTextos;
+import repository.indice.IndiceTextoCompleto;
+import repository.indice.IndicesArticulos;
+import repository.indice.TablaPorId;
 
 /**
  * Implementación del repositorio que maneja los artículos científicos en memoria
  */
 public class ArtCientificoRepositoryImpl implements ArtCientificoRepository {
     
-    // Almacena los artículos científicos en memoria
-    private final Map<Long, ArtCientificoDTO> articulos = new HashMap<>();
+    // Almacena los artículos científicos en memoria, en forma compacta, por ID y en orden de ID
+    private final TablaPorId<ArticuloCompacto> articulos = new TablaPorId<>();
+    
+    // Autores y palabras clave de los artículos guardados, codificados una sola vez
+    private final DiccionarioTextos diccionario = new DiccionarioTextos();
     
     // Historial de eventos para artículos (creación, actualización, eliminación)
-    private final List<EventoHistorialImpl> historialEventos = new ArrayList<>();
+    private final HistorialEventos historialEventos = new HistorialEventos(ModoHistorial.DELTA,
+        HistorialEventos.INTERVALO_CONTROL, PoliticaRetencion.SIN_LIMITE, id -> buscarPorId(id));
+    
+    // Bus que publica los eventos registrados a los suscriptores
+    private final BusEventos bus = new BusEventos();
+    
+    // Cursores de captura de cambios sobre el historial
+    private final FlujoCambios cambios = new FlujoCambios(historialEventos, bus);
     
     // Generador de IDs para los artículos
     private final AtomicLong idGenerator = new AtomicLong(1);
     
-    /**
-     * Implementación de EventoHistorial como clase interna
-     */
-    private class EventoHistorialImpl implements EventoHistorial {
-        private final ArtCientificoDTO articulo;
-        private final TipoEvento tipoEvento;
-        private final LocalDateTime fechaEvento;
-        
-        public EventoHistorialImpl(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
-            this.articulo = articulo;
-            this.tipoEvento = tipoEvento;
-            this.fechaEvento = LocalDateTime.now();
-        }
-        
-        @Override
-        public ArtCientificoDTO getArticulo() {
-            return articulo;
-        }
-        
-        @Override
-        public TipoEvento getTipoEvento() {
-            return tipoEvento;
-        }
-        
-        @Override
-        public LocalDateTime getFechaEvento() {
-            return fechaEvento;
-        }
-    }
+    // Índices secundarios por autor, año y palabra clave
+    private final IndicesArticulos indices = new IndicesArticulos();
+    
+    // Acceso a índices y datos para el planificador de consultas
+    private final FuenteConsulta fuenteConsulta =
+        new FuenteConsulta(indices, this::buscarPorId, () -> articulos.valores().map(this::materializar),
+            articulos::tamanio);
     
     /**
      * Registra un evento en el historial
      */
     @Override
     public void registrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
-        historialEventos.add(new EventoHistorialImpl(articulo, tipoEvento));
+        historialEventos.agregar(System.currentTimeMillis(), fabricaEvento(articulo, tipoEvento));
+    }
+    
+    /**
+     * Crea la fábrica de un evento que se publica en el bus con el cerrojo del historial tomado,
+     * en el mismo orden que las secuencias
+     */
+    private HistorialEventos.FabricaEvento fabricaEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
+        return (secuencia, marcaTiempo) -> {
+            EventoHistorial evento = new EventoHistorialImpl(articulo, tipoEvento, secuencia, marcaTiempo);
+            bus.publicar(evento);
+            return evento;
+        };
+    }
+    
+    /**
+     * Crea la fábrica del evento de un artículo guardado, que comparte su forma compacta con el almacén
+     */
+    private HistorialEventos.FabricaEvento fabricaEvento(ArticuloCompacto articulo, TipoEvento tipoEvento) {
+        return (secuencia, marcaTiempo) -> {
+            EventoHistorial evento = new EventoCompacto(articulo, diccionario, tipoEvento, secuencia, marcaTiempo);
+            bus.publicar(evento);
+            return evento;
+        };
+    }
+    
+    /**
+     * Construye el DTO de un artículo guardado
+     */
+    private ArtCientificoDTO materializar(ArticuloCompacto articulo) {
+        return articulo.aDTO(diccionario);
+    }
+    
+    /**
+     * Obtiene el DTO del artículo guardado con un ID
+     */
+    private Optional<ArtCientificoDTO> obtener(long id) {
+        return Optional.ofNullable(articulos.obtener(id)).map(this::materializar);
     }
     
     /**
@@ -75,62 +121,152 @@ public class ArtCientificoRepositoryImpl implements ArtCientificoRepository {
         Long nuevoId = idGenerator.getAndIncrement();
         
         // Crear artículo con el nuevo ID
-        ArtCientificoDTO nuevoArticulo = new ArtCientificoDTO.BuilderDTO()
+        ArtCientificoDTO nuevoArticulo = new ArtCientificoDTO.BuilderDTO(articuloDTO)
             .conId(nuevoId)
-            .conNombre(articuloDTO.getNombre().orElse(null))
-            .conAutor(articuloDTO.getAutor().orElse(null))
-            .conAnio(articuloDTO.getAnio().orElse(null))
-            .conPalabrasClaves(articuloDTO.getPalabrasClaves().orElse(null))
-            .conResumen(articuloDTO.getResumen().orElse(null))
             .build();
         
         // Guardar en el repositorio
-        articulos.put(nuevoId, nuevoArticulo);
+        ArticuloCompacto compacto = ArticuloCompacto.desde(nuevoArticulo, diccionario);
+        articulos.poner(nuevoId, compacto);
+        indices.indexar(nuevoArticulo);
         
         // Registrar evento de creación
-        registrarEvento(nuevoArticulo, TipoEvento.CREACION);
+        historialEventos.agregar(System.currentTimeMillis(), fabricaEvento(compacto, TipoEvento.CREACION));
         
         return Optional.of(nuevoArticulo);
     }
     
-  
+    @Override
+    public List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> lote) {
+        // Bloque contiguo de IDs para los artículos nuevos del lote
+        long nuevos = lote.stream().filter(articulo -> articulo != null && articulo.getId().isEmpty()).count();
+        long siguienteId = idGenerator.getAndAdd(nuevos);
+        ArtCientificoDTO[] creados = new ArtCientificoDTO[lote.size()];
+        for (int i = 0; i < lote.size(); i++) {
+            ArtCientificoDTO articulo = lote.get(i);
+            if (articulo != null && articulo.getId().isEmpty()) {
+                creados[i] = new ArtCientificoDTO.BuilderDTO(articulo).conId(siguienteId++).build();
+            }
+        }
+        
+        // Todo el lote se compacta antes de tocar la tabla, los índices o el historial
+        List<Optional<EscrituraLote>> escrituras =
+            EscrituraLote.preparar(lote, creados, articulos::obtener, this::materializar, diccionario);
+        
+        List<HistorialEventos.FabricaEvento> fabricas = new ArrayList<>();
+        List<Optional<ArtCientificoDTO>> resultados = escrituras.stream()
+            .map(escritura -> escritura.map(e -> {
+                articulos.poner(e.getCompacto().getId(), e.getCompacto());
+                if (e.esCreacion()) {
+                    indices.indexar(e.getArticulo());
+                    fabricas.add(fabricaEvento(e.getCompacto(), TipoEvento.CREACION));
+                } else {
+                    indices.reindexar(e.getPrevio(), e.getArticulo());
+                    fabricas.add(fabricaEvento(e.getCompactoPrevio(), TipoEvento.ACTUALIZACION));
+                }
+                return e.getArticulo();
+            }))
+            .collect(Collectors.toList());
+        
+        // Los eventos del lote se registran juntos
+        historialEventos.agregarLote(System.currentTimeMillis(), fabricas);
+        return resultados;
+    }
     
     @Override
     public Optional<List<ArtCientificoDTO>> obtenerTodos() {
-        List<ArtCientificoDTO> todosLosArticulos = new ArrayList<>(articulos.values());
+        List<ArtCientificoDTO> todosLosArticulos = new ArrayList<>(articulos.tamanio());
+        articulos.recorrer((id, articulo) -> todosLosArticulos.add(materializar(articulo)));
         return todosLosArticulos.isEmpty() ? Optional.empty() : Optional.of(todosLosArticulos);
     }
     
+    @Override
+    public PaginaArticulos obtenerPagina(Optional<Long> despuesDeId, int tamanio) {
+        PrimitiveIterator.OfLong siguientes = articulos.idsDespuesDe(despuesDeId.orElse(-1L));
+        return PaginaArticulos.llenar(siguientes, this::obtener, tamanio);
+    }
+    
+    @Override
+    public Stream<ArtCientificoDTO> recorrerTodos() {
+        return RecorridoPaginado.stream(this::obtenerPagina);
+    }
+    
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorId(Long id) {
+        return Optional.ofNullable(id).flatMap(this::obtener);
+    }
+    
+    @Override
+    public boolean existe(Long id) {
+        return id != null && articulos.contiene(id);
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAutor(String autor) {
+        return Optional.ofNullable(autor)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAutor(a), this::buscarPorId));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAnio(Integer anio) {
+        return Optional.ofNullable(anio)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAnio(a), this::buscarPorId));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(String palabraClave) {
+        return Optional.ofNullable(palabraClave)
+            .flatMap(p -> IndicesArticulos.resolver(indices.idsPorPalabraClave(p), this::buscarPorId));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarTexto(String consulta, int limite) {
+        return Optional.ofNullable(consulta)
+            .map(texto -> indices.getTexto().buscar(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarFrase(String frase, int limite) {
+        return Optional.ofNullable(frase)
+            .map(texto -> indices.getTexto().buscarFrase(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+    
+    /**
+     * Convierte los resultados del índice de texto en artículos, manteniendo el orden de relevancia
+     */
+    private Optional<List<ArtCientificoDTO>> resolverPuntuaciones(List<IndiceTextoCompleto.PuntuacionTexto> puntuaciones) {
+        return Optional.of(puntuaciones.stream()
+                .map(IndiceTextoCompleto.PuntuacionTexto::getId)
+                .map(this::buscarPorId)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+            .filter(lista -> !lista.isEmpty());
+    }
+    
+    @Override
+    public PlanConsulta planificar(Consulta consulta) {
+        return PlanificadorConsulta.planificar(consulta, fuenteConsulta);
+    }
+    
     @Override
     public Optional<ArtCientificoDTO> actualizar(ArtCientificoDTO articuloDTO) {
         return articuloDTO.getId()
             .flatMap(id -> {
-                // Definimos la función de fusión localmente
-                java.util.function.BiFunction<ArtCientificoDTO, ArtCientificoDTO, ArtCientificoDTO> fusionarArticulos = 
-                    (base, actualizaciones) -> {
-                        return new ArtCientificoDTO.BuilderDTO()
-                            .conId(base.getId().orElse(null))
-                            .conNombre(actualizaciones.getNombre().isPresent() ? 
-                                      actualizaciones.getNombre().get() : base.getNombre().orElse(null))
-                            .conAutor(actualizaciones.getAutor().isPresent() ? 
-                                     actualizaciones.getAutor().get() : base.getAutor().orElse(null))
-                            .conAnio(actualizaciones.getAnio().isPresent() ? 
-                                    actualizaciones.getAnio().get() : base.getAnio().orElse(null))
-                            .conPalabrasClaves(actualizaciones.getPalabrasClaves().isPresent() ? 
-                                              actualizaciones.getPalabrasClaves().get() : base.getPalabrasClaves().orElse(null))
-                            .conResumen(actualizaciones.getResumen().isPresent() ? 
-                                       actualizaciones.getResumen().get() : base.getResumen().orElse(null))
-                            .build();
-                    };
-                
-                return Optional.ofNullable(articulos.get(id))
-                    .map(articuloExistente -> {
+                return Optional.ofNullable(articulos.obtener(id))
+                    .map(compactoExistente -> {
                         // Combinar el artículo existente con las actualizaciones
-                        ArtCientificoDTO articuloActualizado = fusionarArticulos.apply(articuloExistente, articuloDTO);
+                        ArtCientificoDTO articuloExistente = materializar(compactoExistente);
+                        ArtCientificoDTO articuloActualizado = FusionArticulos.fusionar.apply(articuloExistente, articuloDTO);
+                        ArticuloCompacto compactoActualizado =
+                            ArticuloCompacto.desde(articuloActualizado, diccionario, compactoExistente);
                         
                         // Registrar evento y actualizar
-                        registrarEvento(articuloExistente, TipoEvento.ACTUALIZACION);
-                        articulos.put(id, articuloActualizado);
+                        historialEventos.agregar(System.currentTimeMillis(),
+                            fabricaEvento(compactoExistente, TipoEvento.ACTUALIZACION));
+                        articulos.poner(id, compactoActualizado);
+                        indices.reindexar(articuloExistente, articuloActualizado);
                         
                         return articuloActualizado;
                     });
@@ -139,12 +275,13 @@ public class ArtCientificoRepositoryImpl implements ArtCientificoRepository {
     
     @Override
     public Optional<Boolean> eliminar(Long id) {
-        ArtCientificoDTO articuloEliminado = articulos.remove(id);
+        ArticuloCompacto articuloEliminado = id == null ? null : articulos.quitar(id);
         
         return Optional.ofNullable(articuloEliminado)
             .map(articulo -> {
-                // Registrar evento de eliminación
-                registrarEvento(articulo, TipoEvento.ELIMINACION);
+                // Quitar de los índices y registrar evento de eliminación
+                indices.desindexar(materializar(articulo));
+                historialEventos.agregar(System.currentTimeMillis(), fabricaEvento(articulo, TipoEvento.ELIMINACION));
                 return true;
             })
             .or(() -> Optional.of(false));
@@ -155,12 +292,15 @@ public class ArtCientificoRepositoryImpl implements ArtCientificoRepository {
         return articuloDTO.getId()
             .map(id -> {
                 // Comprobar si ya existe (por si acaso, aunque el servicio ya lo hace)
-                if (articulos.containsKey(id)) {
+                if (articulos.contiene(id)) {
                     return Optional.<ArtCientificoDTO>empty(); // Ya existe, no se puede restaurar sobre sí mismo
                 }
                 // Insertar directamente con el ID proporcionado
-                articulos.put(id, articuloDTO);
-                // No registramos evento aquí, el servicio lo hará después
+                ArticuloCompacto compacto = ArticuloCompacto.desde(articuloDTO, diccionario);
+                articulos.poner(id, compacto);
+                indices.indexar(articuloDTO);
+                // Registrar evento de restauración
+                historialEventos.agregar(System.currentTimeMillis(), fabricaEvento(compacto, TipoEvento.RESTAURACION));
                 return Optional.of(articuloDTO);
             })
             .orElse(Optional.empty()); // Si el DTO no tiene ID, no podemos restaurar
@@ -168,7 +308,65 @@ public class ArtCientificoRepositoryImpl implements ArtCientificoRepository {
     
     @Override
     public Optional<List<EventoHistorial>> obtenerHistorialEventos() {
-        List<EventoHistorial> eventos = new ArrayList<>(historialEventos);
+        List<EventoHistorial> eventos = historialEventos.todos();
         return eventos.isEmpty() ? Optional.empty() : Optional.of(eventos);
     }
-} 
\ No newline at end of file
+    
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialArticulo(Long id) {
+        return Optional.ofNullable(id)
+            .map(historialEventos::deArticulo)
+            .filter(eventos -> !eventos.isEmpty());
+    }
+    
+    @Override
+    public Optional<EventoHistorial> buscarUltimaEliminacion(Long id) {
+        return Optional.ofNullable(id).flatMap(historialEventos::ultimaEliminacion);
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> buscarEventosEntre(long desde, long hasta, Optional<TipoEvento> tipoEvento) {
+        return Optional.of(historialEventos.getTemporal().entre(desde, hasta, tipoEvento))
+            .filter(eventos -> !eventos.isEmpty());
+    }
+
+    @Override
+    public void contarEventosPorIntervalo(long desde, long hasta, long anchoIntervalo, Optional<TipoEvento> tipoEvento,
+                                          Consumer<ConteoIntervalo> destino) {
+        historialEventos.getTemporal().contarPorIntervalo(desde, hasta, anchoIntervalo, tipoEvento, destino);
+    }
+    
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Long id, long secuencia) {
+        return Optional.ofNullable(id)
+            .flatMap(clave -> historialEventos.getEstados().articulo(clave, historialEventos.limitePorSecuencia(secuencia)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnInstante(Long id, long marcaTiempo) {
+        return Optional.ofNullable(id)
+            .flatMap(clave -> historialEventos.getEstados().articulo(clave, historialEventos.limitePorMarcaTiempo(marcaTiempo)));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(long secuencia) {
+        return Optional.of(historialEventos.getEstados().coleccion(historialEventos.limitePorSecuencia(secuencia)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnInstante(long marcaTiempo) {
+        return Optional.of(historialEventos.getEstados().coleccion(historialEventos.limitePorMarcaTiempo(marcaTiempo)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+    
+    @Override
+    public BusEventos.Suscripcion suscribir(SuscriptorEventos suscriptor, EstrategiaEspera estrategia) {
+        return bus.suscribir(suscriptor, estrategia);
+    }
+    
+    @Override
+    public CursorCambios abrirCambios(Optional<Long> desdeSecuencia) {
+        return cambios.abrir(desdeSecuencia);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,483 @@
+package repository.impl;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import dto.ArtCientificoDTO;
+import repository.ArtCientificoRepository;
+import repository.EventoHistorial;
+import repository.almacen.AlmacenMapeado;
+import repository.almacen.ArticuloMapeado;
+import repository.almacen.EstadisticasAlmacen;
+import repository.consulta.Consulta;
+import repository.consulta.FuenteConsulta;
+import repository.consulta.PaginaArticulos;
+import repository.consulta.PlanConsulta;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.FlujoCambios;
+import repository.eventos.FuenteCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.consulta.PlanificadorConsulta;
+import repository.consulta.RecorridoPaginado;
+import repository.historial.ConteoIntervalo;
+import repository.historial.EstadosPasados;
+import repository.historial.IndiceHistorial;
+import repository.historial.IndiceTemporal;
+import repository.indice.IndiceTextoCompleto;
+import repository.indice.IndicesArticulos;
+import common.types.EstrategiaEspera;
+import common.types.TipoEvento;
+
+/**
+ * Repositorio con los artículos y el historial guardados en segmentos mapeados en memoria
+ * (ver AlmacenMapeado), para colecciones mayores que el heap.
+ * <p>
+ * En el heap solo quedan las tablas de posiciones del almacén y los índices secundarios;
+ * los artículos se decodifican del buffer mapeado al leerlos. Las escrituras se serializan
+ * con un cerrojo para que el artículo, sus índices y su evento cambien juntos, y una tarea en
+ * segundo plano compacta los segmentos con mucho espacio obsoleto.
+ */
+public class ArtCientificoRepositoryMapeadoImpl implements ArtCientificoRepository, AutoCloseable {
+
+    // Proporción de bytes vivos por debajo de la cual se compacta un segmento
+    public static final double PROPORCION_COMPACTACION = 0.5;
+
+    // Intervalo entre compactaciones en segundo plano
+    private static final long SEGUNDOS_ENTRE_COMPACTACIONES = 30;
+
+    private final AlmacenMapeado almacen;
+
+    // Índices secundarios por autor, año, palabra clave y texto
+    private final IndicesArticulos indices = new IndicesArticulos();
+
+    // Cadena de eventos y última eliminación de cada artículo, por número de secuencia
+    private final IndiceHistorial historial = new IndiceHistorial();
+
+    // Cubetas de tiempo del historial, por número de secuencia
+    private final IndiceTemporal temporal;
+
+    // Estado de los artículos en puntos pasados del historial, por número de secuencia
+    private final EstadosPasados estados;
+
+    // Acceso a índices y datos para el planificador de consultas
+    private final FuenteConsulta fuenteConsulta;
+
+    // Generador de IDs para los artículos
+    private final AtomicLong idGenerator;
+
+    // Serializa las escrituras para mantener el almacén, los índices y el historial coherentes
+    private final ReentrantLock cerrojoEscritura = new ReentrantLock();
+
+    // Bus que publica los eventos registrados a los suscriptores
+    private final BusEventos bus = new BusEventos();
+
+    // Cursores de captura de cambios sobre el historial; las posiciones son las secuencias
+    private final FlujoCambios cambios = new FlujoCambios(new FuenteCambios() {
+        @Override
+        public long posicionDeSecuencia(long secuencia) {
+            return Math.max(1, secuencia);
+        }
+
+        @Override
+        public long finPublicado() {
+            return almacen.getUltimaSecuencia() + 1;
+        }
+
+        @Override
+        public EventoHistorial obtener(long posicion) {
+            return almacen.leerEvento(posicion).orElseThrow();
+        }
+    }, bus);
+
+    private final ScheduledExecutorService compactador;
+
+    // Error de la última compactación en segundo plano, si falló (vacío si fue bien)
+    private volatile Optional<RuntimeException> errorCompactacion = Optional.empty();
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio con segmentos del tamaño por defecto
+     * @param directorio el directorio de los segmentos
+     */
+    public ArtCientificoRepositoryMapeadoImpl(Path directorio) {
+        this(directorio, AlmacenMapeado.TAMANIO_SEGMENTO, false);
+    }
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio
+     * @param directorio el directorio de los segmentos
+     * @param tamanioSegmento la capacidad de cada segmento en bytes
+     * @param sincronizar true para forzar a disco cada registro
+     */
+    public ArtCientificoRepositoryMapeadoImpl(Path directorio, int tamanioSegmento, boolean sincronizar) {
+        this.almacen = new AlmacenMapeado(directorio, tamanioSegmento, sincronizar);
+        this.idGenerator = new AtomicLong(almacen.getSiguienteId());
+        almacen.articulos().map(ArticuloMapeado::aDTO).forEach(indices::indexar);
+        this.temporal = new IndiceTemporal(secuencia -> almacen.leerEvento(secuencia).orElseThrow());
+        almacen.indexarEventos(historial, temporal);
+        this.estados = new EstadosPasados(historial, secuencia -> almacen.leerEvento(secuencia).orElseThrow(),
+            id -> buscarPorId(id));
+        this.fuenteConsulta = new FuenteConsulta(indices, this::buscarPorId,
+            () -> almacen.articulos().map(ArticuloMapeado::aDTO),
+            () -> (int) almacen.numeroArticulos());
+
+        this.compactador = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactacion-" + directorio.getFileName());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        compactador.scheduleWithFixedDelay(this::compactarEnSegundoPlano,
+            SEGUNDOS_ENTRE_COMPACTACIONES, SEGUNDOS_ENTRE_COMPACTACIONES, TimeUnit.SECONDS);
+    }
+
+    private void compactarEnSegundoPlano() {
+        try {
+            compactar();
+            errorCompactacion = Optional.empty();
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente ejecución; los segmentos sin compactar siguen siendo válidos
+            errorCompactacion = Optional.of(e);
+        }
+    }
+
+    /**
+     * Error con el que falló la última compactación en segundo plano. Se reintenta en la
+     * siguiente ejecución y se olvida cuando una sale bien.
+     * @return Optional con el error, o vacío si la última fue bien o aún no se ha ejecutado
+     */
+    public Optional<RuntimeException> getErrorCompactacion() {
+        return errorCompactacion;
+    }
+
+    /**
+     * Compacta ahora los segmentos con poco contenido vivo
+     * @return los bytes recuperados
+     */
+    public long compactar() {
+        return almacen.compactar(PROPORCION_COMPACTACION);
+    }
+
+    /**
+     * Obtiene las estadísticas de ocupación del almacén
+     * @return las estadísticas actuales
+     */
+    public EstadisticasAlmacen getEstadisticas() {
+        return almacen.getEstadisticas();
+    }
+
+    /**
+     * Lee un artículo sin decodificarlo, para consultar solo algunos campos
+     * @param id el ID del artículo
+     * @return Optional con la vista del artículo o vacío si no existe
+     */
+    public Optional<ArticuloMapeado> leerMapeado(Long id) {
+        return Optional.ofNullable(id).flatMap(almacen::leer);
+    }
+
+    /**
+     * Añade un evento al almacén y lo encadena en los índices del historial.
+     * Debe llamarse con el cerrojo de escritura adquirido.
+     */
+    private long anotarEvento(TipoEvento tipoEvento, ArtCientificoDTO articulo) {
+        return anotarEvento(tipoEvento, articulo, System.currentTimeMillis());
+    }
+
+    /**
+     * Añade un evento con una marca de tiempo dada, por ejemplo la común a un lote.
+     * Debe llamarse con el cerrojo de escritura adquirido.
+     */
+    private long anotarEvento(TipoEvento tipoEvento, ArtCientificoDTO articulo, long marcaTiempo) {
+        long secuencia = almacen.escribirEvento(tipoEvento, marcaTiempo, articulo);
+        articulo.getId().ifPresent(id -> historial.registrar(id, secuencia, tipoEvento));
+        temporal.registrar(secuencia, marcaTiempo, tipoEvento);
+        bus.publicar(new EventoHistorialImpl(articulo, tipoEvento, secuencia, marcaTiempo));
+        return secuencia;
+    }
+
+    private <T> T escribiendo(Supplier<T> operacion) {
+        cerrojoEscritura.lock();
+        try {
+            return operacion.get();
+        } finally {
+            cerrojoEscritura.unlock();
+        }
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> crearNuevo(ArtCientificoDTO articuloDTO) {
+        return escribiendo(() -> {
+            ArtCientificoDTO nuevoArticulo = new ArtCientificoDTO.BuilderDTO(articuloDTO)
+                .conId(idGenerator.getAndIncrement())
+                .build();
+            almacen.escribirArticulo(nuevoArticulo);
+            indices.indexar(nuevoArticulo);
+            anotarEvento(TipoEvento.CREACION, nuevoArticulo);
+            return Optional.of(nuevoArticulo);
+        });
+    }
+
+    /**
+     * Guarda el lote con el cerrojo de escritura adquirido una sola vez; los IDs nuevos se
+     * reservan en un solo incremento del generador y los eventos comparten la marca de tiempo
+     */
+    @Override
+    public List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> lote) {
+        long nuevos = lote.stream().filter(articulo -> articulo != null && articulo.getId().isEmpty()).count();
+        return escribiendo(() -> {
+            long primerId = idGenerator.getAndAdd(nuevos);
+            PrimitiveIterator.OfLong nuevosIds = LongStream.range(primerId, primerId + nuevos).iterator();
+            long marcaTiempo = System.currentTimeMillis();
+            return lote.stream()
+                .map(articuloDTO -> Optional.ofNullable(articuloDTO).flatMap(articulo -> articulo.getId()
+                    .map(id -> buscarPorId(id)
+                        .map(articuloExistente -> {
+                            ArtCientificoDTO articuloActualizado = FusionArticulos.fusionar.apply(articuloExistente, articulo);
+                            anotarEvento(TipoEvento.ACTUALIZACION, articuloExistente, marcaTiempo);
+                            almacen.escribirArticulo(articuloActualizado);
+                            indices.reindexar(articuloExistente, articuloActualizado);
+                            return articuloActualizado;
+                        }))
+                    .orElseGet(() -> {
+                        ArtCientificoDTO nuevoArticulo = new ArtCientificoDTO.BuilderDTO(articulo)
+                            .conId(nuevosIds.nextLong())
+                            .build();
+                        almacen.escribirArticulo(nuevoArticulo);
+                        indices.indexar(nuevoArticulo);
+                        anotarEvento(TipoEvento.CREACION, nuevoArticulo, marcaTiempo);
+                        return Optional.of(nuevoArticulo);
+                    })))
+                .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodos() {
+        List<ArtCientificoDTO> todosLosArticulos = almacen.articulos()
+            .map(ArticuloMapeado::aDTO)
+            .collect(Collectors.toList());
+        return todosLosArticulos.isEmpty() ? Optional.empty() : Optional.of(todosLosArticulos);
+    }
+
+    @Override
+    public PaginaArticulos obtenerPagina(Optional<Long> despuesDeId, int tamanio) {
+        // Se pide un ID más de los necesarios para saber si hay más páginas
+        long[] ids = almacen.idsDesde(despuesDeId.map(cursor -> cursor + 1).orElse(0L),
+            PaginaArticulos.tamanioValido(tamanio) + 1);
+        return PaginaArticulos.llenar(Arrays.stream(ids).iterator(), id -> buscarPorId(id), tamanio);
+    }
+
+    @Override
+    public Stream<ArtCientificoDTO> recorrerTodos() {
+        return RecorridoPaginado.stream(this::obtenerPagina);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorId(Long id) {
+        return leerMapeado(id).map(ArticuloMapeado::aDTO);
+    }
+
+    @Override
+    public boolean existe(Long id) {
+        return id != null && almacen.contiene(id);
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAutor(String autor) {
+        return Optional.ofNullable(autor)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAutor(a), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAnio(Integer anio) {
+        return Optional.ofNullable(anio)
+            .flatMap(a -> IndicesArticulos.resolver(indices.idsPorAnio(a), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(String palabraClave) {
+        return Optional.ofNullable(palabraClave)
+            .flatMap(p -> IndicesArticulos.resolver(indices.idsPorPalabraClave(p), this::buscarPorId));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarTexto(String consulta, int limite) {
+        return Optional.ofNullable(consulta)
+            .map(texto -> indices.getTexto().buscar(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarFrase(String frase, int limite) {
+        return Optional.ofNullable(frase)
+            .map(texto -> indices.getTexto().buscarFrase(texto, limite))
+            .flatMap(this::resolverPuntuaciones);
+    }
+
+    /**
+     * Convierte los resultados del índice de texto en artículos, manteniendo el orden de relevancia
+     */
+    private Optional<List<ArtCientificoDTO>> resolverPuntuaciones(List<IndiceTextoCompleto.PuntuacionTexto> puntuaciones) {
+        return Optional.of(puntuaciones.stream()
+                .map(IndiceTextoCompleto.PuntuacionTexto::getId)
+                .map(this::buscarPorId)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+            .filter(lista -> !lista.isEmpty());
+    }
+
+    @Override
+    public PlanConsulta planificar(Consulta consulta) {
+        return PlanificadorConsulta.planificar(consulta, fuenteConsulta);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> actualizar(ArtCientificoDTO articuloDTO) {
+        return articuloDTO.getId()
+            .flatMap(id -> escribiendo(() -> buscarPorId(id)
+                .map(articuloExistente -> {
+                    ArtCientificoDTO articuloActualizado = FusionArticulos.fusionar.apply(articuloExistente, articuloDTO);
+                    anotarEvento(TipoEvento.ACTUALIZACION, articuloExistente);
+                    almacen.escribirArticulo(articuloActualizado);
+                    indices.reindexar(articuloExistente, articuloActualizado);
+                    return articuloActualizado;
+                })));
+    }
+
+    @Override
+    public Optional<Boolean> eliminar(Long id) {
+        return escribiendo(() -> buscarPorId(id)
+            .map(articulo -> {
+                almacen.escribirLapida(id);
+                indices.desindexar(articulo);
+                anotarEvento(TipoEvento.ELIMINACION, articulo);
+                return true;
+            })
+            .or(() -> Optional.of(false)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> restaurar(ArtCientificoDTO articuloDTO) {
+        return articuloDTO.getId()
+            .flatMap(id -> escribiendo(() ->
+                // Solo se inserta si no existe ya un artículo con ese ID
+                Optional.of(articuloDTO)
+                    .filter(articulo -> !almacen.contiene(id))
+                    .map(articulo -> {
+                        almacen.escribirArticulo(articulo);
+                        indices.indexar(articulo);
+                        anotarEvento(TipoEvento.RESTAURACION, articulo);
+                        return articulo;
+                    })));
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialEventos() {
+        List<EventoHistorial> eventos = almacen.eventos();
+        return eventos.isEmpty() ? Optional.empty() : Optional.of(eventos);
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialArticulo(Long id) {
+        return Optional.ofNullable(id)
+            .map(historial::posiciones)
+            .map(secuencias -> Arrays.stream(secuencias)
+                .mapToObj(almacen::leerEvento)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+            .filter(eventos -> !eventos.isEmpty());
+    }
+
+    @Override
+    public Optional<EventoHistorial> buscarUltimaEliminacion(Long id) {
+        return Optional.ofNullable(id)
+            .map(historial::ultimaEliminacion)
+            .filter(OptionalLong::isPresent)
+            .flatMap(secuencia -> almacen.leerEvento(secuencia.getAsLong()));
+    }
+
+    @Override
+    public Optional<List<EventoHistorial>> buscarEventosEntre(long desde, long hasta, Optional<TipoEvento> tipoEvento) {
+        return Optional.of(temporal.entre(desde, hasta, tipoEvento))
+            .filter(eventos -> !eventos.isEmpty());
+    }
+
+    @Override
+    public void contarEventosPorIntervalo(long desde, long hasta, long anchoIntervalo, Optional<TipoEvento> tipoEvento,
+                                          Consumer<ConteoIntervalo> destino) {
+        temporal.contarPorIntervalo(desde, hasta, anchoIntervalo, tipoEvento, destino);
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Long id, long secuencia) {
+        // Las posiciones del historial mapeado son las propias secuencias
+        return Optional.ofNullable(id).flatMap(clave -> estados.articulo(clave, limitePorSecuencia(secuencia)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnInstante(Long id, long marcaTiempo) {
+        return Optional.ofNullable(id).flatMap(clave -> estados.articulo(clave, limitePorMarcaTiempo(marcaTiempo)));
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(long secuencia) {
+        return Optional.of(estados.coleccion(limitePorSecuencia(secuencia)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnInstante(long marcaTiempo) {
+        return Optional.of(estados.coleccion(limitePorMarcaTiempo(marcaTiempo)))
+            .filter(articulos -> !articulos.isEmpty());
+    }
+
+    @Override
+    public BusEventos.Suscripcion suscribir(SuscriptorEventos suscriptor, EstrategiaEspera estrategia) {
+        return bus.suscribir(suscriptor, estrategia);
+    }
+
+    @Override
+    public CursorCambios abrirCambios(Optional<Long> desdeSecuencia) {
+        return cambios.abrir(desdeSecuencia);
+    }
+
+    private static long limitePorSecuencia(long secuencia) {
+        return secuencia == Long.MAX_VALUE ? secuencia : secuencia + 1;
+    }
+
+    private long limitePorMarcaTiempo(long marcaTiempo) {
+        return marcaTiempo == Long.MAX_VALUE ? Long.MAX_VALUE : temporal.posicionDesde(marcaTiempo + 1);
+    }
+
+    @Override
+    public void registrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
+        escribiendo(() -> anotarEvento(tipoEvento, articulo));
+    }
+
+    /**
+     * Detiene la compactación en segundo plano y fuerza a disco los segmentos
+     */
+    @Override
+    public void close() {
+        bus.close();
+        compactador.shutdown();
+        try {
+            compactador.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        almacen.close();
+    }
+}
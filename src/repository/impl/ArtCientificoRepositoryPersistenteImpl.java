@@ -0,0 +1,426 @@
+package repository.impl;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import dto.ArtCientificoDTO;
+import repository.historial.PoliticaRetencion;
+import repository.persistencia.EstadisticasPersistencia;
+import repository.persistencia.Instantanea;
+import repository.persistencia.RegistroEscritura;
+import repository.persistencia.RegistroLog;
+import repository.persistencia.TipoRegistro;
+import common.types.ModoHistorial;
+import common.types.TipoEvento;
+
+/**
+ * Repositorio persistente: mantiene los datos en memoria como el repositorio concurrente
+ * y anota cada escritura en un log de escritura anticipada con CRC antes de confirmarla.
+ * <p>
+ * Las escrituras se anotan dentro de la franja del artículo (mismo orden que en memoria) y
+ * se espera a que sean durables fuera de ella, de modo que los escritores concurrentes
+ * comparten el fsync mediante commit en grupo.
+ * <p>
+ * El log se divide en segmentos. Periódicamente, en segundo plano, se toma una instantánea
+ * binaria del estado: el corte se hace a la vez que se cambia de segmento y la instantánea se
+ * escribe mientras continúan las escrituras; al terminar se borran los segmentos anteriores.
+ * Al arrancar se carga la última instantánea y solo se reproduce el log posterior a ella.
+ */
+public class ArtCientificoRepositoryPersistenteImpl extends ArtCientificoRepositoryConcurrenteImpl implements AutoCloseable {
+
+    // Registros del log acumulados desde la última instantánea que disparan una nueva
+    public static final long UMBRAL_INSTANTANEA = 100_000;
+
+    // Intervalo con el que se comprueba en segundo plano si hay que tomar una instantánea
+    private static final long SEGUNDOS_ENTRE_COMPROBACIONES = 10;
+
+    // Nombres de los archivos de datos: segmentos del log e instantáneas, numerados por segmento
+    private static final Pattern PATRON_SEGMENTO = Pattern.compile("articulos-(\\d+)\\.wal");
+    private static final Pattern PATRON_INSTANTANEA = Pattern.compile("instantanea-(\\d+)\\.snap");
+
+    private final Path directorio;
+    private final RegistroEscritura registro;
+    private final long umbralInstantanea;
+
+    // Tarea periódica de instantáneas (vacío si están desactivadas)
+    private final Optional<ScheduledExecutorService> planificador;
+
+    // Solo se toma una instantánea a la vez; protege también segmentoActual
+    private final ReentrantLock cerrojoInstantanea = new ReentrantLock();
+    private long segmentoActual;
+
+    // Número de registro anotado en el último corte, para saber cuántos hay desde entonces.
+    // Al arrancar es negativo: la cola reproducida también cuenta para la siguiente instantánea.
+    private volatile long anotadosEnCorte;
+
+    // Estadísticas de la recuperación al arrancar
+    private final long registrosReproducidos;
+    private final long milisRecuperacion;
+    private final long articulosInstantanea;
+    private final long milisInstantanea;
+
+    // Error de la última instantánea en segundo plano, si falló (vacío si fue bien)
+    private volatile Optional<RuntimeException> errorInstantanea = Optional.empty();
+
+    // Indica que se está reconstruyendo el estado y no hay que volver a anotar las escrituras
+    private boolean reproduciendo;
+
+    // Marca de tiempo original del registro que se está reproduciendo
+    private long marcaTiempoReproducida;
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio, con fsync en cada volcado
+     * @param directorio el directorio de datos
+     */
+    public ArtCientificoRepositoryPersistenteImpl(Path directorio) {
+        this(directorio, true);
+    }
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio
+     * @param directorio el directorio de datos
+     * @param sincronizar true para forzar fsync en cada volcado (false solo para pruebas de rendimiento)
+     */
+    public ArtCientificoRepositoryPersistenteImpl(Path directorio, boolean sincronizar) {
+        this(directorio, sincronizar, UMBRAL_INSTANTANEA);
+    }
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio
+     * @param directorio el directorio de datos
+     * @param sincronizar true para forzar fsync en cada volcado (false solo para pruebas de rendimiento)
+     * @param umbralInstantanea registros del log que disparan una instantánea en segundo plano
+     *                          (0 para tomarlas solo mediante crearInstantanea)
+     * @throws UncheckedIOException si el directorio, la instantánea o el log no se pueden usar
+     */
+    public ArtCientificoRepositoryPersistenteImpl(Path directorio, boolean sincronizar, long umbralInstantanea) {
+        this(directorio, sincronizar, umbralInstantanea, PoliticaRetencion.SIN_LIMITE);
+    }
+
+    /**
+     * Constructor que abre (o crea) el repositorio en un directorio, limitando el historial en memoria
+     * @param directorio el directorio de datos
+     * @param sincronizar true para forzar fsync en cada volcado (false solo para pruebas de rendimiento)
+     * @param umbralInstantanea registros del log que disparan una instantánea en segundo plano
+     *                          (0 para tomarlas solo mediante crearInstantanea)
+     * @param politicaHistorial la política de retención del historial en memoria; sin directorio
+     *                          propio, el nivel frío se guarda en el subdirectorio "frio"
+     * @throws UncheckedIOException si el directorio, la instantánea o el log no se pueden usar
+     */
+    public ArtCientificoRepositoryPersistenteImpl(Path directorio, boolean sincronizar, long umbralInstantanea,
+                                                  PoliticaRetencion politicaHistorial) {
+        super(Runtime.getRuntime().availableProcessors() * FRANJAS_POR_NUCLEO, ModoHistorial.DELTA,
+            politicaHistorial.getDirectorio().isPresent() ? politicaHistorial
+                : politicaHistorial.conDirectorio(directorio.resolve("frio")));
+        this.directorio = directorio;
+        this.umbralInstantanea = umbralInstantanea;
+        try {
+            Files.createDirectories(directorio);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio de datos " + directorio, e);
+        }
+
+        long inicio = System.nanoTime();
+        reproduciendo = true;
+        // Los artículos de la instantánea se indexan en paralelo una vez leídos; los eventos,
+        // en cambio, se cargan en el orden del historial
+        List<ArtCientificoDTO> articulosLeidos = new ArrayList<>();
+        Optional<Instantanea.Resumen> instantanea = numerosDeArchivo(PATRON_INSTANTANEA).stream()
+            .reduce((anterior, siguiente) -> siguiente)
+            .map(segmento -> Instantanea.cargar(rutaInstantanea(segmento), articulosLeidos::add, this::cargarEvento));
+        articulosLeidos.parallelStream().forEach(this::cargarArticulo);
+        long milisInstantanea = (System.nanoTime() - inicio) / 1_000_000;
+        instantanea.ifPresent(resumen -> ajustarSiguienteId(resumen.getSiguienteId()));
+        long primerSegmento = instantanea.map(Instantanea.Resumen::getSegmento).orElse(1L);
+
+        // Solo se reproducen los segmentos posteriores a la instantánea, en orden
+        long registros = 0;
+        long longitudValida = 0;
+        long ultimoSegmento = primerSegmento;
+        for (long segmento : numerosDeArchivo(PATRON_SEGMENTO)) {
+            if (segmento >= primerSegmento) {
+                RegistroEscritura.Reproduccion reproduccion =
+                    RegistroEscritura.reproducir(rutaSegmento(segmento), this::aplicar);
+                registros += reproduccion.getRegistros();
+                longitudValida = reproduccion.getLongitudValida();
+                ultimoSegmento = segmento;
+            }
+        }
+        reproduciendo = false;
+        this.milisRecuperacion = (System.nanoTime() - inicio) / 1_000_000;
+        this.registrosReproducidos = registros;
+        this.articulosInstantanea = instantanea.map(Instantanea.Resumen::getArticulos).orElse(0L);
+        this.milisInstantanea = milisInstantanea;
+        this.anotadosEnCorte = -registros;
+
+        this.segmentoActual = ultimoSegmento;
+        this.registro = RegistroEscritura.abrir(rutaSegmento(ultimoSegmento), longitudValida, sincronizar);
+
+        this.planificador = Optional.of(umbralInstantanea).filter(umbral -> umbral > 0).map(umbral -> {
+            ScheduledExecutorService ejecutor = Executors.newSingleThreadScheduledExecutor(tarea -> {
+                Thread hilo = new Thread(tarea, "instantaneas-" + directorio.getFileName());
+                hilo.setDaemon(true);
+                return hilo;
+            });
+            ejecutor.scheduleWithFixedDelay(this::comprobarInstantanea,
+                SEGUNDOS_ENTRE_COMPROBACIONES, SEGUNDOS_ENTRE_COMPROBACIONES, TimeUnit.SECONDS);
+            return ejecutor;
+        });
+    }
+
+    private Path rutaSegmento(long segmento) {
+        return directorio.resolve(String.format("articulos-%016d.wal", segmento));
+    }
+
+    private Path rutaInstantanea(long segmento) {
+        return directorio.resolve(String.format("instantanea-%016d.snap", segmento));
+    }
+
+    /**
+     * Números de los archivos del directorio de datos que siguen un patrón, en orden ascendente
+     */
+    private List<Long> numerosDeArchivo(Pattern patron) {
+        try (Stream<Path> archivos = Files.list(directorio)) {
+            return archivos
+                .map(ruta -> patron.matcher(ruta.getFileName().toString()))
+                .filter(Matcher::matches)
+                .map(coincidencia -> Long.parseLong(coincidencia.group(1)))
+                .sorted()
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo listar el directorio de datos " + directorio, e);
+        }
+    }
+
+    /**
+     * Aplica en memoria un registro leído del log
+     * @param registroLog el registro a aplicar
+     */
+    private void aplicar(RegistroLog registroLog) {
+        ArtCientificoDTO articulo = registroLog.getArticulo();
+        marcaTiempoReproducida = registroLog.getMarcaTiempo();
+        switch (registroLog.getTipo()) {
+            case CREACION -> insertarConId(articulo);
+            case ACTUALIZACION -> super.actualizar(articulo);
+            case ELIMINACION -> articulo.getId().ifPresent(super::eliminar);
+            case RESTAURACION -> super.restaurar(articulo);
+            case EVENTO -> registroLog.getTipoEvento()
+                .ifPresent(tipoEvento -> super.registrarEvento(articulo, tipoEvento));
+        }
+    }
+
+    /**
+     * Al reproducir el log los eventos conservan la marca de tiempo con la que se anotaron.
+     * La secuencia no se guarda: el log sigue el orden de las secuencias, así que al reproducirlo
+     * cada evento recibe de nuevo la misma.
+     */
+    @Override
+    protected long marcaTiempoEvento() {
+        return reproduciendo ? marcaTiempoReproducida : super.marcaTiempoEvento();
+    }
+
+    /**
+     * Anota cada escritura en el log, dentro de la franja del artículo
+     */
+    @Override
+    protected void alEscribir(TipoEvento tipo, ArtCientificoDTO articulo, long marcaTiempo) {
+        if (reproduciendo) {
+            return;
+        }
+        TipoRegistro tipoRegistro = switch (tipo) {
+            case CREACION -> TipoRegistro.CREACION;
+            case ACTUALIZACION -> TipoRegistro.ACTUALIZACION;
+            case ELIMINACION -> TipoRegistro.ELIMINACION;
+            case RESTAURACION -> TipoRegistro.RESTAURACION;
+        };
+        // Para una eliminación basta con el ID
+        ArtCientificoDTO contenido = tipo == TipoEvento.ELIMINACION
+            ? new ArtCientificoDTO.BuilderDTO().conId(articulo.getId().orElse(null)).build()
+            : articulo;
+        registro.anotar(new RegistroLog(tipoRegistro, contenido, Optional.empty(), marcaTiempo));
+    }
+
+    /**
+     * Anota los eventos registrados explícitamente, dentro de la franja del artículo
+     */
+    @Override
+    protected void alRegistrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento, long marcaTiempo) {
+        if (!reproduciendo) {
+            registro.anotar(new RegistroLog(TipoRegistro.EVENTO, articulo, Optional.of(tipoEvento), marcaTiempo));
+        }
+    }
+
+    /**
+     * Rechaza una escritura antes de aplicarla en memoria si el log ya no admite escrituras
+     * @param escritura la escritura
+     * @return su resultado
+     * @throws UncheckedIOException si un volcado anterior del log falló
+     */
+    private <T> T siDisponible(Supplier<T> escritura) {
+        registro.comprobarDisponible();
+        return escritura.get();
+    }
+
+    /**
+     * Espera a que todo lo anotado hasta ahora sea durable (commit en grupo)
+     * @param resultado el resultado de la operación, que se devuelve tal cual
+     * @return el mismo resultado
+     */
+    private <T> T durable(T resultado) {
+        registro.esperarDurable(registro.getUltimoAnotado());
+        return resultado;
+    }
+
+    @Override
+    public void registrarEvento(ArtCientificoDTO articulo, TipoEvento tipoEvento) {
+        registro.comprobarDisponible();
+        super.registrarEvento(articulo, tipoEvento);
+        registro.esperarDurable(registro.getUltimoAnotado());
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> crearNuevo(ArtCientificoDTO articuloDTO) {
+        return durable(siDisponible(() -> super.crearNuevo(articuloDTO)));
+    }
+
+    /**
+     * Todo el lote se anota en el log antes de esperar, así que se hace durable de una vez
+     */
+    @Override
+    public List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> articulos) {
+        return durable(siDisponible(() -> super.guardarLote(articulos)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> actualizar(ArtCientificoDTO articuloDTO) {
+        return durable(siDisponible(() -> super.actualizar(articuloDTO)));
+    }
+
+    @Override
+    public Optional<Boolean> eliminar(Long id) {
+        return durable(siDisponible(() -> super.eliminar(id)));
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> restaurar(ArtCientificoDTO articuloDTO) {
+        return durable(siDisponible(() -> super.restaurar(articuloDTO)));
+    }
+
+    /**
+     * Toma una instantánea si desde la última se han acumulado suficientes registros en el log
+     */
+    private void comprobarInstantanea() {
+        try {
+            if (registro.getUltimoAnotado() - anotadosEnCorte >= umbralInstantanea) {
+                crearInstantanea();
+                errorInstantanea = Optional.empty();
+            }
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente comprobación; el log sigue garantizando la durabilidad
+            errorInstantanea = Optional.of(e);
+        }
+    }
+
+    /**
+     * Error con el que falló la última instantánea tomada en segundo plano. Se reintenta en la
+     * siguiente comprobación y se olvida cuando una sale bien.
+     * @return Optional con el error, o vacío si la última fue bien o aún no se ha intentado
+     */
+    public Optional<RuntimeException> getErrorInstantanea() {
+        return errorInstantanea;
+    }
+
+    /**
+     * Toma una instantánea del estado actual sin detener a los escritores más que durante el
+     * corte, y después borra los segmentos del log y las instantáneas que quedan cubiertos.
+     * @return el resumen de la instantánea escrita
+     * @throws UncheckedIOException si no se puede escribir
+     */
+    public Instantanea.Resumen crearInstantanea() {
+        cerrojoInstantanea.lock();
+        try {
+            long nuevoSegmento = segmentoActual + 1;
+            AtomicLong anotados = new AtomicLong();
+            Instantanea.Resumen resumen;
+            try (VistaConsistente vista = abrirVistaConsistente(() -> {
+                registro.rotar(rutaSegmento(nuevoSegmento));
+                anotados.set(registro.getUltimoAnotado());
+            })) {
+                segmentoActual = nuevoSegmento;
+                // Cierra el segmento anterior aunque no haya escrituras nuevas que lo provoquen
+                registro.volcarPendiente();
+                resumen = Instantanea.escribir(rutaInstantanea(nuevoSegmento), nuevoSegmento, vista);
+            }
+            anotadosEnCorte = anotados.get();
+            // El nuevo segmento y la instantánea ya son durables, con sus entradas de directorio
+            borrarAnterioresA(nuevoSegmento);
+            return resumen;
+        } finally {
+            cerrojoInstantanea.unlock();
+        }
+    }
+
+    /**
+     * Borra los segmentos del log y las instantáneas anteriores a un segmento
+     */
+    private void borrarAnterioresA(long segmento) {
+        try {
+            for (long anterior : numerosDeArchivo(PATRON_SEGMENTO)) {
+                if (anterior < segmento) {
+                    Files.deleteIfExists(rutaSegmento(anterior));
+                }
+            }
+            for (long anterior : numerosDeArchivo(PATRON_INSTANTANEA)) {
+                if (anterior < segmento) {
+                    Files.deleteIfExists(rutaInstantanea(anterior));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudieron borrar los archivos anteriores a la instantánea", e);
+        }
+    }
+
+    /**
+     * Obtiene las estadísticas de recuperación y de escritura del repositorio
+     * @return las estadísticas actuales
+     */
+    public EstadisticasPersistencia getEstadisticas() {
+        return new EstadisticasPersistencia(registrosReproducidos, milisRecuperacion,
+            articulosInstantanea, milisInstantanea,
+            registro.getUltimoAnotado(), registro.getVolcados(), registro.getBytesEscritos());
+    }
+
+    /**
+     * Detiene las instantáneas en segundo plano, vuelca las escrituras pendientes y cierra el log
+     */
+    @Override
+    public void close() {
+        planificador.ifPresent(ScheduledExecutorService::shutdown);
+        cerrojoInstantanea.lock();
+        try {
+            registro.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar el log", e);
+        } finally {
+            try {
+                cerrarHistorial();
+            } finally {
+                cerrojoInstantanea.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package repository.impl;
+
+import java.util.Arrays;
+
+import dto.ArtCientificoDTO;
+import repository.indice.DiccionarioTextos;
+
+/**
+ * Forma compacta en la que los repositorios en memoria guardan cada artículo: el autor y las
+ * palabras clave son códigos de un diccionario compartido (las palabras, un int[] en su orden
+ * original) y los campos ausentes se marcan con null, un código especial o un indicador en lugar
+ * de un Optional.
+ * El DTO solo se construye al entregar el artículo, con las Strings del diccionario.
+ * <p>
+ * Es inmutable, así que el almacén y el evento de historial que lo registra comparten la misma
+ * instancia.
+ */
+final class ArticuloCompacto {
+
+    // Código de autor de un artículo sin autor
+    private static final int SIN_AUTOR = -1;
+
+    private final long id;
+    private final int autor;
+    // Todo int es un año válido, así que su ausencia se marca aparte
+    private final boolean conAnio;
+    private final int anio;
+    private final String nombre;
+    private final int[] palabras;
+    private final String resumen;
+
+    private ArticuloCompacto(long id, int autor, boolean conAnio, int anio, String nombre, int[] palabras,
+                             String resumen) {
+        this.id = id;
+        this.autor = autor;
+        this.conAnio = conAnio;
+        this.anio = anio;
+        this.nombre = nombre;
+        this.palabras = palabras;
+        this.resumen = resumen;
+    }
+
+    /**
+     * Compacta un artículo
+     * @param articulo el artículo, con su ID asignado
+     * @param diccionario el diccionario de autores y palabras clave
+     * @return el artículo compacto
+     * @throws IllegalArgumentException si el artículo no tiene ID
+     */
+    static ArticuloCompacto desde(ArtCientificoDTO articulo, DiccionarioTextos diccionario) {
+        return desde(articulo, diccionario, null);
+    }
+
+    /**
+     * Compacta una nueva versión de un artículo; si sus palabras clave no cambian respecto a la
+     * versión previa, se comparte su array
+     * @param articulo el artículo, con su ID asignado
+     * @param diccionario el diccionario de autores y palabras clave
+     * @param previo la versión previa compacta, o null
+     * @return el artículo compacto
+     * @throws IllegalArgumentException si el artículo no tiene ID
+     */
+    static ArticuloCompacto desde(ArtCientificoDTO articulo, DiccionarioTextos diccionario, ArticuloCompacto previo) {
+        long id = articulo.getId()
+            .orElseThrow(() -> new IllegalArgumentException("El artículo no tiene ID"));
+        int[] palabras = articulo.getPalabrasClaves()
+            .map(diccionario::codificar)
+            .map(codigos -> previo != null && previo.mismasPalabras(codigos) ? previo.palabras : codigos)
+            .orElse(null);
+        return new ArticuloCompacto(id, articulo.getAutor().map(diccionario::codificar).orElse(SIN_AUTOR),
+            articulo.getAnio().isPresent(), articulo.getAnio().orElse(0), articulo.getNombre().orElse(null), palabras, articulo.getResumen().orElse(null));
+    }
+
+    /**
+     * Construye el DTO del artículo con los textos del diccionario
+     * @param diccionario el diccionario con el que se compactó
+     * @return el DTO
+     */
+    ArtCientificoDTO aDTO(DiccionarioTextos diccionario) {
+        return new ArtCientificoDTO.BuilderDTO()
+            .conId(id)
+            .conNombre(nombre)
+            .conAutor(autor == SIN_AUTOR ? null : diccionario.texto(autor))
+            .conAnio(conAnio ? anio : null)
+            .conPalabrasClaves(palabras == null ? null : diccionario.textos(palabras))
+            .conResumen(resumen)
+            .build();
+    }
+
+    /**
+     * Obtiene el ID del artículo
+     * @return el ID
+     */
+    long getId() {
+        return id;
+    }
+
+    /**
+     * Compara las palabras clave con una lista de códigos del mismo diccionario, sin textos
+     * @param codigos los códigos, o null si no hay palabras clave
+     * @return true si son las mismas palabras en el mismo orden
+     */
+    boolean mismasPalabras(int[] codigos) {
+        return Arrays.equals(palabras, codigos);
+    }
+}
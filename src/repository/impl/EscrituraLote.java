@@ -0,0 +1,115 @@
+package repository.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+
+import dto.ArtCientificoDTO;
+import repository.indice.DiccionarioTextos;
+
+/**
+ * Escritura de un artículo de un lote, ya fusionada y compactada antes de aplicarla. Preparar
+ * todo el lote primero hace que un artículo que no se puede compactar lo rechace entero, sin
+ * dejar cambios a medias en la tabla, los índices o el historial.
+ */
+final class EscrituraLote {
+
+    private final ArtCientificoDTO previo;
+    private final ArticuloCompacto compactoPrevio;
+    private final ArtCientificoDTO articulo;
+    private final ArticuloCompacto compacto;
+
+    private EscrituraLote(ArtCientificoDTO previo, ArticuloCompacto compactoPrevio,
+                          ArtCientificoDTO articulo, ArticuloCompacto compacto) {
+        this.previo = previo;
+        this.compactoPrevio = compactoPrevio;
+        this.articulo = articulo;
+        this.compacto = compacto;
+    }
+
+    /**
+     * Prepara las escrituras de un lote sin modificar el repositorio. Si un ID se repite en el
+     * lote, cada actualización se fusiona con el resultado de la anterior.
+     * @param lote los artículos del lote
+     * @param creados los artículos nuevos del lote con su ID asignado, en la misma posición
+     *                (null en las actualizaciones y en los elementos null)
+     * @param existente obtiene la versión compacta guardada de un ID, o null si no existe
+     * @param materializar construye el DTO de una versión compacta
+     * @param diccionario el diccionario de autores y palabras clave
+     * @return una escritura por artículo del lote, vacía si es null o su ID no existe
+     * @throws IllegalArgumentException si algún artículo no se puede compactar
+     */
+    static List<Optional<EscrituraLote>> preparar(List<ArtCientificoDTO> lote, ArtCientificoDTO[] creados,
+                                                  LongFunction<ArticuloCompacto> existente,
+                                                  Function<ArticuloCompacto, ArtCientificoDTO> materializar,
+                                                  DiccionarioTextos diccionario) {
+        Map<Long, EscrituraLote> ultimas = new HashMap<>();
+        List<Optional<EscrituraLote>> escrituras = new ArrayList<>(lote.size());
+        for (int i = 0; i < lote.size(); i++) {
+            if (creados[i] != null) {
+                escrituras.add(Optional.of(new EscrituraLote(null, null, creados[i],
+                    ArticuloCompacto.desde(creados[i], diccionario))));
+                continue;
+            }
+            Optional<EscrituraLote> escritura = Optional.ofNullable(lote.get(i))
+                .flatMap(actualizaciones -> actualizaciones.getId()
+                    .flatMap(id -> Optional.ofNullable(ultimas.get(id))
+                        .map(ultima -> new EscrituraLote(ultima.articulo, ultima.compacto, null, null))
+                        .or(() -> Optional.ofNullable(existente.apply(id))
+                            .map(compactoExistente -> new EscrituraLote(materializar.apply(compactoExistente),
+                                compactoExistente, null, null))))
+                    .map(base -> {
+                        ArtCientificoDTO actualizado = FusionArticulos.fusionar.apply(base.previo, actualizaciones);
+                        return new EscrituraLote(base.previo, base.compactoPrevio, actualizado,
+                            ArticuloCompacto.desde(actualizado, diccionario, base.compactoPrevio));
+                    }));
+            escritura.ifPresent(e -> ultimas.put(e.compacto.getId(), e));
+            escrituras.add(escritura);
+        }
+        return escrituras;
+    }
+
+    /**
+     * Indica si la escritura crea el artículo
+     * @return true si es una creación, false si es una actualización
+     */
+    boolean esCreacion() {
+        return previo == null;
+    }
+
+    /**
+     * Obtiene el artículo antes de la escritura
+     * @return el artículo previo, o null en una creación
+     */
+    ArtCientificoDTO getPrevio() {
+        return previo;
+    }
+
+    /**
+     * Obtiene la versión compacta del artículo antes de la escritura
+     * @return la versión previa, o null en una creación
+     */
+    ArticuloCompacto getCompactoPrevio() {
+        return compactoPrevio;
+    }
+
+    /**
+     * Obtiene el artículo tras la escritura
+     * @return el artículo resultante
+     */
+    ArtCientificoDTO getArticulo() {
+        return articulo;
+    }
+
+    /**
+     * Obtiene la versión compacta del artículo tras la escritura
+     * @return la versión que se guarda
+     */
+    ArticuloCompacto getCompacto() {
+        return compacto;
+    }
+}
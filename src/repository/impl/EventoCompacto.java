@@ -0,0 +1,47 @@
+package repository.impl;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.indice.DiccionarioTextos;
+import common.types.TipoEvento;
+
+/**
+ * Evento de historial de los repositorios en memoria que guarda su artículo en forma compacta,
+ * la misma instancia que el almacén, y construye el DTO al pedirlo
+ */
+class EventoCompacto implements EventoHistorial {
+    private final ArticuloCompacto articulo;
+    private final DiccionarioTextos diccionario;
+    private final TipoEvento tipoEvento;
+    private final long secuencia;
+    private final long marcaTiempo;
+
+    EventoCompacto(ArticuloCompacto articulo, DiccionarioTextos diccionario, TipoEvento tipoEvento,
+                   long secuencia, long marcaTiempo) {
+        this.articulo = articulo;
+        this.diccionario = diccionario;
+        this.tipoEvento = tipoEvento;
+        this.secuencia = secuencia;
+        this.marcaTiempo = marcaTiempo;
+    }
+
+    @Override
+    public ArtCientificoDTO getArticulo() {
+        return articulo.aDTO(diccionario);
+    }
+
+    @Override
+    public TipoEvento getTipoEvento() {
+        return tipoEvento;
+    }
+
+    @Override
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    @Override
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+}
@@ -0,0 +1,42 @@
+package repository.impl;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import common.types.TipoEvento;
+
+/**
+ * Implementación de EventoHistorial compartida por los repositorios en memoria
+ */
+class EventoHistorialImpl implements EventoHistorial {
+    private final ArtCientificoDTO articulo;
+    private final TipoEvento tipoEvento;
+    private final long secuencia;
+    private final long marcaTiempo;
+
+    EventoHistorialImpl(ArtCientificoDTO articulo, TipoEvento tipoEvento, long secuencia, long marcaTiempo) {
+        this.articulo = articulo;
+        this.tipoEvento = tipoEvento;
+        this.secuencia = secuencia;
+        this.marcaTiempo = marcaTiempo;
+    }
+
+    @Override
+    public ArtCientificoDTO getArticulo() {
+        return articulo;
+    }
+
+    @Override
+    public TipoEvento getTipoEvento() {
+        return tipoEvento;
+    }
+
+    @Override
+    public long getSecuencia() {
+        return secuencia;
+    }
+
+    @Override
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+}
@@ -0,0 +1,30 @@
+package repository.impl;
+
+import java.util.function.BiFunction;
+import dto.ArtCientificoDTO;
+
+/**
+ * Funciones auxiliares para combinar un artículo existente con sus actualizaciones
+ */
+final class FusionArticulos {
+
+    private FusionArticulos() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Función que combina un artículo base con las actualizaciones recibidas.
+     * Los campos presentes en las actualizaciones sustituyen a los del artículo base; el resto,
+     * incluida la lista de palabras clave, se comparte con el artículo base sin copiarlo.
+     */
+    static final BiFunction<ArtCientificoDTO, ArtCientificoDTO, ArtCientificoDTO> fusionar =
+        (base, actualizaciones) -> {
+            ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO(base);
+            actualizaciones.getNombre().ifPresent(builder::conNombre);
+            actualizaciones.getAutor().ifPresent(builder::conAutor);
+            actualizaciones.getAnio().ifPresent(builder::conAnio);
+            actualizaciones.getPalabrasClaves().ifPresent(builder::conPalabrasClaves);
+            actualizaciones.getResumen().ifPresent(builder::conResumen);
+            return builder.build();
+        };
+}
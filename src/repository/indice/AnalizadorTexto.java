@@ -0,0 +1,50 @@
+package repository.indice;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Analizador de texto para el índice de texto completo.
+ * Separa el texto en términos, lo pasa a minúsculas y elimina los acentos
+ * (por ejemplo, "Análisis" y "analisis" generan el mismo término).
+ */
+public final class AnalizadorTexto {
+
+    // Marcas diacríticas que quedan separadas tras la descomposición NFD
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+
+    // Todo lo que no sea letra o dígito separa términos
+    private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+
+    private AnalizadorTexto() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Normaliza un texto: minúsculas y sin acentos
+     * @param texto el texto original
+     * @return el texto normalizado
+     */
+    public static String normalizar(String texto) {
+        String descompuesto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(descompuesto).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Convierte un texto en la secuencia ordenada de sus términos
+     * @param texto el texto a analizar (puede estar vacío)
+     * @return la lista de términos en el orden en que aparecen
+     */
+    public static List<String> tokenizar(Optional<String> texto) {
+        List<String> terminos = new ArrayList<>();
+        texto.map(AnalizadorTexto::normalizar)
+            .ifPresent(normalizado -> SEPARADORES.splitAsStream(normalizado)
+                .filter(termino -> !termino.isEmpty())
+                .forEach(terminos::add));
+        return terminos;
+    }
+}
@@ -0,0 +1,187 @@
+package repository.indice;
+
+import java.util.Arrays;
+
+/**
+ * Mapas de bits comprimidos de las palabras clave de una página del índice columnar. Cada palabra
+ * con alguna fila en la página guarda sus posiciones como lista ordenada, si tiene pocas, o como
+ * mapa de bits de 64 palabras, si tiene muchas; las palabras sin filas en la página no ocupan
+ * nada. Así una palabra clave rara ocupa unos pocos bytes por artículo y una frecuente, un bit.
+ * <p>
+ * No es seguro para varios hilos: lo protege el cerrojo de su página.
+ */
+final class BitsDispersos {
+
+    private static final int TAMANIO_BLOQUE = 1 << 12;
+    private static final int PALABRAS_BLOQUE = TAMANIO_BLOQUE / 64;
+
+    // Con más posiciones que esta, la lista ocuparía más que el mapa de bits del bloque
+    private static final int MAXIMO_LISTA = PALABRAS_BLOQUE * 4;
+
+    // Bloques en orden: código de palabra, contenido (char[] de posiciones o long[] de bits) y cardinal
+    private int[] claves;
+    private Object[] bloques;
+    private int[] tamanios;
+    private int numero;
+
+    /**
+     * Crea los mapas vacíos
+     */
+    BitsDispersos() {
+        this(new int[2], new Object[2], new int[2], 0);
+    }
+
+    private BitsDispersos(int[] claves, Object[] bloques, int[] tamanios, int numero) {
+        this.claves = claves;
+        this.bloques = bloques;
+        this.tamanios = tamanios;
+        this.numero = numero;
+    }
+
+    /**
+     * Añade una posición a una palabra
+     * @param clave el código de la palabra
+     * @param posicion la posición en la página, entre 0 y 4095
+     */
+    void agregar(int clave, int posicion) {
+        char enBloque = (char) posicion;
+        int indice = Arrays.binarySearch(claves, 0, numero, clave);
+        if (indice < 0) {
+            insertarBloque(-indice - 1, clave, new char[] {enBloque});
+            return;
+        }
+        if (bloques[indice] instanceof long[] bits) {
+            if ((bits[enBloque >>> 6] & (1L << enBloque)) == 0) {
+                bits[enBloque >>> 6] |= 1L << enBloque;
+                tamanios[indice]++;
+            }
+            return;
+        }
+        char[] lista = (char[]) bloques[indice];
+        int tamanio = tamanios[indice];
+        int hueco = Arrays.binarySearch(lista, 0, tamanio, enBloque);
+        if (hueco >= 0) {
+            return;
+        }
+        hueco = -hueco - 1;
+        if (tamanio == MAXIMO_LISTA) {
+            long[] bits = new long[PALABRAS_BLOQUE];
+            for (int i = 0; i < tamanio; i++) {
+                bits[lista[i] >>> 6] |= 1L << lista[i];
+            }
+            bits[enBloque >>> 6] |= 1L << enBloque;
+            bloques[indice] = bits;
+        } else {
+            if (tamanio == lista.length) {
+                lista = Arrays.copyOf(lista, Math.min(MAXIMO_LISTA, tamanio * 2));
+                bloques[indice] = lista;
+            }
+            System.arraycopy(lista, hueco, lista, hueco + 1, tamanio - hueco);
+            lista[hueco] = enBloque;
+        }
+        tamanios[indice] = tamanio + 1;
+    }
+
+    /**
+     * Quita una posición de una palabra
+     * @param clave el código de la palabra
+     * @param posicion la posición en la página
+     */
+    void quitar(int clave, int posicion) {
+        char enBloque = (char) posicion;
+        int indice = Arrays.binarySearch(claves, 0, numero, clave);
+        if (indice < 0) {
+            return;
+        }
+        int tamanio = tamanios[indice];
+        if (bloques[indice] instanceof long[] bits) {
+            if ((bits[enBloque >>> 6] & (1L << enBloque)) == 0) {
+                return;
+            }
+            bits[enBloque >>> 6] &= ~(1L << enBloque);
+            tamanio--;
+            if (tamanio == MAXIMO_LISTA / 2) {
+                // Vuelve a lista cuando ocupa claramente menos, sin oscilar en el límite
+                char[] lista = new char[tamanio];
+                int i = 0;
+                for (int p = 0; p < PALABRAS_BLOQUE; p++) {
+                    for (long resto = bits[p]; resto != 0; resto &= resto - 1) {
+                        lista[i++] = (char) ((p << 6) | Long.numberOfTrailingZeros(resto));
+                    }
+                }
+                bloques[indice] = lista;
+            }
+        } else {
+            char[] lista = (char[]) bloques[indice];
+            int hueco = Arrays.binarySearch(lista, 0, tamanio, enBloque);
+            if (hueco < 0) {
+                return;
+            }
+            System.arraycopy(lista, hueco + 1, lista, hueco, tamanio - hueco - 1);
+            tamanio--;
+        }
+        if (tamanio == 0) {
+            quitarBloque(indice);
+        } else {
+            tamanios[indice] = tamanio;
+        }
+    }
+
+    /**
+     * Añade las posiciones de una palabra a un mapa de bits denso (o lógico palabra a palabra)
+     * @param clave el código de la palabra
+     * @param destino las palabras del mapa de bits denso
+     * @param base la palabra de destino que corresponde a la primera posición de la página
+     */
+    void o(int clave, long[] destino, int base) {
+        int indice = Arrays.binarySearch(claves, 0, numero, clave);
+        if (indice < 0) {
+            return;
+        }
+        if (bloques[indice] instanceof long[] bits) {
+            for (int p = 0; p < PALABRAS_BLOQUE; p++) {
+                destino[base + p] |= bits[p];
+            }
+        } else {
+            char[] lista = (char[]) bloques[indice];
+            for (int i = 0; i < tamanios[indice]; i++) {
+                destino[base + (lista[i] >>> 6)] |= 1L << lista[i];
+            }
+        }
+    }
+
+    /**
+     * Copia independiente de los mapas, para seguir escribiendo sin tocar los originales
+     * @return la copia
+     */
+    BitsDispersos copiar() {
+        Object[] copiaBloques = new Object[bloques.length];
+        for (int b = 0; b < numero; b++) {
+            copiaBloques[b] = bloques[b] instanceof long[] bits ? bits.clone() : ((char[]) bloques[b]).clone();
+        }
+        return new BitsDispersos(claves.clone(), copiaBloques, tamanios.clone(), numero);
+    }
+
+    private void insertarBloque(int indice, int clave, Object bloque) {
+        if (numero == claves.length) {
+            claves = Arrays.copyOf(claves, numero * 2);
+            bloques = Arrays.copyOf(bloques, numero * 2);
+            tamanios = Arrays.copyOf(tamanios, numero * 2);
+        }
+        System.arraycopy(claves, indice, claves, indice + 1, numero - indice);
+        System.arraycopy(bloques, indice, bloques, indice + 1, numero - indice);
+        System.arraycopy(tamanios, indice, tamanios, indice + 1, numero - indice);
+        claves[indice] = clave;
+        bloques[indice] = bloque;
+        tamanios[indice] = 1;
+        numero++;
+    }
+
+    private void quitarBloque(int indice) {
+        System.arraycopy(claves, indice + 1, claves, indice, numero - indice - 1);
+        System.arraycopy(bloques, indice + 1, bloques, indice, numero - indice - 1);
+        System.arraycopy(tamanios, indice + 1, tamanios, indice, numero - indice - 1);
+        numero--;
+        bloques[numero] = null;
+    }
+}
@@ -0,0 +1,178 @@
+package repository.indice;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+
+/**
+ * Conjunto inmutable de IDs guardado como mapa de bits denso: el bit i de la palabra p indica el
+ * ID p * 64 + i. Es el resultado de los operadores del índice columnar, que se combinan palabra a
+ * palabra (y, o, menos) sin recorrer los IDs uno a uno.
+ * <p>
+ * Se recorre en orden creciente de ID y su spliterator se declara ordenado, de modo que
+ * Stream.sorted no vuelve a ordenarlo.
+ */
+public final class ConjuntoBits extends AbstractSet<Long> {
+
+    private static final ConjuntoBits VACIO = new ConjuntoBits(new long[0]);
+
+    private final long[] palabras;
+
+    // Se cuenta al pedirlo: los resultados intermedios de los operadores no lo necesitan
+    private int tamanio = -1;
+
+    /**
+     * Crea el conjunto de un mapa de bits, que pasa a ser suyo y no se debe modificar después
+     * @param palabras las palabras del mapa de bits
+     */
+    ConjuntoBits(long[] palabras) {
+        this.palabras = palabras;
+    }
+
+    /**
+     * Conjunto sin ningún ID
+     * @return el conjunto vacío
+     */
+    public static ConjuntoBits vacio() {
+        return VACIO;
+    }
+
+    /**
+     * Convierte un conjunto de IDs en mapa de bits; los IDs fuera del rango del índice columnar
+     * (entre 0 e IndiceColumnar.ID_MAXIMO) se descartan, porque no pueden estar en él
+     * @param ids los IDs
+     * @return el conjunto, o el mismo si ya era un ConjuntoBits
+     */
+    public static ConjuntoBits de(Set<Long> ids) {
+        if (ids instanceof ConjuntoBits bits) {
+            return bits;
+        }
+        long maximo = ids.stream()
+            .mapToLong(Long::longValue)
+            .filter(id -> id >= 0 && id <= IndiceColumnar.ID_MAXIMO)
+            .max()
+            .orElse(-1);
+        long[] palabras = new long[(int) ((maximo >> 6) + 1)];
+        for (Long id : ids) {
+            if (id >= 0 && id <= maximo) {
+                palabras[(int) (id >>> 6)] |= 1L << id;
+            }
+        }
+        return new ConjuntoBits(palabras);
+    }
+
+    /**
+     * Intersección con otro conjunto
+     * @param otro el otro conjunto
+     * @return los IDs que están en los dos
+     */
+    public ConjuntoBits y(ConjuntoBits otro) {
+        long[] resultado = new long[Math.min(palabras.length, otro.palabras.length)];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = palabras[i] & otro.palabras[i];
+        }
+        return new ConjuntoBits(resultado);
+    }
+
+    /**
+     * Unión con otro conjunto
+     * @param otro el otro conjunto
+     * @return los IDs que están en alguno de los dos
+     */
+    public ConjuntoBits o(ConjuntoBits otro) {
+        long[] mayor = palabras.length >= otro.palabras.length ? palabras : otro.palabras;
+        long[] menor = mayor == palabras ? otro.palabras : palabras;
+        long[] resultado = Arrays.copyOf(mayor, mayor.length);
+        for (int i = 0; i < menor.length; i++) {
+            resultado[i] |= menor[i];
+        }
+        return new ConjuntoBits(resultado);
+    }
+
+    /**
+     * Diferencia con otro conjunto
+     * @param otro el conjunto que se quita
+     * @return los IDs de este conjunto que no están en el otro
+     */
+    public ConjuntoBits menos(ConjuntoBits otro) {
+        long[] resultado = Arrays.copyOf(palabras, palabras.length);
+        int comunes = Math.min(palabras.length, otro.palabras.length);
+        for (int i = 0; i < comunes; i++) {
+            resultado[i] &= ~otro.palabras[i];
+        }
+        return new ConjuntoBits(resultado);
+    }
+
+    /**
+     * Palabra del mapa de bits, para los operadores que recorren el conjunto palabra a palabra
+     * @param indice la posición de la palabra
+     * @return la palabra, o 0 si está más allá del final
+     */
+    long palabra(int indice) {
+        return indice < palabras.length ? palabras[indice] : 0;
+    }
+
+    /**
+     * Número de palabras del mapa de bits
+     * @return el número de palabras
+     */
+    int numeroPalabras() {
+        return palabras.length;
+    }
+
+    @Override
+    public boolean contains(Object objeto) {
+        if (!(objeto instanceof Long id) || id < 0 || (id >>> 6) >= palabras.length) {
+            return false;
+        }
+        return (palabras[(int) (id >>> 6)] & (1L << id)) != 0;
+    }
+
+    @Override
+    public int size() {
+        if (tamanio < 0) {
+            int bits = 0;
+            for (long palabra : palabras) {
+                bits += Long.bitCount(palabra);
+            }
+            tamanio = bits;
+        }
+        return tamanio;
+    }
+
+    @Override
+    public Iterator<Long> iterator() {
+        return new Iterator<Long>() {
+            private int indice = 0;
+            private long pendientes = palabras.length > 0 ? palabras[0] : 0;
+
+            @Override
+            public boolean hasNext() {
+                while (pendientes == 0 && indice + 1 < palabras.length) {
+                    pendientes = palabras[++indice];
+                }
+                return pendientes != 0;
+            }
+
+            @Override
+            public Long next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long id = ((long) indice << 6) | Long.numberOfTrailingZeros(pendientes);
+                pendientes &= pendientes - 1;
+                return id;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<Long> spliterator() {
+        return Spliterators.spliterator(iterator(), size(),
+            Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.SIZED);
+    }
+}
@@ -0,0 +1,99 @@
+package repository.indice;
+
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Diccionario que asigna un código entero a cada texto distinto, para guardar los valores que se
+ * repiten mucho entre artículos (autores, palabras clave) una sola vez y referirse a ellos por
+ * su código. El texto de cada código es la primera instancia que se codificó, de modo que todos
+ * los artículos que lo usan comparten la misma String.
+ * <p>
+ * Es seguro para varios hilos: codificar un texto ya conocido no bloquea, y un código nuevo solo
+ * se entrega después de guardar su texto, así que cualquier hilo que lo reciba puede decodificarlo.
+ * Los códigos no se liberan aunque ningún artículo los use ya: el diccionario crece con los
+ * valores distintos, no con los artículos.
+ */
+public final class DiccionarioTextos {
+
+    private final ConcurrentHashMap<String, Integer> codigos = new ConcurrentHashMap<>();
+    private final TablaPorId<String> textos = new TablaPorId<>();
+    private final AtomicInteger siguienteCodigo = new AtomicInteger();
+
+    /**
+     * Obtiene el código de un texto, asignándole uno nuevo si no lo tenía
+     * @param texto el texto, no nulo
+     * @return el código, mayor o igual que 0
+     */
+    public int codificar(String texto) {
+        Integer codigo = codigos.get(texto);
+        if (codigo != null) {
+            return codigo;
+        }
+        return codigos.computeIfAbsent(texto, nuevo -> {
+            int asignado = siguienteCodigo.getAndIncrement();
+            textos.poner(asignado, nuevo);
+            return asignado;
+        });
+    }
+
+    /**
+     * Obtiene el código de un texto sin asignarle uno si no lo tenía
+     * @param texto el texto, no nulo
+     * @return el código, o vacío si el texto no se ha codificado nunca
+     */
+    public OptionalInt buscar(String texto) {
+        Integer codigo = codigos.get(texto);
+        return codigo == null ? OptionalInt.empty() : OptionalInt.of(codigo);
+    }
+
+    /**
+     * Codifica una lista de textos conservando su orden
+     * @param lista los textos, no nulos
+     * @return los códigos, en el mismo orden
+     */
+    public int[] codificar(List<String> lista) {
+        int[] resultado = new int[lista.size()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = codificar(lista.get(i));
+        }
+        return resultado;
+    }
+
+    /**
+     * Obtiene el texto de un código
+     * @param codigo el código entregado por codificar
+     * @return el texto compartido
+     * @throws IllegalArgumentException si el código no existe
+     */
+    public String texto(int codigo) {
+        String texto = textos.obtener(codigo);
+        if (texto == null) {
+            throw new IllegalArgumentException("Código de texto desconocido: " + codigo);
+        }
+        return texto;
+    }
+
+    /**
+     * Obtiene los textos de una lista de códigos, como lista inmutable
+     * @param lista los códigos
+     * @return los textos compartidos, en el mismo orden
+     */
+    public List<String> textos(int[] lista) {
+        String[] resultado = new String[lista.length];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = texto(lista[i]);
+        }
+        return List.of(resultado);
+    }
+
+    /**
+     * Número de códigos asignados; todos los códigos entregados son menores
+     * @return el número de códigos asignados
+     */
+    public int tamanio() {
+        return siguienteCodigo.get();
+    }
+}
@@ -0,0 +1,514 @@
+package repository.indice;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Copia por columnas de los campos por los que se filtra y se agrega (año, autor y palabras
+ * clave), para las consultas analíticas que de otro modo recorrerían todos los artículos. Cada
+ * artículo es la fila de su ID: el año y el código de autor están en arrays int por páginas de
+ * TAMANIO_PAGINA filas, los campos ausentes se marcan en mapas de bits de nulos y cada palabra
+ * clave tiene en cada página su propio mapa de bits comprimido con las filas que la contienen.
+ * Autores y palabras clave se guardan normalizados (IndicesArticulos.normalizar) y codificados en
+ * un diccionario.
+ * <p>
+ * Los operadores recorren los arrays en orden y sin saltos, comparando sin ramas, y devuelven el
+ * resultado como mapa de bits (ConjuntoBits), que se combina palabra a palabra; los agregados
+ * recorren solo los bits seleccionados. Ninguno construye artículos.
+ * <p>
+ * Se mantiene con cada escritura a través de IndicesArticulos. Cada página tiene su propio
+ * cerrojo, así que las escrituras de páginas distintas no compiten, y sustituir la fila de un
+ * artículo es una sola sección crítica. Los operadores se invocan sobre una Instantanea, que fija
+ * las páginas en lugar de bloquearlas: una página fijada ya no se modifica y la siguiente
+ * escritura sobre ella trabaja en una copia, de modo que los recorridos no esperan a los
+ * escritores ni los hacen esperar.
+ */
+public class IndiceColumnar {
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANIO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANIO_PAGINA - 1;
+    private static final int PALABRAS_PAGINA = TAMANIO_PAGINA / 64;
+
+    // ID máximo que admiten las columnas; si se indexa uno mayor, dejan de usarse
+    public static final long ID_MAXIMO = Integer.MAX_VALUE;
+
+    // Amplitud de años hasta la que se cuenta en un array en lugar de en un mapa
+    private static final long AMPLITUD_CONTEO_DIRECTO = 1 << 16;
+
+    /**
+     * Columnas de TAMANIO_PAGINA filas consecutivas. Se modifica con el cerrojo de su ranura y
+     * solo mientras no está congelada.
+     */
+    private static final class Pagina {
+        private final int[] anios;
+        private final int[] autores;
+        private final long[] vivas;
+        private final long[] conAnio;
+        private final long[] conAutor;
+        private final BitsDispersos palabras;
+        private int anioMinimo = Integer.MAX_VALUE;
+        private int anioMaximo = Integer.MIN_VALUE;
+        // Fijada por una instantánea: ya no se modifica
+        private volatile boolean congelada;
+
+        private Pagina() {
+            anios = new int[TAMANIO_PAGINA];
+            autores = new int[TAMANIO_PAGINA];
+            vivas = new long[PALABRAS_PAGINA];
+            conAnio = new long[PALABRAS_PAGINA];
+            conAutor = new long[PALABRAS_PAGINA];
+            palabras = new BitsDispersos();
+        }
+
+        private Pagina(Pagina origen) {
+            anios = origen.anios.clone();
+            autores = origen.autores.clone();
+            vivas = origen.vivas.clone();
+            conAnio = origen.conAnio.clone();
+            conAutor = origen.conAutor.clone();
+            palabras = origen.palabras.copiar();
+            anioMinimo = origen.anioMinimo;
+            anioMaximo = origen.anioMaximo;
+        }
+
+        private void poner(int posicion, Optional<Integer> anio, OptionalInt autor, int[] codigos) {
+            long bit = 1L << posicion;
+            vivas[posicion >>> 6] |= bit;
+            anio.ifPresentOrElse(valor -> {
+                anios[posicion] = valor;
+                conAnio[posicion >>> 6] |= bit;
+                anioMinimo = Math.min(anioMinimo, valor);
+                anioMaximo = Math.max(anioMaximo, valor);
+            }, () -> conAnio[posicion >>> 6] &= ~bit);
+            autor.ifPresentOrElse(codigo -> {
+                autores[posicion] = codigo;
+                conAutor[posicion >>> 6] |= bit;
+            }, () -> conAutor[posicion >>> 6] &= ~bit);
+            for (int codigo : codigos) {
+                palabras.agregar(codigo, posicion);
+            }
+        }
+
+        private void vaciar(int posicion, int[] codigos) {
+            long bit = ~(1L << posicion);
+            vivas[posicion >>> 6] &= bit;
+            conAnio[posicion >>> 6] &= bit;
+            conAutor[posicion >>> 6] &= bit;
+            for (int codigo : codigos) {
+                palabras.quitar(codigo, posicion);
+            }
+        }
+    }
+
+    /**
+     * Versión vigente de una página; su monitor es el cerrojo de la página
+     */
+    private static final class Ranura {
+        private volatile Pagina pagina = new Pagina();
+    }
+
+    private final DiccionarioTextos diccionarioAutores = new DiccionarioTextos();
+    private final DiccionarioTextos diccionarioPalabras = new DiccionarioTextos();
+
+    private volatile Ranura[] ranuras = new Ranura[16];
+    private volatile boolean completo = true;
+
+    /**
+     * Indica si las columnas tienen todos los artículos indexados; deja de ser así para siempre
+     * si se indexa alguno con un ID mayor que ID_MAXIMO, y entonces no se deben usar
+     * @return true si las columnas están completas
+     */
+    public boolean isCompleto() {
+        return completo;
+    }
+
+    /**
+     * Añade la fila de un artículo; si ya estaba, se debe quitar antes la versión anterior o
+     * usar reemplazar
+     * @param articulo el artículo (debe tener ID)
+     */
+    public void agregar(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> {
+            if (id < 0 || id > ID_MAXIMO) {
+                completo = false;
+                return;
+            }
+            int fila = (int) (long) id;
+            OptionalInt autor = codificarAutor(articulo);
+            int[] codigos = codificarPalabras(articulo);
+            escribir(reservar(fila >>> BITS_PAGINA),
+                pagina -> pagina.poner(fila & MASCARA_PAGINA, articulo.getAnio(), autor, codigos));
+        });
+    }
+
+    /**
+     * Quita la fila de un artículo
+     * @param articulo el artículo tal y como fue indexado
+     */
+    public void quitar(ArtCientificoDTO articulo) {
+        articulo.getId().filter(id -> id >= 0 && id <= ID_MAXIMO).ifPresent(id -> {
+            int fila = (int) (long) id;
+            Ranura ranura = ranura(fila >>> BITS_PAGINA);
+            if (ranura != null) {
+                int[] codigos = buscarPalabras(articulo);
+                escribir(ranura, pagina -> pagina.vaciar(fila & MASCARA_PAGINA, codigos));
+            }
+        });
+    }
+
+    /**
+     * Sustituye la fila de un artículo por su nueva versión en una sola sección crítica, de
+     * modo que ninguna instantánea lo ve ausente a medio camino
+     * @param anterior la versión indexada actualmente
+     * @param nuevo la nueva versión, con el mismo ID
+     */
+    public void reemplazar(ArtCientificoDTO anterior, ArtCientificoDTO nuevo) {
+        Optional<Long> id = nuevo.getId().filter(valor -> valor >= 0 && valor <= ID_MAXIMO);
+        if (id.isEmpty() || !id.equals(anterior.getId())) {
+            quitar(anterior);
+            agregar(nuevo);
+            return;
+        }
+        int fila = (int) (long) id.get();
+        int[] quitados = buscarPalabras(anterior);
+        OptionalInt autor = codificarAutor(nuevo);
+        int[] codigos = codificarPalabras(nuevo);
+        escribir(reservar(fila >>> BITS_PAGINA), pagina -> {
+            pagina.vaciar(fila & MASCARA_PAGINA, quitados);
+            pagina.poner(fila & MASCARA_PAGINA, nuevo.getAnio(), autor, codigos);
+        });
+    }
+
+    /**
+     * Fija el estado actual de las columnas para consultarlo. Cada página se fija por separado,
+     * así que la instantánea refleja cada escritura entera o nada de ella.
+     * @return la instantánea
+     */
+    public Instantanea instantanea() {
+        Ranura[] directorio = ranuras;
+        Pagina[] paginas = new Pagina[directorio.length];
+        for (int p = 0; p < directorio.length; p++) {
+            Ranura ranura = directorio[p];
+            if (ranura == null) {
+                continue;
+            }
+            Pagina pagina = ranura.pagina;
+            if (!pagina.congelada) {
+                synchronized (ranura) {
+                    pagina = ranura.pagina;
+                    pagina.congelada = true;
+                }
+            }
+            paginas[p] = pagina;
+        }
+        return new Instantanea(paginas, diccionarioAutores, diccionarioPalabras);
+    }
+
+    /**
+     * Estado fijo de las columnas sobre el que se ejecutan los operadores. Sus páginas ya no se
+     * modifican, así que los operadores que se invoquen sobre la misma instantánea ven todos el
+     * mismo estado sin tomar ningún cerrojo.
+     */
+    public static final class Instantanea {
+        private final Pagina[] paginas;
+        private final DiccionarioTextos diccionarioAutores;
+        private final DiccionarioTextos diccionarioPalabras;
+
+        private Instantanea(Pagina[] paginas, DiccionarioTextos diccionarioAutores,
+                            DiccionarioTextos diccionarioPalabras) {
+            this.paginas = paginas;
+            this.diccionarioAutores = diccionarioAutores;
+            this.diccionarioPalabras = diccionarioPalabras;
+        }
+
+        /**
+         * Filas de todos los artículos
+         * @return el conjunto de IDs
+         */
+        public ConjuntoBits todos() {
+            long[] resultado = new long[paginas.length * PALABRAS_PAGINA];
+            for (int p = 0; p < paginas.length; p++) {
+                if (paginas[p] != null) {
+                    System.arraycopy(paginas[p].vivas, 0, resultado, p * PALABRAS_PAGINA, PALABRAS_PAGINA);
+                }
+            }
+            return new ConjuntoBits(resultado);
+        }
+
+        /**
+         * Filas con el año dentro de un rango cerrado
+         * @param desde el año inicial (incluido)
+         * @param hasta el año final (incluido)
+         * @return el conjunto de IDs
+         */
+        public ConjuntoBits anioEntre(int desde, int hasta) {
+            if (desde > hasta) {
+                return ConjuntoBits.vacio();
+            }
+            // Con la diferencia sin signo, anio está en el rango si (anio - desde) < amplitud
+            long amplitud = Integer.toUnsignedLong(hasta - desde) + 1;
+            long[] resultado = new long[paginas.length * PALABRAS_PAGINA];
+            for (int p = 0; p < paginas.length; p++) {
+                Pagina pagina = paginas[p];
+                if (pagina == null) {
+                    continue;
+                }
+                int[] anios = pagina.anios;
+                for (int w = 0; w < PALABRAS_PAGINA; w++) {
+                    long validas = pagina.vivas[w] & pagina.conAnio[w];
+                    if (validas == 0) {
+                        continue;
+                    }
+                    long bits = 0;
+                    int base = w << 6;
+                    for (int j = 0; j < 64; j++) {
+                        long diferencia = Integer.toUnsignedLong(anios[base + j] - desde);
+                        bits |= ((diferencia - amplitud) >>> 63) << j;
+                    }
+                    resultado[p * PALABRAS_PAGINA + w] = bits & validas;
+                }
+            }
+            return new ConjuntoBits(resultado);
+        }
+
+        /**
+         * Filas de un autor (sin distinguir mayúsculas)
+         * @param autor el autor buscado
+         * @return el conjunto de IDs
+         */
+        public ConjuntoBits autorIgual(String autor) {
+            OptionalInt buscado = diccionarioAutores.buscar(IndicesArticulos.normalizar(autor));
+            if (buscado.isEmpty()) {
+                return ConjuntoBits.vacio();
+            }
+            int codigo = buscado.getAsInt();
+            long[] resultado = new long[paginas.length * PALABRAS_PAGINA];
+            for (int p = 0; p < paginas.length; p++) {
+                Pagina pagina = paginas[p];
+                if (pagina == null) {
+                    continue;
+                }
+                int[] autores = pagina.autores;
+                for (int w = 0; w < PALABRAS_PAGINA; w++) {
+                    long validas = pagina.vivas[w] & pagina.conAutor[w];
+                    if (validas == 0) {
+                        continue;
+                    }
+                    long bits = 0;
+                    int base = w << 6;
+                    for (int j = 0; j < 64; j++) {
+                        // Solo una diferencia nula resta por debajo de cero
+                        bits |= ((Integer.toUnsignedLong(autores[base + j] ^ codigo) - 1) >>> 63) << j;
+                    }
+                    resultado[p * PALABRAS_PAGINA + w] = bits & validas;
+                }
+            }
+            return new ConjuntoBits(resultado);
+        }
+
+        /**
+         * Filas que contienen una palabra clave (sin distinguir mayúsculas)
+         * @param palabraClave la palabra clave buscada
+         * @return el conjunto de IDs
+         */
+        public ConjuntoBits conPalabraClave(String palabraClave) {
+            return conAlgunaPalabraClave(List.of(palabraClave));
+        }
+
+        /**
+         * Filas que contienen alguna de varias palabras clave (sin distinguir mayúsculas). Vuelca
+         * todos los mapas comprimidos en un único resultado, en lugar de unir un mapa por palabra.
+         * @param palabrasClaves las palabras clave buscadas
+         * @return el conjunto de IDs
+         */
+        public ConjuntoBits conAlgunaPalabraClave(Collection<String> palabrasClaves) {
+            int[] codigos = palabrasClaves.stream()
+                .map(IndicesArticulos::normalizar)
+                .map(diccionarioPalabras::buscar)
+                .filter(OptionalInt::isPresent)
+                .mapToInt(OptionalInt::getAsInt)
+                .distinct()
+                .toArray();
+            if (codigos.length == 0) {
+                return ConjuntoBits.vacio();
+            }
+            long[] resultado = new long[paginas.length * PALABRAS_PAGINA];
+            for (int p = 0; p < paginas.length; p++) {
+                if (paginas[p] != null) {
+                    for (int codigo : codigos) {
+                        paginas[p].palabras.o(codigo, resultado, p * PALABRAS_PAGINA);
+                    }
+                }
+            }
+            return new ConjuntoBits(resultado);
+        }
+
+        /**
+         * Cuenta las filas seleccionadas con año, por año
+         * @param seleccion los IDs seleccionados
+         * @return el número de artículos de cada año, en orden de año
+         */
+        public SortedMap<Integer, Long> contarPorAnio(ConjuntoBits seleccion) {
+            SortedMap<Integer, Long> cuentas = new TreeMap<>();
+            int paginasRecorridas = paginasDe(seleccion);
+            int minimo = Integer.MAX_VALUE;
+            int maximo = Integer.MIN_VALUE;
+            for (int p = 0; p < paginasRecorridas; p++) {
+                if (paginas[p] != null) {
+                    minimo = Math.min(minimo, paginas[p].anioMinimo);
+                    maximo = Math.max(maximo, paginas[p].anioMaximo);
+                }
+            }
+            if (minimo > maximo) {
+                return cuentas;
+            }
+            boolean directo = (long) maximo - minimo < AMPLITUD_CONTEO_DIRECTO;
+            long[] porAnio = directo ? new long[maximo - minimo + 1] : null;
+            for (int p = 0; p < paginasRecorridas; p++) {
+                Pagina pagina = paginas[p];
+                if (pagina == null) {
+                    continue;
+                }
+                for (int w = 0; w < PALABRAS_PAGINA; w++) {
+                    long bits = seleccion.palabra(p * PALABRAS_PAGINA + w) & pagina.vivas[w] & pagina.conAnio[w];
+                    for (; bits != 0; bits &= bits - 1) {
+                        int anio = pagina.anios[(w << 6) | Long.numberOfTrailingZeros(bits)];
+                        if (directo) {
+                            porAnio[anio - minimo]++;
+                        } else {
+                            cuentas.merge(anio, 1L, Long::sum);
+                        }
+                    }
+                }
+            }
+            if (directo) {
+                for (int i = 0; i < porAnio.length; i++) {
+                    if (porAnio[i] > 0) {
+                        cuentas.put(minimo + i, porAnio[i]);
+                    }
+                }
+            }
+            return cuentas;
+        }
+
+        /**
+         * Cuenta las filas seleccionadas con autor, por autor
+         * @param seleccion los IDs seleccionados
+         * @return el número de artículos de cada autor (normalizado), en orden alfabético
+         */
+        public SortedMap<String, Long> contarPorAutor(ConjuntoBits seleccion) {
+            long[] porCodigo = new long[diccionarioAutores.tamanio()];
+            int paginasRecorridas = paginasDe(seleccion);
+            for (int p = 0; p < paginasRecorridas; p++) {
+                Pagina pagina = paginas[p];
+                if (pagina == null) {
+                    continue;
+                }
+                for (int w = 0; w < PALABRAS_PAGINA; w++) {
+                    long bits = seleccion.palabra(p * PALABRAS_PAGINA + w) & pagina.vivas[w] & pagina.conAutor[w];
+                    for (; bits != 0; bits &= bits - 1) {
+                        porCodigo[pagina.autores[(w << 6) | Long.numberOfTrailingZeros(bits)]]++;
+                    }
+                }
+            }
+            SortedMap<String, Long> cuentas = new TreeMap<>();
+            for (int codigo = 0; codigo < porCodigo.length; codigo++) {
+                if (porCodigo[codigo] > 0) {
+                    cuentas.put(diccionarioAutores.texto(codigo), porCodigo[codigo]);
+                }
+            }
+            return cuentas;
+        }
+
+        /**
+         * Número de páginas que cubre una selección
+         */
+        private int paginasDe(ConjuntoBits seleccion) {
+            return Math.min(paginas.length, (seleccion.numeroPalabras() + PALABRAS_PAGINA - 1) / PALABRAS_PAGINA);
+        }
+    }
+
+    private OptionalInt codificarAutor(ArtCientificoDTO articulo) {
+        return articulo.getAutor()
+            .map(IndicesArticulos::normalizar)
+            .map(texto -> OptionalInt.of(diccionarioAutores.codificar(texto)))
+            .orElse(OptionalInt.empty());
+    }
+
+    private int[] codificarPalabras(ArtCientificoDTO articulo) {
+        return articulo.getPalabrasClaves()
+            .map(lista -> lista.stream()
+                .map(IndicesArticulos::normalizar)
+                .distinct()
+                .mapToInt(diccionarioPalabras::codificar)
+                .toArray())
+            .orElse(new int[0]);
+    }
+
+    /**
+     * Códigos de las palabras clave de un artículo ya indexado; las que no están en el
+     * diccionario no pueden tener filas y se omiten
+     */
+    private int[] buscarPalabras(ArtCientificoDTO articulo) {
+        return articulo.getPalabrasClaves()
+            .map(lista -> lista.stream()
+                .map(IndicesArticulos::normalizar)
+                .map(diccionarioPalabras::buscar)
+                .filter(OptionalInt::isPresent)
+                .mapToInt(OptionalInt::getAsInt)
+                .distinct()
+                .toArray())
+            .orElse(new int[0]);
+    }
+
+    /**
+     * Aplica una escritura a una página con su cerrojo tomado, copiándola antes si una
+     * instantánea la tiene fijada
+     */
+    private static void escribir(Ranura ranura, Consumer<Pagina> escritura) {
+        synchronized (ranura) {
+            Pagina pagina = ranura.pagina;
+            if (pagina.congelada) {
+                pagina = new Pagina(pagina);
+                ranura.pagina = pagina;
+            }
+            escritura.accept(pagina);
+        }
+    }
+
+    private Ranura ranura(int numeroPagina) {
+        Ranura[] directorio = ranuras;
+        return numeroPagina < directorio.length ? directorio[numeroPagina] : null;
+    }
+
+    /**
+     * Obtiene la ranura de una página, reservándola si aún no existe. El directorio se copia con
+     * la ranura nueva y se publica de una vez; las ranuras existentes no cambian.
+     */
+    private Ranura reservar(int numeroPagina) {
+        Ranura ranura = ranura(numeroPagina);
+        if (ranura != null) {
+            return ranura;
+        }
+        synchronized (this) {
+            Ranura[] directorio = ranuras;
+            if (numeroPagina < directorio.length && directorio[numeroPagina] != null) {
+                return directorio[numeroPagina];
+            }
+            Ranura[] nuevo = numeroPagina < directorio.length ? directorio.clone()
+                : Arrays.copyOf(directorio, Math.max(numeroPagina + 1, directorio.length * 2));
+            nuevo[numeroPagina] = new Ranura();
+            ranuras = nuevo;
+            return nuevo[numeroPagina];
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package repository.indice;
+
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Índice secundario con las claves ordenadas, que además permite consultas por rango
+ * @param <K> el tipo del valor indexado
+ */
+public class IndiceOrdenado<K extends Comparable<K>> extends IndiceSecundario<K> {
+
+    /**
+     * Constructor que crea un índice basado en una skip list concurrente
+     */
+    public IndiceOrdenado() {
+        super(new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Vista de las entradas comprendidas en un rango cerrado
+     */
+    private ConcurrentNavigableMap<K, Set<Long>> rango(K desde, K hasta) {
+        return ((ConcurrentNavigableMap<K, Set<Long>>) entradas).subMap(desde, true, hasta, true);
+    }
+
+    /**
+     * Obtiene los IDs asociados a cualquier valor del rango [desde, hasta]
+     * @param desde el límite inferior (incluido)
+     * @param hasta el límite superior (incluido)
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> buscarRango(K desde, K hasta) {
+        return Optional.of(desde)
+            .filter(d -> d.compareTo(hasta) <= 0)
+            .map(d -> {
+                Set<Long> ids = new HashSet<>();
+                rango(desde, hasta).values().forEach(ids::addAll);
+                return ids;
+            })
+            .filter(ids -> !ids.isEmpty());
+    }
+
+    /**
+     * Número de artículos asociados a los valores del rango [desde, hasta]
+     * @param desde el límite inferior (incluido)
+     * @param hasta el límite superior (incluido)
+     * @return el número de IDs en el rango
+     */
+    public int contarRango(K desde, K hasta) {
+        return desde.compareTo(hasta) > 0
+            ? 0
+            : rango(desde, hasta).values().stream().mapToInt(Set::size).sum();
+    }
+}
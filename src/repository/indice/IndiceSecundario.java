@@ -0,0 +1,80 @@
+package repository.indice;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Índice secundario que asocia un valor de un campo con los IDs de los artículos que lo contienen.
+ * Es seguro para varios hilos: cada clave se modifica de forma atómica mediante compute.
+ * @param <K> el tipo del valor indexado
+ */
+public class IndiceSecundario<K> {
+
+    // Valor indexado -> conjunto de IDs de artículos
+    protected final ConcurrentMap<K, Set<Long>> entradas;
+
+    /**
+     * Constructor que crea un índice basado en tabla hash
+     */
+    public IndiceSecundario() {
+        this(new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Constructor que permite elegir el mapa subyacente (por ejemplo, uno ordenado)
+     * @param entradas el mapa concurrente donde se guardan las entradas
+     */
+    protected IndiceSecundario(ConcurrentMap<K, Set<Long>> entradas) {
+        this.entradas = entradas;
+    }
+
+    /**
+     * Asocia un ID con un valor del índice
+     * @param clave el valor indexado
+     * @param id el ID del artículo
+     */
+    public void agregar(K clave, Long id) {
+        entradas.compute(clave, (k, ids) -> {
+            Set<Long> destino = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            destino.add(id);
+            return destino;
+        });
+    }
+
+    /**
+     * Elimina la asociación entre un ID y un valor, descartando la entrada si queda vacía
+     * @param clave el valor indexado
+     * @param id el ID del artículo
+     */
+    public void quitar(K clave, Long id) {
+        entradas.computeIfPresent(clave, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Obtiene una copia de los IDs asociados a un valor.
+     * El coste es proporcional al número de resultados, no al tamaño de la colección.
+     * @param clave el valor buscado
+     * @return Optional con los IDs asociados o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> buscar(K clave) {
+        return Optional.ofNullable(entradas.get(clave))
+            .map(Set::copyOf)
+            .filter(ids -> !ids.isEmpty());
+    }
+
+    /**
+     * Número de artículos asociados a un valor (sin copiar el conjunto)
+     * @param clave el valor buscado
+     * @return el número de IDs asociados
+     */
+    public int contar(K clave) {
+        return Optional.ofNullable(entradas.get(clave))
+            .map(Set::size)
+            .orElse(0);
+    }
+}
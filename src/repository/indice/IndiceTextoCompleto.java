@@ -0,0 +1,272 @@
+package repository.indice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Índice invertido de texto completo sobre el nombre y el resumen de los artículos.
+ * Guarda, para cada término, los artículos que lo contienen y sus posiciones (postings posicionales),
+ * lo que permite recuperar los K artículos más relevantes según BM25 y resolver búsquedas de frases.
+ * Se mantiene de forma incremental y es seguro para varios hilos.
+ */
+public class IndiceTextoCompleto {
+
+    // Parámetros habituales de BM25
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    // Término -> (ID de artículo -> posiciones ordenadas del término en el artículo)
+    private final ConcurrentHashMap<String, ConcurrentHashMap<Long, int[]>> postings = new ConcurrentHashMap<>();
+
+    // Número de términos indexados de cada artículo
+    private final TablaPorId<Integer> longitudes = new TablaPorId<>();
+
+    // Suma de las longitudes de todos los artículos (para la longitud media de BM25)
+    private final AtomicLong longitudTotal = new AtomicLong();
+
+    /**
+     * Resultado de una búsqueda por relevancia
+     */
+    public static class PuntuacionTexto {
+        private final Long id;
+        private final double puntuacion;
+
+        PuntuacionTexto(Long id, double puntuacion) {
+            this.id = id;
+            this.puntuacion = puntuacion;
+        }
+
+        /**
+         * Obtiene el ID del artículo encontrado
+         * @return el ID del artículo
+         */
+        public Long getId() {
+            return id;
+        }
+
+        /**
+         * Obtiene la puntuación BM25 del artículo para la consulta
+         * @return la puntuación (mayor es más relevante)
+         */
+        public double getPuntuacion() {
+            return puntuacion;
+        }
+    }
+
+    /**
+     * Calcula las posiciones de cada término del artículo. El resumen empieza una posición después
+     * del final del nombre, de modo que una frase nunca se reconoce cruzando ambos campos.
+     */
+    private static Map<String, int[]> posicionesPorTermino(ArtCientificoDTO articulo) {
+        List<String> terminosNombre = AnalizadorTexto.tokenizar(articulo.getNombre());
+        List<String> terminosResumen = AnalizadorTexto.tokenizar(articulo.getResumen());
+
+        Map<String, List<Integer>> posiciones = new LinkedHashMap<>();
+        for (int i = 0; i < terminosNombre.size(); i++) {
+            posiciones.computeIfAbsent(terminosNombre.get(i), t -> new ArrayList<>()).add(i);
+        }
+        int desplazamiento = terminosNombre.size() + 1;
+        for (int i = 0; i < terminosResumen.size(); i++) {
+            posiciones.computeIfAbsent(terminosResumen.get(i), t -> new ArrayList<>()).add(desplazamiento + i);
+        }
+
+        return posiciones.entrySet().stream()
+            .collect(Collectors.toMap(
+                Map.Entry::getKey,
+                entrada -> entrada.getValue().stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Añade un artículo al índice
+     * @param articulo el artículo (debe tener ID)
+     */
+    public void indexar(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> {
+            Map<String, int[]> posiciones = posicionesPorTermino(articulo);
+            int longitud = posiciones.values().stream().mapToInt(p -> p.length).sum();
+
+            // Se inserta dentro de compute: así no puede caer en un mapa que desindexar acaba de
+            // descartar por quedar vacío
+            posiciones.forEach((termino, pos) ->
+                postings.compute(termino, (t, documentos) -> {
+                    ConcurrentHashMap<Long, int[]> destino = documentos != null ? documentos : new ConcurrentHashMap<>();
+                    destino.put(id, pos);
+                    return destino;
+                }));
+            longitudes.poner(id, longitud);
+            longitudTotal.addAndGet(longitud);
+        });
+    }
+
+    /**
+     * Quita un artículo del índice
+     * @param articulo el artículo tal y como fue indexado
+     */
+    public void desindexar(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> {
+            posicionesPorTermino(articulo).keySet().forEach(termino ->
+                postings.computeIfPresent(termino, (t, documentos) -> {
+                    documentos.remove(id);
+                    return documentos.isEmpty() ? null : documentos;
+                }));
+            Optional.ofNullable(longitudes.quitar(id)).ifPresent(longitud -> longitudTotal.addAndGet(-longitud));
+        });
+    }
+
+    /**
+     * Número de artículos que contienen un término ya normalizado
+     * @param termino el término
+     * @return la frecuencia de documento del término
+     */
+    public int frecuenciaDocumento(String termino) {
+        return Optional.ofNullable(postings.get(termino)).map(Map::size).orElse(0);
+    }
+
+    /**
+     * Estima cuántos artículos contienen todos los términos de un texto (cota superior)
+     * @param texto el texto cuyos términos se buscan
+     * @return la menor frecuencia de documento entre sus términos
+     */
+    public int estimarTodos(String texto) {
+        return AnalizadorTexto.tokenizar(Optional.of(texto)).stream()
+            .mapToInt(this::frecuenciaDocumento)
+            .min()
+            .orElse(0);
+    }
+
+    /**
+     * IDs de los artículos que contienen todos los términos de un texto
+     * @param texto el texto cuyos términos se buscan
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> idsConTodos(String texto) {
+        return documentosConTodos(AnalizadorTexto.tokenizar(Optional.of(texto)))
+            .map(documentos -> Set.copyOf(documentos.keySet()))
+            .filter(ids -> !ids.isEmpty());
+    }
+
+    /**
+     * Busca los artículos más relevantes para una consulta según BM25
+     * @param consulta el texto de la consulta
+     * @param limite el número máximo de resultados
+     * @return los resultados ordenados de mayor a menor puntuación
+     */
+    public List<PuntuacionTexto> buscar(String consulta, int limite) {
+        Map<Long, Double> puntuaciones = new HashMap<>();
+        AnalizadorTexto.tokenizar(Optional.of(consulta)).stream()
+            .distinct()
+            .forEach(termino -> Optional.ofNullable(postings.get(termino))
+                .ifPresent(documentos -> {
+                    double idf = idf(documentos.size());
+                    documentos.forEach((id, posiciones) ->
+                        puntuaciones.merge(id, idf * tf(posiciones.length, id), Double::sum));
+                }));
+        return mejores(puntuaciones, limite);
+    }
+
+    /**
+     * Busca los artículos que contienen una frase exacta (términos consecutivos),
+     * ordenados por su puntuación BM25 respecto a los términos de la frase
+     * @param frase la frase buscada
+     * @param limite el número máximo de resultados
+     * @return los resultados ordenados de mayor a menor puntuación
+     */
+    public List<PuntuacionTexto> buscarFrase(String frase, int limite) {
+        List<String> terminos = AnalizadorTexto.tokenizar(Optional.of(frase));
+        Map<Long, Double> puntuaciones = new HashMap<>();
+
+        documentosConTodos(terminos).ifPresent(candidatos -> candidatos.keySet().forEach(id -> {
+            List<int[]> posiciones = terminos.stream()
+                .map(termino -> Optional.ofNullable(postings.get(termino)).map(d -> d.get(id)).orElse(null))
+                .collect(Collectors.toList());
+            if (!posiciones.contains(null) && contieneFrase(posiciones)) {
+                double puntuacion = terminos.stream().distinct()
+                    .mapToDouble(termino -> idf(frecuenciaDocumento(termino))
+                        * tf(posiciones.get(terminos.indexOf(termino)).length, id))
+                    .sum();
+                puntuaciones.put(id, puntuacion);
+            }
+        }));
+        return mejores(puntuaciones, limite);
+    }
+
+    /**
+     * Comprueba si las posiciones de los términos forman una secuencia consecutiva
+     * @param posiciones posiciones ordenadas de cada término de la frase, en orden
+     */
+    private static boolean contieneFrase(List<int[]> posiciones) {
+        return Arrays.stream(posiciones.get(0))
+            .anyMatch(inicio -> {
+                for (int i = 1; i < posiciones.size(); i++) {
+                    if (Arrays.binarySearch(posiciones.get(i), inicio + i) < 0) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+    }
+
+    /**
+     * Obtiene los postings del término menos frecuente, filtrados a los artículos que contienen
+     * también el resto de términos (intersección partiendo de la lista más corta)
+     */
+    private Optional<Map<Long, int[]>> documentosConTodos(List<String> terminos) {
+        if (terminos.isEmpty()) {
+            return Optional.empty();
+        }
+        List<Map<Long, int[]>> listas = terminos.stream().distinct()
+            .map(termino -> Optional.<Map<Long, int[]>>ofNullable(postings.get(termino)).orElse(Map.of()))
+            .sorted(Comparator.comparingInt(Map::size))
+            .collect(Collectors.toList());
+
+        Map<Long, int[]> resultado = new HashMap<>();
+        listas.get(0).forEach((id, posiciones) -> {
+            if (listas.stream().skip(1).allMatch(lista -> lista.containsKey(id))) {
+                resultado.put(id, posiciones);
+            }
+        });
+        return Optional.of(resultado).filter(r -> !r.isEmpty());
+    }
+
+    private double idf(int frecuenciaDocumento) {
+        int total = longitudes.tamanio();
+        return Math.log(1 + (total - frecuenciaDocumento + 0.5) / (frecuenciaDocumento + 0.5));
+    }
+
+    private double tf(int frecuencia, Long id) {
+        double longitudMedia = Math.max(1.0, (double) longitudTotal.get() / Math.max(1, longitudes.tamanio()));
+        Integer longitud = longitudes.obtener(id);
+        return frecuencia * (K1 + 1) / (frecuencia + K1 * (1 - B + B * (longitud == null ? 0 : longitud) / longitudMedia));
+    }
+
+    /**
+     * Selecciona los K mejores resultados con un montículo acotado
+     */
+    private static List<PuntuacionTexto> mejores(Map<Long, Double> puntuaciones, int limite) {
+        Comparator<PuntuacionTexto> orden = Comparator.comparingDouble(PuntuacionTexto::getPuntuacion).reversed()
+            .thenComparing(PuntuacionTexto::getId);
+        PriorityQueue<PuntuacionTexto> monticulo = new PriorityQueue<>(Math.max(1, limite + 1), orden.reversed());
+        puntuaciones.forEach((id, puntuacion) -> {
+            monticulo.offer(new PuntuacionTexto(id, puntuacion));
+            if (monticulo.size() > limite) {
+                monticulo.poll();
+            }
+        });
+        List<PuntuacionTexto> resultado = new ArrayList<>(monticulo);
+        resultado.sort(orden);
+        return resultado;
+    }
+}
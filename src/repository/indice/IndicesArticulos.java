@@ -0,0 +1,183 @@
+package repository.indice;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Agrupa los índices secundarios de los artículos: autor, año, cada palabra clave,
+ * el índice de texto completo sobre nombre y resumen y la copia por columnas para los escaneos.
+ * Los repositorios lo actualizan dentro de crearNuevo, actualizar, eliminar y restaurar.
+ */
+public class IndicesArticulos {
+
+    private final IndiceSecundario<String> porAutor = new IndiceSecundario<>();
+    private final IndiceOrdenado<Integer> porAnio = new IndiceOrdenado<>();
+    private final IndiceSecundario<String> porPalabraClave = new IndiceSecundario<>();
+    private final IndiceTextoCompleto texto = new IndiceTextoCompleto();
+    private final IndiceColumnar columnas = new IndiceColumnar();
+
+    /**
+     * Normaliza un texto para usarlo como clave de índice (sin espacios extremos y en minúsculas)
+     * @param texto el texto a normalizar
+     * @return el texto normalizado
+     */
+    public static String normalizar(String texto) {
+        return texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Añade un artículo a todos los índices
+     * @param articulo el artículo (debe tener ID)
+     */
+    public void indexar(ArtCientificoDTO articulo) {
+        indexarSalvoColumnas(articulo);
+        columnas.agregar(articulo);
+    }
+
+    private void indexarSalvoColumnas(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> {
+            articulo.getAutor().map(IndicesArticulos::normalizar).ifPresent(autor -> porAutor.agregar(autor, id));
+            articulo.getAnio().ifPresent(anio -> porAnio.agregar(anio, id));
+            articulo.getPalabrasClaves().ifPresent(palabras -> palabras.stream()
+                .map(IndicesArticulos::normalizar)
+                .distinct()
+                .forEach(palabra -> porPalabraClave.agregar(palabra, id)));
+        });
+        texto.indexar(articulo);
+    }
+
+    /**
+     * Quita un artículo de todos los índices
+     * @param articulo el artículo tal y como fue indexado
+     */
+    public void desindexar(ArtCientificoDTO articulo) {
+        desindexarSalvoColumnas(articulo);
+        columnas.quitar(articulo);
+    }
+
+    /**
+     * Sustituye la versión anterior de un artículo por la nueva en los índices. En las columnas
+     * la sustitución es atómica: ningún escaneo ve el artículo ausente entre ambas versiones.
+     * @param anterior la versión indexada actualmente
+     * @param nuevo la nueva versión
+     */
+    public void reindexar(ArtCientificoDTO anterior, ArtCientificoDTO nuevo) {
+        desindexarSalvoColumnas(anterior);
+        indexarSalvoColumnas(nuevo);
+        columnas.reemplazar(anterior, nuevo);
+    }
+
+    private void desindexarSalvoColumnas(ArtCientificoDTO articulo) {
+        articulo.getId().ifPresent(id -> {
+            articulo.getAutor().map(IndicesArticulos::normalizar).ifPresent(autor -> porAutor.quitar(autor, id));
+            articulo.getAnio().ifPresent(anio -> porAnio.quitar(anio, id));
+            articulo.getPalabrasClaves().ifPresent(palabras -> palabras.stream()
+                .map(IndicesArticulos::normalizar)
+                .forEach(palabra -> porPalabraClave.quitar(palabra, id)));
+        });
+        texto.desindexar(articulo);
+    }
+
+    /**
+     * Obtiene el índice de texto completo sobre nombre y resumen
+     * @return el índice de texto completo
+     */
+    public IndiceTextoCompleto getTexto() {
+        return texto;
+    }
+
+    /**
+     * Obtiene la copia por columnas de año, autor y palabras clave
+     * @return el índice columnar
+     */
+    public IndiceColumnar getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * IDs de los artículos de un autor
+     * @param autor el autor buscado
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> idsPorAutor(String autor) {
+        return porAutor.buscar(normalizar(autor));
+    }
+
+    /**
+     * IDs de los artículos publicados en un año
+     * @param anio el año buscado
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> idsPorAnio(Integer anio) {
+        return porAnio.buscar(anio);
+    }
+
+    /**
+     * IDs de los artículos publicados en un rango de años
+     * @param desde el año inicial (incluido)
+     * @param hasta el año final (incluido)
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> idsPorAnioEntre(Integer desde, Integer hasta) {
+        return porAnio.buscarRango(desde, hasta);
+    }
+
+    /**
+     * IDs de los artículos que contienen una palabra clave
+     * @param palabraClave la palabra clave buscada
+     * @return Optional con los IDs o vacío si no hay ninguno
+     */
+    public Optional<Set<Long>> idsPorPalabraClave(String palabraClave) {
+        return porPalabraClave.buscar(normalizar(palabraClave));
+    }
+
+    /**
+     * Número de artículos de un autor
+     * @param autor el autor buscado
+     * @return el número de artículos indexados para ese autor
+     */
+    public int contarPorAutor(String autor) {
+        return porAutor.contar(normalizar(autor));
+    }
+
+    /**
+     * Número de artículos publicados en un rango de años
+     * @param desde el año inicial (incluido)
+     * @param hasta el año final (incluido)
+     * @return el número de artículos indexados en el rango
+     */
+    public int contarPorAnioEntre(Integer desde, Integer hasta) {
+        return porAnio.contarRango(desde, hasta);
+    }
+
+    /**
+     * Número de artículos que contienen una palabra clave
+     * @param palabraClave la palabra clave buscada
+     * @return el número de artículos indexados con esa palabra clave
+     */
+    public int contarPorPalabraClave(String palabraClave) {
+        return porPalabraClave.contar(normalizar(palabraClave));
+    }
+
+    /**
+     * Convierte un conjunto de IDs en la lista de artículos correspondiente
+     * @param ids los IDs a resolver
+     * @param resolver función que obtiene un artículo a partir de su ID
+     * @return Optional con la lista de artículos o vacío si no se resolvió ninguno
+     */
+    public static Optional<List<ArtCientificoDTO>> resolver(Optional<Set<Long>> ids,
+            Function<Long, Optional<ArtCientificoDTO>> resolver) {
+        return ids.map(conjunto -> conjunto.stream()
+                .sorted()
+                .map(resolver)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList()))
+            .filter(lista -> !lista.isEmpty());
+    }
+}
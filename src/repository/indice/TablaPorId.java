@@ -0,0 +1,269 @@
+package repository.indice;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Tabla indexada por ID de artículo que sustituye a un Map&lt;Long, V&gt;: los IDs salen densos
+ * del generador, así que cada valor se guarda en la posición de su ID dentro de páginas de
+ * tamaño fijo que se reservan al primer uso. No hay claves Long ni nodos por entrada: cada
+ * entrada ocupa una referencia, y las páginas de IDs que nunca se usaron no ocupan nada.
+ * <p>
+ * Es segura para varios hilos: las lecturas no bloquean y las escrituras de IDs distintos no
+ * compiten (cada posición es atómica). El directorio de páginas se copia al añadir una página,
+ * una vez cada TAMANIO_PAGINA IDs, y se publica en un campo volatile. Las páginas no se liberan
+ * aunque se vacíen, porque los IDs eliminados se pueden restaurar.
+ * <p>
+ * Los recorridos son en orden de ID y no reservan objetos por entrada; reflejan las escrituras
+ * concurrentes que alcancen, como los iteradores de las colecciones concurrentes.
+ * @param <V> el tipo de los valores
+ */
+public final class TablaPorId<V> {
+
+    private static final int BITS_PAGINA = 12;
+    private static final int TAMANIO_PAGINA = 1 << BITS_PAGINA;
+    private static final int MASCARA_PAGINA = TAMANIO_PAGINA - 1;
+
+    // Páginas como máximo: el tamaño máximo de un array
+    private static final int MAXIMO_PAGINAS = Integer.MAX_VALUE - 8;
+
+    // ID máximo admitido
+    public static final long ID_MAXIMO = ((long) MAXIMO_PAGINAS << BITS_PAGINA) - 1;
+
+    /**
+     * Recibe cada entrada de un recorrido, con el ID sin boxing
+     * @param <V> el tipo de los valores
+     */
+    @FunctionalInterface
+    public interface VisitanteId<V> {
+        void visitar(long id, V valor);
+    }
+
+    private volatile AtomicReferenceArray<V>[] paginas = nuevoDirectorio(16);
+    private final LongAdder ocupadas = new LongAdder();
+
+    /**
+     * Crea un directorio vacío. Java no admite arrays de un tipo genérico: se crea el array del
+     * tipo sin parámetros y se convierte, lo que es seguro porque nunca sale de la tabla.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static <V> AtomicReferenceArray<V>[] nuevoDirectorio(int tamanio) {
+        return (AtomicReferenceArray<V>[]) new AtomicReferenceArray[tamanio];
+    }
+
+    /**
+     * Obtiene el valor de un ID
+     * @param id el ID
+     * @return el valor, o null si no hay ninguno (como Map.get)
+     */
+    public V obtener(long id) {
+        AtomicReferenceArray<V> pagina = pagina(id);
+        return pagina == null ? null : pagina.get((int) id & MASCARA_PAGINA);
+    }
+
+    /**
+     * Comprueba si un ID tiene valor
+     * @param id el ID
+     * @return true si lo tiene
+     */
+    public boolean contiene(long id) {
+        return obtener(id) != null;
+    }
+
+    /**
+     * Asigna el valor de un ID
+     * @param id el ID, entre 0 e ID_MAXIMO
+     * @param valor el valor, no nulo
+     * @return el valor anterior, o null si no había
+     * @throws IllegalArgumentException si el ID está fuera de rango
+     */
+    public V poner(long id, V valor) {
+        V anterior = reservar(id).getAndSet((int) id & MASCARA_PAGINA, valor);
+        if (anterior == null) {
+            ocupadas.increment();
+        }
+        return anterior;
+    }
+
+    /**
+     * Asigna el valor de un ID solo si no tenía ninguno
+     * @param id el ID, entre 0 e ID_MAXIMO
+     * @param valor el valor, no nulo
+     * @return el valor que ya tenía, o null si se asignó
+     * @throws IllegalArgumentException si el ID está fuera de rango
+     */
+    public V ponerSiAusente(long id, V valor) {
+        AtomicReferenceArray<V> pagina = reservar(id);
+        int posicion = (int) id & MASCARA_PAGINA;
+        while (true) {
+            if (pagina.compareAndSet(posicion, null, valor)) {
+                ocupadas.increment();
+                return null;
+            }
+            V actual = pagina.get(posicion);
+            if (actual != null) {
+                return actual;
+            }
+        }
+    }
+
+    /**
+     * Quita el valor de un ID
+     * @param id el ID
+     * @return el valor quitado, o null si no había
+     */
+    public V quitar(long id) {
+        AtomicReferenceArray<V> pagina = pagina(id);
+        V anterior = pagina == null ? null : pagina.getAndSet((int) id & MASCARA_PAGINA, null);
+        if (anterior != null) {
+            ocupadas.decrement();
+        }
+        return anterior;
+    }
+
+    /**
+     * Número de IDs con valor
+     * @return el número de entradas
+     */
+    public int tamanio() {
+        return (int) Math.min(Integer.MAX_VALUE, ocupadas.sum());
+    }
+
+    /**
+     * Entrega las entradas en orden de ID
+     * @param visitante quien recibe cada entrada
+     */
+    public void recorrer(VisitanteId<? super V> visitante) {
+        AtomicReferenceArray<V>[] directorio = paginas;
+        for (int p = 0; p < directorio.length; p++) {
+            AtomicReferenceArray<V> pagina = directorio[p];
+            if (pagina != null) {
+                for (int i = 0; i < TAMANIO_PAGINA; i++) {
+                    V valor = pagina.get(i);
+                    if (valor != null) {
+                        visitante.visitar(((long) p << BITS_PAGINA) | i, valor);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Obtiene el primer ID con valor igual o posterior al indicado, saltando las páginas sin reservar
+     * @param desde el ID inicial
+     * @return el ID, o -1 si no hay ninguno
+     */
+    public long siguienteId(long desde) {
+        long id = Math.max(0, desde);
+        if (id > ID_MAXIMO) {
+            return -1;
+        }
+        AtomicReferenceArray<V>[] directorio = paginas;
+        for (int p = (int) (id >>> BITS_PAGINA); p < directorio.length; p++) {
+            AtomicReferenceArray<V> pagina = directorio[p];
+            if (pagina != null) {
+                for (int i = p == id >>> BITS_PAGINA ? (int) id & MASCARA_PAGINA : 0; i < TAMANIO_PAGINA; i++) {
+                    if (pagina.get(i) != null) {
+                        return ((long) p << BITS_PAGINA) | i;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Recorre los IDs con valor posteriores a uno dado, en orden y sin boxing
+     * @param id el ID tras el que se empieza (-1 para empezar desde el principio)
+     * @return el iterador de IDs
+     */
+    public PrimitiveIterator.OfLong idsDespuesDe(long id) {
+        return new PrimitiveIterator.OfLong() {
+            private long siguiente = id >= ID_MAXIMO ? -1 : siguienteId(id + 1);
+
+            @Override
+            public boolean hasNext() {
+                return siguiente >= 0;
+            }
+
+            @Override
+            public long nextLong() {
+                if (siguiente < 0) {
+                    throw new NoSuchElementException();
+                }
+                long actual = siguiente;
+                siguiente = actual == ID_MAXIMO ? -1 : siguienteId(actual + 1);
+                return actual;
+            }
+        };
+    }
+
+    /**
+     * Recorre los valores en orden de ID de forma perezosa, sin copiar la tabla
+     * @return el stream secuencial de valores
+     */
+    public Stream<V> valores() {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<V>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            private long siguiente = 0;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super V> accion) {
+                while (siguiente >= 0) {
+                    long id = siguienteId(siguiente);
+                    siguiente = id < 0 || id == ID_MAXIMO ? -1 : id + 1;
+                    // Un ID puede quedarse sin valor entre siguienteId y la lectura
+                    V valor = id < 0 ? null : obtener(id);
+                    if (valor != null) {
+                        accion.accept(valor);
+                        return true;
+                    }
+                }
+                return false;
+            }
+        }, false);
+    }
+
+    private AtomicReferenceArray<V> pagina(long id) {
+        if (id < 0 || id > ID_MAXIMO) {
+            return null;
+        }
+        AtomicReferenceArray<V>[] directorio = paginas;
+        int p = (int) (id >>> BITS_PAGINA);
+        return p < directorio.length ? directorio[p] : null;
+    }
+
+    /**
+     * Obtiene la página de un ID, reservándola si aún no existe
+     */
+    private AtomicReferenceArray<V> reservar(long id) {
+        AtomicReferenceArray<V> pagina = pagina(id);
+        if (pagina != null) {
+            return pagina;
+        }
+        if (id < 0 || id > ID_MAXIMO) {
+            throw new IllegalArgumentException("ID fuera de rango: " + id);
+        }
+        synchronized (this) {
+            AtomicReferenceArray<V>[] directorio = paginas;
+            int p = (int) (id >>> BITS_PAGINA);
+            if (p < directorio.length && directorio[p] != null) {
+                return directorio[p];
+            }
+            // Copia del directorio con la página nueva, publicada de una vez
+            AtomicReferenceArray<V>[] nuevo = Arrays.copyOf(directorio,
+                p < directorio.length ? directorio.length : (int) Math.min(MAXIMO_PAGINAS, Math.max(p + 1L, directorio.length * 2L)));
+            nuevo[p] = new AtomicReferenceArray<>(TAMANIO_PAGINA);
+            paginas = nuevo;
+            return nuevo[p];
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package repository.persistencia;
+
+import java.util.function.Consumer;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+
+/**
+ * Estado del repositorio en un instante concreto, tal como se guarda en una instantánea
+ */
+public interface ContenidoInstantanea {
+
+    /**
+     * Siguiente ID que entregará el generador en el instante de la instantánea
+     * @return el siguiente ID
+     */
+    long getSiguienteId();
+
+    /**
+     * Entrega cada artículo existente en el instante de la instantánea
+     * @param destino el consumidor que recibe los artículos
+     */
+    void recorrerArticulos(Consumer<ArtCientificoDTO> destino);
+
+    /**
+     * Entrega, en orden, cada evento del historial registrado hasta el instante de la instantánea
+     * @param destino el consumidor que recibe los eventos
+     */
+    void recorrerEventos(Consumer<EventoHistorial> destino);
+}
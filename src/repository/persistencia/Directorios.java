@@ -0,0 +1,30 @@
+package repository.persistencia;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Operaciones sobre los directorios de la persistencia
+ */
+final class Directorios {
+
+    private Directorios() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Fuerza a disco las entradas del directorio que contiene un archivo. Crear o renombrar un
+     * archivo solo modifica el directorio, así que sin esto el archivo creado o el renombrado
+     * pueden desaparecer tras un corte de corriente aunque su contenido ya esté en disco.
+     * @param archivo el archivo creado o renombrado
+     * @throws IOException si no se puede abrir o sincronizar el directorio
+     */
+    static void sincronizarPadre(Path archivo) throws IOException {
+        Path directorio = archivo.toAbsolutePath().getParent();
+        try (FileChannel canal = FileChannel.open(directorio, StandardOpenOption.READ)) {
+            canal.force(true);
+        }
+    }
+}
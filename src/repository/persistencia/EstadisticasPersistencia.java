@@ -0,0 +1,100 @@
+package repository.persistencia;
+
+/**
+ * Estadísticas de la recuperación y de la escritura del log de un repositorio persistente
+ */
+public class EstadisticasPersistencia {
+
+    private final long registrosReproducidos;
+    private final long milisRecuperacion;
+    private final long articulosInstantanea;
+    private final long milisInstantanea;
+    private final long registrosAnotados;
+    private final long volcados;
+    private final long bytesEscritos;
+
+    /**
+     * Constructor con los valores medidos
+     */
+    public EstadisticasPersistencia(long registrosReproducidos, long milisRecuperacion,
+                                    long articulosInstantanea, long milisInstantanea,
+                                    long registrosAnotados, long volcados, long bytesEscritos) {
+        this.registrosReproducidos = registrosReproducidos;
+        this.milisRecuperacion = milisRecuperacion;
+        this.articulosInstantanea = articulosInstantanea;
+        this.milisInstantanea = milisInstantanea;
+        this.registrosAnotados = registrosAnotados;
+        this.volcados = volcados;
+        this.bytesEscritos = bytesEscritos;
+    }
+
+    /**
+     * Número de registros del log aplicados al arrancar (solo la cola posterior a la instantánea)
+     * @return los registros reproducidos
+     */
+    public long getRegistrosReproducidos() {
+        return registrosReproducidos;
+    }
+
+    /**
+     * Tiempo que tardó la recuperación al arrancar
+     * @return la duración en milisegundos
+     */
+    public long getMilisRecuperacion() {
+        return milisRecuperacion;
+    }
+
+    /**
+     * Número de artículos cargados desde la instantánea al arrancar
+     * @return los artículos cargados (0 si no había instantánea)
+     */
+    public long getArticulosInstantanea() {
+        return articulosInstantanea;
+    }
+
+    /**
+     * Tiempo que tardó la carga de la instantánea al arrancar (incluido en la recuperación)
+     * @return la duración en milisegundos
+     */
+    public long getMilisInstantanea() {
+        return milisInstantanea;
+    }
+
+    /**
+     * Número de registros anotados desde el arranque
+     * @return los registros anotados
+     */
+    public long getRegistrosAnotados() {
+        return registrosAnotados;
+    }
+
+    /**
+     * Número de volcados a disco (fsync) realizados desde el arranque.
+     * Con commit en grupo es menor que el número de registros anotados.
+     * @return los volcados realizados
+     */
+    public long getVolcados() {
+        return volcados;
+    }
+
+    /**
+     * Bytes escritos en el log desde el arranque
+     * @return los bytes escritos
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    @Override
+    public String toString() {
+        return "EstadisticasPersistencia{" +
+                "registrosReproducidos=" + registrosReproducidos +
+                ", milisRecuperacion=" + milisRecuperacion +
+                ", articulosInstantanea=" + articulosInstantanea +
+                ", milisInstantanea=" + milisInstantanea +
+                ", registrosAnotados=" + registrosAnotados +
+                ", volcados=" + volcados +
+                ", bytesEscritos=" + bytesEscritos +
+                '}';
+    }
+}
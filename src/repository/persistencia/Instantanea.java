@@ -0,0 +1,301 @@
+package repository.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import dto.ArtCientificoDTO;
+import repository.EventoHistorial;
+import repository.codec.CodecArticulo;
+import repository.codec.CodecEvento;
+
+/**
+ * Instantánea binaria del estado del repositorio (artículos, historial y siguiente ID).
+ * <p>
+ * El archivo empieza con una cabecera fija: marca (int), versión (int) y CRC32 del cuerpo (long).
+ * El cuerpo contiene el segmento del log a partir del cual hay que reproducir, el siguiente ID y
+ * una secuencia de entradas terminada por un marcador de fin. Cada entrada lleva un marcador
+ * (artículo o evento), su longitud (int) y el artículo o evento en el formato de repository.codec,
+ * que se codifica y decodifica sobre un buffer reutilizado entre entradas. Se escribe en
+ * un archivo temporal que se renombra al terminar, de modo que una instantánea a medio escribir
+ * nunca sustituye a la anterior.
+ */
+public final class Instantanea {
+
+    private static final int MARCA = 0x41435353;
+    private static final int VERSION = 2;
+
+    // Posición del CRC dentro de la cabecera y tamaño total de la cabecera
+    private static final int POSICION_CRC = Integer.BYTES * 2;
+    private static final int TAMANIO_CABECERA = POSICION_CRC + Long.BYTES;
+
+    // Marcadores de las entradas del cuerpo
+    private static final int FIN = 0;
+    private static final int ARTICULO = 1;
+    private static final int EVENTO = 2;
+
+    private static final int TAMANIO_BUFFER = 1 << 16;
+
+    private Instantanea() {
+        // Constructor privado para evitar instanciación
+    }
+
+    /**
+     * Resumen de una instantánea escrita o cargada
+     */
+    public static class Resumen {
+        private final long segmento;
+        private final long siguienteId;
+        private final long articulos;
+        private final long eventos;
+        private final long bytes;
+        private final long milis;
+
+        private Resumen(long segmento, long siguienteId, long articulos, long eventos, long bytes, long milis) {
+            this.segmento = segmento;
+            this.siguienteId = siguienteId;
+            this.articulos = articulos;
+            this.eventos = eventos;
+            this.bytes = bytes;
+            this.milis = milis;
+        }
+
+        /**
+         * Primer segmento del log que no está incluido en la instantánea
+         * @return el número de segmento
+         */
+        public long getSegmento() {
+            return segmento;
+        }
+
+        /**
+         * Siguiente ID del generador en el instante de la instantánea
+         * @return el siguiente ID
+         */
+        public long getSiguienteId() {
+            return siguienteId;
+        }
+
+        /**
+         * Número de artículos de la instantánea
+         * @return los artículos
+         */
+        public long getArticulos() {
+            return articulos;
+        }
+
+        /**
+         * Número de eventos del historial de la instantánea
+         * @return los eventos
+         */
+        public long getEventos() {
+            return eventos;
+        }
+
+        /**
+         * Tamaño del archivo de la instantánea
+         * @return el tamaño en bytes
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Tiempo que tardó la escritura o la carga
+         * @return la duración en milisegundos
+         */
+        public long getMilis() {
+            return milis;
+        }
+
+        @Override
+        public String toString() {
+            return "Instantanea{" +
+                    "segmento=" + segmento +
+                    ", siguienteId=" + siguienteId +
+                    ", articulos=" + articulos +
+                    ", eventos=" + eventos +
+                    ", bytes=" + bytes +
+                    ", milis=" + milis +
+                    '}';
+        }
+    }
+
+    /**
+     * Escribe una instantánea de forma atómica: primero en un temporal y después se renombra.
+     * Al volver, el contenido y el renombrado ya son durables, así que se puede borrar lo que cubre.
+     * @param ruta la ruta final de la instantánea
+     * @param segmento el primer segmento del log posterior a la instantánea
+     * @param contenido el estado a guardar
+     * @return el resumen de la instantánea escrita
+     * @throws UncheckedIOException si no se puede escribir
+     */
+    public static Resumen escribir(Path ruta, long segmento, ContenidoInstantanea contenido) {
+        long inicio = System.nanoTime();
+        Path temporal = ruta.resolveSibling(ruta.getFileName() + ".tmp");
+        long[] cuentas = new long[2];
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer cabecera = ByteBuffer.allocate(TAMANIO_CABECERA)
+                .putInt(MARCA).putInt(VERSION).putLong(0L);
+            cabecera.flip();
+            while (cabecera.hasRemaining()) {
+                canal.write(cabecera);
+            }
+
+            CRC32 crc = new CRC32();
+            DataOutputStream salida = new DataOutputStream(new BufferedOutputStream(
+                new CheckedOutputStream(Channels.newOutputStream(canal), crc), TAMANIO_BUFFER));
+            salida.writeLong(segmento);
+            salida.writeLong(contenido.getSiguienteId());
+            BufferEntrada buffer = new BufferEntrada();
+            contenido.recorrerArticulos(articulo -> escribirEntrada(() -> {
+                ByteBuffer entrada = buffer.preparar(CodecArticulo.tamanio(articulo));
+                CodecArticulo.codificar(articulo, entrada);
+                buffer.escribir(salida, ARTICULO);
+                cuentas[0]++;
+            }));
+            contenido.recorrerEventos(evento -> escribirEntrada(() -> {
+                ByteBuffer entrada = buffer.preparar(CodecEvento.tamanio(evento));
+                CodecEvento.codificar(evento, entrada);
+                buffer.escribir(salida, EVENTO);
+                cuentas[1]++;
+            }));
+            salida.writeByte(FIN);
+            salida.flush();
+
+            ByteBuffer valorCrc = ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue());
+            valorCrc.flip();
+            canal.write(valorCrc, POSICION_CRC);
+            canal.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir la instantánea " + temporal, e);
+        } catch (UncheckedIOException e) {
+            throw new UncheckedIOException("No se pudo escribir la instantánea " + temporal, e.getCause());
+        }
+
+        try {
+            Files.move(temporal, ruta, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            // El renombrado debe ser durable antes de que se borre lo que la instantánea cubre
+            Directorios.sincronizarPadre(ruta);
+            return new Resumen(segmento, contenido.getSiguienteId(), cuentas[0], cuentas[1],
+                Files.size(ruta), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar la instantánea " + ruta, e);
+        }
+    }
+
+    /**
+     * Carga una instantánea entregando cada artículo y cada evento, en el orden en que se guardaron.
+     * El CRC se comprueba al terminar: si no coincide se lanza una excepción y el estado cargado
+     * hasta ese momento no debe usarse.
+     * @param ruta la ruta de la instantánea
+     * @param articulos el consumidor que recibe los artículos
+     * @param eventos el consumidor que recibe los eventos del historial
+     * @return el resumen de la instantánea cargada
+     * @throws UncheckedIOException si no se puede leer o está dañada
+     */
+    public static Resumen cargar(Path ruta, Consumer<ArtCientificoDTO> articulos, Consumer<EventoHistorial> eventos) {
+        long inicio = System.nanoTime();
+        try (InputStream archivo = Files.newInputStream(ruta)) {
+            DataInputStream cabecera = new DataInputStream(archivo);
+            if (cabecera.readInt() != MARCA || cabecera.readInt() != VERSION) {
+                throw new IOException("Formato de instantánea no reconocido");
+            }
+            long crcEsperado = cabecera.readLong();
+
+            CRC32 crc = new CRC32();
+            DataInputStream entrada = new DataInputStream(new BufferedInputStream(
+                new CheckedInputStream(archivo, crc), TAMANIO_BUFFER));
+            long segmento = entrada.readLong();
+            long siguienteId = entrada.readLong();
+            long totalArticulos = 0;
+            long totalEventos = 0;
+            BufferEntrada buffer = new BufferEntrada();
+            int marcador;
+            while ((marcador = entrada.readUnsignedByte()) != FIN) {
+                if (marcador == ARTICULO) {
+                    articulos.accept(CodecArticulo.decodificar(buffer.leer(entrada)));
+                    totalArticulos++;
+                } else if (marcador == EVENTO) {
+                    eventos.accept(CodecEvento.decodificar(buffer.leer(entrada)));
+                    totalEventos++;
+                } else {
+                    throw new IOException("Entrada desconocida en la instantánea: " + marcador);
+                }
+            }
+            if (entrada.read() != -1 || crc.getValue() != crcEsperado) {
+                throw new IOException("La instantánea está dañada (CRC incorrecto)");
+            }
+            return new Resumen(segmento, siguienteId, totalArticulos, totalEventos,
+                Files.size(ruta), (System.nanoTime() - inicio) / 1_000_000);
+        } catch (IOException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new UncheckedIOException("No se pudo cargar la instantánea " + ruta,
+                e instanceof IOException io ? io : new IOException(e));
+        }
+    }
+
+    /**
+     * Escritura de una entrada que puede fallar con IOException
+     */
+    @FunctionalInterface
+    private interface Escritura {
+        void ejecutar() throws IOException;
+    }
+
+    private static void escribirEntrada(Escritura escritura) {
+        try {
+            escritura.ejecutar();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Buffer reutilizado para codificar o decodificar cada entrada; solo crece cuando una entrada
+     * no cabe, de modo que recorrer la instantánea no reserva un array por entrada
+     */
+    private static final class BufferEntrada {
+        private ByteBuffer buffer = ByteBuffer.allocate(1024);
+
+        private ByteBuffer preparar(int tamanio) {
+            if (buffer.capacity() < tamanio) {
+                buffer = ByteBuffer.allocate(Math.max(tamanio, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            return buffer;
+        }
+
+        private void escribir(DataOutputStream salida, int marcador) throws IOException {
+            salida.writeByte(marcador);
+            salida.writeInt(buffer.position());
+            salida.write(buffer.array(), 0, buffer.position());
+        }
+
+        private ByteBuffer leer(DataInputStream entrada) throws IOException {
+            int longitud = entrada.readInt();
+            if (longitud < 0) {
+                throw new IOException("Longitud de entrada no válida: " + longitud);
+            }
+            preparar(longitud);
+            entrada.readFully(buffer.array(), 0, longitud);
+            buffer.limit(longitud);
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package repository.persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+import repository.codec.CodecEvento;
+
+/**
+ * Log de escritura anticipada (write-ahead log) de solo anexado.
+ * <p>
+ * Cada registro se guarda como: longitud (int), CRC32 del contenido (int) y contenido
+ * (código de tipo seguido de los datos). Al reproducir el log se descarta la cola a partir
+ * del primer registro incompleto o con CRC incorrecto, que corresponde a una escritura
+ * interrumpida por una caída.
+ * <p>
+ * Las escrituras se acumulan en memoria y se vuelcan con commit en grupo: el primer hilo que
+ * necesita durabilidad escribe y sincroniza (fsync) todo lo acumulado hasta ese momento, de
+ * modo que muchos escritores concurrentes comparten un único volcado.
+ * <p>
+ * El log puede dividirse en segmentos: rotar marca un corte sin hacer E/S, y el siguiente
+ * volcado termina el segmento anterior con lo anotado antes del corte y continúa en el nuevo.
+ * <p>
+ * Si un volcado falla, el log queda inutilizable: tras un fsync fallido no se sabe qué parte
+ * llegó al disco y reintentarlo puede dar por durables datos perdidos. Desde entonces ningún
+ * registro pasa a ser durable y las esperas y volcados lanzan el error original; al reabrir,
+ * la reproducción descarta la cola incompleta.
+ */
+public class RegistroEscritura implements Closeable {
+
+    // Tamaño de la cabecera de cada registro: longitud + CRC32
+    private static final int TAMANIO_CABECERA = Integer.BYTES * 2;
+
+    // Segmento abierto para anexar (protegido por cerrojoVolcado)
+    private FileChannel canal;
+    private final boolean sincronizar;
+
+    // Registros anotados pendientes de escribir en disco (protegido por cerrojoPendiente)
+    private final Object cerrojoPendiente = new Object();
+    private ByteArrayOutputStream pendiente = new ByteArrayOutputStream();
+    private long ultimoAnotado;
+
+    // Corte de segmento marcado y aún no aplicado (protegido por cerrojoPendiente)
+    private Optional<Rotacion> rotacion = Optional.empty();
+
+    // Número del último registro que ya es durable
+    private volatile long ultimoDurable;
+
+    // Error del volcado que dejó el log inutilizable (null mientras funciona)
+    private volatile IOException fallo;
+
+    // Solo un hilo a la vez realiza el volcado a disco
+    private final ReentrantLock cerrojoVolcado = new ReentrantLock();
+
+    private final AtomicLong volcados = new AtomicLong();
+    private final AtomicLong bytesEscritos = new AtomicLong();
+
+    private RegistroEscritura(FileChannel canal, boolean sincronizar) {
+        this.canal = canal;
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Corte de segmento pendiente: lo anotado antes del corte y el segmento que sigue
+     */
+    private static class Rotacion {
+        private final byte[] anteriores;
+        private final Path siguienteSegmento;
+
+        private Rotacion(byte[] anteriores, Path siguienteSegmento) {
+            this.anteriores = anteriores;
+            this.siguienteSegmento = siguienteSegmento;
+        }
+    }
+
+    /**
+     * Resultado de reproducir un log existente
+     */
+    public static class Reproduccion {
+        private final long registros;
+        private final long longitudValida;
+
+        private Reproduccion(long registros, long longitudValida) {
+            this.registros = registros;
+            this.longitudValida = longitudValida;
+        }
+
+        /**
+         * Número de registros válidos reproducidos
+         * @return los registros reproducidos
+         */
+        public long getRegistros() {
+            return registros;
+        }
+
+        /**
+         * Longitud en bytes de la parte válida del log
+         * @return la posición donde termina el último registro válido
+         */
+        public long getLongitudValida() {
+            return longitudValida;
+        }
+    }
+
+    /**
+     * Lee un log desde el principio y entrega cada registro válido, en orden, al consumidor
+     * @param ruta la ruta del log (si no existe, no se reproduce nada)
+     * @param aplicar el consumidor que aplica cada registro
+     * @return el resultado de la reproducción
+     * @throws UncheckedIOException si el log no se puede leer
+     */
+    public static Reproduccion reproducir(Path ruta, Consumer<RegistroLog> aplicar) {
+        if (!Files.exists(ruta)) {
+            return new Reproduccion(0, 0);
+        }
+        try (InputStream archivo = Files.newInputStream(ruta);
+             DataInputStream entrada = new DataInputStream(new BufferedInputStream(archivo, 1 << 16))) {
+            long tamanio = Files.size(ruta);
+            long registros = 0;
+            long posicion = 0;
+            while (true) {
+                Optional<byte[]> contenido = leerContenido(entrada, tamanio - posicion - TAMANIO_CABECERA);
+                if (contenido.isEmpty()) {
+                    break;
+                }
+                Optional<RegistroLog> registro = decodificar(contenido.get());
+                if (registro.isEmpty()) {
+                    break;
+                }
+                aplicar.accept(registro.get());
+                registros++;
+                posicion += TAMANIO_CABECERA + contenido.get().length;
+            }
+            return new Reproduccion(registros, posicion);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo reproducir el log " + ruta, e);
+        }
+    }
+
+    /**
+     * Lee el contenido del siguiente registro comprobando su CRC. Una longitud mayor que lo que
+     * queda del archivo solo puede venir de una cabecera dañada y se trata como cola incompleta,
+     * sin reservar memoria para ella.
+     * @param restante bytes del archivo que quedan tras la cabecera del registro
+     * @return Optional con el contenido, o vacío al llegar al final o a un registro dañado
+     */
+    private static Optional<byte[]> leerContenido(DataInputStream entrada, long restante) throws IOException {
+        try {
+            int longitud = entrada.readInt();
+            int crc = entrada.readInt();
+            if (longitud <= 0 || longitud > restante) {
+                return Optional.empty();
+            }
+            byte[] contenido = new byte[longitud];
+            entrada.readFully(contenido);
+            return Optional.of(contenido).filter(c -> crc32(c) == crc);
+        } catch (EOFException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Abre el log para anexar registros, descartando la cola dañada detectada al reproducirlo
+     * @param ruta la ruta del log
+     * @param longitudValida la longitud de la parte válida (de reproducir)
+     * @param sincronizar true para forzar fsync en cada volcado
+     * @return el log abierto
+     * @throws UncheckedIOException si el log no se puede abrir
+     */
+    public static RegistroEscritura abrir(Path ruta, long longitudValida, boolean sincronizar) {
+        try {
+            return new RegistroEscritura(abrirCanal(ruta, longitudValida), sincronizar);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el log " + ruta, e);
+        }
+    }
+
+    /**
+     * Abre un segmento para anexar. Si el segmento se crea, se sincroniza su directorio antes
+     * de escribir en él, para que los registros que se declaren durables no queden en un archivo
+     * que un corte de corriente puede hacer desaparecer.
+     */
+    private static FileChannel abrirCanal(Path ruta, long longitudValida) throws IOException {
+        boolean nuevo = Files.notExists(ruta);
+        FileChannel canal = FileChannel.open(ruta,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (nuevo) {
+                Directorios.sincronizarPadre(ruta);
+            }
+            canal.truncate(longitudValida);
+            canal.position(longitudValida);
+            return canal;
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Anota un registro en memoria. No espera a que sea durable (ver esperarDurable). Si el log
+     * ya falló, el registro no se guarda, porque nunca llegará a disco; su espera lanzará el error.
+     * @param registro el registro a anotar
+     * @return el número de orden del registro anotado
+     */
+    public long anotar(RegistroLog registro) {
+        byte[] contenido = codificar(registro);
+        int crc = crc32(contenido);
+        synchronized (cerrojoPendiente) {
+            if (fallo != null) {
+                return ++ultimoAnotado;
+            }
+            escribirEntero(pendiente, contenido.length);
+            escribirEntero(pendiente, crc);
+            pendiente.write(contenido, 0, contenido.length);
+            return ++ultimoAnotado;
+        }
+    }
+
+    /**
+     * Número del último registro anotado
+     * @return el número de orden del último registro anotado
+     */
+    public long getUltimoAnotado() {
+        synchronized (cerrojoPendiente) {
+            return ultimoAnotado;
+        }
+    }
+
+    /**
+     * Comprueba que el log sigue admitiendo escrituras, para rechazar una operación antes de
+     * aplicarla en memoria
+     * @throws UncheckedIOException si un volcado anterior falló
+     */
+    public void comprobarDisponible() {
+        Optional.ofNullable(fallo).ifPresent(error -> {
+            throw new UncheckedIOException("El log no admite escrituras tras un fallo de escritura", error);
+        });
+    }
+
+    /**
+     * Marca un corte de segmento: los registros anotados a partir de ahora irán al nuevo segmento.
+     * No realiza E/S; el cambio de archivo se aplica en el siguiente volcado. Para que el corte
+     * sea consistente con el estado en memoria, el llamador debe impedir anotaciones concurrentes.
+     * @param siguienteSegmento la ruta del nuevo segmento
+     * @throws IllegalStateException si ya hay un corte pendiente de aplicar
+     */
+    public void rotar(Path siguienteSegmento) {
+        synchronized (cerrojoPendiente) {
+            if (rotacion.isPresent()) {
+                throw new IllegalStateException("Ya hay un cambio de segmento pendiente");
+            }
+            rotacion = Optional.of(new Rotacion(pendiente.toByteArray(), siguienteSegmento));
+            pendiente = new ByteArrayOutputStream();
+        }
+    }
+
+    /**
+     * Espera a que el registro indicado (y todos los anteriores) estén en disco.
+     * Si otro hilo ya está volcando, se espera a que termine y, si su volcado no cubrió el
+     * registro, se realiza un nuevo volcado con todo lo acumulado mientras tanto.
+     * @param numero el número de orden del registro
+     * @throws UncheckedIOException si falla la escritura, ahora o en un volcado anterior
+     */
+    public void esperarDurable(long numero) {
+        if (ultimoDurable >= numero) {
+            return;
+        }
+        comprobarDisponible();
+        cerrojoVolcado.lock();
+        try {
+            if (ultimoDurable < numero) {
+                volcar();
+            }
+        } finally {
+            cerrojoVolcado.unlock();
+        }
+    }
+
+    /**
+     * Vuelca todo lo anotado y aplica el cambio de segmento pendiente, si lo hay
+     * @throws UncheckedIOException si falla la escritura, ahora o en un volcado anterior
+     */
+    public void volcarPendiente() {
+        cerrojoVolcado.lock();
+        try {
+            volcar();
+        } finally {
+            cerrojoVolcado.unlock();
+        }
+    }
+
+    /**
+     * Escribe lo acumulado; debe llamarse con cerrojoVolcado adquirido. Si falla, lo tomado de
+     * pendiente no se devuelve: el log queda marcado como fallido y ultimoDurable no avanza.
+     */
+    private void volcar() {
+        comprobarDisponible();
+        byte[] datos;
+        long hasta;
+        Optional<Rotacion> rotacionPendiente;
+        synchronized (cerrojoPendiente) {
+            datos = pendiente.toByteArray();
+            pendiente = new ByteArrayOutputStream(Math.max(32, datos.length));
+            hasta = ultimoAnotado;
+            rotacionPendiente = rotacion;
+            rotacion = Optional.empty();
+        }
+        try {
+            if (rotacionPendiente.isPresent()) {
+                escribirYSincronizar(rotacionPendiente.get().anteriores);
+                canal.close();
+                canal = abrirCanal(rotacionPendiente.get().siguienteSegmento, 0);
+            }
+            escribirYSincronizar(datos);
+            volcados.incrementAndGet();
+            ultimoDurable = hasta;
+        } catch (IOException e) {
+            synchronized (cerrojoPendiente) {
+                fallo = e;
+                pendiente = new ByteArrayOutputStream();
+                rotacion = Optional.empty();
+            }
+            throw new UncheckedIOException("No se pudo escribir en el log", e);
+        }
+    }
+
+    private void escribirYSincronizar(byte[] datos) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(datos);
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (sincronizar) {
+            canal.force(false);
+        }
+        bytesEscritos.addAndGet(datos.length);
+    }
+
+    /**
+     * Número de volcados realizados desde que se abrió el log
+     * @return los volcados realizados
+     */
+    public long getVolcados() {
+        return volcados.get();
+    }
+
+    /**
+     * Bytes escritos desde que se abrió el log
+     * @return los bytes escritos
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos.get();
+    }
+
+    /**
+     * Vuelca lo pendiente y cierra el log. El canal se cierra aunque el volcado falle.
+     * @throws IOException si algo de lo anotado no llegó a disco, ahora o en un volcado anterior
+     */
+    @Override
+    public void close() throws IOException {
+        cerrojoVolcado.lock();
+        try {
+            if (fallo == null) {
+                volcar();
+            }
+        } catch (UncheckedIOException e) {
+            // volcar ya dejó el error en fallo, que se comunica al terminar de cerrar
+        } finally {
+            try {
+                canal.close();
+            } finally {
+                cerrojoVolcado.unlock();
+            }
+        }
+        if (fallo != null) {
+            throw new IOException("El log se cerró con escrituras que no llegaron a disco", fallo);
+        }
+    }
+
+    /**
+     * Contenido de un registro: código de tipo, ordinal del tipo de evento (o -1), marca de tiempo
+     * y artículo, con la marca de tiempo y el artículo en el formato compartido de repository.codec
+     */
+    private static byte[] codificar(RegistroLog registro) {
+        byte[] contenido = new byte[2 + CodecEvento.tamanioMarcaTiempo(registro.getMarcaTiempo())
+            + CodecArticulo.tamanio(registro.getArticulo())];
+        ByteBuffer destino = ByteBuffer.wrap(contenido);
+        destino.put(registro.getTipo().getCodigo());
+        destino.put((byte) registro.getTipoEvento().map(Enum::ordinal).orElse(-1).intValue());
+        CodecEvento.escribirMarcaTiempo(registro.getMarcaTiempo(), destino);
+        CodecArticulo.codificar(registro.getArticulo(), destino);
+        return contenido;
+    }
+
+    private static Optional<RegistroLog> decodificar(byte[] contenido) throws IOException {
+        try {
+            ByteBuffer origen = ByteBuffer.wrap(contenido);
+            Optional<TipoRegistro> tipo = TipoRegistro.desdeCodigo(origen.get());
+            int ordinalEvento = origen.get();
+            Optional<TipoEvento> tipoEvento = Optional.of(ordinalEvento)
+                .filter(ordinal -> ordinal >= 0)
+                .map(CodecEvento::tipoEvento);
+            long marcaTiempo = CodecEvento.leerMarcaTiempo(origen, origen.position());
+            ArtCientificoDTO articulo = CodecArticulo.decodificar(origen,
+                origen.position() + CodecEvento.longitudMarcaTiempo(origen, origen.position()));
+            return tipo.map(t -> new RegistroLog(t, articulo, tipoEvento, marcaTiempo));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("Registro del log con formato no reconocido", e);
+        }
+    }
+
+    private static int crc32(byte[] datos) {
+        CRC32 crc = new CRC32();
+        crc.update(datos, 0, datos.length);
+        return (int) crc.getValue();
+    }
+
+    private static void escribirEntero(ByteArrayOutputStream salida, int valor) {
+        salida.write(valor >>> 24);
+        salida.write(valor >>> 16);
+        salida.write(valor >>> 8);
+        salida.write(valor);
+    }
+}
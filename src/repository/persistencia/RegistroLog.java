@@ -0,0 +1,64 @@
+package repository.persistencia;
+
+import java.util.Optional;
+
+import common.types.TipoEvento;
+import dto.ArtCientificoDTO;
+
+/**
+ * Registro individual del log de escritura anticipada
+ */
+public class RegistroLog {
+
+    private final TipoRegistro tipo;
+    private final ArtCientificoDTO articulo;
+    private final Optional<TipoEvento> tipoEvento;
+    private final long marcaTiempo;
+
+    /**
+     * Constructor de un registro
+     * @param tipo el tipo de registro
+     * @param articulo el artículo afectado (en ELIMINACION basta con que contenga el ID)
+     * @param tipoEvento el tipo de evento, solo para registros EVENTO
+     * @param marcaTiempo la marca de tiempo del evento del historial asociado a la escritura
+     */
+    public RegistroLog(TipoRegistro tipo, ArtCientificoDTO articulo, Optional<TipoEvento> tipoEvento, long marcaTiempo) {
+        this.tipo = tipo;
+        this.articulo = articulo;
+        this.tipoEvento = tipoEvento;
+        this.marcaTiempo = marcaTiempo;
+    }
+
+    /**
+     * Obtiene el tipo de registro
+     * @return el tipo de registro
+     */
+    public TipoRegistro getTipo() {
+        return tipo;
+    }
+
+    /**
+     * Obtiene el artículo afectado
+     * @return el DTO del artículo
+     */
+    public ArtCientificoDTO getArticulo() {
+        return articulo;
+    }
+
+    /**
+     * Obtiene el tipo de evento de un registro EVENTO
+     * @return Optional con el tipo de evento o vacío en el resto de registros
+     */
+    public Optional<TipoEvento> getTipoEvento() {
+        return tipoEvento;
+    }
+
+    /**
+     * Obtiene la marca de tiempo del evento asociado, para reproducir el historial con sus
+     * marcas originales
+     * @return los milisegundos desde la época
+     */
+    public long getMarcaTiempo() {
+        return marcaTiempo;
+    }
+}
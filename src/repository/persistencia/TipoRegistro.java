@@ -0,0 +1,59 @@
+package repository.persistencia;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Enum que define los tipos de registro del log de escritura anticipada
+ */
+public enum TipoRegistro {
+    /**
+     * Creación de un artículo (incluye el artículo completo con su ID)
+     */
+    CREACION((byte) 1),
+    
+    /**
+     * Actualización de un artículo (incluye el estado completo tras la actualización)
+     */
+    ACTUALIZACION((byte) 2),
+    
+    /**
+     * Eliminación de un artículo (incluye solo su ID)
+     */
+    ELIMINACION((byte) 3),
+    
+    /**
+     * Restauración de un artículo eliminado (incluye el artículo restaurado)
+     */
+    RESTAURACION((byte) 4),
+    
+    /**
+     * Evento registrado explícitamente mediante registrarEvento
+     */
+    EVENTO((byte) 5);
+    
+    private final byte codigo;
+    
+    TipoRegistro(byte codigo) {
+        this.codigo = codigo;
+    }
+    
+    /**
+     * Obtiene el código con el que se guarda el tipo en disco
+     * @return el código del tipo
+     */
+    public byte getCodigo() {
+        return codigo;
+    }
+    
+    /**
+     * Obtiene el tipo correspondiente a un código leído de disco
+     * @param codigo el código leído
+     * @return Optional con el tipo o vacío si el código no es válido
+     */
+    public static Optional<TipoRegistro> desdeCodigo(byte codigo) {
+        return Arrays.stream(values())
+            .filter(tipo -> tipo.codigo == codigo)
+            .findFirst();
+    }
+}
@@ -1,12 +1,29 @@
 package service;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import dto.ArtCientificoDTO;
+import common.types.CampoOrden;
+import common.types.EstrategiaEspera;
+import common.types.FormatoArchivo;
 import common.types.TipoEvento;
 import repository.EventoHistorial;
+import repository.consulta.Consulta;
+import repository.consulta.PaginaArticulos;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.historial.ConteoIntervalo;
+import service.exportacion.InformeExportacion;
+import service.importacion.InformeImportacion;
 
 /**
  * Interfaz para el servicio de artículos científicos
@@ -21,6 +38,46 @@ public interface ArtCientificoService {
      */
     Optional<ArtCientificoDTO> guardar(Optional<ArtCientificoDTO> articuloOpt);
     
+    /**
+     * Guarda un lote de artículos en una sola operación del repositorio, para cargas masivas:
+     * crea los que no traen ID y actualiza los que sí
+     * @param articulos los DTOs de los artículos a guardar
+     * @return el resultado de cada artículo, en el orden del lote: el artículo guardado, o vacío
+     *         si no se pudo guardar
+     */
+    List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> articulos);
+    
+    /**
+     * Importa los artículos de un archivo CSV, JSONL o BibTeX, leyéndolo en flujo y guardándolo
+     * por lotes, de modo que la memoria usada no depende del tamaño del archivo. Un registro con
+     * el ID de un artículo existente lo actualiza; sin ID, o con uno que no existe, se crea un
+     * artículo nuevo con el ID que le asigne el repositorio
+     * @param archivo la ruta del archivo
+     * @param formato el formato del archivo
+     * @param progreso oyente que recibe el progreso como mucho cada segundo y el informe final
+     * @return el informe final, con los registros importados, rechazados y el rendimiento
+     * @throws java.io.UncheckedIOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si la cabecera de un CSV no tiene ninguna columna conocida
+     */
+    InformeImportacion importar(Path archivo, FormatoArchivo formato, Consumer<InformeImportacion> progreso);
+    
+    /**
+     * Exporta a un archivo CSV o JSONL todo el catálogo o el resultado de una consulta, leyéndolo
+     * en flujo del repositorio y ordenándolo con una ordenación externa si hace falta, de modo que
+     * la memoria usada no depende del número de artículos
+     * @param consultaOpt la consulta cuyos resultados se exportan, o vacío para todo el catálogo
+     * @param archivo la ruta del archivo; si existe se reemplaza
+     * @param formato el formato del archivo (CSV o JSONL)
+     * @param ordenOpt el campo de orden; si está vacío se usa el de la consulta y, si tampoco
+     *                 lo tiene, el orden de ID
+     * @param ascendente true para orden ascendente, false para descendente
+     * @return el informe de la exportación
+     * @throws java.io.UncheckedIOException si no se puede escribir el archivo
+     * @throws IllegalArgumentException si el formato no admite exportación
+     */
+    InformeExportacion exportar(Optional<Consulta> consultaOpt, Path archivo, FormatoArchivo formato,
+                                Optional<CampoOrden> ordenOpt, boolean ascendente);
+    
     /**
      * Busca un artículo por su ID
      * @param idOpt el ID del artículo a buscar (encapsulado en Optional)
@@ -29,18 +86,95 @@ public interface ArtCientificoService {
     Optional<ArtCientificoDTO> buscarPorId(Optional<Long> idOpt);
     
     /**
-     * Busca artículos que cumplan con un predicado específico
+     * Busca artículos que cumplan con un predicado específico.
+     * Si el predicado es un repository.consulta.Criterio, se resuelve con el planificador de consultas.
      * @param predicado el criterio de búsqueda (función que evalúa cada artículo)
      * @return Optional con la lista de DTOs de artículos que cumplen con el predicado, o vacío si no hay resultados
      */
     Optional<List<ArtCientificoDTO>> buscarPorCriterio(Predicate<ArtCientificoDTO> predicado);
     
+    /**
+     * Busca en el nombre y el resumen los artículos más relevantes para un texto (ranking BM25).
+     * No distingue mayúsculas ni acentos.
+     * @param textoOpt el texto de la búsqueda (encapsulado en Optional)
+     * @param limite el número máximo de resultados
+     * @return Optional con los artículos de mayor a menor relevancia, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarTexto(Optional<String> textoOpt, int limite);
+    
+    /**
+     * Busca los artículos cuyo nombre o resumen contienen una frase exacta
+     * @param fraseOpt la frase buscada (encapsulada en Optional)
+     * @param limite el número máximo de resultados
+     * @return Optional con los artículos de mayor a menor relevancia, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarFrase(Optional<String> fraseOpt, int limite);
+    
+    /**
+     * Ejecuta una consulta estructurada (criterio, orden y límite) usando los índices disponibles
+     * @param consultaOpt la consulta a ejecutar (encapsulada en Optional)
+     * @return Optional con la lista de artículos resultante, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscar(Optional<Consulta> consultaOpt);
+    
+    /**
+     * Explica el plan que se usaría para ejecutar una consulta
+     * @param consultaOpt la consulta a explicar (encapsulada en Optional)
+     * @return Optional con la descripción del plan, o vacío si no se indicó consulta
+     */
+    Optional<String> explicarConsulta(Optional<Consulta> consultaOpt);
+    
+    /**
+     * Cuenta por año los artículos que cumplen el criterio de una consulta (sin orden ni límite).
+     * Los criterios de año, autor y palabras clave se agregan sobre el índice columnar, sin
+     * recorrer los artículos.
+     * @param consultaOpt la consulta (encapsulada en Optional)
+     * @return Optional con el número de artículos de cada año, o vacío si no hay ninguno
+     */
+    Optional<SortedMap<Integer, Long>> contarPorAnio(Optional<Consulta> consultaOpt);
+    
+    /**
+     * Busca los artículos de un autor (resuelto mediante índice, sin recorrer la colección)
+     * @param autorOpt el autor buscado (encapsulado en Optional)
+     * @return Optional con la lista de artículos del autor, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorAutor(Optional<String> autorOpt);
+    
+    /**
+     * Busca los artículos publicados en un año (resuelto mediante índice, sin recorrer la colección)
+     * @param anioOpt el año de publicación (encapsulado en Optional)
+     * @return Optional con la lista de artículos de ese año, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorAnio(Optional<Integer> anioOpt);
+    
+    /**
+     * Busca los artículos que contienen una palabra clave (resuelto mediante índice)
+     * @param palabraClaveOpt la palabra clave buscada (encapsulada en Optional)
+     * @return Optional con la lista de artículos con esa palabra clave, o vacío si no hay resultados
+     */
+    Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(Optional<String> palabraClaveOpt);
+    
     /**
      * Obtiene todos los artículos científicos
      * @return Optional con la lista de DTOs de todos los artículos, o vacío si no hay artículos
      */
     Optional<List<ArtCientificoDTO>> obtenerTodos();
     
+    /**
+     * Obtiene una página de artículos en orden de ID
+     * @param cursorOpt el cursor devuelto por la página anterior (vacío para la primera página)
+     * @param tamanio el número máximo de artículos de la página
+     * @return la página, con el cursor de la siguiente si hay más artículos
+     * @throws IllegalArgumentException si el tamaño no es positivo
+     */
+    PaginaArticulos obtenerPagina(Optional<Long> cursorOpt, int tamanio);
+    
+    /**
+     * Recorre todos los artículos en orden de ID de forma perezosa, sin cargar la colección completa
+     * @return un stream secuencial sobre todos los artículos
+     */
+    Stream<ArtCientificoDTO> recorrerTodos();
+    
     /**
      * Elimina un artículo 
      * @param idOpt el ID del artículo a eliminar (encapsulado en Optional)
@@ -74,4 +208,80 @@ public interface ArtCientificoService {
      * @return Optional con la lista de eventos relacionados con el artículo o vacío si no hay eventos
      */
     Optional<List<EventoHistorial>> obtenerHistorialPorArticulo(Optional<Long> idOpt);
-} 
\ No newline at end of file
+    
+    /**
+     * Obtiene los eventos de un rango de fechas, opcionalmente de un solo tipo, por ejemplo
+     * las eliminaciones de la última hora
+     * @param desdeOpt la fecha inicial, incluida (vacío para desde el primer evento)
+     * @param hastaOpt la fecha final, excluida (vacío para hasta el último evento)
+     * @param tipoEventoOpt el tipo de evento (vacío para todos)
+     * @return Optional con la lista de eventos ordenada por secuencia o vacío si no hay eventos
+     */
+    Optional<List<EventoHistorial>> obtenerHistorialEntre(Optional<LocalDateTime> desdeOpt,
+                                                          Optional<LocalDateTime> hastaOpt,
+                                                          Optional<TipoEvento> tipoEventoOpt);
+    
+    /**
+     * Cuenta la actividad del historial por intervalos consecutivos, por ejemplo por día durante
+     * el último mes. Los intervalos empiezan en la fecha inicial.
+     * @param desdeOpt la fecha inicial del primer intervalo
+     * @param hastaOpt la fecha final, excluida (vacío para hasta ahora)
+     * @param intervaloOpt el ancho de cada intervalo
+     * @param tipoEventoOpt el tipo de evento (vacío para todos)
+     * @return Optional con el conteo de cada intervalo en orden, o vacío si falta la fecha
+     *         inicial o el intervalo no es positivo
+     */
+    Optional<List<ConteoIntervalo>> contarActividad(Optional<LocalDateTime> desdeOpt,
+                                                    Optional<LocalDateTime> hastaOpt,
+                                                    Optional<Duration> intervaloOpt,
+                                                    Optional<TipoEvento> tipoEventoOpt);
+    
+    /**
+     * Obtiene un artículo tal como estaba en una fecha pasada, para auditorías
+     * @param idOpt el ID del artículo (encapsulado en Optional)
+     * @param fechaOpt la fecha, incluida (encapsulada en Optional)
+     * @return Optional con el artículo en esa fecha, o vacío si no existía o falta algún dato
+     */
+    Optional<ArtCientificoDTO> buscarPorIdEnFecha(Optional<Long> idOpt, Optional<LocalDateTime> fechaOpt);
+    
+    /**
+     * Obtiene un artículo tal como estaba tras el evento de una secuencia, para auditorías
+     * @param idOpt el ID del artículo (encapsulado en Optional)
+     * @param secuenciaOpt la secuencia del último evento que se tiene en cuenta (encapsulada en Optional)
+     * @return Optional con el artículo en ese punto, o vacío si no existía o falta algún dato
+     */
+    Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Optional<Long> idOpt, Optional<Long> secuenciaOpt);
+    
+    /**
+     * Obtiene todos los artículos tal como estaban en una fecha pasada, para auditorías
+     * @param fechaOpt la fecha, incluida (encapsulada en Optional)
+     * @return Optional con los artículos que existían en esa fecha en orden de ID, o vacío si no había
+     */
+    Optional<List<ArtCientificoDTO>> obtenerTodosEnFecha(Optional<LocalDateTime> fechaOpt);
+    
+    /**
+     * Obtiene todos los artículos tal como estaban tras el evento de una secuencia, para auditorías
+     * @param secuenciaOpt la secuencia del último evento que se tiene en cuenta (encapsulada en Optional)
+     * @return Optional con los artículos que existían en ese punto en orden de ID, o vacío si no había
+     */
+    Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(Optional<Long> secuenciaOpt);
+    
+    /**
+     * Suscribe un oyente a los eventos del repositorio (creación, actualización, eliminación y
+     * restauración), que los recibe por lotes en su propio hilo, fuera del camino de escritura
+     * @param suscriptor el oyente
+     * @param estrategia cómo espera el hilo del oyente a que haya eventos nuevos
+     * @return la suscripción, que se cierra para cancelarla
+     */
+    BusEventos.Suscripcion suscribirEventos(SuscriptorEventos suscriptor, EstrategiaEspera estrategia);
+    
+    /**
+     * Abre un cursor de captura de cambios para que un sistema externo siga el catálogo: entrega
+     * por lotes, en orden de secuencia y al ritmo que pide el consumidor, las creaciones,
+     * actualizaciones, eliminaciones y restauraciones
+     * @param desdeSecuenciaOpt la secuencia del primer evento a entregar (vacío para entregar
+     *                          solo los eventos posteriores a la apertura)
+     * @return el cursor, que se debe cerrar al terminar
+     */
+    CursorCambios abrirCambios(Optional<Long> desdeSecuenciaOpt);
+}
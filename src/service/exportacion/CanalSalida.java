@@ -0,0 +1,132 @@
+package service.exportacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+
+/**
+ * Escritura secuencial en un archivo a través de un FileChannel con un buffer directo: el texto
+ * se codifica en UTF-8 y los artículos con CodecArticulo directamente en el buffer, que se vuelca
+ * al canal cuando se llena, sin arrays intermedios por línea ni por artículo.
+ */
+final class CanalSalida implements AutoCloseable {
+
+    // Tamaño del buffer de escritura
+    static final int TAMANIO_BUFFER = 1 << 16;
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANIO_BUFFER);
+    private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private long bytesEscritos;
+
+    /**
+     * Crea (o trunca) el archivo y lo abre para escribir
+     * @param ruta el archivo
+     * @throws UncheckedIOException si no se puede abrir
+     */
+    CanalSalida(Path ruta) {
+        this.ruta = ruta;
+        try {
+            this.canal = FileChannel.open(ruta, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el archivo " + ruta, e);
+        }
+    }
+
+    /**
+     * Escribe un texto en UTF-8
+     * @param texto el texto
+     */
+    void escribir(CharSequence texto) {
+        CharBuffer caracteres = CharBuffer.wrap(texto);
+        codificador.reset();
+        while (true) {
+            CoderResult resultado = codificador.encode(caracteres, buffer, true);
+            if (resultado.isOverflow()) {
+                volcar();
+            } else {
+                break;
+            }
+        }
+        while (codificador.flush(buffer).isOverflow()) {
+            volcar();
+        }
+    }
+
+    /**
+     * Escribe un artículo como su longitud (int) seguida de su codificación binaria
+     * @param articulo el artículo
+     */
+    void escribir(ArtCientificoDTO articulo) {
+        int tamanio = CodecArticulo.tamanio(articulo);
+        if (buffer.remaining() < Integer.BYTES + tamanio) {
+            volcar();
+        }
+        if (buffer.remaining() < Integer.BYTES + tamanio) {
+            // No cabe ni en el buffer vacío: se codifica aparte
+            ByteBuffer grande = ByteBuffer.allocate(Integer.BYTES + tamanio).putInt(tamanio);
+            CodecArticulo.codificar(articulo, grande);
+            grande.flip();
+            escribirEnCanal(grande);
+            return;
+        }
+        buffer.putInt(tamanio);
+        CodecArticulo.codificar(articulo, buffer);
+    }
+
+    /**
+     * Obtiene los bytes escritos hasta ahora, incluidos los que siguen en el buffer
+     * @return el número de bytes
+     */
+    long getBytesEscritos() {
+        return bytesEscritos + buffer.position();
+    }
+
+    private void volcar() {
+        buffer.flip();
+        escribirEnCanal(buffer);
+        buffer.clear();
+    }
+
+    private void escribirEnCanal(ByteBuffer origen) {
+        try {
+            while (origen.hasRemaining()) {
+                bytesEscritos += canal.write(origen);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en " + ruta, e);
+        }
+    }
+
+    /**
+     * Vuelca lo que quede en el buffer y cierra el archivo
+     * @throws UncheckedIOException si no se puede escribir o cerrar
+     */
+    @Override
+    public void close() {
+        try {
+            try {
+                volcar();
+            } finally {
+                canal.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar " + ruta, e);
+        }
+    }
+}
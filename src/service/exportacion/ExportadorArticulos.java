@@ -0,0 +1,235 @@
+package service.exportacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import common.types.CampoOrden;
+import common.types.FormatoArchivo;
+import dto.ArtCientificoDTO;
+import repository.codec.CodecJson;
+import repository.consulta.Consulta;
+
+/**
+ * Exportación masiva de artículos a archivos CSV o JSONL.
+ * <p>
+ * Los artículos se consumen del stream de origen uno a uno y se escriben a través de un
+ * FileChannel con buffer. Si se pide un orden, pasan antes por una ordenación externa que solo
+ * mantiene en memoria un número acotado de artículos y vuelca el resto a tramos ordenados en
+ * disco, de modo que la memoria usada no depende del tamaño de la exportación. El archivo se
+ * escribe en un temporal que se renombra al terminar: si la exportación falla, el destino no
+ * queda a medias.
+ * <p>
+ * El CSV lleva una fila de cabecera con los nombres de columna que acepta la importación, y
+ * las palabras clave separadas por comas, con una barra invertida delante de cada coma, punto y
+ * coma o barra invertida de una palabra, que la importación lee como carácter literal; así el
+ * archivo se puede volver a importar (como lleva los IDs, cada fila actualiza el artículo con
+ * ese ID, o se crea como artículo nuevo si no existe).
+ * <p>
+ * Si no se puede borrar algún tramo temporal de la ordenación, el error se añade al informe o,
+ * si la exportación falla, como excepción suprimida de la que se lanza.
+ */
+public class ExportadorArticulos {
+
+    // Artículos que se ordenan en memoria antes de volcar un tramo a disco, por defecto
+    public static final int MAXIMO_EN_MEMORIA = 100_000;
+
+    private static final String CABECERA_CSV = "id,nombre,autor,anio,palabrasClaves,resumen\n";
+
+    private final Optional<Comparator<ArtCientificoDTO>> comparador;
+    private final int maximoEnMemoria;
+    private final Path directorioTemporal;
+
+    private ExportadorArticulos(BuilderExportador builder) {
+        this.comparador = builder.orden.map(campo -> Consulta.comparador(campo, builder.ascendente));
+        this.maximoEnMemoria = builder.maximoEnMemoria;
+        this.directorioTemporal = builder.directorioTemporal;
+    }
+
+    /**
+     * Exporta los artículos de un stream, que se consume y se cierra
+     * @param articulos los artículos a exportar
+     * @param destino el archivo de destino; si existe se reemplaza
+     * @param formato el formato del archivo (CSV o JSONL)
+     * @return el informe de la exportación
+     * @throws IllegalArgumentException si el formato no admite exportación
+     * @throws UncheckedIOException si no se puede escribir el archivo o un tramo de la ordenación
+     */
+    public InformeExportacion exportar(Stream<ArtCientificoDTO> articulos, Path destino, FormatoArchivo formato) {
+        if (formato == FormatoArchivo.BIBTEX) {
+            throw new IllegalArgumentException("El formato " + formato + " solo se admite en la importación");
+        }
+        long inicio = System.nanoTime();
+        Path temporal = destino.resolveSibling(destino.getFileName() + ".tmp");
+        long[] exportados = new long[1];
+        int tramos = 0;
+        long bytes;
+        List<UncheckedIOException> erroresBorrado = new ArrayList<>();
+        try (Stream<ArtCientificoDTO> origen = articulos;
+             CanalSalida salida = new CanalSalida(temporal)) {
+            StringBuilder linea = new StringBuilder();
+            if (formato == FormatoArchivo.CSV) {
+                salida.escribir(CABECERA_CSV);
+            }
+            Consumer<ArtCientificoDTO> escritura = articulo -> {
+                linea.setLength(0);
+                if (formato == FormatoArchivo.CSV) {
+                    filaCsv(articulo, linea);
+                } else {
+                    CodecJson.codificar(articulo, linea);
+                }
+                salida.escribir(linea.append('\n'));
+                exportados[0]++;
+            };
+            if (comparador.isPresent()) {
+                OrdenacionExterna ordenacion = new OrdenacionExterna(comparador.get(),
+                    maximoEnMemoria, directorioTemporal(destino));
+                try (ordenacion) {
+                    origen.forEachOrdered(ordenacion::agregar);
+                    ordenacion.recorrer(escritura);
+                    tramos = ordenacion.getTramosVolcados();
+                } finally {
+                    erroresBorrado.addAll(ordenacion.getErroresBorrado());
+                }
+            } else {
+                origen.forEachOrdered(escritura);
+            }
+            bytes = salida.getBytesEscritos();
+        } catch (RuntimeException e) {
+            erroresBorrado.forEach(e::addSuppressed);
+            try {
+                Files.deleteIfExists(temporal);
+            } catch (IOException borrado) {
+                e.addSuppressed(borrado);
+            }
+            throw e;
+        }
+
+        try {
+            Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo publicar la exportación " + destino, e);
+        }
+        return new InformeExportacion(exportados[0], tramos, bytes, System.nanoTime() - inicio, erroresBorrado);
+    }
+
+    /**
+     * Directorio de los tramos: el configurado o, por defecto, el del archivo de destino
+     */
+    private Path directorioTemporal(Path destino) {
+        return Optional.ofNullable(directorioTemporal)
+            .or(() -> Optional.ofNullable(destino.toAbsolutePath().getParent()))
+            .orElseGet(() -> Path.of("."));
+    }
+
+    /**
+     * Escribe la fila CSV de un artículo, sin el salto de línea
+     */
+    private static void filaCsv(ArtCientificoDTO articulo, StringBuilder fila) {
+        fila.append(articulo.getId().map(String::valueOf).orElse("")).append(',');
+        campoCsv(articulo.getNombre(), fila).append(',');
+        campoCsv(articulo.getAutor(), fila).append(',');
+        fila.append(articulo.getAnio().map(String::valueOf).orElse("")).append(',');
+        campoCsv(articulo.getPalabrasClaves().map(palabras -> palabras.stream()
+            .map(ExportadorArticulos::palabraCsv)
+            .collect(Collectors.joining(", "))), fila).append(',');
+        campoCsv(articulo.getResumen(), fila);
+    }
+
+    /**
+     * Escapa con una barra invertida las comas, los puntos y coma y las barras invertidas de una
+     * palabra clave, para que la importación no la parta
+     */
+    private static String palabraCsv(String palabra) {
+        return palabra.replace("\\", "\\\\").replace(",", "\\,").replace(";", "\\;");
+    }
+
+    /**
+     * Escribe un campo de texto, entre comillas (y con las comillas duplicadas) si contiene
+     * comas, comillas o saltos de línea (RFC 4180)
+     */
+    private static StringBuilder campoCsv(Optional<String> valor, StringBuilder fila) {
+        String texto = valor.orElse("");
+        boolean entrecomillar = texto.chars().anyMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r');
+        if (!entrecomillar) {
+            return fila.append(texto);
+        }
+        fila.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '"') {
+                fila.append('"');
+            }
+            fila.append(c);
+        }
+        return fila.append('"');
+    }
+
+    /**
+     * BuilderExportador para crear instancias de ExportadorArticulos
+     */
+    public static class BuilderExportador {
+        private Optional<CampoOrden> orden = Optional.empty();
+        private boolean ascendente = true;
+        private int maximoEnMemoria = MAXIMO_EN_MEMORIA;
+        private Path directorioTemporal;
+
+        public BuilderExportador() {
+        }
+
+        /**
+         * Ordena la exportación por un campo; sin orden, los artículos se escriben en el orden
+         * del stream de origen
+         * @param campo el campo de orden, o null para no ordenar
+         * @param ascendente true para orden ascendente, false para descendente
+         * @return el builder para encadenamiento
+         */
+        public BuilderExportador conOrden(CampoOrden campo, boolean ascendente) {
+            this.orden = Optional.ofNullable(campo);
+            this.ascendente = ascendente;
+            return this;
+        }
+
+        /**
+         * Establece cuántos artículos se ordenan en memoria antes de volcar un tramo a disco
+         * @param maximoEnMemoria el número de artículos, positivo
+         * @return el builder para encadenamiento
+         */
+        public BuilderExportador conMaximoEnMemoria(int maximoEnMemoria) {
+            this.maximoEnMemoria = maximoEnMemoria;
+            return this;
+        }
+
+        /**
+         * Establece el directorio de los tramos de la ordenación (por defecto, el del archivo
+         * de destino)
+         * @param directorioTemporal el directorio
+         * @return el builder para encadenamiento
+         */
+        public BuilderExportador conDirectorioTemporal(Path directorioTemporal) {
+            this.directorioTemporal = directorioTemporal;
+            return this;
+        }
+
+        /**
+         * Construye el exportador
+         * @return el exportador
+         * @throws IllegalArgumentException si el máximo en memoria no es positivo
+         */
+        public ExportadorArticulos build() {
+            if (maximoEnMemoria <= 0) {
+                throw new IllegalArgumentException("El máximo de artículos en memoria debe ser positivo");
+            }
+            return new ExportadorArticulos(this);
+        }
+    }
+}
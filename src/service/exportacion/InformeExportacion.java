@@ -0,0 +1,86 @@
+package service.exportacion;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado de una exportación: artículos escritos, tramos volcados a disco para ordenarlos,
+ * volumen escrito, rendimiento y tramos que no se pudieron borrar
+ */
+public final class InformeExportacion {
+
+    private final long articulos;
+    private final int tramos;
+    private final long bytesEscritos;
+    private final long nanos;
+    private final List<UncheckedIOException> erroresBorrado;
+
+    InformeExportacion(long articulos, int tramos, long bytesEscritos, long nanos,
+                       List<UncheckedIOException> erroresBorrado) {
+        this.articulos = articulos;
+        this.tramos = tramos;
+        this.bytesEscritos = bytesEscritos;
+        this.nanos = nanos;
+        this.erroresBorrado = List.copyOf(erroresBorrado);
+    }
+
+    /**
+     * Obtiene el número de artículos exportados
+     * @return el número de artículos
+     */
+    public long getArticulos() {
+        return articulos;
+    }
+
+    /**
+     * Obtiene el número de tramos ordenados que se volcaron a disco; 0 si la ordenación se hizo
+     * en memoria o no se ordenó
+     * @return el número de tramos
+     */
+    public int getTramos() {
+        return tramos;
+    }
+
+    /**
+     * Obtiene los bytes escritos en el archivo exportado
+     * @return el número de bytes
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    /**
+     * Obtiene los fallos al borrar los tramos temporales de la ordenación; la exportación es
+     * correcta, pero esos tramos pueden haber quedado en disco
+     * @return los errores (vacío si se borraron todos)
+     */
+    public List<UncheckedIOException> getErroresBorrado() {
+        return erroresBorrado;
+    }
+
+    /**
+     * Obtiene el tiempo que duró la exportación
+     * @return la duración
+     */
+    public Duration getDuracion() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Obtiene el rendimiento medio en artículos exportados por segundo
+     * @return los artículos por segundo
+     */
+    public double getArticulosPorSegundo() {
+        return nanos == 0 ? 0 : articulos * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        String resumen = String.format("%,d artículos (%,d tramos en disco), %,.1f MB en %.1f s: %,.0f artículos/s",
+            articulos, tramos, bytesEscritos / (double) (1 << 20), nanos / 1e9, getArticulosPorSegundo());
+        return erroresBorrado.isEmpty()
+            ? resumen
+            : resumen + String.format(", %,d tramos sin borrar", erroresBorrado.size());
+    }
+}
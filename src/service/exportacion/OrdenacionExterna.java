@@ -0,0 +1,243 @@
+package service.exportacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Ordenación externa por mezcla: los artículos se acumulan en memoria hasta un máximo; cada vez
+ * que se llega a él se ordenan y se vuelcan a un tramo en disco. Al recorrer el resultado, los
+ * tramos (y lo que quede en memoria) se mezclan con un montículo; si hay más tramos de los que se
+ * pueden mezclar a la vez, se mezclan antes por grupos en tramos mayores. Si nunca se llega al
+ * máximo, todo se ordena en memoria sin tocar el disco.
+ * <p>
+ * La ordenación es estable: los artículos iguales según el comparador salen en el orden de llegada.
+ */
+final class OrdenacionExterna implements AutoCloseable {
+
+    // Tramos que se mezclan a la vez como máximo
+    static final int FUSION_MAXIMA = 64;
+
+    private final Comparator<ArtCientificoDTO> comparador;
+    private final int maximoEnMemoria;
+    private final Path directorio;
+    private final List<Path> tramos = new ArrayList<>();
+    private List<ArtCientificoDTO> enMemoria = new ArrayList<>();
+    private int tramosVolcados;
+
+    // Fallos al borrar tramos ya usados, que pueden haber quedado en disco
+    private final List<UncheckedIOException> erroresBorrado = new ArrayList<>();
+
+    /**
+     * Crea una ordenación vacía
+     * @param comparador el orden del resultado
+     * @param maximoEnMemoria artículos que se mantienen en memoria antes de volcar un tramo
+     * @param directorio el directorio donde se crean los tramos
+     */
+    OrdenacionExterna(Comparator<ArtCientificoDTO> comparador, int maximoEnMemoria, Path directorio) {
+        this.comparador = comparador;
+        this.maximoEnMemoria = maximoEnMemoria;
+        this.directorio = directorio;
+    }
+
+    /**
+     * Añade un artículo, volcando un tramo a disco si se llega al máximo en memoria
+     * @param articulo el artículo
+     * @throws UncheckedIOException si no se puede escribir el tramo
+     */
+    void agregar(ArtCientificoDTO articulo) {
+        enMemoria.add(articulo);
+        if (enMemoria.size() >= maximoEnMemoria) {
+            enMemoria.sort(comparador);
+            tramos.add(volcar(enMemoria));
+            enMemoria = new ArrayList<>();
+        }
+    }
+
+    /**
+     * Entrega los artículos añadidos en orden
+     * @param destino quien recibe cada artículo
+     * @throws UncheckedIOException si no se puede leer o escribir un tramo
+     */
+    void recorrer(Consumer<ArtCientificoDTO> destino) {
+        enMemoria.sort(comparador);
+        if (tramos.isEmpty()) {
+            enMemoria.forEach(destino);
+            return;
+        }
+        // Rondas de mezclas por grupos consecutivos, hasta que los tramos y la memoria se puedan
+        // mezclar de una vez; cada ronda divide el número de tramos por FUSION_MAXIMA
+        while (tramos.size() + 1 > FUSION_MAXIMA) {
+            List<Path> siguientes = new ArrayList<>();
+            try {
+                for (int i = 0; i < tramos.size(); i += FUSION_MAXIMA) {
+                    List<Path> grupo = tramos.subList(i, Math.min(i + FUSION_MAXIMA, tramos.size()));
+                    siguientes.add(grupo.size() == 1 ? grupo.get(0) : mezclarEnTramo(grupo));
+                }
+            } catch (RuntimeException e) {
+                // Los tramos ya mezclados también se borran al cerrar
+                tramos.addAll(siguientes);
+                throw e;
+            }
+            tramos.clear();
+            tramos.addAll(siguientes);
+        }
+        List<TramoOrdenado> abiertos = new ArrayList<>();
+        try {
+            List<Supplier<Optional<ArtCientificoDTO>>> fuentes = new ArrayList<>();
+            for (Path tramo : tramos) {
+                TramoOrdenado abierto = new TramoOrdenado(tramo);
+                abiertos.add(abierto);
+                fuentes.add(abierto::siguiente);
+            }
+            tramos.clear();
+            Iterator<ArtCientificoDTO> memoria = enMemoria.iterator();
+            fuentes.add(() -> memoria.hasNext() ? Optional.of(memoria.next()) : Optional.empty());
+            mezclar(fuentes, destino);
+        } finally {
+            cerrar(abiertos);
+        }
+    }
+
+    /**
+     * Obtiene el número de tramos volcados a disco, incluidos los de las mezclas previas
+     * @return el número de tramos
+     */
+    int getTramosVolcados() {
+        return tramosVolcados;
+    }
+
+    /**
+     * Obtiene los fallos al borrar tramos, tanto al mezclarlos como al cerrar la ordenación
+     * @return los errores, en el orden en que ocurrieron (vacío si se borraron todos)
+     */
+    List<UncheckedIOException> getErroresBorrado() {
+        return List.copyOf(erroresBorrado);
+    }
+
+    /**
+     * Mezcla un grupo de tramos en uno nuevo, borrando los originales
+     */
+    private Path mezclarEnTramo(List<Path> grupo) {
+        List<TramoOrdenado> abiertos = new ArrayList<>();
+        try {
+            List<Supplier<Optional<ArtCientificoDTO>>> fuentes = new ArrayList<>();
+            for (Path tramo : grupo) {
+                TramoOrdenado abierto = new TramoOrdenado(tramo);
+                abiertos.add(abierto);
+                fuentes.add(abierto::siguiente);
+            }
+            return escribirTramo(salida -> mezclar(fuentes, salida::escribir));
+        } finally {
+            cerrar(abiertos);
+        }
+    }
+
+    /**
+     * Cierra y borra los tramos abiertos; un tramo que no se puede borrar no impide cerrar los
+     * demás y su error queda en getErroresBorrado
+     */
+    private void cerrar(List<TramoOrdenado> abiertos) {
+        for (TramoOrdenado abierto : abiertos) {
+            try {
+                abierto.close();
+            } catch (UncheckedIOException e) {
+                erroresBorrado.add(e);
+            }
+        }
+    }
+
+    /**
+     * Mezcla fuentes ordenadas; a igualdad gana la fuente anterior, lo que mantiene la estabilidad
+     * porque las fuentes están en orden de llegada
+     */
+    private void mezclar(List<Supplier<Optional<ArtCientificoDTO>>> fuentes, Consumer<ArtCientificoDTO> destino) {
+        PriorityQueue<Cabeza> monticulo = new PriorityQueue<>(fuentes.size(),
+            Comparator.<Cabeza, ArtCientificoDTO>comparing(cabeza -> cabeza.articulo, comparador)
+                .thenComparingInt(cabeza -> cabeza.fuente));
+        for (int i = 0; i < fuentes.size(); i++) {
+            int fuente = i;
+            fuentes.get(i).get().ifPresent(articulo -> monticulo.add(new Cabeza(articulo, fuente)));
+        }
+        while (!monticulo.isEmpty()) {
+            Cabeza cabeza = monticulo.poll();
+            destino.accept(cabeza.articulo);
+            fuentes.get(cabeza.fuente).get().ifPresent(articulo -> {
+                cabeza.articulo = articulo;
+                monticulo.add(cabeza);
+            });
+        }
+    }
+
+    /**
+     * Escribe un tramo con artículos ya ordenados
+     */
+    private Path volcar(List<ArtCientificoDTO> articulos) {
+        return escribirTramo(salida -> articulos.forEach(salida::escribir));
+    }
+
+    /**
+     * Crea un tramo y lo escribe; si falla, el tramo a medias se borra
+     */
+    private Path escribirTramo(Consumer<CanalSalida> escritura) {
+        Path ruta;
+        try {
+            ruta = Files.createTempFile(directorio, "tramo-", ".bin");
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear un tramo en " + directorio, e);
+        }
+        try (CanalSalida salida = new CanalSalida(ruta)) {
+            escritura.accept(salida);
+        } catch (RuntimeException e) {
+            try {
+                Files.deleteIfExists(ruta);
+            } catch (IOException borrado) {
+                e.addSuppressed(borrado);
+            }
+            throw e;
+        }
+        tramosVolcados++;
+        return ruta;
+    }
+
+    /**
+     * Borra los tramos que queden en disco (si no se llegó a recorrer el resultado); los que no
+     * se pueden borrar quedan en getErroresBorrado
+     */
+    @Override
+    public void close() {
+        for (Path tramo : tramos) {
+            try {
+                Files.deleteIfExists(tramo);
+            } catch (IOException e) {
+                erroresBorrado.add(new UncheckedIOException("No se pudo borrar el tramo " + tramo, e));
+            }
+        }
+        tramos.clear();
+        enMemoria = new ArrayList<>();
+    }
+
+    /**
+     * Primer artículo pendiente de una fuente
+     */
+    private static final class Cabeza {
+        private ArtCientificoDTO articulo;
+        private final int fuente;
+
+        private Cabeza(ArtCientificoDTO articulo, int fuente) {
+            this.articulo = articulo;
+            this.fuente = fuente;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package service.exportacion;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import dto.ArtCientificoDTO;
+import repository.codec.CodecArticulo;
+
+/**
+ * Lectura secuencial de un tramo ordenado volcado a disco por OrdenacionExterna: artículos
+ * como longitud (int) y codificación de CodecArticulo. El archivo se borra al cerrar el tramo.
+ */
+final class TramoOrdenado implements AutoCloseable {
+
+    private final Path ruta;
+    private final FileChannel canal;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(CanalSalida.TAMANIO_BUFFER);
+    private boolean finArchivo;
+
+    /**
+     * Abre un tramo para leerlo
+     * @param ruta el archivo del tramo
+     * @throws UncheckedIOException si no se puede abrir
+     */
+    TramoOrdenado(Path ruta) {
+        this.ruta = ruta;
+        try {
+            this.canal = FileChannel.open(ruta, StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el tramo " + ruta, e);
+        }
+        buffer.limit(0);
+    }
+
+    /**
+     * Lee el siguiente artículo del tramo
+     * @return Optional con el artículo, o vacío al final del tramo
+     * @throws UncheckedIOException si no se puede leer o el tramo está incompleto
+     */
+    Optional<ArtCientificoDTO> siguiente() {
+        if (!disponibles(Integer.BYTES)) {
+            return Optional.empty();
+        }
+        int tamanio = buffer.getInt(buffer.position());
+        if (!disponibles(Integer.BYTES + tamanio)) {
+            throw new UncheckedIOException(new IOException("Tramo incompleto: " + ruta));
+        }
+        buffer.position(buffer.position() + Integer.BYTES);
+        return Optional.of(CodecArticulo.decodificar(buffer));
+    }
+
+    /**
+     * Garantiza que haya al menos los bytes indicados en el buffer, leyendo más del canal
+     * (y ampliando el buffer si hace falta)
+     * @return false si el archivo se acaba antes
+     */
+    private boolean disponibles(int bytes) {
+        while (buffer.remaining() < bytes && !finArchivo) {
+            if (buffer.capacity() < bytes) {
+                ByteBuffer mayor = ByteBuffer.allocateDirect(Math.max(bytes, buffer.capacity() * 2));
+                mayor.put(buffer);
+                buffer = mayor;
+            } else {
+                buffer.compact();
+            }
+            try {
+                finArchivo = canal.read(buffer) < 0;
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el tramo " + ruta, e);
+            }
+            buffer.flip();
+        }
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Cierra el tramo y borra su archivo
+     * @throws UncheckedIOException si no se puede cerrar o borrar el archivo
+     */
+    @Override
+    public void close() {
+        try {
+            try {
+                canal.close();
+            } finally {
+                Files.deleteIfExists(ruta);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo borrar el tramo " + ruta, e);
+        }
+    }
+}
@@ -1,16 +1,38 @@
 package service.impl;
 
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import dto.ArtCientificoDTO;
+import common.types.CampoOrden;
+import common.types.EstrategiaEspera;
+import common.types.FormatoArchivo;
 import common.types.TipoEvento;
 import repository.ArtCientificoRepository;
 import repository.ArtCientificoRepositoryFactory;
 import repository.EventoHistorial;
+import repository.consulta.Consulta;
+import repository.consulta.Criterio;
+import repository.consulta.PaginaArticulos;
+import repository.eventos.BusEventos;
+import repository.eventos.CursorCambios;
+import repository.eventos.SuscriptorEventos;
+import repository.historial.ConteoIntervalo;
 import service.ArtCientificoService;
+import service.exportacion.ExportadorArticulos;
+import service.exportacion.InformeExportacion;
+import service.importacion.ImportadorArticulos;
+import service.importacion.InformeImportacion;
 
 /**
  * Implementación del servicio de artículos científicos
@@ -45,36 +67,134 @@ public class ArtCientificoServiceImpl implements ArtCientificoService {
         );
     }
     
+    @Override
+    public List<Optional<ArtCientificoDTO>> guardarLote(List<ArtCientificoDTO> articulos) {
+        return Optional.ofNullable(articulos)
+            .filter(lote -> !lote.isEmpty())
+            .map(repositorio::guardarLote)
+            .orElseGet(List::of);
+    }
+    
+    @Override
+    public InformeImportacion importar(Path archivo, FormatoArchivo formato, Consumer<InformeImportacion> progreso) {
+        return new ImportadorArticulos.BuilderImportador(this::guardarLoteImportado)
+            .conProgreso(progreso)
+            .build()
+            .importar(archivo, formato);
+    }
+
+    /**
+     * Guarda un lote importado: un registro con el ID de un artículo existente lo actualiza y uno
+     * con un ID que no existe se crea como artículo nuevo, con el ID que le asigne el repositorio.
+     * Así un archivo exportado se puede importar también en un repositorio vacío o en otro.
+     */
+    private List<Optional<ArtCientificoDTO>> guardarLoteImportado(List<ArtCientificoDTO> articulos) {
+        return guardarLote(articulos.stream()
+            .map(articulo -> articulo.getId()
+                .filter(id -> !repositorio.existe(id))
+                .map(id -> new ArtCientificoDTO.BuilderDTO(articulo).conId(null).build())
+                .orElse(articulo))
+            .collect(Collectors.toList()));
+    }
+    
+    @Override
+    public InformeExportacion exportar(Optional<Consulta> consultaOpt, Path archivo, FormatoArchivo formato,
+                                       Optional<CampoOrden> ordenOpt, boolean ascendente) {
+        Optional<CampoOrden> orden = ordenOpt.or(() -> consultaOpt.flatMap(Consulta::getOrden));
+        boolean sentido = ordenOpt.isPresent() ? ascendente : consultaOpt.map(Consulta::isAscendente).orElse(true);
+        // El catálogo completo ya se recorre en orden de ID ascendente: no hace falta ordenarlo
+        boolean yaOrdenado = consultaOpt.isEmpty() && sentido && orden.filter(campo -> campo != CampoOrden.ID).isEmpty();
+        Stream<ArtCientificoDTO> articulos = consultaOpt
+            .map(consulta -> repositorio.planificar(consulta).recorrer())
+            .orElseGet(repositorio::recorrerTodos);
+        return new ExportadorArticulos.BuilderExportador()
+            .conOrden(yaOrdenado ? null : orden.orElse(CampoOrden.ID), sentido)
+            .build()
+            .exportar(articulos, archivo, formato);
+    }
+    
     @Override
     public Optional<ArtCientificoDTO> buscarPorId(Optional<Long> idOpt) {
-        return idOpt.flatMap(id -> 
-            repositorio.obtenerTodos()
-                .flatMap(articulos -> articulos.stream()
-                    .filter(art -> art.getId().map(artId -> artId.equals(id)).orElse(false))
-                    .findFirst()));
+        return idOpt.flatMap(repositorio::buscarPorId);
     }
     
     @Override
     public Optional<List<ArtCientificoDTO>> buscarPorCriterio(Predicate<ArtCientificoDTO> predicado) {
-        return repositorio.obtenerTodos()
-            .map(articulos -> articulos.stream()
+        // Los criterios estructurados se resuelven con el planificador para aprovechar los índices
+        if (predicado instanceof Criterio criterio) {
+            return buscar(Optional.of(new Consulta.BuilderConsulta().donde(criterio).build()));
+        }
+        // Recorrido página a página, sin copiar antes la colección completa
+        return Optional.of(repositorio.recorrerTodos()
                 .filter(predicado)
                 .collect(Collectors.toList()))
             .filter(lista -> !lista.isEmpty());
     }
     
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarTexto(Optional<String> textoOpt, int limite) {
+        return textoOpt.flatMap(texto -> repositorio.buscarTexto(texto, limite));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarFrase(Optional<String> fraseOpt, int limite) {
+        return fraseOpt.flatMap(frase -> repositorio.buscarFrase(frase, limite));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscar(Optional<Consulta> consultaOpt) {
+        return consultaOpt.flatMap(consulta -> repositorio.planificar(consulta).ejecutar());
+    }
+    
+    @Override
+    public Optional<String> explicarConsulta(Optional<Consulta> consultaOpt) {
+        return consultaOpt.map(consulta -> repositorio.planificar(consulta).explicar());
+    }
+    
+    @Override
+    public Optional<SortedMap<Integer, Long>> contarPorAnio(Optional<Consulta> consultaOpt) {
+        return consultaOpt
+            .map(consulta -> repositorio.planificar(consulta).contarPorAnio())
+            .filter(cuentas -> !cuentas.isEmpty());
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAutor(Optional<String> autorOpt) {
+        return autorOpt.flatMap(repositorio::buscarPorAutor);
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorAnio(Optional<Integer> anioOpt) {
+        return anioOpt.flatMap(repositorio::buscarPorAnio);
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> buscarPorPalabraClave(Optional<String> palabraClaveOpt) {
+        return palabraClaveOpt.flatMap(repositorio::buscarPorPalabraClave);
+    }
+    
     @Override
     public Optional<List<ArtCientificoDTO>> obtenerTodos() {
         return repositorio.obtenerTodos();
     }
     
+    @Override
+    public PaginaArticulos obtenerPagina(Optional<Long> cursorOpt, int tamanio) {
+        return repositorio.obtenerPagina(cursorOpt, tamanio);
+    }
+    
+    @Override
+    public Stream<ArtCientificoDTO> recorrerTodos() {
+        return repositorio.recorrerTodos();
+    }
+    
     @Override
     public Optional<Boolean> eliminar(Optional<Long> idOpt) {
         // Verificamos que el artículo exista antes de intentar eliminarlo
         return idOpt.flatMap(id -> 
-            buscarPorId(Optional.of(id))
-                .map(existente -> repositorio.eliminar(id))
-                .orElse(Optional.of(false)) // Si no existe, indicamos que no se eliminó
+            repositorio.existe(id)
+                ? repositorio.eliminar(id)
+                : Optional.of(false) // Si no existe, indicamos que no se eliminó
         );
     }
     
@@ -82,48 +202,24 @@ public class ArtCientificoServiceImpl implements ArtCientificoService {
     public Optional<ArtCientificoDTO> restaurarArticulo(Optional<Long> idOpt) {
         return idOpt.flatMap(id -> {
             // Verificar primero si el artículo ya existe
-            boolean articuloExiste = repositorio.obtenerTodos()
-                .map(articulos -> articulos.stream()
-                    .anyMatch(art -> art.getId().isPresent() && art.getId().get().equals(id)))
-                .orElse(false);
-                
-            if (articuloExiste) {
+            if (repositorio.existe(id)) {
                 return Optional.empty();
             }
             
-            // Buscar el evento de eliminación más reciente
-            return repositorio.obtenerHistorialEventos()
-                .flatMap(eventos -> eventos.stream()
-                    .filter(evento -> evento.getTipoEvento() == TipoEvento.ELIMINACION)
-                    .filter(evento -> evento.getArticulo().getId()
-                        .map(artId -> artId.equals(id))
-                        .orElse(false))
-                    .max((e1, e2) -> e1.getFechaEvento().compareTo(e2.getFechaEvento()))
-                    .map(eventoEliminacion -> {
-                        // Obtener el artículo del evento
-                        ArtCientificoDTO articuloEliminado = eventoEliminacion.getArticulo();
-                        
-                        // Crear una copia del artículo con el ID original
-                        ArtCientificoDTO articuloRestaurado = new ArtCientificoDTO.BuilderDTO()
-                            .conId(id)
-                            .conNombre(articuloEliminado.getNombre().orElse(null))
-                            .conAutor(articuloEliminado.getAutor().orElse(null))
-                            .conPalabrasClaves(articuloEliminado.getPalabrasClaves().orElse(null))
-                            .conAnio(articuloEliminado.getAnio().orElse(null))
-                            .conResumen(articuloEliminado.getResumen().orElse(null))
-                            .build();
-                        
-                        // Usar el nuevo método restaurar del repositorio
-                        Optional<ArtCientificoDTO> resultado = repositorio.restaurar(articuloRestaurado);
-                        
-                        // Registrar evento de restauración si se restauró correctamente
-                        resultado.ifPresent(art -> 
-                            repositorio.registrarEvento(art, TipoEvento.RESTAURACION));
-                        
-                        return resultado;
-                    })
-                    .orElse(Optional.empty())
-                );
+            // La eliminación más reciente es la de mayor secuencia, que guarda el índice de lápidas
+            return repositorio.buscarUltimaEliminacion(id)
+                .flatMap(eventoEliminacion -> {
+                    // Obtener el artículo del evento
+                    ArtCientificoDTO articuloEliminado = eventoEliminacion.getArticulo();
+                    
+                    // Crear una copia del artículo con el ID original
+                    ArtCientificoDTO articuloRestaurado = new ArtCientificoDTO.BuilderDTO(articuloEliminado)
+                        .conId(id)
+                        .build();
+                    
+                    // El repositorio restaura el artículo y registra el evento de restauración
+                    return repositorio.restaurar(articuloRestaurado);
+                });
         });
     }
     
@@ -134,25 +230,80 @@ public class ArtCientificoServiceImpl implements ArtCientificoService {
     
     @Override
     public Optional<List<EventoHistorial>> obtenerHistorialPorTipo(Optional<TipoEvento> tipoEventoOpt) {
-        return tipoEventoOpt.flatMap(tipoEvento -> 
-            repositorio.obtenerHistorialEventos()
-                .map(historial -> historial.stream()
-                    .filter(evento -> evento.getTipoEvento() == tipoEvento)
-                    .collect(Collectors.toList()))
-                .filter(lista -> !lista.isEmpty())
-        );
+        // El índice temporal salta las cubetas sin eventos del tipo pedido
+        return tipoEventoOpt.flatMap(tipoEvento ->
+            repositorio.buscarEventosEntre(Long.MIN_VALUE, Long.MAX_VALUE, Optional.of(tipoEvento)));
     }
     
     @Override
     public Optional<List<EventoHistorial>> obtenerHistorialPorArticulo(Optional<Long> idOpt) {
-        return idOpt.flatMap(id -> 
-            repositorio.obtenerHistorialEventos()
-                .map(historial -> historial.stream()
-                    .filter(evento -> evento.getArticulo().getId()
-                        .map(articuloId -> articuloId.equals(id))
-                        .orElse(false))
-                    .collect(Collectors.toList()))
-                .filter(lista -> !lista.isEmpty())
-        );
+        // Cadena de eventos del artículo, sin recorrer el historial completo
+        return idOpt.flatMap(repositorio::obtenerHistorialArticulo);
+    }
+    
+    @Override
+    public Optional<List<EventoHistorial>> obtenerHistorialEntre(Optional<LocalDateTime> desdeOpt,
+                                                                 Optional<LocalDateTime> hastaOpt,
+                                                                 Optional<TipoEvento> tipoEventoOpt) {
+        return repositorio.buscarEventosEntre(
+            desdeOpt.map(this::aMarcaTiempo).orElse(Long.MIN_VALUE),
+            hastaOpt.map(this::aMarcaTiempo).orElse(Long.MAX_VALUE),
+            tipoEventoOpt);
+    }
+    
+    @Override
+    public Optional<List<ConteoIntervalo>> contarActividad(Optional<LocalDateTime> desdeOpt,
+                                                           Optional<LocalDateTime> hastaOpt,
+                                                           Optional<Duration> intervaloOpt,
+                                                           Optional<TipoEvento> tipoEventoOpt) {
+        return desdeOpt.map(this::aMarcaTiempo)
+            .flatMap(desde -> intervaloOpt
+                .map(Duration::toMillis)
+                .filter(ancho -> ancho > 0)
+                .map(ancho -> {
+                    List<ConteoIntervalo> conteos = new ArrayList<>();
+                    long hasta = hastaOpt.map(this::aMarcaTiempo).orElseGet(System::currentTimeMillis);
+                    repositorio.contarEventosPorIntervalo(desde, hasta, ancho, tipoEventoOpt, conteos::add);
+                    return conteos;
+                }));
+    }
+    
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnFecha(Optional<Long> idOpt, Optional<LocalDateTime> fechaOpt) {
+        return idOpt.flatMap(id -> fechaOpt.map(this::aMarcaTiempo)
+            .flatMap(marcaTiempo -> repositorio.buscarPorIdEnInstante(id, marcaTiempo)));
+    }
+    
+    @Override
+    public Optional<ArtCientificoDTO> buscarPorIdEnSecuencia(Optional<Long> idOpt, Optional<Long> secuenciaOpt) {
+        return idOpt.flatMap(id -> secuenciaOpt
+            .flatMap(secuencia -> repositorio.buscarPorIdEnSecuencia(id, secuencia)));
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnFecha(Optional<LocalDateTime> fechaOpt) {
+        return fechaOpt.map(this::aMarcaTiempo).flatMap(repositorio::obtenerTodosEnInstante);
+    }
+    
+    @Override
+    public Optional<List<ArtCientificoDTO>> obtenerTodosEnSecuencia(Optional<Long> secuenciaOpt) {
+        return secuenciaOpt.flatMap(repositorio::obtenerTodosEnSecuencia);
+    }
+    
+    @Override
+    public BusEventos.Suscripcion suscribirEventos(SuscriptorEventos suscriptor, EstrategiaEspera estrategia) {
+        return repositorio.suscribir(suscriptor, estrategia);
+    }
+    
+    @Override
+    public CursorCambios abrirCambios(Optional<Long> desdeSecuenciaOpt) {
+        return repositorio.abrirCambios(desdeSecuenciaOpt);
+    }
+    
+    /**
+     * Convierte una fecha de la zona horaria del sistema en marca de tiempo del historial
+     */
+    private long aMarcaTiempo(LocalDateTime fecha) {
+        return fecha.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,137 @@
+package service.importacion;
+
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Analizador de entradas BibTeX del tipo @article{clave, campo = valor, ...}. Los valores pueden
+ * ir entre llaves, entre comillas o sin delimitar, y concatenarse con '#'; las llaves internas se
+ * quitan y los espacios se normalizan. Los autores separados por "and" se unen con punto y coma. Las
+ * entradas @comment, @preamble y @string no son artículos y se omiten; las macros definidas con
+ * @string no se expanden.
+ */
+final class AnalizadorBibtex implements AnalizadorRegistro {
+
+    // Tipos de entrada que no describen una referencia
+    private static final Set<String> TIPOS_OMITIDOS = Set.of("comment", "preamble", "string");
+
+    @Override
+    public Optional<ArtCientificoDTO> analizar(String texto) {
+        return new Lector(texto).entrada();
+    }
+
+    /**
+     * Analizador descendente de una entrada
+     */
+    private static final class Lector {
+        private final String texto;
+        private int posicion;
+
+        private Lector(String texto) {
+            this.texto = texto;
+        }
+
+        private Optional<ArtCientificoDTO> entrada() {
+            esperar('@');
+            String tipo = hasta("{").trim().toLowerCase(Locale.ROOT);
+            esperar('{');
+            if (TIPOS_OMITIDOS.contains(tipo)) {
+                return Optional.empty();
+            }
+            if (tipo.isEmpty()) {
+                throw new IllegalArgumentException("Entrada BibTeX sin tipo");
+            }
+            ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO();
+            // La clave de cita no se guarda
+            hasta(",}");
+            while (consumir(',')) {
+                saltarEspacios();
+                if (posicion < texto.length() && texto.charAt(posicion) == '}') {
+                    break;
+                }
+                String nombre = hasta("=,}").trim();
+                esperar('=');
+                String valor = valor();
+                CampoArticulo.buscar(nombre).ifPresent(campo -> campo.asignar(builder,
+                    campo == CampoArticulo.AUTOR ? valor.replaceAll("\\s+and\\s+", "; ") : valor));
+            }
+            esperar('}');
+            return Optional.of(builder.build());
+        }
+
+        /**
+         * Lee un valor, con sus concatenaciones, sin llaves internas y con los espacios normalizados
+         */
+        private String valor() {
+            StringBuilder valor = new StringBuilder();
+            do {
+                saltarEspacios();
+                if (consumir('{')) {
+                    valor.append(delimitado('}'));
+                } else if (consumir('"')) {
+                    valor.append(delimitado('"'));
+                } else {
+                    valor.append(hasta("#,}").trim());
+                }
+            } while (consumir('#'));
+            return valor.toString().replace("{", "").replace("}", "").replaceAll("\\s+", " ").trim();
+        }
+
+        /**
+         * Lee hasta el cierre indicado fuera de llaves anidadas, y lo consume
+         */
+        private String delimitado(char cierre) {
+            int inicio = posicion;
+            int profundidad = 0;
+            for (; posicion < texto.length(); posicion++) {
+                char c = texto.charAt(posicion);
+                if (c == cierre && profundidad == 0) {
+                    return texto.substring(inicio, posicion++);
+                }
+                if (c == '{') {
+                    profundidad++;
+                } else if (c == '}') {
+                    profundidad--;
+                }
+            }
+            throw new IllegalArgumentException("Entrada BibTeX sin cerrar");
+        }
+
+        /**
+         * Lee hasta el primero de los caracteres indicados, sin consumirlo
+         */
+        private String hasta(String delimitadores) {
+            int inicio = posicion;
+            while (posicion < texto.length() && delimitadores.indexOf(texto.charAt(posicion)) < 0) {
+                posicion++;
+            }
+            return texto.substring(inicio, posicion);
+        }
+
+        private void saltarEspacios() {
+            while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+                posicion++;
+            }
+        }
+
+        private boolean consumir(char c) {
+            saltarEspacios();
+            if (posicion < texto.length() && texto.charAt(posicion) == c) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        private void esperar(char c) {
+            if (!consumir(c)) {
+                throw new IllegalArgumentException(posicion < texto.length()
+                    ? "Se esperaba '" + c + "' en la posición " + posicion + " de la entrada BibTeX"
+                    : "Entrada BibTeX sin cerrar");
+            }
+        }
+    }
+}
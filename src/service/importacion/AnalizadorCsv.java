@@ -0,0 +1,81 @@
+package service.importacion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import dto.ArtCientificoDTO;
+
+/**
+ * Analizador de filas CSV (RFC 4180): campos separados por comas, entre comillas dobles si
+ * contienen comas, comillas o saltos de línea, y comillas dobladas dentro de un campo entre
+ * comillas. Las columnas se identifican por la fila de cabecera; las desconocidas se ignoran.
+ */
+final class AnalizadorCsv implements AnalizadorRegistro {
+
+    // Campo de cada columna, o vacío si la columna se ignora
+    private final List<Optional<CampoArticulo>> columnas;
+
+    /**
+     * Constructor
+     * @param cabecera la fila de cabecera
+     * @throws IllegalArgumentException si la cabecera no tiene ninguna columna conocida
+     */
+    AnalizadorCsv(String cabecera) {
+        this.columnas = campos(cabecera).stream()
+            .map(CampoArticulo::buscar)
+            .toList();
+        if (columnas.stream().noneMatch(Optional::isPresent)) {
+            throw new IllegalArgumentException("La cabecera CSV no tiene ninguna columna conocida: " + cabecera);
+        }
+    }
+
+    @Override
+    public Optional<ArtCientificoDTO> analizar(String texto) {
+        List<String> valores = campos(texto);
+        if (valores.size() != columnas.size()) {
+            throw new IllegalArgumentException("Se esperaban " + columnas.size() + " columnas y hay " + valores.size());
+        }
+        ArtCientificoDTO.BuilderDTO builder = new ArtCientificoDTO.BuilderDTO();
+        for (int i = 0; i < valores.size(); i++) {
+            String valor = valores.get(i);
+            columnas.get(i).ifPresent(campo -> campo.asignar(builder, valor));
+        }
+        return Optional.of(builder.build());
+    }
+
+    /**
+     * Separa una fila en sus campos, quitando las comillas
+     * @throws IllegalArgumentException si hay comillas sin cerrar
+     */
+    static List<String> campos(String fila) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean enComillas = false;
+        for (int i = 0; i < fila.length(); i++) {
+            char c = fila.charAt(i);
+            if (enComillas) {
+                if (c != '"') {
+                    campo.append(c);
+                } else if (i + 1 < fila.length() && fila.charAt(i + 1) == '"') {
+                    campo.append('"');
+                    i++;
+                } else {
+                    enComillas = false;
+                }
+            } else if (c == '"') {
+                enComillas = true;
+            } else if (c == ',') {
+                campos.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        if (enComillas) {
+            throw new IllegalArgumentException("Comillas sin cerrar");
+        }
+        campos.add(campo.toString());
+        return campos;
+    }
+}
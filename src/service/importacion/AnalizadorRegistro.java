@@ -0,0 +1,47 @@
+package service.importacion;
+
+import java.util.Optional;
+
+import common.types.FormatoArchivo;
+import dto.ArtCientificoDTO;
+import repository.codec.CodecJson;
+
+/**
+ * Convierte el texto de un registro de un archivo de importación en un artículo. Los
+ * analizadores no guardan estado entre registros, así que se pueden usar desde varios hilos.
+ */
+@FunctionalInterface
+interface AnalizadorRegistro {
+
+    /**
+     * Analiza un registro
+     * @param texto el texto del registro
+     * @return Optional con el artículo, o vacío si el registro no describe un artículo y se
+     *         omite (por ejemplo, un @comment de BibTeX)
+     * @throws IllegalArgumentException si el registro no es válido, con el motivo en el mensaje
+     */
+    Optional<ArtCientificoDTO> analizar(String texto);
+
+    /**
+     * Crea el analizador de un formato
+     * @param formato el formato del archivo
+     * @param cabecera la fila de cabecera, solo para CSV
+     * @return el analizador
+     * @throws IllegalArgumentException si la cabecera CSV no tiene ninguna columna conocida
+     */
+    static AnalizadorRegistro para(FormatoArchivo formato, String cabecera) {
+        return switch (formato) {
+            case CSV -> new AnalizadorCsv(cabecera);
+            case JSONL -> AnalizadorRegistro::analizarJson;
+            case BIBTEX -> new AnalizadorBibtex();
+        };
+    }
+
+    private static Optional<ArtCientificoDTO> analizarJson(String texto) {
+        try {
+            return Optional.of(CodecJson.decodificar(texto.trim()));
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Año fuera de rango");
+        }
+    }
+}
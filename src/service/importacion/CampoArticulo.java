@@ -0,0 +1,112 @@
+package service.importacion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import common.validacion.ValidacionArticulo;
+import dto.ArtCientificoDTO;
+
+/**
+ * Campos de un artículo que se reconocen en los archivos de importación, con los nombres de
+ * columna (CSV) o de campo (BibTeX) que se aceptan para cada uno, y su conversión desde texto
+ */
+enum CampoArticulo {
+    ID("id"),
+    NOMBRE("nombre", "titulo", "título", "title"),
+    AUTOR("autor", "autores", "author"),
+    ANIO("anio", "año", "year"),
+    PALABRAS_CLAVES("palabrasclaves", "palabras_claves", "palabras clave", "keywords"),
+    RESUMEN("resumen", "abstract");
+
+    // Campo de cada nombre aceptado, en minúsculas
+    private static final Map<String, CampoArticulo> POR_NOMBRE = Arrays.stream(values())
+        .flatMap(campo -> Arrays.stream(campo.nombres).map(nombre -> Map.entry(nombre, campo)))
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+    private final String[] nombres;
+
+    CampoArticulo(String... nombres) {
+        this.nombres = nombres;
+    }
+
+    /**
+     * Busca el campo que corresponde a un nombre de columna o de campo
+     * @param nombre el nombre, sin distinguir mayúsculas
+     * @return Optional con el campo, o vacío si no se reconoce
+     */
+    static Optional<CampoArticulo> buscar(String nombre) {
+        return Optional.ofNullable(nombre)
+            .map(texto -> texto.trim().toLowerCase(Locale.ROOT))
+            .map(POR_NOMBRE::get);
+    }
+
+    /**
+     * Asigna el valor del campo en el builder; un valor en blanco deja el campo vacío. El año
+     * se valida con las mismas reglas que en la entrada interactiva y las palabras clave se
+     * separan por comas (o por punto y coma, habitual en BibTeX); una barra invertida delante
+     * de una coma, un punto y coma u otra barra invertida incluye ese carácter en la palabra.
+     * @param builder el builder del artículo
+     * @param valor el texto del valor
+     * @throws IllegalArgumentException si el ID o el año no son números enteros
+     */
+    void asignar(ArtCientificoDTO.BuilderDTO builder, String valor) {
+        String texto = valor == null ? "" : valor.trim();
+        if (texto.isEmpty()) {
+            return;
+        }
+        switch (this) {
+            case ID -> builder.conId(entero(texto, "ID"));
+            case NOMBRE -> builder.conNombre(texto);
+            case AUTOR -> builder.conAutor(texto);
+            case ANIO -> builder.conAnio(anio(texto));
+            case PALABRAS_CLAVES -> builder.conPalabrasClaves(palabras(texto));
+            case RESUMEN -> builder.conResumen(texto);
+        }
+    }
+
+    private static Long entero(String texto, String campo) {
+        try {
+            return Long.parseLong(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(campo + " inválido: " + texto);
+        }
+    }
+
+    private static Integer anio(String texto) {
+        try {
+            return ValidacionArticulo.anioOpcional(texto).orElse(null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Año inválido: " + texto);
+        }
+    }
+
+    private static List<String> palabras(String texto) {
+        List<String> palabras = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == '\\' && i + 1 < texto.length() && "\\,;".indexOf(texto.charAt(i + 1)) >= 0) {
+                actual.append(texto.charAt(++i));
+            } else if (c == ',' || c == ';') {
+                agregarPalabra(actual, palabras);
+            } else {
+                actual.append(c);
+            }
+        }
+        agregarPalabra(actual, palabras);
+        return palabras;
+    }
+
+    private static void agregarPalabra(StringBuilder actual, List<String> palabras) {
+        String palabra = actual.toString().trim();
+        if (!palabra.isEmpty()) {
+            palabras.add(palabra);
+        }
+        actual.setLength(0);
+    }
+}
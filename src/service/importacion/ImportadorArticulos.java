@@ -0,0 +1,299 @@
+package service.importacion;
+
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import common.types.FormatoArchivo;
+import dto.ArtCientificoDTO;
+
+/**
+ * Importación masiva de artículos desde archivos CSV, JSONL o BibTeX.
+ * <p>
+ * El archivo se lee en flujo por un solo hilo, que lo corta en trozos de registros; los trozos
+ * se analizan en paralelo en un grupo de hilos y se guardan en el destino (normalmente
+ * guardarLote del servicio) en el orden del archivo, un lote por trozo. Como mucho hay dos trozos
+ * por hilo leídos y sin guardar, de modo que la memoria usada no depende del tamaño del archivo.
+ * <p>
+ * Un registro mal formado o que el destino no puede guardar (por ejemplo, la actualización de un
+ * ID que no existe, si el destino no la convierte en una creación) se rechaza sin detener la
+ * importación; un error del propio archivo o del destino la interrumpe, y los lotes ya guardados
+ * permanecen.
+ */
+public class ImportadorArticulos {
+
+    // Registros por lote por defecto
+    public static final int TAMANIO_LOTE = 1000;
+
+    // Rechazos que se detallan en el informe por defecto (el resto solo se cuentan)
+    public static final int MAXIMO_RECHAZOS_DETALLADOS = 1000;
+
+    // Intervalo mínimo entre dos informes de progreso
+    private static final long NANOS_ENTRE_PROGRESOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final AtomicInteger numeroHilos = new AtomicInteger();
+
+    private final Function<List<ArtCientificoDTO>, List<Optional<ArtCientificoDTO>>> destino;
+    private final int tamanioLote;
+    private final int hilos;
+    private final int maximoRechazosDetallados;
+    private final Consumer<InformeImportacion> progreso;
+
+    private ImportadorArticulos(BuilderImportador builder) {
+        this.destino = builder.destino;
+        this.tamanioLote = builder.tamanioLote;
+        this.hilos = builder.hilos;
+        this.maximoRechazosDetallados = builder.maximoRechazosDetallados;
+        this.progreso = builder.progreso;
+    }
+
+    /**
+     * Importa un archivo
+     * @param archivo el archivo
+     * @param formato el formato del archivo
+     * @return el informe final de la importación
+     * @throws java.io.UncheckedIOException si no se puede leer el archivo
+     * @throws IllegalArgumentException si la cabecera de un CSV no tiene ninguna columna conocida
+     * @throws IllegalStateException si la importación se interrumpe
+     */
+    public InformeImportacion importar(Path archivo, FormatoArchivo formato) {
+        ExecutorService grupo = Executors.newFixedThreadPool(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "importacion-" + numeroHilos.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        try (LectorRegistros lector = LectorRegistros.abrir(archivo, formato)) {
+            Importacion importacion = new Importacion(lector);
+            if (!lector.hasNext()) {
+                return importacion.terminar();
+            }
+            AnalizadorRegistro analizador = AnalizadorRegistro.para(formato,
+                formato == FormatoArchivo.CSV ? lector.next().getTexto() : null);
+
+            Deque<Future<Trozo>> enCurso = new ArrayDeque<>();
+            List<Registro> registros = new ArrayList<>(tamanioLote);
+            while (lector.hasNext()) {
+                registros.add(lector.next());
+                if (registros.size() == tamanioLote) {
+                    List<Registro> trozo = registros;
+                    enCurso.add(grupo.submit(() -> analizar(trozo, analizador)));
+                    registros = new ArrayList<>(tamanioLote);
+                    if (enCurso.size() >= 2 * hilos) {
+                        importacion.guardar(esperar(enCurso.poll()));
+                    }
+                }
+            }
+            if (!registros.isEmpty()) {
+                List<Registro> trozo = registros;
+                enCurso.add(grupo.submit(() -> analizar(trozo, analizador)));
+            }
+            while (!enCurso.isEmpty()) {
+                importacion.guardar(esperar(enCurso.poll()));
+            }
+            return importacion.terminar();
+        } finally {
+            grupo.shutdownNow();
+        }
+    }
+
+    /**
+     * Analiza los registros de un trozo; se ejecuta en el grupo de hilos
+     */
+    private static Trozo analizar(List<Registro> registros, AnalizadorRegistro analizador) {
+        Trozo trozo = new Trozo(registros.size());
+        for (Registro registro : registros) {
+            if (registro.isTruncado()) {
+                trozo.rechazos.add(new InformeImportacion.Rechazo(registro.getLinea(),
+                    "Registro de más de " + LectorRegistros.TAMANIO_MAXIMO_REGISTRO + " caracteres"));
+                continue;
+            }
+            try {
+                analizador.analizar(registro.getTexto()).ifPresentOrElse(articulo -> {
+                    trozo.articulos.add(articulo);
+                    trozo.lineas.add(registro.getLinea());
+                }, () -> trozo.omitidos++);
+            } catch (RuntimeException e) {
+                trozo.rechazos.add(new InformeImportacion.Rechazo(registro.getLinea(),
+                    Optional.ofNullable(e.getMessage()).orElse(e.getClass().getSimpleName())));
+            }
+        }
+        return trozo;
+    }
+
+    private static Trozo esperar(Future<Trozo> trozo) {
+        try {
+            return trozo.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error al analizar un trozo del archivo", e.getCause());
+        }
+    }
+
+    /**
+     * Artículos analizados de un trozo, con la línea de cada uno, y sus rechazos
+     */
+    private static final class Trozo {
+        private final List<ArtCientificoDTO> articulos;
+        private final List<Long> lineas;
+        private final List<InformeImportacion.Rechazo> rechazos = new ArrayList<>();
+        private int omitidos;
+
+        private Trozo(int tamanio) {
+            this.articulos = new ArrayList<>(tamanio);
+            this.lineas = new ArrayList<>(tamanio);
+        }
+    }
+
+    /**
+     * Estado de una importación en curso; solo lo usa el hilo que lee el archivo
+     */
+    private final class Importacion {
+        private final LectorRegistros lector;
+        private final long inicio = System.nanoTime();
+        private long ultimoProgreso = inicio;
+        private long registros;
+        private long importados;
+        private long rechazados;
+        private long omitidos;
+        private final List<InformeImportacion.Rechazo> detalleRechazos = new ArrayList<>();
+
+        private Importacion(LectorRegistros lector) {
+            this.lector = lector;
+        }
+
+        /**
+         * Guarda los artículos de un trozo en un lote y contabiliza sus resultados
+         */
+        private void guardar(Trozo trozo) {
+            List<Optional<ArtCientificoDTO>> resultados = trozo.articulos.isEmpty()
+                ? List.of()
+                : destino.apply(trozo.articulos);
+            // Los rechazos del análisis y del guardado, en orden de línea
+            List<InformeImportacion.Rechazo> rechazos = new ArrayList<>(trozo.rechazos);
+            for (int i = 0; i < resultados.size(); i++) {
+                if (resultados.get(i).isPresent()) {
+                    importados++;
+                } else {
+                    rechazos.add(new InformeImportacion.Rechazo(trozo.lineas.get(i), "No se pudo guardar el artículo"
+                        + trozo.articulos.get(i).getId().map(id -> ": no existe el artículo con ID " + id).orElse("")));
+                }
+            }
+            rechazos.sort((a, b) -> Long.compare(a.getLinea(), b.getLinea()));
+            registros += trozo.articulos.size() + trozo.rechazos.size() + trozo.omitidos;
+            rechazados += rechazos.size();
+            omitidos += trozo.omitidos;
+            rechazos.stream()
+                .limit(Math.max(0, maximoRechazosDetallados - detalleRechazos.size()))
+                .forEach(detalleRechazos::add);
+
+            long ahora = System.nanoTime();
+            if (ahora - ultimoProgreso >= NANOS_ENTRE_PROGRESOS) {
+                ultimoProgreso = ahora;
+                progreso.accept(informe(false));
+            }
+        }
+
+        /**
+         * Entrega al oyente el informe final y lo devuelve
+         */
+        private InformeImportacion terminar() {
+            InformeImportacion informe = informe(true);
+            progreso.accept(informe);
+            return informe;
+        }
+
+        private InformeImportacion informe(boolean terminado) {
+            return new InformeImportacion(registros, importados, rechazados, omitidos,
+                lector.getBytesLeidos(), System.nanoTime() - inicio, terminado, detalleRechazos);
+        }
+    }
+
+    /**
+     * BuilderImportador para crear instancias de ImportadorArticulos
+     */
+    public static class BuilderImportador {
+        private final Function<List<ArtCientificoDTO>, List<Optional<ArtCientificoDTO>>> destino;
+        private int tamanioLote = TAMANIO_LOTE;
+        private int hilos = Runtime.getRuntime().availableProcessors();
+        private int maximoRechazosDetallados = MAXIMO_RECHAZOS_DETALLADOS;
+        private Consumer<InformeImportacion> progreso = informe -> { };
+
+        /**
+         * Crea un builder
+         * @param destino dónde se guarda cada lote; devuelve el resultado de cada artículo en
+         *                el orden del lote, vacío si no se pudo guardar
+         */
+        public BuilderImportador(Function<List<ArtCientificoDTO>, List<Optional<ArtCientificoDTO>>> destino) {
+            this.destino = destino;
+        }
+
+        /**
+         * Establece el número de registros de cada lote
+         * @param tamanioLote el número de registros, positivo
+         * @return el builder para encadenamiento
+         */
+        public BuilderImportador conTamanioLote(int tamanioLote) {
+            this.tamanioLote = tamanioLote;
+            return this;
+        }
+
+        /**
+         * Establece el número de hilos que analizan los registros
+         * @param hilos el número de hilos, positivo
+         * @return el builder para encadenamiento
+         */
+        public BuilderImportador conHilos(int hilos) {
+            this.hilos = hilos;
+            return this;
+        }
+
+        /**
+         * Establece cuántos rechazos se detallan en el informe
+         * @param maximoRechazosDetallados el número de rechazos, no negativo
+         * @return el builder para encadenamiento
+         */
+        public BuilderImportador conMaximoRechazosDetallados(int maximoRechazosDetallados) {
+            this.maximoRechazosDetallados = maximoRechazosDetallados;
+            return this;
+        }
+
+        /**
+         * Establece el oyente del progreso, que recibe un informe como mucho cada segundo y
+         * el informe final
+         * @param progreso el oyente
+         * @return el builder para encadenamiento
+         */
+        public BuilderImportador conProgreso(Consumer<InformeImportacion> progreso) {
+            this.progreso = progreso;
+            return this;
+        }
+
+        /**
+         * Construye el importador
+         * @return el importador
+         * @throws IllegalArgumentException si falta el destino o algún parámetro no es válido
+         */
+        public ImportadorArticulos build() {
+            if (destino == null || progreso == null) {
+                throw new IllegalArgumentException("El destino y el oyente del progreso son obligatorios");
+            }
+            if (tamanioLote <= 0 || hilos <= 0 || maximoRechazosDetallados < 0) {
+                throw new IllegalArgumentException("El tamaño de lote y los hilos deben ser positivos");
+            }
+            return new ImportadorArticulos(this);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package service.importacion;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado de una importación, o su progreso si aún está en curso: registros leídos,
+ * importados, rechazados y omitidos, volumen leído, rendimiento y detalle de los rechazos
+ */
+public final class InformeImportacion {
+
+    private final long registros;
+    private final long importados;
+    private final long rechazados;
+    private final long omitidos;
+    private final long bytesLeidos;
+    private final long nanos;
+    private final boolean terminado;
+    private final List<Rechazo> detalleRechazos;
+
+    InformeImportacion(long registros, long importados, long rechazados, long omitidos,
+                       long bytesLeidos, long nanos, boolean terminado, List<Rechazo> detalleRechazos) {
+        this.registros = registros;
+        this.importados = importados;
+        this.rechazados = rechazados;
+        this.omitidos = omitidos;
+        this.bytesLeidos = bytesLeidos;
+        this.nanos = nanos;
+        this.terminado = terminado;
+        this.detalleRechazos = List.copyOf(detalleRechazos);
+    }
+
+    /**
+     * Registro rechazado, con la línea del archivo en la que empieza y el motivo
+     */
+    public static final class Rechazo {
+        private final long linea;
+        private final String motivo;
+
+        Rechazo(long linea, String motivo) {
+            this.linea = linea;
+            this.motivo = motivo;
+        }
+
+        /**
+         * Obtiene la línea del archivo en la que empieza el registro
+         * @return el número de línea, desde 1
+         */
+        public long getLinea() {
+            return linea;
+        }
+
+        /**
+         * Obtiene el motivo del rechazo
+         * @return el motivo
+         */
+        public String getMotivo() {
+            return motivo;
+        }
+
+        @Override
+        public String toString() {
+            return "línea " + linea + ": " + motivo;
+        }
+    }
+
+    /**
+     * Obtiene el número de registros procesados
+     * @return el número de registros
+     */
+    public long getRegistros() {
+        return registros;
+    }
+
+    /**
+     * Obtiene el número de artículos guardados en el repositorio
+     * @return el número de artículos
+     */
+    public long getImportados() {
+        return importados;
+    }
+
+    /**
+     * Obtiene el número de registros rechazados por no ser válidos o no poder guardarse
+     * @return el número de registros
+     */
+    public long getRechazados() {
+        return rechazados;
+    }
+
+    /**
+     * Obtiene el número de registros omitidos por no describir un artículo
+     * @return el número de registros
+     */
+    public long getOmitidos() {
+        return omitidos;
+    }
+
+    /**
+     * Obtiene los bytes leídos del archivo
+     * @return el número de bytes
+     */
+    public long getBytesLeidos() {
+        return bytesLeidos;
+    }
+
+    /**
+     * Obtiene el tiempo transcurrido desde el inicio de la importación
+     * @return la duración
+     */
+    public Duration getDuracion() {
+        return Duration.ofNanos(nanos);
+    }
+
+    /**
+     * Obtiene el rendimiento medio en registros procesados por segundo
+     * @return los registros por segundo
+     */
+    public double getRegistrosPorSegundo() {
+        return nanos == 0 ? 0 : registros * 1e9 / nanos;
+    }
+
+    /**
+     * Obtiene el rendimiento medio en megabytes leídos por segundo
+     * @return los megabytes por segundo
+     */
+    public double getMegabytesPorSegundo() {
+        return nanos == 0 ? 0 : bytesLeidos * 1e9 / nanos / (1 << 20);
+    }
+
+    /**
+     * Indica si la importación ha terminado o el informe es un progreso intermedio
+     * @return true si ha terminado
+     */
+    public boolean isTerminado() {
+        return terminado;
+    }
+
+    /**
+     * Obtiene el detalle de los primeros rechazos, hasta el máximo configurado en el importador
+     * @return los rechazos en orden de línea
+     */
+    public List<Rechazo> getDetalleRechazos() {
+        return detalleRechazos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d registros (%,d importados, %,d rechazados, %,d omitidos), %,.1f MB en %.1f s: %,.0f registros/s, %,.1f MB/s",
+            registros, importados, rechazados, omitidos, bytesLeidos / (double) (1 << 20), nanos / 1e9,
+            getRegistrosPorSegundo(), getMegabytesPorSegundo());
+    }
+}
@@ -0,0 +1,252 @@
+package service.importacion;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import common.types.FormatoArchivo;
+
+/**
+ * Lee un archivo de importación registro a registro, sin cargarlo entero en memoria.
+ * <p>
+ * Los límites de cada registro dependen del formato: en JSONL cada línea es un registro; en CSV
+ * también, salvo los saltos de línea dentro de un campo entre comillas; en BibTeX cada entrada va
+ * desde su '@' hasta la llave que cierra la primera que abre. Las líneas en blanco y el texto
+ * fuera de las entradas BibTeX se saltan. Un registro que supera TAMANIO_MAXIMO_REGISTRO se
+ * entrega truncado (y deja de tener en cuenta las comillas, para resincronizarse en el siguiente
+ * salto de línea), de modo que un archivo mal formado no puede agotar la memoria.
+ */
+final class LectorRegistros implements Iterator<Registro>, AutoCloseable {
+
+    // Número máximo de caracteres que se guardan de un registro
+    static final int TAMANIO_MAXIMO_REGISTRO = 1 << 20;
+
+    // Caracteres leídos de una vez del archivo
+    private static final int TAMANIO_BUFFER = 1 << 16;
+
+    private final Reader lector;
+    private final ContadorBytes contador;
+    private final FormatoArchivo formato;
+
+    private final char[] buffer = new char[TAMANIO_BUFFER];
+    private int posicion;
+    private int limite;
+    private boolean inicio = true;
+
+    // Línea en la que está el siguiente carácter por leer
+    private long linea = 1;
+
+    private final StringBuilder texto = new StringBuilder();
+    private boolean truncado;
+    private Registro siguiente;
+
+    private LectorRegistros(InputStream entrada, FormatoArchivo formato) {
+        this.contador = new ContadorBytes(entrada);
+        this.lector = new InputStreamReader(contador, StandardCharsets.UTF_8);
+        this.formato = formato;
+    }
+
+    /**
+     * Abre un archivo para leer sus registros
+     * @param archivo el archivo
+     * @param formato el formato del archivo
+     * @return el lector, que debe cerrarse al terminar
+     * @throws UncheckedIOException si no se puede abrir el archivo
+     */
+    static LectorRegistros abrir(Path archivo, FormatoArchivo formato) {
+        try {
+            return new LectorRegistros(Files.newInputStream(archivo), formato);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo abrir el archivo de importación " + archivo, e);
+        }
+    }
+
+    /**
+     * Obtiene los bytes leídos del archivo hasta ahora, para informar del progreso
+     * @return el número de bytes
+     */
+    long getBytesLeidos() {
+        return contador.leidos;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (siguiente == null) {
+            siguiente = formato == FormatoArchivo.BIBTEX ? leerEntrada() : leerFila(formato == FormatoArchivo.CSV);
+        }
+        return siguiente != null;
+    }
+
+    @Override
+    public Registro next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Registro registro = siguiente;
+        siguiente = null;
+        return registro;
+    }
+
+    /**
+     * Lee la siguiente línea no vacía; con comillas, los saltos de línea entre comillas no la terminan
+     */
+    private Registro leerFila(boolean comillas) {
+        while (true) {
+            int c = leerCaracter();
+            if (c < 0) {
+                return null;
+            }
+            long primeraLinea = linea;
+            empezarRegistro();
+            boolean enComillas = false;
+            for (; c >= 0; c = leerCaracter()) {
+                if (c == '\n') {
+                    linea++;
+                    if (!enComillas) {
+                        break;
+                    }
+                }
+                if (comillas && c == '"') {
+                    enComillas = !enComillas;
+                }
+                // Truncado, el registro termina en el siguiente salto de línea
+                enComillas &= agregar((char) c);
+            }
+            if (texto.length() > 0 && texto.charAt(texto.length() - 1) == '\r') {
+                texto.setLength(texto.length() - 1);
+            }
+            if (truncado || !texto.toString().isBlank()) {
+                return new Registro(primeraLinea, texto.toString(), truncado);
+            }
+        }
+    }
+
+    /**
+     * Lee la siguiente entrada BibTeX, desde su '@' hasta la llave que la cierra o el final del archivo
+     */
+    private Registro leerEntrada() {
+        int c;
+        do {
+            c = leerCaracter();
+            if (c == '\n') {
+                linea++;
+            }
+        } while (c >= 0 && c != '@');
+        if (c < 0) {
+            return null;
+        }
+        long primeraLinea = linea;
+        empezarRegistro();
+        agregar('@');
+        int profundidad = 0;
+        boolean abierta = false;
+        while ((c = leerCaracter()) >= 0) {
+            if (c == '\n') {
+                linea++;
+            }
+            agregar((char) c);
+            if (c == '{') {
+                profundidad++;
+                abierta = true;
+            } else if (c == '}' && abierta && --profundidad == 0) {
+                break;
+            }
+        }
+        return new Registro(primeraLinea, texto.toString(), truncado);
+    }
+
+    private void empezarRegistro() {
+        texto.setLength(0);
+        truncado = false;
+    }
+
+    /**
+     * Añade un carácter al registro en curso si cabe
+     * @return false si el registro ya está truncado
+     */
+    private boolean agregar(char c) {
+        if (texto.length() < TAMANIO_MAXIMO_REGISTRO) {
+            texto.append(c);
+        } else {
+            truncado = true;
+        }
+        return !truncado;
+    }
+
+    /**
+     * Lee el siguiente carácter del archivo, saltando la marca de orden de bytes inicial
+     * @return el carácter, o -1 al final del archivo
+     */
+    private int leerCaracter() {
+        if (posicion == limite) {
+            try {
+                limite = lector.read(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el archivo de importación", e);
+            }
+            posicion = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+            if (inicio) {
+                inicio = false;
+                if (buffer[0] == '\uFEFF') {
+                    posicion++;
+                    return leerCaracter();
+                }
+            }
+        }
+        return buffer[posicion++];
+    }
+
+    /**
+     * Cierra el archivo
+     * @throws UncheckedIOException si no se puede cerrar
+     */
+    @Override
+    public void close() {
+        try {
+            lector.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo cerrar el archivo de importación", e);
+        }
+    }
+
+    /**
+     * Flujo que cuenta los bytes leídos del archivo
+     */
+    private static final class ContadorBytes extends FilterInputStream {
+        private long leidos;
+
+        private ContadorBytes(InputStream entrada) {
+            super(entrada);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int longitud) throws IOException {
+            int n = super.read(destino, desde, longitud);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package service.importacion;
+
+/**
+ * Texto de un registro de un archivo de importación (una fila CSV, una línea JSON o una
+ * entrada BibTeX) con la línea en la que empieza, para los informes de rechazos
+ */
+final class Registro {
+    private final long linea;
+    private final String texto;
+    private final boolean truncado;
+
+    Registro(long linea, String texto, boolean truncado) {
+        this.linea = linea;
+        this.texto = texto;
+        this.truncado = truncado;
+    }
+
+    /**
+     * Obtiene la línea del archivo en la que empieza el registro, desde 1
+     * @return el número de línea
+     */
+    long getLinea() {
+        return linea;
+    }
+
+    /**
+     * Obtiene el texto del registro, sin el separador final
+     * @return el texto
+     */
+    String getTexto() {
+        return texto;
+    }
+
+    /**
+     * Indica si el registro superaba el tamaño máximo y su texto está incompleto
+     * @return true si está truncado
+     */
+    boolean isTruncado() {
+        return truncado;
+    }
+}
@@ -2,10 +2,14 @@ package view;
 
 import java.util.Optional;
 import java.util.List;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import common.validacion.ValidacionArticulo;
 import dto.ArtCientificoDTO;
+import repository.consulta.PaginaArticulos;
+import service.importacion.InformeImportacion;
 import view.io.EntradaSalidaIO;
 
 /**
@@ -15,6 +19,9 @@ import view.io.EntradaSalidaIO;
  */
 public class ArtCientificoView {
     
+    // Rechazos de una importación que se muestran al terminar
+    private static final int RECHAZOS_MOSTRADOS = 20;
+    
     private final EntradaSalidaIO io;
     
     // Declaro los miembros funcionales
@@ -24,6 +31,8 @@ public class ArtCientificoView {
     public final Consumer<String> mostrarExito;
     public final Consumer<Optional<ArtCientificoDTO>> mostrarArticulo;
     public final Consumer<Optional<List<ArtCientificoDTO>>> mostrarListaArticulos;
+    public final BiConsumer<PaginaArticulos, Integer> mostrarPaginaArticulos;
+    public final Consumer<InformeImportacion> mostrarInformeImportacion;
     public final Supplier<Optional<Long>> solicitarId;
     public final Function<String, Optional<String>> solicitarValor;
     public final Function<String, Boolean> confirmar;
@@ -55,6 +64,8 @@ public class ArtCientificoView {
             io.mostrarMensaje("5. Eliminar artículo");
             io.mostrarMensaje("6. Restaurar artículo eliminado");
             io.mostrarMensaje("7. Ver historial de eventos");
+            io.mostrarMensaje("8. Importar artículos desde archivo");
+            io.mostrarMensaje("9. Exportar artículos a archivo");
             io.mostrarMensaje("0. Salir");
             io.mostrarMensaje("Seleccione una opción: ");
         };
@@ -117,24 +128,43 @@ public class ArtCientificoView {
                     if (articulos.isEmpty()) {
                         io.mostrarMensaje("No hay artículos para mostrar.");
                     } else {
-                        articulos.forEach(articulo -> {
-                            io.mostrarMensaje("----------------------------");
-                            articulo.getId().ifPresent(id -> io.mostrarMensaje("ID: " + id));
-                            articulo.getNombre().ifPresent(nombre -> io.mostrarMensaje("Nombre: " + nombre));
-                            articulo.getAutor().ifPresent(autor -> io.mostrarMensaje("Autor: " + autor));
-                            articulo.getAnio().ifPresent(anio -> io.mostrarMensaje("Año: " + anio));
-                            articulo.getPalabrasClaves().ifPresent(palabras -> 
-                                io.mostrarMensaje("Palabras clave: " + String.join(", ", palabras))
-                            );
-                            articulo.getResumen().ifPresent(resumen -> 
-                                io.mostrarMensaje("Resumen: " + resumen)
-                            );
-                        });
+                        articulos.forEach(this::mostrarArticuloDeLista);
                     }
                 },
                 () -> io.mostrarMensaje("No hay artículos para mostrar.")
             );
         
+        /**
+         * BiConsumer que muestra una página de un listado de artículos con su número
+         */
+        this.mostrarPaginaArticulos = (pagina, numero) -> {
+            io.mostrarMensaje("\n=== LISTA DE ARTÍCULOS (página " + numero + ") ===");
+            if (pagina.getArticulos().isEmpty()) {
+                io.mostrarMensaje("No hay artículos para mostrar.");
+            } else {
+                pagina.getArticulos().forEach(this::mostrarArticuloDeLista);
+            }
+        };
+        
+        /**
+         * Consumer que muestra el progreso de una importación o, al terminar, su resumen y
+         * los primeros rechazos
+         */
+        this.mostrarInformeImportacion = informe -> {
+            if (!informe.isTerminado()) {
+                io.mostrarMensaje("Progreso: " + informe);
+                return;
+            }
+            io.mostrarMensaje("\n=== RESULTADO DE LA IMPORTACIÓN ===");
+            io.mostrarMensaje(informe.toString());
+            informe.getDetalleRechazos().stream()
+                .limit(RECHAZOS_MOSTRADOS)
+                .forEach(rechazo -> io.mostrarMensaje("Rechazado en la " + rechazo));
+            if (informe.getRechazados() > RECHAZOS_MOSTRADOS) {
+                io.mostrarMensaje("... y " + (informe.getRechazados() - RECHAZOS_MOSTRADOS) + " rechazos más");
+            }
+        };
+        
         /**
          * Supplier que solicita al usuario que ingrese el ID de un artículo
          */
@@ -169,6 +199,24 @@ public class ArtCientificoView {
         };
     }
 
+    /**
+     * Muestra un artículo como elemento de un listado
+     * @param articulo el artículo a mostrar
+     */
+    private void mostrarArticuloDeLista(ArtCientificoDTO articulo) {
+        io.mostrarMensaje("----------------------------");
+        articulo.getId().ifPresent(id -> io.mostrarMensaje("ID: " + id));
+        articulo.getNombre().ifPresent(nombre -> io.mostrarMensaje("Nombre: " + nombre));
+        articulo.getAutor().ifPresent(autor -> io.mostrarMensaje("Autor: " + autor));
+        articulo.getAnio().ifPresent(anio -> io.mostrarMensaje("Año: " + anio));
+        articulo.getPalabrasClaves().ifPresent(palabras -> 
+            io.mostrarMensaje("Palabras clave: " + String.join(", ", palabras))
+        );
+        articulo.getResumen().ifPresent(resumen -> 
+            io.mostrarMensaje("Resumen: " + resumen)
+        );
+    }
+
     // --- Nuevos métodos para solicitar entradas numéricas validadas ---
 
     /**
@@ -209,12 +257,9 @@ public class ArtCientificoView {
             Optional<String> inputOpt = io.leerEntrada();
 
             if (inputOpt.isPresent()) {
-                String input = inputOpt.get().trim(); // Quitar espacios
-                if (input.isEmpty()) {
-                    return Optional.empty(); // El usuario decidió omitir, es válido
-                }
                 try {
-                    return Optional.of(Integer.parseInt(input)); // Intentar convertir a Integer
+                    // En blanco el usuario decidió omitirlo, que es válido; si no, debe ser un entero
+                    return ValidacionArticulo.anioOpcional(inputOpt.get());
                 } catch (NumberFormatException e) {
                     mostrarError.accept("Entrada inválida. Por favor, ingrese un número válido para el año o déjelo en blanco.");
                     // El bucle continuará